@@ -0,0 +1,37 @@
+package br.com.fiap.aula_testes_api.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Envolve o {@link DataSource} num proxy do datasource-proxy para medir cada execução JDBC
+ * (inclusive as do {@code JdbcTemplate}) e alimentar o {@link ConsultaLentaListener}.
+ * O proxy repassa {@code unwrap}, então as métricas do pool Hikari continuam funcionando.
+ */
+public class ConsultaLentaDataSourcePostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final Duration limite;
+
+    public ConsultaLentaDataSourcePostProcessor(ObjectProvider<MeterRegistry> meterRegistry, Duration limite) {
+        this.meterRegistry = meterRegistry;
+        this.limite = limite;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+            return ProxyDataSourceBuilder.create(dataSource)
+                    .name(beanName)
+                    .listener(new ConsultaLentaListener(limite, meterRegistry.getObject()))
+                    .build();
+        }
+        return bean;
+    }
+}
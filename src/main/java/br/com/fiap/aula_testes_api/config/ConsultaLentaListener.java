@@ -0,0 +1,56 @@
+package br.com.fiap.aula_testes_api.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Registra no log, com o SQL, a quantidade de parâmetros e a duração, toda execução JDBC que
+ * passa do limite configurado, e conta essas execuções em {@code mensagem.sql.lentas}.
+ * Os valores dos parâmetros não são registrados.
+ */
+@Slf4j
+public class ConsultaLentaListener implements QueryExecutionListener {
+
+    private final long limiteMilis;
+    private final Counter consultasLentas;
+
+    public ConsultaLentaListener(Duration limite, MeterRegistry meterRegistry) {
+        this.limiteMilis = limite.toMillis();
+        this.consultasLentas = Counter.builder("mensagem.sql.lentas")
+                .description("Execuções JDBC acima de mensagem.sql.limite-consulta-lenta")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execucao, List<QueryInfo> consultas) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execucao, List<QueryInfo> consultas) {
+        if (execucao.getElapsedTime() < limiteMilis) {
+            return;
+        }
+        consultasLentas.increment();
+        var parametros = consultas.stream()
+                .flatMap(consulta -> consulta.getParametersList().stream())
+                .mapToInt(List::size)
+                .sum();
+        var sql = consultas.stream()
+                .map(QueryInfo::getQuery)
+                .collect(Collectors.joining("; "));
+        if (execucao.isBatch()) {
+            log.warn("Consulta lenta: {} ms, lote de {}, {} parâmetros: {}",
+                    execucao.getElapsedTime(), execucao.getBatchSize(), parametros, sql);
+        } else {
+            log.warn("Consulta lenta: {} ms, {} parâmetros: {}", execucao.getElapsedTime(), parametros, sql);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package br.com.fiap.aula_testes_api.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Datasource das conexões somente leitura: distribui entre os pools das réplicas conforme o
+ * {@link ReplicasLeitura.Balanceamento}. Se a réplica escolhida não entrega conexão, tenta as
+ * demais e, por fim, o principal. Com {@link LeituraPropria#primarioObrigatorio()} vai direto
+ * para o principal.
+ * <p>
+ * As conexões entregues são contadas em {@code mensagem.datasource.leituras}, com a tag
+ * {@code destino} ({@code replica-N} ou {@code primario}).
+ */
+@Slf4j
+public class DataSourceReplicas extends AbstractDataSource implements Closeable {
+
+    private final List<HikariDataSource> replicas;
+    private final DataSource primario;
+    private final ReplicasLeitura.Balanceamento balanceamento;
+    private final AtomicInteger proxima = new AtomicInteger();
+    private final List<Counter> leiturasReplica;
+    private final Counter leiturasPrimario;
+
+    public DataSourceReplicas(List<HikariDataSource> replicas, DataSource primario,
+                              ReplicasLeitura.Balanceamento balanceamento, MeterRegistry meterRegistry) {
+        this.replicas = List.copyOf(replicas);
+        this.primario = primario;
+        this.balanceamento = balanceamento;
+        this.leiturasReplica = IntStream.range(0, replicas.size())
+                .mapToObj(i -> leituras(meterRegistry, "replica-" + i))
+                .toList();
+        this.leiturasPrimario = leituras(meterRegistry, "primario");
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!LeituraPropria.primarioObrigatorio()) {
+            var inicio = escolher();
+            for (int i = 0; i < replicas.size(); i++) {
+                var indice = (inicio + i) % replicas.size();
+                try {
+                    var conexao = replicas.get(indice).getConnection();
+                    leiturasReplica.get(indice).increment();
+                    return conexao;
+                } catch (SQLException e) {
+                    log.warn("Réplica {} indisponível, tentando a próxima", indice, e);
+                }
+            }
+        }
+        var conexao = primario.getConnection();
+        leiturasPrimario.increment();
+        return conexao;
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new UnsupportedOperationException("As réplicas usam as credenciais configuradas para cada uma");
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+    }
+
+    private int escolher() {
+        if (balanceamento == ReplicasLeitura.Balanceamento.ROUND_ROBIN) {
+            return Math.floorMod(proxima.getAndIncrement(), replicas.size());
+        }
+        var escolhida = 0;
+        var menor = Integer.MAX_VALUE;
+        for (int i = 0; i < replicas.size(); i++) {
+            var pool = replicas.get(i).getHikariPoolMXBean();
+            // Pool ainda não iniciado: nenhuma conexão em uso.
+            var ativas = pool == null ? 0 : pool.getActiveConnections();
+            if (ativas < menor) {
+                menor = ativas;
+                escolhida = i;
+            }
+        }
+        return escolhida;
+    }
+
+    private static Counter leituras(MeterRegistry meterRegistry, String destino) {
+        return Counter.builder("mensagem.datasource.leituras")
+                .description("Conexões somente leitura entregues, por destino")
+                .tag("destino", destino)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,51 @@
+package br.com.fiap.aula_testes_api.config;
+
+import br.com.fiap.aula_testes_api.protobuf.MensagemProtobufHttpMessageConverter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Formatos binários para os clientes internos, negociados por {@code Accept}/{@code Content-Type}:
+ * CBOR ({@code application/cbor}), Smile ({@code application/x-jackson-smile}) e protobuf
+ * ({@code application/x-protobuf}, esquema em {@code proto/mensagem.proto}).
+ * <p>
+ * Os conversores entram depois do JSON, que continua sendo o formato de quem não pede outro.
+ * CBOR e Smile usam a mesma configuração do {@code ObjectMapper} da aplicação, inclusive o
+ * {@link br.com.fiap.aula_testes_api.json.MensagemJsonModule}; os conversores que o Spring MVC
+ * cria por padrão, sem essa configuração, são substituídos.
+ */
+@Configuration
+public class FormatosBinariosConfig implements WebMvcConfigurer {
+
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    private final Jackson2ObjectMapperBuilder objectMapperBuilder;
+
+    public FormatosBinariosConfig(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        this.objectMapperBuilder = objectMapperBuilder;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.removeIf(converter -> converter instanceof MappingJackson2CborHttpMessageConverter
+                || converter instanceof MappingJackson2SmileHttpMessageConverter);
+        converters.addAll(conversores(objectMapperBuilder));
+    }
+
+    public static List<HttpMessageConverter<?>> conversores(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        // O builder guarda a fábrica: cada build() usa a informada logo antes.
+        var cbor = objectMapperBuilder.factory(new CBORFactory()).build();
+        var smile = objectMapperBuilder.factory(new SmileFactory()).build();
+        return List.of(new MappingJackson2CborHttpMessageConverter(cbor),
+                new MappingJackson2SmileHttpMessageConverter(smile),
+                new MensagemProtobufHttpMessageConverter());
+    }
+}
@@ -0,0 +1,50 @@
+package br.com.fiap.aula_testes_api.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Marca, na thread atual, que as leituras devem ir para o datasource principal em vez das
+ * réplicas, porque o cliente escreveu há pouco (ver {@link LeituraPropriaInterceptor}).
+ * Quem passa trabalho para outra thread usa {@link #propagar} para levar a marca junto.
+ */
+public final class LeituraPropria {
+
+    private static final ThreadLocal<Boolean> PRIMARIO = new ThreadLocal<>();
+
+    private LeituraPropria() {
+    }
+
+    public static boolean primarioObrigatorio() {
+        return Boolean.TRUE.equals(PRIMARIO.get());
+    }
+
+    static void exigirPrimario() {
+        PRIMARIO.set(Boolean.TRUE);
+    }
+
+    static void limpar() {
+        PRIMARIO.remove();
+    }
+
+    /**
+     * Envolve {@code chamada} para que execute, em qualquer thread, com a marca da thread atual.
+     */
+    public static <T> Supplier<T> propagar(Supplier<T> chamada) {
+        if (!primarioObrigatorio()) {
+            return chamada;
+        }
+        return () -> {
+            var anterior = PRIMARIO.get();
+            PRIMARIO.set(Boolean.TRUE);
+            try {
+                return chamada.get();
+            } finally {
+                if (anterior == null) {
+                    PRIMARIO.remove();
+                } else {
+                    PRIMARIO.set(anterior);
+                }
+            }
+        };
+    }
+}
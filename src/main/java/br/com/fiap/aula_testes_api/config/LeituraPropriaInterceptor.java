@@ -0,0 +1,57 @@
+package br.com.fiap.aula_testes_api.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Garante que um cliente leia o que acabou de escrever: depois de uma requisição de escrita
+ * (qualquer método que não seja GET, HEAD ou OPTIONS), as requisições do mesmo cliente
+ * durante a janela configurada leem do datasource principal (ver {@link LeituraPropria}).
+ * <p>
+ * O cliente é identificado pelo {@code remoteAddr}. Clientes atrás do mesmo NAT compartilham a
+ * janela, o que só manda algumas leituras a mais para o principal.
+ */
+public class LeituraPropriaInterceptor implements AsyncHandlerInterceptor {
+
+    private static final Set<String> METODOS_LEITURA = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final Cache<String, Boolean> escritasRecentes;
+
+    public LeituraPropriaInterceptor(Duration janela, long clientesMaximos) {
+        this.escritasRecentes = Caffeine.newBuilder()
+                .maximumSize(clientesMaximos)
+                .expireAfterWrite(janela)
+                .build();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (escritasRecentes.getIfPresent(request.getRemoteAddr()) != null) {
+            LeituraPropria.exigirPrimario();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        // A marca já foi levada para o pool assíncrono; a thread do servlet volta para o contêiner.
+        LeituraPropria.limpar();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        LeituraPropria.limpar();
+        if (!METODOS_LEITURA.contains(request.getMethod())) {
+            // A janela começa quando a escrita termina, não quando chega.
+            escritasRecentes.put(request.getRemoteAddr(), Boolean.TRUE);
+        }
+    }
+}
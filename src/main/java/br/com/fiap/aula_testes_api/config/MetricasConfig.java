@@ -0,0 +1,42 @@
+package br.com.fiap.aula_testes_api.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Habilita {@link io.micrometer.core.annotation.Timed} nos beans (os serviços são anotados na
+ * classe, gerando um timer por método com as tags {@code class} e {@code method}).
+ * <p>
+ * Os demais timers vêm do Spring Boot: {@code http.server.requests} por endpoint,
+ * {@code spring.data.repository.invocations} por método de repositório,
+ * {@code hikaricp.connections.acquire} (espera por conexão) e as estatísticas do Hibernate
+ * ({@code hibernate.*}). Histogramas e percentis são configurados em
+ * {@code management.metrics.distribution} no {@code application.yaml}.
+ * <p>
+ * Execuções JDBC acima de {@code mensagem.sql.limite-consulta-lenta} vão para o log
+ * (ver {@link ConsultaLentaListener}).
+ */
+@Configuration
+public class MetricasConfig {
+
+    /**
+     * Estático porque é um {@code BeanPostProcessor}: precisa existir antes dos demais beans.
+     */
+    @Bean
+    public static ConsultaLentaDataSourcePostProcessor consultaLentaDataSourcePostProcessor(
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${mensagem.sql.limite-consulta-lenta:200ms}") Duration limite) {
+        return new ConsultaLentaDataSourcePostProcessor(meterRegistry, limite);
+    }
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
@@ -0,0 +1,53 @@
+package br.com.fiap.aula_testes_api.config;
+
+import org.springframework.transaction.TransactionDefinition;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Prazo, na thread atual, das transações que ela abrir: o {@link TransacaoComPrazoConfig} usa o
+ * tempo restante como timeout da transação, que o Spring aplica como query timeout a cada
+ * comando JPA ou JDBC. Assim uma operação que passou do prazo é cancelada pelo banco, sem
+ * interromper a thread.
+ */
+public final class PrazoTransacao {
+
+    private static final ThreadLocal<Long> LIMITE_NANOS = new ThreadLocal<>();
+
+    private PrazoTransacao() {
+    }
+
+    /**
+     * Envolve {@code chamada} para que as transações abertas durante ela terminem até
+     * {@code limiteNanos} (na escala de {@link System#nanoTime()}).
+     */
+    public static <T> Supplier<T> limitar(Supplier<T> chamada, long limiteNanos) {
+        return () -> {
+            var anterior = LIMITE_NANOS.get();
+            LIMITE_NANOS.set(limiteNanos);
+            try {
+                return chamada.get();
+            } finally {
+                if (anterior == null) {
+                    LIMITE_NANOS.remove();
+                } else {
+                    LIMITE_NANOS.set(anterior);
+                }
+            }
+        };
+    }
+
+    /**
+     * @return segundos até o prazo, arredondados para cima e no mínimo 1 (o timeout de uma
+     * transação é em segundos); {@link TransactionDefinition#TIMEOUT_DEFAULT} sem prazo
+     */
+    static int segundosRestantes() {
+        var limite = LIMITE_NANOS.get();
+        if (limite == null) {
+            return TransactionDefinition.TIMEOUT_DEFAULT;
+        }
+        var restante = limite - System.nanoTime();
+        return (int) Math.max(1, (restante + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,46 @@
+package br.com.fiap.aula_testes_api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Réplicas de leitura do banco ({@code mensagem.datasource.*}). Sem réplicas, tudo vai para o
+ * datasource principal, como antes.
+ *
+ * @param replicas             réplicas que recebem as transações somente leitura
+ * @param balanceamento        como escolher a réplica de cada conexão
+ * @param janelaLeituraPropria por quanto tempo depois de uma escrita as leituras do mesmo
+ *                             cliente vão para o principal, para que ele veja o que escreveu
+ *                             mesmo com atraso na replicação
+ */
+@ConfigurationProperties("mensagem.datasource")
+public record ReplicasLeitura(@DefaultValue List<Replica> replicas,
+                              @DefaultValue("round-robin") Balanceamento balanceamento,
+                              @DefaultValue("5s") Duration janelaLeituraPropria) {
+
+    /**
+     * Por quanto tempo depois de uma escrita uma leitura pode vir de uma réplica que ainda não
+     * a recebeu: a própria janela de leitura própria, ou zero sem réplicas. Os caches não guardam
+     * o que foi lido de uma chave escrita dentro dessa janela.
+     */
+    public Duration janelaEscritaRecente() {
+        return replicas.isEmpty() ? Duration.ZERO : janelaLeituraPropria;
+    }
+
+    public record Replica(String url, String username, String password, @DefaultValue("10") int tamanhoPool) {
+    }
+
+    public enum Balanceamento {
+        /**
+         * Uma réplica de cada vez, em ordem.
+         */
+        ROUND_ROBIN,
+        /**
+         * A réplica com menos conexões em uso no pool.
+         */
+        MENOS_CONEXOES
+    }
+}
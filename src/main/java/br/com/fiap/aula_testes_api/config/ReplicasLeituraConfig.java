@@ -0,0 +1,48 @@
+package br.com.fiap.aula_testes_api.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Leituras nas réplicas ({@code mensagem.datasource.replicas}): as transações somente leitura
+ * vão para as réplicas (ver {@link RoteamentoLeituraPostProcessor}) e as escritas para o
+ * principal. Um cliente que acabou de escrever lê do principal durante
+ * {@code mensagem.datasource.janela-leitura-propria} (ver {@link LeituraPropriaInterceptor}).
+ */
+@Configuration
+@EnableConfigurationProperties(ReplicasLeitura.class)
+public class ReplicasLeituraConfig implements WebMvcConfigurer {
+
+    private static final long CLIENTES_MAXIMOS = 100_000;
+
+    private final ReplicasLeitura replicasLeitura;
+
+    public ReplicasLeituraConfig(ReplicasLeitura replicasLeitura) {
+        this.replicasLeitura = replicasLeitura;
+    }
+
+    /**
+     * Estático porque é um {@code BeanPostProcessor}; por isso lê as propriedades direto do
+     * {@link Environment}, sem esperar o bean de {@link ReplicasLeitura}.
+     */
+    @Bean
+    public static RoteamentoLeituraPostProcessor roteamentoLeituraPostProcessor(
+            Environment environment, ObjectProvider<MeterRegistry> meterRegistry) {
+        var replicasLeitura = Binder.get(environment).bindOrCreate("mensagem.datasource", ReplicasLeitura.class);
+        return new RoteamentoLeituraPostProcessor(replicasLeitura, meterRegistry);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (!replicasLeitura.replicas().isEmpty()) {
+            registry.addInterceptor(new LeituraPropriaInterceptor(replicasLeitura.janelaLeituraPropria(), CLIENTES_MAXIMOS));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package br.com.fiap.aula_testes_api.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.util.ArrayList;
+
+/**
+ * Envolve o datasource principal num {@link LazyConnectionDataSourceProxy} que entrega as
+ * conexões das transações somente leitura ({@code @Transactional(readOnly = true)} e as
+ * consultas dos repositórios) pelo {@link DataSourceReplicas}. O proxy só obtém a conexão real
+ * no primeiro comando, quando a transação já marcou a conexão como somente leitura.
+ * <p>
+ * Roda antes do {@link ConsultaLentaDataSourcePostProcessor}, que envolve o resultado: as
+ * consultas lentas continuam medidas em qualquer destino, e {@code unwrap} ainda chega ao pool
+ * Hikari do principal.
+ */
+public class RoteamentoLeituraPostProcessor implements BeanPostProcessor, Ordered {
+
+    private final ReplicasLeitura replicasLeitura;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public RoteamentoLeituraPostProcessor(ReplicasLeitura replicasLeitura, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.replicasLeitura = replicasLeitura;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!"dataSource".equals(beanName) || !(bean instanceof DataSource primario)
+                || replicasLeitura.replicas().isEmpty()) {
+            return bean;
+        }
+        var pools = new ArrayList<HikariDataSource>();
+        for (var replica : replicasLeitura.replicas()) {
+            var pool = new HikariDataSource();
+            pool.setPoolName("replica-" + pools.size());
+            pool.setJdbcUrl(replica.url());
+            pool.setUsername(replica.username());
+            pool.setPassword(replica.password());
+            pool.setMaximumPoolSize(replica.tamanhoPool());
+            pool.setReadOnly(true);
+            pool.setMetricRegistry(meterRegistry.getObject());
+            pools.add(pool);
+        }
+        return new DataSourceRoteado(primario, new DataSourceReplicas(pools, primario,
+                replicasLeitura.balanceamento(), meterRegistry.getObject()));
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    /**
+     * Fecha as réplicas e o principal quando o contexto encerra o bean {@code dataSource}.
+     */
+    static class DataSourceRoteado extends LazyConnectionDataSourceProxy implements Closeable {
+
+        private final DataSourceReplicas replicas;
+
+        DataSourceRoteado(DataSource primario, DataSourceReplicas replicas) {
+            super(primario);
+            setReadOnlyDataSource(replicas);
+            this.replicas = replicas;
+        }
+
+        @Override
+        public void close() {
+            replicas.close();
+            if (getTargetDataSource() instanceof HikariDataSource pool) {
+                pool.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package br.com.fiap.aula_testes_api.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+/**
+ * Substitui o {@link JpaTransactionManager} do Spring Boot por um que limita o timeout de cada
+ * transação nova ao {@link PrazoTransacao} da thread, além do timeout declarado.
+ */
+@Configuration
+public class TransacaoComPrazoConfig {
+
+    @Bean
+    public PlatformTransactionManager transactionManager(
+            ObjectProvider<TransactionManagerCustomizers> transactionManagerCustomizers) {
+        var transactionManager = new JpaTransactionManagerComPrazo();
+        transactionManagerCustomizers.ifAvailable(customizers -> customizers.customize(transactionManager));
+        return transactionManager;
+    }
+
+    static class JpaTransactionManagerComPrazo extends JpaTransactionManager {
+
+        @Override
+        protected int determineTimeout(TransactionDefinition definition) {
+            var declarado = super.determineTimeout(definition);
+            var restante = PrazoTransacao.segundosRestantes();
+            if (restante == TransactionDefinition.TIMEOUT_DEFAULT) {
+                return declarado;
+            }
+            return declarado == TransactionDefinition.TIMEOUT_DEFAULT ? restante : Math.min(declarado, restante);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package br.com.fiap.aula_testes_api.controller;
+
+import br.com.fiap.aula_testes_api.exception.LimiteTaxaExcedidoException;
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.service.limite.LimitadorTaxa;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Aplica o {@link LimitadorTaxa} às escritas de {@link MensagemController} antes de chamar o
+ * serviço: o limite por IP é verificado antes de ler o corpo, e o por usuário logo depois,
+ * quando o {@code usuario} da mensagem já é conhecido. Requisições recusadas recebem
+ * {@code 429} com {@code Retry-After}.
+ * <p>
+ * O IP é o {@code remoteAddr} da requisição; atrás de um proxy, configure
+ * {@code server.forward-headers-strategy} para que seja o do cliente.
+ */
+@RestControllerAdvice(assignableTypes = MensagemController.class)
+@RequiredArgsConstructor
+public class LimiteTaxaAdvice extends RequestBodyAdviceAdapter {
+
+    private final LimitadorTaxa limitadorTaxa;
+
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType,
+                            Class<? extends HttpMessageConverter<?>> converterType) {
+        return Mensagem.class.equals(targetType)
+                && (methodParameter.hasMethodAnnotation(PostMapping.class)
+                || methodParameter.hasMethodAnnotation(PutMapping.class)
+                || methodParameter.hasMethodAnnotation(PatchMapping.class));
+    }
+
+    @Override
+    public HttpInputMessage beforeBodyRead(HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                           Class<? extends HttpMessageConverter<?>> converterType) {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes atributos) {
+            limitadorTaxa.verificarIp(atributos.getRequest().getRemoteAddr());
+        }
+        return inputMessage;
+    }
+
+    @Override
+    public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                Class<? extends HttpMessageConverter<?>> converterType) {
+        limitadorTaxa.verificarUsuario(((Mensagem) body).getUsuario());
+        return body;
+    }
+
+    @ExceptionHandler(LimiteTaxaExcedidoException.class)
+    public ResponseEntity<String> limiteExcedido(LimiteTaxaExcedidoException limiteTaxaExcedidoException) {
+        // Retry-After é em segundos inteiros: arredonda para cima, senão o cliente volta cedo demais.
+        var segundos = Math.max(1, (limiteTaxaExcedidoException.getEspera().toMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(segundos))
+                .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                .body(limiteTaxaExcedidoException.getMessage());
+    }
+}
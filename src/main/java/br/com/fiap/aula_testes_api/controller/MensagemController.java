@@ -1,53 +1,308 @@
 package br.com.fiap.aula_testes_api.controller;
 
+import br.com.fiap.aula_testes_api.exception.ChaveIdempotenciaReutilizadaException;
+import br.com.fiap.aula_testes_api.exception.CursorInvalidoException;
 import br.com.fiap.aula_testes_api.exception.MensagemNotFoundException;
+import br.com.fiap.aula_testes_api.exception.RequisicaoEmAndamentoException;
+import br.com.fiap.aula_testes_api.exception.ServicoSobrecarregadoException;
+import br.com.fiap.aula_testes_api.exception.TempoEsgotadoException;
+import br.com.fiap.aula_testes_api.exception.VersaoConflitanteException;
+import br.com.fiap.aula_testes_api.model.CursorMensagem;
+import br.com.fiap.aula_testes_api.model.FeedMensagens;
+import br.com.fiap.aula_testes_api.model.Granularidade;
 import br.com.fiap.aula_testes_api.model.Mensagem;
-import br.com.fiap.aula_testes_api.service.MensagemService;
+import br.com.fiap.aula_testes_api.model.VersaoMensagem;
+import br.com.fiap.aula_testes_api.service.MensagemServiceAsync;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Locale;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 
+import static br.com.fiap.aula_testes_api.config.FormatosBinariosConfig.APPLICATION_SMILE_VALUE;
+import static br.com.fiap.aula_testes_api.protobuf.MensagemProtobufHttpMessageConverter.APPLICATION_PROTOBUF_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_CBOR_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+/**
+ * Os endpoints devolvem {@link CompletableFuture}: a thread do Tomcat é liberada enquanto o
+ * {@link MensagemServiceAsync} executa a operação no seu próprio pool.
+ * <p>
+ * Leitura e alteração de uma mensagem devolvem a {@code ETag} da sua {@link VersaoMensagem}.
+ * Um GET com {@code If-None-Match} consulta só a versão e responde 304 se ela não mudou; um PUT
+ * com {@code If-Match} responde 412 se a mensagem foi alterada depois de lida.
+ * <p>
+ * PATCH e DELETE executam um único comando SQL, sem ler a mensagem antes, e por isso não
+ * devolvem o corpo; a inexistência é detectada pela quantidade de linhas afetadas.
+ * <p>
+ * Corpos de requisição e resposta podem ser JSON (padrão), CBOR, Smile ou protobuf, conforme
+ * {@code Content-Type} e {@code Accept} (ver {@link br.com.fiap.aula_testes_api.config.FormatosBinariosConfig}).
+ * Erros continuam em texto puro. A {@code ETag} é a mesma em todos os formatos, por isso a
+ * leitura de uma mensagem responde com {@code Vary: Accept}.
+ */
 @RestController
 @RequestMapping("mensagens")
 @RequiredArgsConstructor
 public class MensagemController {
 
-    private final MensagemService mensagemService;
+    private static final int TAMANHO_MAXIMO_PAGINA = 100;
+    /** A busca guarda os {@code deslocamento + tamanho} melhores resultados para montar a página. */
+    private static final long DESLOCAMENTO_MAXIMO_BUSCA = 10_000;
+    private static final int MAXIMO_BALDES_ESTATISTICAS = 10_000;
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    private static final int TAMANHO_MAXIMO_CHAVE_IDEMPOTENCIA = 255;
+    private static final MediaType TEXTO_UTF8 = new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+
+    private final MensagemServiceAsync mensagemService;
 
-    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE,
-                            produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Mensagem> registrarMensagem(@RequestBody Mensagem mensagem) {
-        var mensagemRegistrada = mensagemService.registrarMensagem(mensagem);
-        return new ResponseEntity<Mensagem>(mensagemRegistrada, HttpStatus.CREATED);
+    @PostMapping(consumes = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_PROTOBUF_VALUE},
+            produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_PROTOBUF_VALUE})
+    public CompletableFuture<ResponseEntity<?>> registrarMensagem(
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String chaveIdempotencia,
+            @RequestBody Mensagem mensagem) {
+        if (chaveIdempotencia != null
+                && (chaveIdempotencia.isBlank() || chaveIdempotencia.length() > TAMANHO_MAXIMO_CHAVE_IDEMPOTENCIA)) {
+            return CompletableFuture.completedFuture(
+                    respostaErro(HttpStatus.BAD_REQUEST, "Idempotency-Key inválida"));
+        }
+        var registro = chaveIdempotencia == null
+                ? mensagemService.registrarMensagem(mensagem)
+                : mensagemService.registrarMensagem(mensagem, chaveIdempotencia);
+        return registro
+                .<ResponseEntity<?>>thenApply(mensagemRegistrada ->
+                        new ResponseEntity<Mensagem>(mensagemRegistrada, HttpStatus.CREATED))
+                .exceptionally(erro -> {
+                    var causa = causa(erro);
+                    if (causa instanceof ChaveIdempotenciaReutilizadaException chaveReutilizadaException) {
+                        return respostaErro(HttpStatus.UNPROCESSABLE_ENTITY, chaveReutilizadaException.getMessage());
+                    }
+                    if (causa instanceof RequisicaoEmAndamentoException emAndamentoException) {
+                        return ResponseEntity.status(HttpStatus.CONFLICT)
+                                .header(HttpHeaders.RETRY_AFTER, "1")
+                                .contentType(TEXTO_UTF8)
+                                .body(emAndamentoException.getMessage());
+                    }
+                    // Só uma repetição chega aqui: a mensagem registrada com a chave foi removida.
+                    return tratarFalha(erro,
+                            mensagemNotFoundException -> respostaErro(HttpStatus.GONE, mensagemNotFoundException.getMessage()));
+                });
     }
 
-    @GetMapping(value = "/{id}")
-    public ResponseEntity<?> buscarMensagem(@PathVariable String id) {
+    @GetMapping(value = "/{id}", produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_PROTOBUF_VALUE})
+    public CompletableFuture<ResponseEntity<?>> buscarMensagem(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         var uuid = UUID.fromString(id);
-        try {
-            var mensagemEncontrada = mensagemService.buscarMensagem(uuid);
-            return new ResponseEntity<>(mensagemEncontrada, HttpStatus.OK);
-        } catch(MensagemNotFoundException mensagemNotFoundException){
-            return new ResponseEntity<>("ID Inválido", HttpStatus.BAD_REQUEST);
-        }
+        var mensagemCompleta = ifNoneMatch == null
+                ? buscarMensagemCompleta(uuid)
+                : mensagemService.buscarVersao(uuid).thenCompose(versao -> versao.correspondeA(ifNoneMatch)
+                        ? CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                                .eTag(versao.etag()).varyBy(HttpHeaders.ACCEPT).build())
+                        : buscarMensagemCompleta(uuid));
+        return mensagemCompleta
+                .exceptionally(erro -> tratarFalha(erro,
+                        mensagemNotFoundException -> respostaErro(HttpStatus.BAD_REQUEST, "ID Inválido")));
     }
 
     @PutMapping(value = "/{id}",
-            consumes = MediaType.APPLICATION_JSON_VALUE,
-            produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Mensagem> alterarMensagem(@PathVariable String id, @RequestBody Mensagem mensagem) {
+            consumes = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_PROTOBUF_VALUE},
+            produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_PROTOBUF_VALUE})
+    public CompletableFuture<ResponseEntity<?>> alterarMensagem(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody Mensagem mensagem) {
+        var uuid = UUID.fromString(id);
+        return mensagemService.alterarMensagem(uuid, mensagem, VersaoMensagem.versaoEsperada(ifMatch))
+                .<ResponseEntity<?>>thenApply(mensagemAtualizada -> ResponseEntity.status(HttpStatus.ACCEPTED)
+                        .eTag(VersaoMensagem.de(mensagemAtualizada).etag())
+                        .body(mensagemAtualizada))
+                .exceptionally(erro -> {
+                    // Sem If-Match não havia pré-condição: a alteração concorrente é um conflito.
+                    if (causa(erro) instanceof VersaoConflitanteException versaoConflitanteException) {
+                        return respostaErro(ifMatch == null ? HttpStatus.CONFLICT : HttpStatus.PRECONDITION_FAILED,
+                                versaoConflitanteException.getMessage());
+                    }
+                    return tratarFalha(erro,
+                            mensagemNotFoundException -> respostaErro(HttpStatus.BAD_REQUEST, mensagemNotFoundException.getMessage()));
+                });
+    }
+
+    @PatchMapping(value = "/{id}", consumes = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_PROTOBUF_VALUE})
+    public CompletableFuture<ResponseEntity<?>> alterarParcialmente(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody Mensagem alteracoes) {
+        if (alteracoes.getUsuario() == null && alteracoes.getConteudo() == null) {
+            return CompletableFuture.completedFuture(
+                    respostaErro(HttpStatus.BAD_REQUEST, "Informe o usuário e/ou o conteúdo"));
+        }
+        if ("".equals(alteracoes.getUsuario()) || "".equals(alteracoes.getConteudo())) {
+            return CompletableFuture.completedFuture(
+                    respostaErro(HttpStatus.BAD_REQUEST, "Usuário e conteúdo não podem estar vazios"));
+        }
+        var uuid = UUID.fromString(id);
+        return mensagemService.alterarParcialmente(uuid, alteracoes, VersaoMensagem.versaoEsperada(ifMatch))
+                .<ResponseEntity<?>>thenApply(nada -> ResponseEntity.noContent().build())
+                .exceptionally(erro -> {
+                    if (causa(erro) instanceof VersaoConflitanteException versaoConflitanteException) {
+                        return respostaErro(HttpStatus.PRECONDITION_FAILED, versaoConflitanteException.getMessage());
+                    }
+                    return tratarFalha(erro,
+                            mensagemNotFoundException -> respostaErro(HttpStatus.BAD_REQUEST, mensagemNotFoundException.getMessage()));
+                });
+    }
+
+    @DeleteMapping(value = "/{id}")
+    public CompletableFuture<ResponseEntity<?>> removerMensagem(@PathVariable String id) {
+        var uuid = UUID.fromString(id);
+        return mensagemService.removerMensagem(uuid)
+                .<ResponseEntity<?>>thenApply(removida -> new ResponseEntity<>("mensagem removida", HttpStatus.OK))
+                .exceptionally(erro -> tratarFalha(erro,
+                        mensagemNotFoundException -> respostaErro(HttpStatus.BAD_REQUEST, "ID Inválido")));
+    }
+
+    @PostMapping(value = "/{id}/gostei")
+    public CompletableFuture<ResponseEntity<?>> registrarGostei(@PathVariable String id) {
         var uuid = UUID.fromString(id);
+        return mensagemService.registrarGostei(uuid)
+                .<ResponseEntity<?>>thenApply(nada -> ResponseEntity.accepted().build())
+                .exceptionally(erro -> tratarFalha(erro,
+                        mensagemNotFoundException -> respostaErro(HttpStatus.BAD_REQUEST, "ID Inválido")));
+    }
+
+    @GetMapping(value = "/feed", produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_PROTOBUF_VALUE})
+    public CompletableFuture<ResponseEntity<?>> listarFeed(@RequestParam(required = false) String cursor,
+                                                           @RequestParam(defaultValue = "20") int tamanho) {
+        if (tamanho < 1 || tamanho > TAMANHO_MAXIMO_PAGINA) {
+            return CompletableFuture.completedFuture(respostaErro(HttpStatus.BAD_REQUEST, "Tamanho de página inválido"));
+        }
+        try {
+            var posicao = cursor == null ? null : CursorMensagem.decodificar(cursor);
+            return mensagemService.listarFeed(posicao, tamanho)
+                    .<ResponseEntity<?>>thenApply(pagina -> new ResponseEntity<>(FeedMensagens.de(pagina), HttpStatus.OK))
+                    .exceptionally(erro -> tratarFalha(erro, null));
+        } catch (CursorInvalidoException cursorInvalidoException) {
+            return CompletableFuture.completedFuture(
+                    respostaErro(HttpStatus.BAD_REQUEST, cursorInvalidoException.getMessage()));
+        }
+    }
+
+    @GetMapping(value = "/usuario/{usuario}", produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_PROTOBUF_VALUE})
+    public CompletableFuture<ResponseEntity<?>> listarPorUsuario(@PathVariable String usuario,
+                                                                 @RequestParam(required = false) String cursor,
+                                                                 @RequestParam(defaultValue = "20") int tamanho) {
+        if (tamanho < 1 || tamanho > TAMANHO_MAXIMO_PAGINA) {
+            return CompletableFuture.completedFuture(respostaErro(HttpStatus.BAD_REQUEST, "Tamanho de página inválido"));
+        }
+        try {
+            var posicao = cursor == null ? null : CursorMensagem.decodificar(cursor);
+            return mensagemService.listarPorUsuario(usuario, posicao, tamanho)
+                    .<ResponseEntity<?>>thenApply(pagina -> new ResponseEntity<>(FeedMensagens.de(pagina), HttpStatus.OK))
+                    .exceptionally(erro -> tratarFalha(erro, null));
+        } catch (CursorInvalidoException cursorInvalidoException) {
+            return CompletableFuture.completedFuture(
+                    respostaErro(HttpStatus.BAD_REQUEST, cursorInvalidoException.getMessage()));
+        }
+    }
+
+    @GetMapping(value = "/busca", produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_PROTOBUF_VALUE})
+    public CompletableFuture<ResponseEntity<?>> buscarPorTexto(@RequestParam String q,
+                                                               @RequestParam(defaultValue = "0") int pagina,
+                                                               @RequestParam(defaultValue = "20") int tamanho) {
+        if (q.isBlank()) {
+            return CompletableFuture.completedFuture(respostaErro(HttpStatus.BAD_REQUEST, "Texto de busca não informado"));
+        }
+        if (pagina < 0 || tamanho < 1 || tamanho > TAMANHO_MAXIMO_PAGINA) {
+            return CompletableFuture.completedFuture(
+                    respostaErro(HttpStatus.BAD_REQUEST, "Página ou tamanho de página inválido"));
+        }
+        if ((long) pagina * tamanho > DESLOCAMENTO_MAXIMO_BUSCA) {
+            return CompletableFuture.completedFuture(respostaErro(HttpStatus.BAD_REQUEST,
+                    "A busca só pagina os primeiros " + DESLOCAMENTO_MAXIMO_BUSCA + " resultados"));
+        }
+        return mensagemService.buscarPorTexto(q, pagina, tamanho)
+                .<ResponseEntity<?>>thenApply(resultado -> new ResponseEntity<>(resultado, HttpStatus.OK))
+                .exceptionally(erro -> tratarFalha(erro, null));
+    }
+
+    /**
+     * Estatísticas por hora ou dia, de um usuário ou de todos. Sem {@code de} e {@code ate},
+     * cobre as últimas 24 horas ou os últimos 30 dias, conforme a granularidade.
+     */
+    @GetMapping(value = "/estatisticas", produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
+    public CompletableFuture<ResponseEntity<?>> consultarEstatisticas(
+            @RequestParam(defaultValue = "dia") String granularidade,
+            @RequestParam(required = false) String usuario,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime de,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime ate) {
+        Granularidade tamanhoBalde;
         try {
-            var mensagemAtualizada = mensagemService.alterarMensagem(uuid, mensagem);
+            tamanhoBalde = Granularidade.valueOf(granularidade.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(respostaErro(HttpStatus.BAD_REQUEST, "Granularidade inválida"));
+        }
+        var fim = ate == null ? LocalDateTime.now() : ate;
+        var inicio = de != null ? de
+                : tamanhoBalde == Granularidade.HORA ? fim.minusHours(24) : fim.minusDays(30);
+        if (!inicio.isBefore(fim)
+                || tamanhoBalde.baldesEntre(tamanhoBalde.truncar(inicio), fim) > MAXIMO_BALDES_ESTATISTICAS) {
+            return CompletableFuture.completedFuture(respostaErro(HttpStatus.BAD_REQUEST, "Intervalo inválido"));
+        }
+        return mensagemService.consultarEstatisticas(tamanhoBalde, usuario, inicio, fim)
+                .<ResponseEntity<?>>thenApply(estatisticas -> new ResponseEntity<>(estatisticas, HttpStatus.OK))
+                .exceptionally(erro -> tratarFalha(erro, null));
+    }
 
-            return new ResponseEntity<>(mensagemAtualizada, HttpStatus.ACCEPTED);
-        } catch (MensagemNotFoundException mensagemNotFoundException){
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(mensagemNotFoundException.getMessage());
+    private CompletableFuture<ResponseEntity<?>> buscarMensagemCompleta(UUID id) {
+        return mensagemService.buscarMensagem(id)
+                .thenApply(mensagemEncontrada -> ResponseEntity.ok()
+                        .eTag(VersaoMensagem.de(mensagemEncontrada).etag())
+                        .varyBy(HttpHeaders.ACCEPT)
+                        .body(mensagemEncontrada));
+    }
+
+    /**
+     * Converte a falha do futuro na resposta: pool cheio vira 503 com {@code Retry-After}, prazo
+     * esgotado vira 504 e mensagem inexistente é tratada por {@code naoEncontrada}, quando informado.
+     * Outras falhas seguem para o tratamento padrão do Spring.
+     */
+    private static ResponseEntity<?> tratarFalha(Throwable erro,
+                                                 Function<MensagemNotFoundException, ResponseEntity<?>> naoEncontrada) {
+        var causa = causa(erro);
+        if (causa instanceof ServicoSobrecarregadoException servicoSobrecarregadoException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .contentType(TEXTO_UTF8)
+                    .body(servicoSobrecarregadoException.getMessage());
+        }
+        if (causa instanceof TempoEsgotadoException tempoEsgotadoException) {
+            return respostaErro(HttpStatus.GATEWAY_TIMEOUT, tempoEsgotadoException.getMessage());
         }
+        if (causa instanceof MensagemNotFoundException mensagemNotFoundException && naoEncontrada != null) {
+            return naoEncontrada.apply(mensagemNotFoundException);
+        }
+        throw erro instanceof CompletionException completionException ? completionException : new CompletionException(causa);
+    }
+
+    /**
+     * Mensagens de erro vão como texto puro em UTF-8: sem o charset, o cliente decodifica os
+     * acentos como ISO-8859-1, e o corpo não é JSON válido.
+     */
+    private static ResponseEntity<String> respostaErro(HttpStatus status, String mensagem) {
+        return ResponseEntity.status(status).contentType(TEXTO_UTF8).body(mensagem);
+    }
+
+    private static Throwable causa(Throwable erro) {
+        return erro instanceof CompletionException && erro.getCause() != null ? erro.getCause() : erro;
     }
 }
@@ -0,0 +1,34 @@
+package br.com.fiap.aula_testes_api.controller;
+
+import br.com.fiap.aula_testes_api.model.OperacaoLote;
+import br.com.fiap.aula_testes_api.service.MensagemLoteService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("mensagens/batch")
+@RequiredArgsConstructor
+public class MensagemLoteController {
+
+    private static final int TAMANHO_MAXIMO_LOTE = 1000;
+
+    private final MensagemLoteService mensagemLoteService;
+
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> processarLote(@RequestBody List<OperacaoLote> operacoes) {
+        if (operacoes.isEmpty() || operacoes.size() > TAMANHO_MAXIMO_LOTE) {
+            return ResponseEntity.badRequest().body("Lote deve conter entre 1 e " + TAMANHO_MAXIMO_LOTE + " operações");
+        }
+        var resultados = mensagemLoteService.processarLote(operacoes);
+        return new ResponseEntity<>(resultados, HttpStatus.OK);
+    }
+}
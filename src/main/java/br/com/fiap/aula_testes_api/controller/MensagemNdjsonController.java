@@ -0,0 +1,69 @@
+package br.com.fiap.aula_testes_api.controller;
+
+import br.com.fiap.aula_testes_api.exception.LinhaMuitoLongaException;
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.service.MensagemImportacaoService;
+import br.com.fiap.aula_testes_api.service.MensagemService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Exportação e importação em massa no formato NDJSON (um objeto JSON por linha).
+ */
+@RestController
+@RequestMapping("mensagens")
+@RequiredArgsConstructor
+public class MensagemNdjsonController {
+
+    private final MensagemService mensagemService;
+    private final MensagemImportacaoService mensagemImportacaoService;
+    private final ObjectMapper objectMapper;
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportarMensagens() {
+        // Sem flush por mensagem: o gerador bufferiza e escreve na resposta em blocos.
+        var escritor = objectMapper.writerFor(Mensagem.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody corpo = saida -> {
+            try (var gerador = objectMapper.getFactory().createGenerator(saida)) {
+                gerador.setRootValueSeparator(null);
+                mensagemService.exportarMensagens(mensagem -> {
+                    try {
+                        escritor.writeValue(gerador, mensagem);
+                        gerador.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(corpo);
+    }
+
+    @PostMapping(value = "/import",
+            consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> importarMensagens(InputStream corpo) throws IOException {
+        try {
+            var resultado = mensagemImportacaoService.importarMensagens(corpo);
+            return new ResponseEntity<>(resultado, HttpStatus.OK);
+        } catch (LinhaMuitoLongaException linhaMuitoLongaException) {
+            return ResponseEntity.badRequest().body(linhaMuitoLongaException.getMessage());
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package br.com.fiap.aula_testes_api.controller;
+
+import br.com.fiap.aula_testes_api.exception.ServicoSobrecarregadoException;
+import br.com.fiap.aula_testes_api.service.stream.TransmissaoMensagens;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Mensagens novas em tempo real via Server-Sent Events, em vez de consultar o feed
+ * periodicamente. Eventos {@code mensagem} trazem a mensagem em JSON; ao reconectar, o
+ * {@code EventSource} envia o {@code Last-Event-ID} e recebe o que perdeu ou, se não for mais
+ * possível, um evento {@code resync} (ver {@link TransmissaoMensagens}).
+ */
+@RestController
+@RequestMapping("mensagens")
+@RequiredArgsConstructor
+public class MensagemStreamController {
+
+    private final TransmissaoMensagens transmissaoMensagens;
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> assinar(
+            @RequestHeader(value = "Last-Event-ID", required = false) String ultimoId) {
+        return ResponseEntity.ok()
+                // Proxies como o nginx bufferizam a resposta e atrasariam os eventos.
+                .header("X-Accel-Buffering", "no")
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                .body(transmissaoMensagens.assinar(ultimoId));
+    }
+
+    @ExceptionHandler(ServicoSobrecarregadoException.class)
+    public ResponseEntity<String> tratarSobrecarga(ServicoSobrecarregadoException servicoSobrecarregadoException) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                .body(servicoSobrecarregadoException.getMessage());
+    }
+}
@@ -0,0 +1,8 @@
+package br.com.fiap.aula_testes_api.exception;
+
+public class ChaveIdempotenciaReutilizadaException extends RuntimeException{
+
+    public ChaveIdempotenciaReutilizadaException(String mensagem){
+        super(mensagem);
+    }
+}
@@ -0,0 +1,8 @@
+package br.com.fiap.aula_testes_api.exception;
+
+public class CursorInvalidoException extends RuntimeException{
+
+    public CursorInvalidoException(String mensagem){
+        super(mensagem);
+    }
+}
@@ -0,0 +1,20 @@
+package br.com.fiap.aula_testes_api.exception;
+
+import java.time.Duration;
+
+public class LimiteTaxaExcedidoException extends RuntimeException{
+
+    private final Duration espera;
+
+    public LimiteTaxaExcedidoException(String mensagem, Duration espera){
+        super(mensagem);
+        this.espera = espera;
+    }
+
+    /**
+     * Tempo até o balde ter uma ficha de novo.
+     */
+    public Duration getEspera() {
+        return espera;
+    }
+}
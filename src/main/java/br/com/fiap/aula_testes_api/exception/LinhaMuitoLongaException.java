@@ -0,0 +1,8 @@
+package br.com.fiap.aula_testes_api.exception;
+
+public class LinhaMuitoLongaException extends RuntimeException{
+
+    public LinhaMuitoLongaException(String mensagem){
+        super(mensagem);
+    }
+}
@@ -0,0 +1,8 @@
+package br.com.fiap.aula_testes_api.exception;
+
+public class RequisicaoEmAndamentoException extends RuntimeException{
+
+    public RequisicaoEmAndamentoException(String mensagem){
+        super(mensagem);
+    }
+}
@@ -0,0 +1,8 @@
+package br.com.fiap.aula_testes_api.exception;
+
+public class ServicoSobrecarregadoException extends RuntimeException{
+
+    public ServicoSobrecarregadoException(String mensagem){
+        super(mensagem);
+    }
+}
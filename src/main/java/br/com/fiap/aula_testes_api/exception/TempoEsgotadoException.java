@@ -0,0 +1,8 @@
+package br.com.fiap.aula_testes_api.exception;
+
+public class TempoEsgotadoException extends RuntimeException{
+
+    public TempoEsgotadoException(String mensagem){
+        super(mensagem);
+    }
+}
@@ -0,0 +1,8 @@
+package br.com.fiap.aula_testes_api.exception;
+
+public class VersaoConflitanteException extends RuntimeException{
+
+    public VersaoConflitanteException(String mensagem){
+        super(mensagem);
+    }
+}
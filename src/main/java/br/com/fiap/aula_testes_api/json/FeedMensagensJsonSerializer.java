@@ -0,0 +1,34 @@
+package br.com.fiap.aula_testes_api.json;
+
+import br.com.fiap.aula_testes_api.model.FeedMensagens;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Serializa {@link FeedMensagens} escrevendo cada mensagem com {@link MensagemJsonSerializer},
+ * sem buscar o serializador dos elementos da lista.
+ */
+public class FeedMensagensJsonSerializer extends StdSerializer<FeedMensagens> {
+
+    private static final SerializableString MENSAGENS = new SerializedString("mensagens");
+    private static final SerializableString PROXIMO_CURSOR = new SerializedString("proximoCursor");
+
+    public FeedMensagensJsonSerializer() {
+        super(FeedMensagens.class);
+    }
+
+    @Override
+    public void serialize(FeedMensagens feed, JsonGenerator gerador, SerializerProvider provider) throws IOException {
+        gerador.writeStartObject(feed);
+        gerador.writeFieldName(MENSAGENS);
+        MensagemJsonModule.escreverMensagens(feed.mensagens(), gerador);
+        gerador.writeFieldName(PROXIMO_CURSOR);
+        gerador.writeString(feed.proximoCursor());
+        gerador.writeEndObject();
+    }
+}
@@ -0,0 +1,42 @@
+package br.com.fiap.aula_testes_api.json;
+
+import br.com.fiap.aula_testes_api.model.FeedMensagens;
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.model.ResultadoBusca;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Registra os serializadores de mensagens e páginas de mensagens. Como bean, o Spring Boot o
+ * inclui no {@code ObjectMapper} da aplicação; só a escrita muda, a leitura segue a padrão.
+ */
+@Component
+public class MensagemJsonModule extends SimpleModule {
+
+    public MensagemJsonModule() {
+        super("MensagemJsonModule");
+        addSerializer(Mensagem.class, new MensagemJsonSerializer());
+        addSerializer(FeedMensagens.class, new FeedMensagensJsonSerializer());
+        addSerializer(ResultadoBusca.class, new ResultadoBuscaJsonSerializer());
+    }
+
+    static void escreverMensagens(List<Mensagem> mensagens, JsonGenerator gerador) throws IOException {
+        if (mensagens == null) {
+            gerador.writeNull();
+            return;
+        }
+        gerador.writeStartArray(mensagens, mensagens.size());
+        for (var mensagem : mensagens) {
+            if (mensagem == null) {
+                gerador.writeNull();
+            } else {
+                MensagemJsonSerializer.escrever(mensagem, gerador);
+            }
+        }
+        gerador.writeEndArray();
+    }
+}
@@ -0,0 +1,142 @@
+package br.com.fiap.aula_testes_api.json;
+
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+
+/**
+ * Serializa {@link Mensagem} direto no {@link JsonGenerator}, sem introspecção de bean.
+ * A saída é idêntica, byte a byte, à do serializador padrão do Jackson com o
+ * {@code @JsonFormat} da entidade: mesmos campos, mesma ordem, nulos incluídos.
+ * <p>
+ * Id e data são escritos como dígitos num buffer de caracteres reaproveitado por thread, em vez
+ * de {@code UUID.toString()} e {@code DateTimeFormatter.format()}, que criam strings
+ * intermediárias a cada mensagem. Anos fora de 1 a 9999, que o padrão formata com sinal ou
+ * era, usam o formatador (cacheado).
+ */
+public class MensagemJsonSerializer extends StdSerializer<Mensagem> {
+
+    static final String PADRAO_DATA = "yyyy-MM-dd HH:mm:ss.SSSSS";
+    private static final DateTimeFormatter FORMATO_DATA = DateTimeFormatter.ofPattern(PADRAO_DATA);
+    private static final int TAMANHO_DATA = PADRAO_DATA.length();
+    private static final int TAMANHO_UUID = 36;
+    private static final char[] HEXADECIMAL = "0123456789abcdef".toCharArray();
+
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString USUARIO = new SerializedString("usuario");
+    private static final SerializableString CONTEUDO = new SerializedString("conteudo");
+    private static final SerializableString DATA_CRIACAO = new SerializedString("dataCriacaoMensagem");
+    private static final SerializableString GOSTEI = new SerializedString("gostei");
+    private static final SerializableString VERSAO = new SerializedString("versao");
+
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[TAMANHO_UUID]);
+
+    public MensagemJsonSerializer() {
+        super(Mensagem.class);
+    }
+
+    @Override
+    public void serialize(Mensagem mensagem, JsonGenerator gerador, SerializerProvider provider) throws IOException {
+        escrever(mensagem, gerador);
+    }
+
+    /**
+     * Escreve a mensagem como objeto JSON; usado também pelos serializadores das páginas.
+     */
+    static void escrever(Mensagem mensagem, JsonGenerator gerador) throws IOException {
+        gerador.writeStartObject(mensagem);
+        var buffer = BUFFER.get();
+
+        gerador.writeFieldName(ID);
+        var id = mensagem.getId();
+        if (id == null) {
+            gerador.writeNull();
+        } else {
+            gerador.writeString(buffer, 0, escreverUuid(id, buffer));
+        }
+
+        gerador.writeFieldName(USUARIO);
+        gerador.writeString(mensagem.getUsuario());
+        gerador.writeFieldName(CONTEUDO);
+        gerador.writeString(mensagem.getConteudo());
+
+        gerador.writeFieldName(DATA_CRIACAO);
+        var data = mensagem.getDataCriacaoMensagem();
+        if (data == null) {
+            gerador.writeNull();
+        } else if (data.getYear() < 1 || data.getYear() > 9999) {
+            gerador.writeString(FORMATO_DATA.format(data));
+        } else {
+            gerador.writeString(buffer, 0, escreverData(data, buffer));
+        }
+
+        gerador.writeFieldName(GOSTEI);
+        if (mensagem.getGostei() == null) {
+            gerador.writeNull();
+        } else {
+            gerador.writeNumber(mensagem.getGostei());
+        }
+        gerador.writeFieldName(VERSAO);
+        if (mensagem.getVersao() == null) {
+            gerador.writeNull();
+        } else {
+            gerador.writeNumber(mensagem.getVersao());
+        }
+        gerador.writeEndObject();
+    }
+
+    /**
+     * Escreve {@code yyyy-MM-dd HH:mm:ss.SSSSS} (fração truncada em 5 dígitos).
+     */
+    static int escreverData(LocalDateTime data, char[] buffer) {
+        escreverDigitos(data.getYear(), 4, buffer, 0);
+        buffer[4] = '-';
+        escreverDigitos(data.getMonthValue(), 2, buffer, 5);
+        buffer[7] = '-';
+        escreverDigitos(data.getDayOfMonth(), 2, buffer, 8);
+        buffer[10] = ' ';
+        escreverDigitos(data.getHour(), 2, buffer, 11);
+        buffer[13] = ':';
+        escreverDigitos(data.getMinute(), 2, buffer, 14);
+        buffer[16] = ':';
+        escreverDigitos(data.getSecond(), 2, buffer, 17);
+        buffer[19] = '.';
+        escreverDigitos(data.getNano() / 10_000, 5, buffer, 20);
+        return TAMANHO_DATA;
+    }
+
+    static int escreverUuid(UUID id, char[] buffer) {
+        escreverHexadecimal(id.getMostSignificantBits() >>> 32, 8, buffer, 0);
+        buffer[8] = '-';
+        escreverHexadecimal(id.getMostSignificantBits() >>> 16, 4, buffer, 9);
+        buffer[13] = '-';
+        escreverHexadecimal(id.getMostSignificantBits(), 4, buffer, 14);
+        buffer[18] = '-';
+        escreverHexadecimal(id.getLeastSignificantBits() >>> 48, 4, buffer, 19);
+        buffer[23] = '-';
+        escreverHexadecimal(id.getLeastSignificantBits(), 12, buffer, 24);
+        return TAMANHO_UUID;
+    }
+
+    private static void escreverDigitos(int valor, int digitos, char[] buffer, int inicio) {
+        for (int i = inicio + digitos - 1; i >= inicio; i--) {
+            buffer[i] = (char) ('0' + valor % 10);
+            valor /= 10;
+        }
+    }
+
+    private static void escreverHexadecimal(long valor, int digitos, char[] buffer, int inicio) {
+        for (int i = inicio + digitos - 1; i >= inicio; i--) {
+            buffer[i] = HEXADECIMAL[(int) (valor & 0xF)];
+            valor >>>= 4;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package br.com.fiap.aula_testes_api.json;
+
+import br.com.fiap.aula_testes_api.model.ResultadoBusca;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Serializa {@link ResultadoBusca} escrevendo cada mensagem com {@link MensagemJsonSerializer}.
+ */
+public class ResultadoBuscaJsonSerializer extends StdSerializer<ResultadoBusca> {
+
+    private static final SerializableString MENSAGENS = new SerializedString("mensagens");
+    private static final SerializableString TOTAL = new SerializedString("total");
+    private static final SerializableString PAGINA = new SerializedString("pagina");
+    private static final SerializableString TAMANHO = new SerializedString("tamanho");
+
+    public ResultadoBuscaJsonSerializer() {
+        super(ResultadoBusca.class);
+    }
+
+    @Override
+    public void serialize(ResultadoBusca resultado, JsonGenerator gerador, SerializerProvider provider) throws IOException {
+        gerador.writeStartObject(resultado);
+        gerador.writeFieldName(MENSAGENS);
+        MensagemJsonModule.escreverMensagens(resultado.mensagens(), gerador);
+        gerador.writeFieldName(TOTAL);
+        gerador.writeNumber(resultado.total());
+        gerador.writeFieldName(PAGINA);
+        gerador.writeNumber(resultado.pagina());
+        gerador.writeFieldName(TAMANHO);
+        gerador.writeNumber(resultado.tamanho());
+        gerador.writeEndObject();
+    }
+}
@@ -0,0 +1,40 @@
+package br.com.fiap.aula_testes_api.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Chave de idempotência de um {@code POST /mensagens} e a mensagem que ele registrou.
+ * Manipulada por {@link br.com.fiap.aula_testes_api.service.IdempotenciaMensagens} via JDBC; a
+ * entidade existe para que a tabela seja criada junto com as demais.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_chave_idempotencia_expira_em", columnList = "expiraEm"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChaveIdempotencia {
+
+    @Id
+    private String chave;
+
+    /**
+     * Resumo (SHA-256) do usuário e do conteúdo, para recusar a mesma chave com outra mensagem.
+     */
+    @Column(nullable = false)
+    private String resumo;
+
+    private UUID mensagemId;
+
+    @Column(nullable = false)
+    private LocalDateTime expiraEm;
+}
@@ -0,0 +1,10 @@
+package br.com.fiap.aula_testes_api.model;
+
+import java.util.UUID;
+
+/**
+ * Projeção com o id e o conteúdo da mensagem, para leituras em massa que não precisam
+ * da entidade gerenciada.
+ */
+public record ConteudoMensagem(UUID id, String conteudo) {
+}
@@ -0,0 +1,57 @@
+package br.com.fiap.aula_testes_api.model;
+
+import br.com.fiap.aula_testes_api.exception.CursorInvalidoException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.UUID;
+
+/**
+ * Posição no feed de mensagens, ordenado por {@code dataCriacaoMensagem DESC, id DESC}.
+ * É transportado para o cliente como um token opaco em Base64 URL-safe.
+ */
+public record CursorMensagem(LocalDateTime dataCriacaoMensagem, UUID id) {
+
+    /**
+     * Ordem do feed, a mesma das consultas: data e id decrescentes. Os ids são comparados sem
+     * sinal, byte a byte, como o H2 compara UUIDs.
+     */
+    public static final Comparator<CursorMensagem> ORDEM_FEED = Comparator
+            .comparing(CursorMensagem::dataCriacaoMensagem, Comparator.reverseOrder())
+            .thenComparing(CursorMensagem::id, (a, b) -> compararIds(b, a));
+
+    private static final char SEPARADOR = '|';
+
+    public static CursorMensagem de(Mensagem mensagem) {
+        return new CursorMensagem(mensagem.getDataCriacaoMensagem(), mensagem.getId());
+    }
+
+    public String codificar() {
+        var valor = dataCriacaoMensagem.toString() + SEPARADOR + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CursorMensagem decodificar(String cursor) {
+        try {
+            var valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            var separador = valor.indexOf(SEPARADOR);
+            if (separador < 0) {
+                throw new CursorInvalidoException("Cursor inválido");
+            }
+            return new CursorMensagem(
+                    LocalDateTime.parse(valor.substring(0, separador)),
+                    UUID.fromString(valor.substring(separador + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new CursorInvalidoException("Cursor inválido");
+        }
+    }
+
+    private static int compararIds(UUID a, UUID b) {
+        var alto = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return alto != 0 ? alto : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+}
@@ -0,0 +1,16 @@
+package br.com.fiap.aula_testes_api.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Mensagens criadas e "gostei" recebidos por elas em cada balde de {@code [de, ate)}, de um
+ * usuário ou de todos ({@code usuario} nulo). Os "gostei" contam no balde da criação da
+ * mensagem, não no da curtida. Baldes sem mensagens são omitidos.
+ */
+public record EstatisticasMensagens(Granularidade granularidade, String usuario,
+                                    LocalDateTime de, LocalDateTime ate, List<Balde> baldes) {
+
+    public record Balde(LocalDateTime inicio, long mensagens, long gostei) {
+    }
+}
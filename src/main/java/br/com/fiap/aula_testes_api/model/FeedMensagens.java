@@ -0,0 +1,20 @@
+package br.com.fiap.aula_testes_api.model;
+
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+/**
+ * Página do feed de mensagens com o cursor para a próxima página
+ * ({@code null} quando não há mais mensagens).
+ */
+public record FeedMensagens(List<Mensagem> mensagens, String proximoCursor) {
+
+    public static FeedMensagens de(Slice<Mensagem> pagina) {
+        if (!pagina.hasNext() || pagina.isEmpty()) {
+            return new FeedMensagens(pagina.getContent(), null);
+        }
+        var ultima = pagina.getContent().get(pagina.getNumberOfElements() - 1);
+        return new FeedMensagens(pagina.getContent(), CursorMensagem.de(ultima).codificar());
+    }
+}
@@ -0,0 +1,39 @@
+package br.com.fiap.aula_testes_api.model;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Tamanho dos baldes de tempo das estatísticas de mensagens.
+ */
+public enum Granularidade {
+    HORA(ChronoUnit.HOURS),
+    DIA(ChronoUnit.DAYS);
+
+    private final ChronoUnit unidade;
+
+    Granularidade(ChronoUnit unidade) {
+        this.unidade = unidade;
+    }
+
+    /**
+     * Início do balde que contém o instante.
+     */
+    public LocalDateTime truncar(LocalDateTime instante) {
+        return instante.truncatedTo(unidade);
+    }
+
+    /**
+     * Início do balde seguinte ao que começa em {@code inicio}.
+     */
+    public LocalDateTime proximo(LocalDateTime inicio) {
+        return inicio.plus(1, unidade);
+    }
+
+    /**
+     * Quantidade de baldes entre dois inícios de balde.
+     */
+    public long baldesEntre(LocalDateTime de, LocalDateTime ate) {
+        return unidade.between(de, ate);
+    }
+}
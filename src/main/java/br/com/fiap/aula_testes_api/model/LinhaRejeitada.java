@@ -0,0 +1,4 @@
+package br.com.fiap.aula_testes_api.model;
+
+public record LinhaRejeitada(long linha, String erro) {
+}
@@ -1,9 +1,13 @@
 package br.com.fiap.aula_testes_api.model;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotEmpty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -15,8 +19,14 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
-@Builder
+@Builder(toBuilder = true)
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_mensagem_data_criacao_id",
+                columnList = "dataCriacaoMensagem DESC, id DESC"),
+        @Index(name = "idx_mensagem_usuario_data_criacao_id",
+                columnList = "usuario, dataCriacaoMensagem DESC, id DESC")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -40,4 +50,13 @@ public class Mensagem {
 
     @Builder.Default
     private Integer gostei = 0;
+
+    /**
+     * Versão para bloqueio otimista, incrementada a cada alteração de usuário ou conteúdo (os
+     * "gostei" são somados direto no banco, sem incrementá-la). Definida apenas pelo servidor.
+     */
+    @Version
+    @Column(nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long versao;
 }
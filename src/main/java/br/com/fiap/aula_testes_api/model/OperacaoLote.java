@@ -0,0 +1,10 @@
+package br.com.fiap.aula_testes_api.model;
+
+import java.util.UUID;
+
+/**
+ * Operação de um lote enviado para {@code POST /mensagens/batch}.
+ * {@code id} é obrigatório para ALTERAR, REMOVER e GOSTEI; {@code mensagem} para CRIAR e ALTERAR.
+ */
+public record OperacaoLote(TipoOperacao tipo, UUID id, Mensagem mensagem) {
+}
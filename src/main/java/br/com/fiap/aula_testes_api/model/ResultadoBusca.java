@@ -0,0 +1,9 @@
+package br.com.fiap.aula_testes_api.model;
+
+import java.util.List;
+
+/**
+ * Página de resultados da busca textual, da mensagem mais relevante para a menos relevante.
+ */
+public record ResultadoBusca(List<Mensagem> mensagens, long total, int pagina, int tamanho) {
+}
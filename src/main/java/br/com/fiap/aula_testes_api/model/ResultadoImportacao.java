@@ -0,0 +1,10 @@
+package br.com.fiap.aula_testes_api.model;
+
+import java.util.List;
+
+/**
+ * Resumo de uma importação NDJSON. {@code erros} traz no máximo as primeiras rejeições;
+ * {@code rejeitadas} conta todas.
+ */
+public record ResultadoImportacao(long aceitas, long rejeitadas, List<LinhaRejeitada> erros) {
+}
@@ -0,0 +1,21 @@
+package br.com.fiap.aula_testes_api.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.UUID;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ResultadoOperacao(int indice, TipoOperacao tipo, UUID id, StatusOperacao status, String erro) {
+
+    public static ResultadoOperacao sucesso(int indice, TipoOperacao tipo, UUID id) {
+        return new ResultadoOperacao(indice, tipo, id, StatusOperacao.SUCESSO, null);
+    }
+
+    public static ResultadoOperacao naoEncontrada(int indice, TipoOperacao tipo, UUID id) {
+        return new ResultadoOperacao(indice, tipo, id, StatusOperacao.NAO_ENCONTRADA, "Mensagem não encontrada");
+    }
+
+    public static ResultadoOperacao invalida(int indice, TipoOperacao tipo, UUID id, String erro) {
+        return new ResultadoOperacao(indice, tipo, id, StatusOperacao.INVALIDA, erro);
+    }
+}
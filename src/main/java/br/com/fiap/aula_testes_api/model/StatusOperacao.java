@@ -0,0 +1,7 @@
+package br.com.fiap.aula_testes_api.model;
+
+public enum StatusOperacao {
+    SUCESSO,
+    NAO_ENCONTRADA,
+    INVALIDA
+}
@@ -0,0 +1,8 @@
+package br.com.fiap.aula_testes_api.model;
+
+public enum TipoOperacao {
+    CRIAR,
+    ALTERAR,
+    REMOVER,
+    GOSTEI
+}
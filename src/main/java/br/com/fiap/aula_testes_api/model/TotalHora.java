@@ -0,0 +1,10 @@
+package br.com.fiap.aula_testes_api.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Quantidade de mensagens de um usuário criadas numa hora e a soma dos seus "gostei",
+ * agregadas no banco para reconciliar as estatísticas em memória.
+ */
+public record TotalHora(String usuario, LocalDateTime hora, long mensagens, long gostei) {
+}
@@ -0,0 +1,31 @@
+package br.com.fiap.aula_testes_api.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Trava com prazo (lease) de uma tarefa agendada, para que só um nó a execute por vez.
+ * Manipulada por {@link br.com.fiap.aula_testes_api.service.TravaDistribuida} via JDBC; a
+ * entidade existe para que a tabela seja criada junto com as demais.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TravaTarefa {
+
+    @Id
+    private String nome;
+
+    @Column(nullable = false)
+    private String dono;
+
+    @Column(nullable = false)
+    private LocalDateTime expiraEm;
+}
@@ -0,0 +1,58 @@
+package br.com.fiap.aula_testes_api.model;
+
+import org.springframework.http.ETag;
+
+/**
+ * Validador de uma mensagem para requisições condicionais: a versão da entidade e o total de
+ * "gostei", que muda sem incrementar a versão. A ETag é forte, no formato
+ * {@code "<versao>-<gostei>"}.
+ */
+public record VersaoMensagem(long versao, long gostei) {
+
+    public static VersaoMensagem de(Mensagem mensagem) {
+        return new VersaoMensagem(mensagem.getVersao(), mensagem.getGostei());
+    }
+
+    public String etag() {
+        return "\"" + versao + "-" + gostei + "\"";
+    }
+
+    /**
+     * Indica se um cabeçalho {@code If-None-Match} corresponde a esta versão (comparação fraca,
+     * qualquer ETag da lista ou {@code *}).
+     */
+    public boolean correspondeA(String ifNoneMatch) {
+        var tag = versao + "-" + gostei;
+        return ETag.parse(ifNoneMatch).stream()
+                .anyMatch(etag -> etag.isWildcard() || etag.tag().equals(tag));
+    }
+
+    /**
+     * Extrai de um cabeçalho {@code If-Match} a versão que o cliente espera alterar. Os "gostei"
+     * da ETag são ignorados, pois não conflitam com uma alteração de conteúdo.
+     *
+     * @return {@code null} sem cabeçalho ou com {@code *}; -1, que nunca corresponde, quando a
+     * ETag é fraca ou não foi gerada por esta API
+     */
+    public static Long versaoEsperada(String ifMatch) {
+        if (ifMatch == null) {
+            return null;
+        }
+        var etags = ETag.parse(ifMatch);
+        if (etags.stream().anyMatch(ETag::isWildcard)) {
+            return null;
+        }
+        for (var etag : etags) {
+            var separador = etag.tag().indexOf('-');
+            if (etag.weak() || separador < 1) {
+                continue;
+            }
+            try {
+                return Long.parseLong(etag.tag(), 0, separador, 10);
+            } catch (NumberFormatException e) {
+                // Não foi gerada por esta API; tenta a próxima.
+            }
+        }
+        return -1L;
+    }
+}
@@ -0,0 +1,214 @@
+package br.com.fiap.aula_testes_api.protobuf;
+
+import br.com.fiap.aula_testes_api.model.FeedMensagens;
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.model.ResultadoBusca;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Codifica mensagens e páginas de mensagens no formato do {@code proto/mensagem.proto}.
+ * <p>
+ * Escrito à mão sobre {@link CodedOutputStream}/{@link CodedInputStream} em vez de classes
+ * geradas pelo {@code protoc}: o build não depende do compilador nativo e as entidades são
+ * escritas direto, sem copiar cada mensagem para um objeto gerado. Campos nulos são omitidos;
+ * na leitura, campo ausente tem o mesmo efeito que no JSON (o builder de {@link Mensagem} aplica
+ * os valores padrão) e campos desconhecidos são ignorados.
+ */
+public final class MensagemProtobuf {
+
+    private static final int ID = 1;
+    private static final int USUARIO = 2;
+    private static final int CONTEUDO = 3;
+    private static final int DATA_CRIACAO = 4;
+    private static final int GOSTEI = 5;
+    private static final int VERSAO = 6;
+
+    private static final int SEGUNDOS = 1;
+    private static final int NANOS = 2;
+
+    private static final int MENSAGENS = 1;
+    private static final int PROXIMO_CURSOR = 2;
+    private static final int TOTAL = 2;
+    private static final int PAGINA = 3;
+    private static final int TAMANHO = 4;
+
+    private static final int TAMANHO_ID = 16;
+
+    private MensagemProtobuf() {
+    }
+
+    public static void escrever(Mensagem mensagem, CodedOutputStream saida) throws IOException {
+        var id = mensagem.getId();
+        if (id != null) {
+            saida.writeTag(ID, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            saida.writeUInt32NoTag(TAMANHO_ID);
+            saida.writeFixed64NoTag(Long.reverseBytes(id.getMostSignificantBits()));
+            saida.writeFixed64NoTag(Long.reverseBytes(id.getLeastSignificantBits()));
+        }
+        if (mensagem.getUsuario() != null) {
+            saida.writeString(USUARIO, mensagem.getUsuario());
+        }
+        if (mensagem.getConteudo() != null) {
+            saida.writeString(CONTEUDO, mensagem.getConteudo());
+        }
+        var data = mensagem.getDataCriacaoMensagem();
+        if (data != null) {
+            saida.writeTag(DATA_CRIACAO, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            saida.writeUInt32NoTag(tamanhoData(data));
+            escreverData(data, saida);
+        }
+        if (mensagem.getGostei() != null) {
+            saida.writeInt32(GOSTEI, mensagem.getGostei());
+        }
+        if (mensagem.getVersao() != null) {
+            saida.writeInt64(VERSAO, mensagem.getVersao());
+        }
+    }
+
+    public static void escrever(FeedMensagens feed, CodedOutputStream saida) throws IOException {
+        escreverMensagens(feed.mensagens(), saida);
+        if (feed.proximoCursor() != null) {
+            saida.writeString(PROXIMO_CURSOR, feed.proximoCursor());
+        }
+    }
+
+    public static void escrever(ResultadoBusca resultado, CodedOutputStream saida) throws IOException {
+        escreverMensagens(resultado.mensagens(), saida);
+        saida.writeInt64(TOTAL, resultado.total());
+        saida.writeInt32(PAGINA, resultado.pagina());
+        saida.writeInt32(TAMANHO, resultado.tamanho());
+    }
+
+    public static int tamanho(Mensagem mensagem) {
+        int tamanho = 0;
+        if (mensagem.getId() != null) {
+            tamanho += CodedOutputStream.computeTagSize(ID) + 1 + TAMANHO_ID;
+        }
+        if (mensagem.getUsuario() != null) {
+            tamanho += CodedOutputStream.computeStringSize(USUARIO, mensagem.getUsuario());
+        }
+        if (mensagem.getConteudo() != null) {
+            tamanho += CodedOutputStream.computeStringSize(CONTEUDO, mensagem.getConteudo());
+        }
+        if (mensagem.getDataCriacaoMensagem() != null) {
+            var tamanhoData = tamanhoData(mensagem.getDataCriacaoMensagem());
+            tamanho += CodedOutputStream.computeTagSize(DATA_CRIACAO)
+                    + CodedOutputStream.computeUInt32SizeNoTag(tamanhoData) + tamanhoData;
+        }
+        if (mensagem.getGostei() != null) {
+            tamanho += CodedOutputStream.computeInt32Size(GOSTEI, mensagem.getGostei());
+        }
+        if (mensagem.getVersao() != null) {
+            tamanho += CodedOutputStream.computeInt64Size(VERSAO, mensagem.getVersao());
+        }
+        return tamanho;
+    }
+
+    public static Mensagem lerMensagem(CodedInputStream entrada) throws IOException {
+        var mensagem = Mensagem.builder();
+        while (true) {
+            var tag = entrada.readTag();
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case 0 -> {
+                    return mensagem.build();
+                }
+                case ID -> mensagem.id(lerId(entrada));
+                case USUARIO -> mensagem.usuario(entrada.readStringRequireUtf8());
+                case CONTEUDO -> mensagem.conteudo(entrada.readStringRequireUtf8());
+                case DATA_CRIACAO -> {
+                    var limite = entrada.pushLimit(entrada.readRawVarint32());
+                    mensagem.dataCriacaoMensagem(lerData(entrada));
+                    entrada.popLimit(limite);
+                }
+                case GOSTEI -> mensagem.gostei(entrada.readInt32());
+                case VERSAO -> mensagem.versao(entrada.readInt64());
+                default -> entrada.skipField(tag);
+            }
+        }
+    }
+
+    public static FeedMensagens lerFeed(CodedInputStream entrada) throws IOException {
+        var mensagens = new ArrayList<Mensagem>();
+        String proximoCursor = null;
+        while (true) {
+            var tag = entrada.readTag();
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case 0 -> {
+                    return new FeedMensagens(mensagens, proximoCursor);
+                }
+                case MENSAGENS -> mensagens.add(lerMensagemAninhada(entrada));
+                case PROXIMO_CURSOR -> proximoCursor = entrada.readStringRequireUtf8();
+                default -> entrada.skipField(tag);
+            }
+        }
+    }
+
+    private static void escreverMensagens(List<Mensagem> mensagens, CodedOutputStream saida) throws IOException {
+        if (mensagens == null) {
+            return;
+        }
+        for (var mensagem : mensagens) {
+            saida.writeTag(MENSAGENS, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            saida.writeUInt32NoTag(tamanho(mensagem));
+            escrever(mensagem, saida);
+        }
+    }
+
+    private static Mensagem lerMensagemAninhada(CodedInputStream entrada) throws IOException {
+        var limite = entrada.pushLimit(entrada.readRawVarint32());
+        var mensagem = lerMensagem(entrada);
+        entrada.checkLastTagWas(0);
+        entrada.popLimit(limite);
+        return mensagem;
+    }
+
+    private static UUID lerId(CodedInputStream entrada) throws IOException {
+        var tamanho = entrada.readRawVarint32();
+        if (tamanho != TAMANHO_ID) {
+            throw new IOException("Id da mensagem deve ter " + TAMANHO_ID + " bytes, mas tem " + tamanho);
+        }
+        return new UUID(Long.reverseBytes(entrada.readRawLittleEndian64()),
+                Long.reverseBytes(entrada.readRawLittleEndian64()));
+    }
+
+    private static void escreverData(LocalDateTime data, CodedOutputStream saida) throws IOException {
+        var segundos = data.toEpochSecond(ZoneOffset.UTC);
+        if (segundos != 0) {
+            saida.writeInt64(SEGUNDOS, segundos);
+        }
+        if (data.getNano() != 0) {
+            saida.writeInt32(NANOS, data.getNano());
+        }
+    }
+
+    private static int tamanhoData(LocalDateTime data) {
+        var segundos = data.toEpochSecond(ZoneOffset.UTC);
+        return (segundos == 0 ? 0 : CodedOutputStream.computeInt64Size(SEGUNDOS, segundos))
+                + (data.getNano() == 0 ? 0 : CodedOutputStream.computeInt32Size(NANOS, data.getNano()));
+    }
+
+    private static LocalDateTime lerData(CodedInputStream entrada) throws IOException {
+        long segundos = 0;
+        int nanos = 0;
+        while (true) {
+            var tag = entrada.readTag();
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case 0 -> {
+                    return LocalDateTime.ofEpochSecond(segundos, nanos, ZoneOffset.UTC);
+                }
+                case SEGUNDOS -> segundos = entrada.readInt64();
+                case NANOS -> nanos = entrada.readInt32();
+                default -> entrada.skipField(tag);
+            }
+        }
+    }
+}
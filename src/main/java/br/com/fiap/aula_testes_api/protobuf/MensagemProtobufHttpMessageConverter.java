@@ -0,0 +1,72 @@
+package br.com.fiap.aula_testes_api.protobuf;
+
+import br.com.fiap.aula_testes_api.model.FeedMensagens;
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.model.ResultadoBusca;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+
+/**
+ * Lê e escreve mensagens em {@code application/x-protobuf} com o {@link MensagemProtobuf}.
+ * Lê apenas {@link Mensagem} (corpo de POST, PUT e PATCH); escreve também as páginas do feed e
+ * da busca.
+ */
+public class MensagemProtobufHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    public static final String APPLICATION_PROTOBUF_VALUE = "application/x-protobuf";
+    public static final MediaType APPLICATION_PROTOBUF = MediaType.parseMediaType(APPLICATION_PROTOBUF_VALUE);
+
+    public MensagemProtobufHttpMessageConverter() {
+        super(APPLICATION_PROTOBUF);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == Mensagem.class || clazz == FeedMensagens.class || clazz == ResultadoBusca.class;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return clazz == Mensagem.class && canRead(mediaType);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        try {
+            var mensagem = MensagemProtobuf.lerMensagem(CodedInputStream.newInstance(inputMessage.getBody()));
+            // Como no JSON, a versão é definida apenas pelo servidor.
+            mensagem.setVersao(null);
+            return mensagem;
+        } catch (IOException | RuntimeException e) {
+            throw new HttpMessageNotReadableException("Mensagem protobuf inválida: " + e.getMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected void writeInternal(Object valor, HttpOutputMessage outputMessage) throws IOException {
+        var saida = CodedOutputStream.newInstance(outputMessage.getBody());
+        if (valor instanceof Mensagem mensagem) {
+            MensagemProtobuf.escrever(mensagem, saida);
+        } else if (valor instanceof FeedMensagens feed) {
+            MensagemProtobuf.escrever(feed, saida);
+        } else if (valor instanceof ResultadoBusca resultado) {
+            MensagemProtobuf.escrever(resultado, saida);
+        } else {
+            throw new HttpMessageNotWritableException("Tipo não suportado em protobuf: " + valor.getClass());
+        }
+        saida.flush();
+    }
+
+    @Override
+    protected Long getContentLength(Object valor, MediaType contentType) {
+        return valor instanceof Mensagem mensagem ? (long) MensagemProtobuf.tamanho(mensagem) : null;
+    }
+}
@@ -0,0 +1,77 @@
+package br.com.fiap.aula_testes_api.repository;
+
+import br.com.fiap.aula_testes_api.model.ConteudoMensagem;
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.model.VersaoMensagem;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Operações sobre as mensagens de que os serviços dependem. O {@link MensagemRepository} (JPA)
+ * e os armazenamentos dos perfis {@code log} e {@code shards} a implementam; os serviços
+ * recebem esta interface, e não o {@link MensagemRepository}, para que os armazenamentos sem
+ * JPA não precisem implementar o resto do {@code JpaRepository}.
+ */
+public interface ArmazenamentoMensagens extends MensagemRepositoryCustom {
+
+    /**
+     * Grava uma mensagem nova ({@code versao} nula) ou altera uma existente, falhando com
+     * {@link org.springframework.dao.OptimisticLockingFailureException} se a versão informada
+     * não for a atual.
+     */
+    <S extends Mensagem> S save(S mensagem);
+
+    Optional<Mensagem> findById(UUID id);
+
+    boolean existsById(UUID id);
+
+    /**
+     * Mensagens existentes entre as informadas, em qualquer ordem.
+     */
+    List<Mensagem> findAllById(Iterable<UUID> ids);
+
+    /**
+     * Envia ao banco as alterações pendentes, para que conflitos de versão apareçam antes do commit.
+     */
+    void flush();
+
+    /**
+     * Página das mensagens, mais recentes primeiro.
+     */
+    Page<Mensagem> listarMensagens(Pageable pageable);
+
+    /**
+     * Fatias na ordem do feed ({@code dataCriacaoMensagem DESC, id DESC}); as versões
+     * {@code Apos} começam depois do cursor informado (exclusivo).
+     */
+    Slice<Mensagem> listarFeed(Pageable pageable);
+
+    Slice<Mensagem> listarFeedApos(LocalDateTime dataCriacao, UUID id, Pageable pageable);
+
+    Slice<Mensagem> listarPorUsuario(String usuario, Pageable pageable);
+
+    Slice<Mensagem> listarPorUsuarioApos(String usuario, LocalDateTime dataCriacao, UUID id, Pageable pageable);
+
+    /**
+     * Todas as mensagens na ordem do feed, sem carregá-las de uma vez; o stream deve ser fechado.
+     */
+    Stream<Mensagem> exportarMensagens();
+
+    Stream<ConteudoMensagem> listarConteudos();
+
+    Optional<VersaoMensagem> buscarVersao(UUID id);
+
+    /**
+     * Soma {@code quantidade} aos "gostei" sem alterar a versão.
+     *
+     * @return linhas alteradas: 0 quando a mensagem não existe
+     */
+    int incrementarGostei(UUID id, int quantidade);
+}
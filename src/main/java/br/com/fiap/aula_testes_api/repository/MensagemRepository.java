@@ -1,16 +1,100 @@
 package br.com.fiap.aula_testes_api.repository;
 
+import br.com.fiap.aula_testes_api.model.ConteudoMensagem;
 import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.model.VersaoMensagem;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
-public interface MensagemRepository extends JpaRepository<Mensagem, UUID> {
+/**
+ * Repositório JPA das mensagens, usado quando nenhum perfil troca o armazenamento. Repete
+ * {@link MensagemRepositoryCustom} entre as interfaces porque o Spring Data só procura
+ * implementações de fragmentos nas interfaces declaradas diretamente.
+ */
+public interface MensagemRepository extends JpaRepository<Mensagem, UUID>, ArmazenamentoMensagens,
+        MensagemRepositoryCustom {
+
+    // Redeclarados para desfazer a ambiguidade entre o CrudRepository e o ArmazenamentoMensagens.
+    @Override
+    <S extends Mensagem> S save(S mensagem);
+
+    @Override
+    Optional<Mensagem> findById(UUID id);
+
+    @Override
+    boolean existsById(UUID id);
+
+    @Override
+    List<Mensagem> findAllById(Iterable<UUID> ids);
+
+    @Override
+    void flush();
+
     @Query("SELECT m FROM Mensagem m ORDER BY m.dataCriacaoMensagem DESC")
     Page<Mensagem> listarMensagens(Pageable pageable);
+
+    @Query("SELECT m FROM Mensagem m ORDER BY m.dataCriacaoMensagem DESC, m.id DESC")
+    Slice<Mensagem> listarFeed(Pageable pageable);
+
+    @Query("SELECT m FROM Mensagem m "
+            + "WHERE m.dataCriacaoMensagem < :dataCriacao "
+            + "OR (m.dataCriacaoMensagem = :dataCriacao AND m.id < :id) "
+            + "ORDER BY m.dataCriacaoMensagem DESC, m.id DESC")
+    Slice<Mensagem> listarFeedApos(LocalDateTime dataCriacao, UUID id, Pageable pageable);
+
+    @Query("SELECT m FROM Mensagem m WHERE m.usuario = :usuario "
+            + "ORDER BY m.dataCriacaoMensagem DESC, m.id DESC")
+    Slice<Mensagem> listarPorUsuario(String usuario, Pageable pageable);
+
+    @Query("SELECT m FROM Mensagem m WHERE m.usuario = :usuario "
+            + "AND (m.dataCriacaoMensagem < :dataCriacao "
+            + "OR (m.dataCriacaoMensagem = :dataCriacao AND m.id < :id)) "
+            + "ORDER BY m.dataCriacaoMensagem DESC, m.id DESC")
+    Slice<Mensagem> listarPorUsuarioApos(String usuario, LocalDateTime dataCriacao, UUID id, Pageable pageable);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT m FROM Mensagem m ORDER BY m.dataCriacaoMensagem DESC, m.id DESC")
+    Stream<Mensagem> exportarMensagens();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new br.com.fiap.aula_testes_api.model.ConteudoMensagem(m.id, m.conteudo) FROM Mensagem m")
+    Stream<ConteudoMensagem> listarConteudos();
+
+    @Query("SELECT new br.com.fiap.aula_testes_api.model.VersaoMensagem(m.versao, m.gostei) "
+            + "FROM Mensagem m WHERE m.id = :id")
+    Optional<VersaoMensagem> buscarVersao(UUID id);
+
+    /**
+     * Remove a mensagem com um único DELETE; ao contrário de {@code deleteById}, não a carrega antes.
+     *
+     * @return linhas removidas: 0 quando a mensagem não existe
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Mensagem m WHERE m.id = :id")
+    int removerPorId(UUID id);
+
+    @Modifying
+    @Query("UPDATE Mensagem m SET m.gostei = m.gostei + :quantidade WHERE m.id = :id")
+    int incrementarGostei(UUID id, int quantidade);
 }
@@ -0,0 +1,80 @@
+package br.com.fiap.aula_testes_api.repository;
+
+import br.com.fiap.aula_testes_api.model.CursorMensagem;
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.model.TotalHora;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface MensagemRepositoryCustom {
+
+    /**
+     * Persiste uma mensagem nova com id já atribuído. Ao contrário de {@code save()},
+     * que faz merge (e um SELECT) para entidades com id, gera apenas o INSERT,
+     * permitindo que o Hibernate agrupe os INSERTs em lote.
+     */
+    void inserir(Mensagem mensagem);
+
+    /**
+     * Soma os incrementos de "gostei" de várias mensagens com um único lote JDBC de
+     * {@code UPDATE ... SET gostei = gostei + ?}, sem carregar as entidades.
+     */
+    void incrementarGostei(Map<UUID, Long> incrementos);
+
+    /**
+     * Chaves das mensagens criadas antes de {@code limite}, na ordem do feed
+     * ({@code dataCriacaoMensagem DESC, id DESC}) e a partir do cursor (exclusivo), para
+     * percorrê-las em lotes pelos índices existentes.
+     *
+     * @param usuario        só as mensagens deste usuário; {@code null} para todos
+     * @param excetoUsuarios usuários ignorados (com política própria)
+     */
+    List<CursorMensagem> listarExpiradas(LocalDateTime limite, String usuario, Collection<String> excetoUsuarios,
+                                         CursorMensagem apos, int quantidade);
+
+    /**
+     * Altera usuário e/ou conteúdo ({@code null} mantém o valor atual) num único UPDATE, sem
+     * carregar a entidade. Com {@code versao}, só altera se a mensagem ainda estiver nela.
+     *
+     * @return a mensagem como estava antes da alteração; vazio quando ela não existe ou está em
+     * outra versão
+     */
+    Optional<Mensagem> alterarParcialmente(UUID id, String usuario, String conteudo, Long versao);
+
+    /**
+     * Remove as mensagens informadas que ainda são anteriores a {@code limite}, com um único DELETE.
+     *
+     * @return as mensagens removidas, como em {@link #removerDevolvendo(UUID)}
+     */
+    List<Mensagem> removerExpiradas(Collection<UUID> ids, LocalDateTime limite);
+
+    /**
+     * Remove a mensagem com um único comando, como {@code removerPorId}, e devolve a linha
+     * removida, para quem precisa do usuário e da data sem lê-la antes.
+     *
+     * @return a mensagem removida; vazio quando ela não existe
+     */
+    Optional<Mensagem> removerDevolvendo(UUID id);
+
+    /**
+     * Quantidade de mensagens e soma dos "gostei" por usuário e hora de criação, agrupadas no
+     * banco, das mensagens criadas a partir de {@code desde} (todas, se nulo).
+     */
+    List<TotalHora> totalizarPorHora(LocalDateTime desde);
+
+    /**
+     * Remove a mensagem do contexto de persistência, para que leituras longas (streams)
+     * não acumulem entidades em memória.
+     */
+    void desanexar(Mensagem mensagem);
+
+    /**
+     * Envia as alterações pendentes ao banco e esvazia o contexto de persistência.
+     */
+    void limparContexto();
+}
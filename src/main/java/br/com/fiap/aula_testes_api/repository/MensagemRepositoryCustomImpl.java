@@ -0,0 +1,178 @@
+package br.com.fiap.aula_testes_api.repository;
+
+import br.com.fiap.aula_testes_api.model.CursorMensagem;
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.model.TotalHora;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.query.NativeQuery;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+@RequiredArgsConstructor
+class MensagemRepositoryCustomImpl implements MensagemRepositoryCustom {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void inserir(Mensagem mensagem) {
+        entityManager.persist(mensagem);
+    }
+
+    @Override
+    @Transactional
+    public void incrementarGostei(Map<UUID, Long> incrementos) {
+        var parametros = new ArrayList<Object[]>(incrementos.size());
+        incrementos.forEach((id, quantidade) -> parametros.add(new Object[]{quantidade, id}));
+        jdbcTemplate.batchUpdate("UPDATE mensagem SET gostei = gostei + ? WHERE id = ?", parametros);
+    }
+
+    @Override
+    public List<CursorMensagem> listarExpiradas(LocalDateTime limite, String usuario, Collection<String> excetoUsuarios,
+                                                CursorMensagem apos, int quantidade) {
+        var sql = new StringBuilder("SELECT data_criacao_mensagem, id FROM mensagem WHERE data_criacao_mensagem < ?");
+        var parametros = new ArrayList<Object>();
+        parametros.add(Timestamp.valueOf(limite));
+        if (usuario != null) {
+            sql.append(" AND usuario = ?");
+            parametros.add(usuario);
+        }
+        if (!excetoUsuarios.isEmpty()) {
+            sql.append(" AND usuario NOT IN (").append(marcadores(excetoUsuarios.size())).append(')');
+            parametros.addAll(excetoUsuarios);
+        }
+        if (apos != null) {
+            sql.append(" AND (data_criacao_mensagem < ? OR (data_criacao_mensagem = ? AND id < ?))");
+            parametros.add(Timestamp.valueOf(apos.dataCriacaoMensagem()));
+            parametros.add(Timestamp.valueOf(apos.dataCriacaoMensagem()));
+            parametros.add(apos.id());
+        }
+        sql.append(" ORDER BY data_criacao_mensagem DESC, id DESC FETCH FIRST ? ROWS ONLY");
+        parametros.add(quantidade);
+        return jdbcTemplate.query(sql.toString(),
+                (rs, linha) -> new CursorMensagem(rs.getTimestamp(1).toLocalDateTime(), rs.getObject(2, UUID.class)),
+                parametros.toArray());
+    }
+
+    @Override
+    @Transactional
+    public Optional<Mensagem> alterarParcialmente(UUID id, String usuario, String conteudo, Long versao) {
+        var sql = new StringBuilder("UPDATE mensagem SET versao = versao + 1");
+        var parametros = new ArrayList<Object>();
+        if (usuario != null) {
+            sql.append(", usuario = ?");
+            parametros.add(usuario);
+        }
+        if (conteudo != null) {
+            sql.append(", conteudo = ?");
+            parametros.add(conteudo);
+        }
+        sql.append(" WHERE id = ?");
+        parametros.add(id);
+        if (versao != null) {
+            sql.append(" AND versao = ?");
+            parametros.add(versao);
+        }
+        // Como o @Modifying(flushAutomatically, clearAutomatically): as entidades do contexto ficariam
+        // com a versão anterior.
+        entityManager.flush();
+        var anteriores = devolvendo("OLD TABLE (" + sql + ")", parametros);
+        entityManager.clear();
+        return anteriores.stream().findFirst();
+    }
+
+    @Override
+    public List<Mensagem> removerExpiradas(Collection<UUID> ids, LocalDateTime limite) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        var parametros = new ArrayList<Object>(ids);
+        parametros.add(limite);
+        return devolvendo("OLD TABLE (DELETE FROM mensagem WHERE id IN (" + marcadores(ids.size())
+                + ") AND data_criacao_mensagem < ?)", parametros);
+    }
+
+    @Override
+    public Optional<Mensagem> removerDevolvendo(UUID id) {
+        return devolvendo("OLD TABLE (DELETE FROM mensagem WHERE id = ?)", List.of(id)).stream().findFirst();
+    }
+
+    /**
+     * Lê as linhas da tabela delta do H2 ({@code OLD TABLE}), que devolve as linhas como estavam
+     * antes do próprio UPDATE ou DELETE. Vai pelo {@link EntityManager}, sem mapear a entidade,
+     * para que as linhas não entrem no contexto.
+     */
+    @SuppressWarnings("unchecked")
+    private List<Mensagem> devolvendo(String tabelaDelta, List<Object> parametros) {
+        // Parâmetros ordinais do JPA (?1, ?2...) no lugar dos do JDBC.
+        var sql = new StringBuilder("SELECT id, usuario, conteudo, data_criacao_mensagem, gostei, versao FROM ");
+        var posicao = 0;
+        for (var parte : tabelaDelta.split("\\?", -1)) {
+            if (posicao > 0) {
+                sql.append('?').append(posicao);
+            }
+            sql.append(parte);
+            posicao++;
+        }
+        var consulta = entityManager.createNativeQuery(sql.toString());
+        for (int i = 0; i < parametros.size(); i++) {
+            consulta.setParameter(i + 1, parametros.get(i));
+        }
+        List<Object[]> linhas = consulta.unwrap(NativeQuery.class)
+                .addScalar("id", UUID.class)
+                .addScalar("usuario", String.class)
+                .addScalar("conteudo", String.class)
+                .addScalar("data_criacao_mensagem", LocalDateTime.class)
+                .addScalar("gostei", Integer.class)
+                .addScalar("versao", Long.class)
+                .getResultList();
+        return linhas.stream().map(linha -> Mensagem.builder()
+                .id((UUID) linha[0])
+                .usuario((String) linha[1])
+                .conteudo((String) linha[2])
+                .dataCriacaoMensagem((LocalDateTime) linha[3])
+                .gostei((Integer) linha[4])
+                .versao((Long) linha[5])
+                .build()).toList();
+    }
+
+    @Override
+    public List<TotalHora> totalizarPorHora(LocalDateTime desde) {
+        var filtro = desde == null ? "" : " WHERE data_criacao_mensagem >= ?";
+        var parametros = desde == null ? new Object[0] : new Object[]{Timestamp.valueOf(desde)};
+        return jdbcTemplate.query("SELECT usuario, DATE_TRUNC(HOUR, data_criacao_mensagem) AS hora, COUNT(*), "
+                        + "COALESCE(SUM(gostei), 0) FROM mensagem" + filtro + " GROUP BY usuario, hora",
+                (rs, linha) -> new TotalHora(rs.getString(1), rs.getObject(2, LocalDateTime.class),
+                        rs.getLong(3), rs.getLong(4)),
+                parametros);
+    }
+
+    @Override
+    public void desanexar(Mensagem mensagem) {
+        entityManager.detach(mensagem);
+    }
+
+    @Override
+    public void limparContexto() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private static String marcadores(int quantidade) {
+        return String.join(", ", Collections.nCopies(quantidade, "?"));
+    }
+}
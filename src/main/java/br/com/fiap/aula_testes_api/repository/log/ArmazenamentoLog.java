@@ -0,0 +1,348 @@
+package br.com.fiap.aula_testes_api.repository.log;
+
+import br.com.fiap.aula_testes_api.model.CursorMensagem;
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * Armazena as mensagens num log só de acréscimo, em segmentos mapeados em memória
+ * ({@link SegmentoLog}, formato em {@link RegistroLog}). Cada gravação acrescenta a mensagem
+ * inteira; a remoção acrescenta uma marca. Em memória ficam só os índices: id → posição do
+ * registro atual, e as chaves na ordem do feed ({@code dataCriacaoMensagem DESC, id DESC}),
+ * geral e por usuário. As mensagens são lidas do mapeamento quando pedidas.
+ * <p>
+ * Ao abrir, os segmentos são relidos em ordem para reconstruir os índices; um registro
+ * incompleto no fim do último segmento (queda durante a escrita) é descartado.
+ * <p>
+ * As escritas são serializadas por uma trava; as leituras não travam. O que está no mapeamento
+ * chega ao disco quando o sistema operacional descarrega as páginas, ou em
+ * {@link #sincronizar()}: uma queda da máquina (não só do processo) pode perder as escritas
+ * desde a última sincronização.
+ * <p>
+ * {@link #compactar(double)} regrava os registros ainda atuais de segmentos com pouca coisa
+ * viva no segmento ativo e apaga o arquivo antigo.
+ */
+@Slf4j
+public class ArmazenamentoLog implements AutoCloseable {
+
+    private final Path diretorio;
+    private final int tamanhoSegmento;
+    private final ReentrantLock escrita = new ReentrantLock();
+    private final List<SegmentoLog> segmentos = new CopyOnWriteArrayList<>();
+    private final Map<UUID, Posicao> posicoes = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<CursorMensagem, UUID> feed = new ConcurrentSkipListMap<>(CursorMensagem.ORDEM_FEED);
+    private final Map<String, ConcurrentSkipListSet<CursorMensagem>> porUsuario = new ConcurrentHashMap<>();
+    private volatile SegmentoLog ativo;
+
+    public ArmazenamentoLog(Path diretorio, int tamanhoSegmento) {
+        this.diretorio = diretorio;
+        this.tamanhoSegmento = tamanhoSegmento;
+        try {
+            Files.createDirectories(diretorio);
+            try (var arquivos = Files.list(diretorio)) {
+                arquivos.filter(arquivo -> arquivo.getFileName().toString().endsWith(".log"))
+                        .sorted()
+                        .forEach(arquivo -> segmentos.add(SegmentoLog.abrir(diretorio, SegmentoLog.numero(arquivo), 0)));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao abrir o log em " + diretorio, e);
+        }
+        segmentos.forEach(this::reproduzir);
+        ativo = segmentos.isEmpty() ? novoSegmento(1, 0) : segmentos.get(segmentos.size() - 1);
+        log.info("Log de mensagens aberto em {}: {} segmentos, {} mensagens", diretorio, segmentos.size(), posicoes.size());
+    }
+
+    public Optional<Mensagem> buscar(UUID id) {
+        var posicao = posicoes.get(id);
+        return posicao == null ? Optional.empty() : Optional.of(posicao.ler());
+    }
+
+    public boolean existe(UUID id) {
+        return posicoes.containsKey(id);
+    }
+
+    public int quantidade() {
+        return posicoes.size();
+    }
+
+    /**
+     * Grava uma mensagem nova ou substitui a atual de mesmo id.
+     */
+    public void gravar(Mensagem mensagem) {
+        escrita.lock();
+        try {
+            acrescentar(RegistroLog.gravacao(mensagem));
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    /**
+     * Grava a mensagem só se ainda não houver uma de mesmo id, verificando e gravando sem que
+     * outra escrita aconteça no meio.
+     *
+     * @return {@code false} se a mensagem já existia (nada é gravado)
+     */
+    public boolean inserir(Mensagem mensagem) {
+        escrita.lock();
+        try {
+            if (posicoes.containsKey(mensagem.getId())) {
+                return false;
+            }
+            acrescentar(RegistroLog.gravacao(mensagem));
+            return true;
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    /**
+     * Grava várias mensagens com uma única aquisição da trava.
+     */
+    public void gravar(Iterable<Mensagem> mensagens) {
+        escrita.lock();
+        try {
+            mensagens.forEach(mensagem -> acrescentar(RegistroLog.gravacao(mensagem)));
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    /**
+     * Lê a mensagem atual, aplica {@code alteracao} e grava o resultado, sem que outra escrita
+     * aconteça no meio. {@code alteracao} pode devolver {@code null} para não gravar nada.
+     *
+     * @return a mensagem gravada, ou vazio se ela não existe ou a alteração foi desistida
+     */
+    public Optional<Mensagem> alterar(UUID id, UnaryOperator<Mensagem> alteracao) {
+        escrita.lock();
+        try {
+            var posicao = posicoes.get(id);
+            if (posicao == null) {
+                return Optional.empty();
+            }
+            var alterada = alteracao.apply(posicao.ler());
+            if (alterada != null) {
+                acrescentar(RegistroLog.gravacao(alterada));
+            }
+            return Optional.ofNullable(alterada);
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    public boolean remover(UUID id) {
+        escrita.lock();
+        try {
+            if (!posicoes.containsKey(id)) {
+                return false;
+            }
+            acrescentar(RegistroLog.remocao(id));
+            return true;
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    /**
+     * Como {@link #remover(UUID)}, mas devolve a mensagem removida.
+     */
+    public Optional<Mensagem> removerDevolvendo(UUID id) {
+        escrita.lock();
+        try {
+            var posicao = posicoes.get(id);
+            if (posicao == null) {
+                return Optional.empty();
+            }
+            var mensagem = posicao.ler();
+            acrescentar(RegistroLog.remocao(id));
+            return Optional.of(mensagem);
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    /**
+     * Chaves de todas as mensagens (ou só das do usuário) na ordem do feed, a partir da chave
+     * informada (exclusiva). O resultado reflete escritas concorrentes, como os iteradores das
+     * coleções concorrentes.
+     */
+    public NavigableSet<CursorMensagem> chaves(String usuario, CursorMensagem apos) {
+        NavigableSet<CursorMensagem> chaves = usuario == null
+                ? feed.keySet()
+                : porUsuario.getOrDefault(usuario, new ConcurrentSkipListSet<>(CursorMensagem.ORDEM_FEED));
+        return apos == null ? chaves : chaves.tailSet(apos, false);
+    }
+
+    /**
+     * Mensagens na ordem do feed; as removidas durante a leitura são puladas.
+     */
+    public Stream<Mensagem> mensagens(NavigableSet<CursorMensagem> chaves) {
+        return chaves.stream()
+                .map(chave -> posicoes.get(chave.id()))
+                .filter(posicao -> posicao != null)
+                .map(Posicao::ler);
+    }
+
+    public String usuario(UUID id) {
+        var posicao = posicoes.get(id);
+        return posicao == null ? null : posicao.usuario;
+    }
+
+    /**
+     * Força as páginas alteradas do segmento ativo para o disco.
+     */
+    public void sincronizar() {
+        ativo.sincronizar();
+    }
+
+    /**
+     * Compacta os segmentos fechados em que menos de {@code limiar} dos bytes ainda são vivos.
+     *
+     * @return segmentos apagados
+     */
+    public synchronized int compactar(double limiar) {
+        var compactados = 0;
+        for (var segmento : segmentos) {
+            if (segmento != ativo && segmento.vivos().get() < limiar * segmento.posicao()) {
+                compactar(segmento);
+                compactados++;
+            }
+        }
+        return compactados;
+    }
+
+    @Override
+    public void close() {
+        escrita.lock();
+        try {
+            ativo.sincronizar();
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    private void compactar(SegmentoLog segmento) {
+        var buffer = segmento.buffer();
+        var mantidos = 0;
+        for (int inicio = 0; inicio < segmento.posicao(); ) {
+            var tamanho = RegistroLog.validar(buffer, inicio);
+            var id = RegistroLog.id(buffer, inicio);
+            escrita.lock();
+            try {
+                if (RegistroLog.tipo(buffer, inicio) == RegistroLog.GRAVACAO) {
+                    var posicao = posicoes.get(id);
+                    if (posicao != null && posicao.segmento == segmento && posicao.inicio == inicio) {
+                        acrescentar(RegistroLog.gravacao(posicao.ler()));
+                        mantidos++;
+                    }
+                } else if (!posicoes.containsKey(id) && segmentos.get(0) != segmento) {
+                    // A marca ainda esconde a mensagem gravada num segmento mais antigo. Se o id foi
+                    // gravado de novo depois dela, a cópia cairia após a gravação atual e a apagaria.
+                    acrescentar(RegistroLog.remocao(id));
+                }
+            } finally {
+                escrita.unlock();
+            }
+            inicio += tamanho;
+        }
+        // As cópias precisam estar no disco antes de o original sumir.
+        ativo.sincronizar();
+        segmentos.remove(segmento);
+        segmento.apagar();
+        log.debug("Segmento {} compactado: {} mensagens regravadas", segmento.numero(), mantidos);
+    }
+
+    private void reproduzir(SegmentoLog segmento) {
+        var buffer = segmento.buffer();
+        var inicio = 0;
+        int tamanho;
+        while ((tamanho = RegistroLog.validar(buffer, inicio)) > 0) {
+            indexar(segmento, inicio, tamanho);
+            inicio += tamanho;
+        }
+        segmento.posicionar(inicio);
+        if (buffer.capacity() - inicio >= Integer.BYTES && buffer.getInt(inicio) != 0) {
+            log.warn("Registro incompleto descartado no segmento {}, posição {}", segmento.numero(), inicio);
+            // Zera o resto do segmento para que o lixo não seja lido como registro numa próxima abertura.
+            buffer.put(inicio, new byte[buffer.capacity() - inicio]);
+        }
+    }
+
+    private void acrescentar(byte[] registro) {
+        var segmento = ativo;
+        if (segmento.livre() < registro.length) {
+            segmento.sincronizar();
+            segmento = novoSegmento(segmento.numero() + 1, registro.length);
+            ativo = segmento;
+        }
+        var inicio = segmento.posicao();
+        segmento.buffer().put(inicio, registro);
+        segmento.posicionar(inicio + registro.length);
+        indexar(segmento, inicio, registro.length);
+    }
+
+    private SegmentoLog novoSegmento(long numero, int tamanhoMinimo) {
+        var segmento = SegmentoLog.abrir(diretorio, numero, Math.max(tamanhoSegmento, tamanhoMinimo));
+        segmentos.add(segmento);
+        return segmento;
+    }
+
+    /**
+     * Aplica ao índice o registro em {@code inicio}, já gravado no segmento.
+     */
+    private void indexar(SegmentoLog segmento, int inicio, int tamanho) {
+        var buffer = segmento.buffer();
+        var id = RegistroLog.id(buffer, inicio);
+        var anterior = RegistroLog.tipo(buffer, inicio) == RegistroLog.GRAVACAO
+                ? posicoes.put(id, nova(segmento, inicio, tamanho))
+                : posicoes.remove(id);
+        if (anterior != null) {
+            anterior.segmento.vivos().addAndGet(-anterior.tamanho);
+            var atual = posicoes.get(id);
+            var mesmaChave = atual != null && atual.chave.equals(anterior.chave);
+            if (!mesmaChave) {
+                feed.remove(anterior.chave);
+            }
+            if (!mesmaChave || !atual.usuario.equals(anterior.usuario)) {
+                porUsuario.computeIfPresent(anterior.usuario, (usuario, chaves) -> {
+                    chaves.remove(anterior.chave);
+                    return chaves.isEmpty() ? null : chaves;
+                });
+            }
+        }
+    }
+
+    private Posicao nova(SegmentoLog segmento, int inicio, int tamanho) {
+        var mensagem = RegistroLog.ler(segmento.buffer(), inicio);
+        var posicao = new Posicao(segmento, inicio, tamanho, CursorMensagem.de(mensagem), mensagem.getUsuario());
+        segmento.vivos().addAndGet(tamanho);
+        feed.put(posicao.chave, mensagem.getId());
+        porUsuario.computeIfAbsent(posicao.usuario, u -> new ConcurrentSkipListSet<>(CursorMensagem.ORDEM_FEED)).add(posicao.chave);
+        return posicao;
+    }
+
+    private record Posicao(SegmentoLog segmento, int inicio, int tamanho, CursorMensagem chave, String usuario) {
+
+        Mensagem ler() {
+            return RegistroLog.ler(segmento.buffer(), inicio);
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package br.com.fiap.aula_testes_api.repository.log;
+
+import br.com.fiap.aula_testes_api.model.ConteudoMensagem;
+import br.com.fiap.aula_testes_api.model.CursorMensagem;
+import br.com.fiap.aula_testes_api.model.Granularidade;
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.model.TotalHora;
+import br.com.fiap.aula_testes_api.model.VersaoMensagem;
+import br.com.fiap.aula_testes_api.repository.ArmazenamentoMensagens;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * {@link ArmazenamentoMensagens} sobre o {@link ArmazenamentoLog}, ativado pelo perfil {@code log}:
+ * as mensagens sobrevivem a reinícios sem passar pelo JPA. As demais tabelas (travas, chaves de
+ * idempotência) continuam no banco configurado.
+ * <p>
+ * Mantém a semântica que o serviço espera do JPA: a versão começa em 0 e é incrementada a cada
+ * {@code save} de uma mensagem existente, que falha com
+ * {@link ObjectOptimisticLockingFailureException} se a versão informada não for a atual; os
+ * "gostei" são somados sem alterar a versão. As consultas seguem a ordem do feed e ignoram a
+ * ordenação do {@link Pageable}.
+ */
+@Repository
+@Primary
+@Profile("log")
+public class MensagemRepositoryLog implements ArmazenamentoMensagens {
+
+    private final ArmazenamentoLog armazenamento;
+    private final double limiarCompactacao;
+
+    @Autowired
+    public MensagemRepositoryLog(@Value("${mensagem.log.diretorio:dados/mensagens}") Path diretorio,
+                                 @Value("${mensagem.log.tamanho-segmento:67108864}") int tamanhoSegmento,
+                                 @Value("${mensagem.log.limiar-compactacao:0.5}") double limiarCompactacao) {
+        this(new ArmazenamentoLog(diretorio, tamanhoSegmento), limiarCompactacao);
+    }
+
+    MensagemRepositoryLog(ArmazenamentoLog armazenamento, double limiarCompactacao) {
+        this.armazenamento = armazenamento;
+        this.limiarCompactacao = limiarCompactacao;
+    }
+
+    @Scheduled(fixedDelayString = "${mensagem.log.intervalo-sincronizacao:1000}")
+    public void sincronizar() {
+        armazenamento.sincronizar();
+    }
+
+    @Scheduled(fixedDelayString = "${mensagem.log.intervalo-compactacao:60000}")
+    public void compactar() {
+        armazenamento.compactar(limiarCompactacao);
+    }
+
+    @PreDestroy
+    public void fechar() {
+        armazenamento.close();
+    }
+
+    @Override
+    public <S extends Mensagem> S save(S mensagem) {
+        if (mensagem.getDataCriacaoMensagem() == null) {
+            mensagem.setDataCriacaoMensagem(LocalDateTime.now());
+        }
+        var gravada = armazenamento.alterar(mensagem.getId(), atual -> {
+            if (mensagem.getVersao() != null && !mensagem.getVersao().equals(atual.getVersao())) {
+                throw new ObjectOptimisticLockingFailureException(Mensagem.class, mensagem.getId());
+            }
+            return mensagem.toBuilder().versao(atual.getVersao() + 1).build();
+        });
+        if (gravada.isPresent()) {
+            mensagem.setVersao(gravada.get().getVersao());
+        } else {
+            mensagem.setVersao(0L);
+            armazenamento.gravar(mensagem);
+        }
+        return mensagem;
+    }
+
+    @Override
+    public void inserir(Mensagem mensagem) {
+        if (mensagem.getDataCriacaoMensagem() == null) {
+            mensagem.setDataCriacaoMensagem(LocalDateTime.now());
+        }
+        mensagem.setVersao(0L);
+        if (!armazenamento.inserir(mensagem)) {
+            throw new DuplicateKeyException("Mensagem " + mensagem.getId() + " já existe");
+        }
+    }
+
+    @Override
+    public Optional<Mensagem> findById(UUID id) {
+        return armazenamento.buscar(id);
+    }
+
+    @Override
+    public boolean existsById(UUID id) {
+        return armazenamento.existe(id);
+    }
+
+    @Override
+    public List<Mensagem> findAllById(Iterable<UUID> ids) {
+        return StreamSupport.stream(ids.spliterator(), false)
+                .map(armazenamento::buscar)
+                .flatMap(Optional::stream)
+                .toList();
+    }
+
+    public long count() {
+        return armazenamento.quantidade();
+    }
+
+    public void deleteAll() {
+        List.copyOf(armazenamento.chaves(null, null)).forEach(chave -> armazenamento.remover(chave.id()));
+    }
+
+    @Override
+    public Page<Mensagem> listarMensagens(Pageable pageable) {
+        var conteudo = pagina(armazenamento.chaves(null, null), pageable, 0);
+        return new PageImpl<>(conteudo, pageable, armazenamento.quantidade());
+    }
+
+    @Override
+    public Slice<Mensagem> listarFeed(Pageable pageable) {
+        return fatia(armazenamento.chaves(null, null), pageable);
+    }
+
+    @Override
+    public Slice<Mensagem> listarFeedApos(LocalDateTime dataCriacao, UUID id, Pageable pageable) {
+        return fatia(armazenamento.chaves(null, new CursorMensagem(dataCriacao, id)), pageable);
+    }
+
+    @Override
+    public Slice<Mensagem> listarPorUsuario(String usuario, Pageable pageable) {
+        return fatia(armazenamento.chaves(usuario, null), pageable);
+    }
+
+    @Override
+    public Slice<Mensagem> listarPorUsuarioApos(String usuario, LocalDateTime dataCriacao, UUID id, Pageable pageable) {
+        return fatia(armazenamento.chaves(usuario, new CursorMensagem(dataCriacao, id)), pageable);
+    }
+
+    @Override
+    public Stream<Mensagem> exportarMensagens() {
+        return armazenamento.mensagens(armazenamento.chaves(null, null));
+    }
+
+    @Override
+    public Stream<ConteudoMensagem> listarConteudos() {
+        return exportarMensagens().map(mensagem -> new ConteudoMensagem(mensagem.getId(), mensagem.getConteudo()));
+    }
+
+    @Override
+    public Optional<VersaoMensagem> buscarVersao(UUID id) {
+        return armazenamento.buscar(id).map(VersaoMensagem::de);
+    }
+
+    @Override
+    public Optional<Mensagem> alterarParcialmente(UUID id, String usuario, String conteudo, Long versao) {
+        var anterior = new AtomicReference<Mensagem>();
+        armazenamento.alterar(id, atual -> {
+            if (versao != null && !versao.equals(atual.getVersao())) {
+                return null;
+            }
+            anterior.set(atual);
+            return atual.toBuilder()
+                    .usuario(Objects.requireNonNullElse(usuario, atual.getUsuario()))
+                    .conteudo(Objects.requireNonNullElse(conteudo, atual.getConteudo()))
+                    .versao(atual.getVersao() + 1)
+                    .build();
+        });
+        return Optional.ofNullable(anterior.get());
+    }
+
+    @Override
+    public int incrementarGostei(UUID id, int quantidade) {
+        return armazenamento.alterar(id, atual -> atual.toBuilder().gostei(atual.getGostei() + quantidade).build())
+                .isPresent() ? 1 : 0;
+    }
+
+    @Override
+    public void incrementarGostei(Map<UUID, Long> incrementos) {
+        incrementos.forEach((id, quantidade) -> incrementarGostei(id, quantidade.intValue()));
+    }
+
+    @Override
+    public List<CursorMensagem> listarExpiradas(LocalDateTime limite, String usuario, Collection<String> excetoUsuarios,
+                                                CursorMensagem apos, int quantidade) {
+        // Com o maior id possível, a chave fica antes de todas as mensagens criadas em "limite".
+        var inicio = new CursorMensagem(limite, new UUID(-1L, -1L));
+        if (apos != null && CursorMensagem.ORDEM_FEED.compare(apos, inicio) > 0) {
+            inicio = apos;
+        }
+        var expiradas = new ArrayList<CursorMensagem>(quantidade);
+        for (var chave : armazenamento.chaves(usuario, inicio)) {
+            if (expiradas.size() == quantidade) {
+                break;
+            }
+            if (chave.dataCriacaoMensagem().isBefore(limite)
+                    && !excetoUsuarios.contains(armazenamento.usuario(chave.id()))) {
+                expiradas.add(chave);
+            }
+        }
+        return expiradas;
+    }
+
+    @Override
+    public List<Mensagem> removerExpiradas(Collection<UUID> ids, LocalDateTime limite) {
+        var removidas = new ArrayList<Mensagem>();
+        for (var id : ids) {
+            var mensagem = armazenamento.buscar(id);
+            if (mensagem.isPresent() && mensagem.get().getDataCriacaoMensagem().isBefore(limite)) {
+                armazenamento.removerDevolvendo(id).ifPresent(removidas::add);
+            }
+        }
+        return removidas;
+    }
+
+    @Override
+    public Optional<Mensagem> removerDevolvendo(UUID id) {
+        return armazenamento.removerDevolvendo(id);
+    }
+
+    @Override
+    public List<TotalHora> totalizarPorHora(LocalDateTime desde) {
+        var totais = new HashMap<TotalHora, long[]>();
+        try (var mensagens = armazenamento.mensagens(armazenamento.chaves(null, null))) {
+            mensagens.takeWhile(mensagem -> desde == null || !mensagem.getDataCriacaoMensagem().isBefore(desde))
+                    .forEach(mensagem -> {
+                        var chave = new TotalHora(mensagem.getUsuario(),
+                                Granularidade.HORA.truncar(mensagem.getDataCriacaoMensagem()), 0, 0);
+                        var total = totais.computeIfAbsent(chave, c -> new long[2]);
+                        total[0]++;
+                        total[1] += mensagem.getGostei();
+                    });
+        }
+        return totais.entrySet().stream()
+                .map(total -> new TotalHora(total.getKey().usuario(), total.getKey().hora(),
+                        total.getValue()[0], total.getValue()[1]))
+                .toList();
+    }
+
+    @Override
+    public void desanexar(Mensagem mensagem) {
+        // Cada leitura já devolve uma instância nova; não há contexto de persistência.
+    }
+
+    @Override
+    public void limparContexto() {
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    private Slice<Mensagem> fatia(NavigableSet<CursorMensagem> chaves, Pageable pageable) {
+        var conteudo = pagina(chaves, pageable, 1);
+        var temProxima = conteudo.size() > pageable.getPageSize();
+        return new SliceImpl<>(temProxima ? conteudo.subList(0, pageable.getPageSize()) : conteudo, pageable, temProxima);
+    }
+
+    /**
+     * Mensagens da página, mais {@code extras} além dela (para saber se há próxima).
+     */
+    private List<Mensagem> pagina(NavigableSet<CursorMensagem> chaves, Pageable pageable, int extras) {
+        var mensagens = armazenamento.mensagens(chaves);
+        if (pageable.isPaged()) {
+            mensagens = mensagens.skip(pageable.getOffset()).limit(pageable.getPageSize() + (long) extras);
+        }
+        return mensagens.toList();
+    }
+}
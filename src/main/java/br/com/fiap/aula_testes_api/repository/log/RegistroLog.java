@@ -0,0 +1,114 @@
+package br.com.fiap.aula_testes_api.repository.log;
+
+import br.com.fiap.aula_testes_api.model.Mensagem;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+
+/**
+ * Formato de um registro do log:
+ * <pre>
+ * int tamanho (do corpo) | int crc32c (do corpo) | corpo
+ * corpo de gravação: byte 1 | long id (alto) | long id (baixo) | long versao | int gostei
+ *                    | long segundos | int nanos | int n | usuario (n bytes UTF-8)
+ *                    | int n | conteudo (n bytes UTF-8)
+ * corpo de remoção:  byte 2 | long id (alto) | long id (baixo)
+ * </pre>
+ * A data de criação é gravada como hora local, como no banco. O CRC detecta um registro
+ * cortado ao meio por uma queda durante a escrita.
+ */
+final class RegistroLog {
+
+    static final int CABECALHO = 8;
+    static final byte GRAVACAO = 1;
+    static final byte REMOCAO = 2;
+
+    private static final int TAMANHO_REMOCAO = 1 + 16;
+    private static final int TAMANHO_FIXO_GRAVACAO = 1 + 16 + 8 + 4 + 8 + 4 + 4 + 4;
+
+    private RegistroLog() {
+    }
+
+    static byte[] gravacao(Mensagem mensagem) {
+        var usuario = mensagem.getUsuario().getBytes(StandardCharsets.UTF_8);
+        var conteudo = mensagem.getConteudo().getBytes(StandardCharsets.UTF_8);
+        var data = mensagem.getDataCriacaoMensagem();
+        var registro = ByteBuffer.allocate(CABECALHO + TAMANHO_FIXO_GRAVACAO + usuario.length + conteudo.length);
+        registro.position(CABECALHO)
+                .put(GRAVACAO)
+                .putLong(mensagem.getId().getMostSignificantBits())
+                .putLong(mensagem.getId().getLeastSignificantBits())
+                .putLong(mensagem.getVersao())
+                .putInt(mensagem.getGostei())
+                .putLong(data.toEpochSecond(ZoneOffset.UTC))
+                .putInt(data.getNano())
+                .putInt(usuario.length).put(usuario)
+                .putInt(conteudo.length).put(conteudo);
+        return fechar(registro);
+    }
+
+    static byte[] remocao(UUID id) {
+        var registro = ByteBuffer.allocate(CABECALHO + TAMANHO_REMOCAO);
+        registro.position(CABECALHO)
+                .put(REMOCAO)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits());
+        return fechar(registro);
+    }
+
+    /**
+     * Tamanho total (com cabeçalho) do registro válido em {@code inicio}, ou -1 se ali termina
+     * o log: fim do segmento, cabeçalho zerado ou registro incompleto.
+     */
+    static int validar(ByteBuffer segmento, int inicio) {
+        if (segmento.capacity() - inicio < CABECALHO) {
+            return -1;
+        }
+        var tamanho = segmento.getInt(inicio);
+        if (tamanho <= 0 || tamanho > segmento.capacity() - inicio - CABECALHO) {
+            return -1;
+        }
+        var crc = new CRC32C();
+        crc.update(segmento.slice(inicio + CABECALHO, tamanho));
+        return (int) crc.getValue() == segmento.getInt(inicio + 4) ? CABECALHO + tamanho : -1;
+    }
+
+    static byte tipo(ByteBuffer segmento, int inicio) {
+        return segmento.get(inicio + CABECALHO);
+    }
+
+    static UUID id(ByteBuffer segmento, int inicio) {
+        return new UUID(segmento.getLong(inicio + CABECALHO + 1), segmento.getLong(inicio + CABECALHO + 9));
+    }
+
+    static Mensagem ler(ByteBuffer segmento, int inicio) {
+        var i = inicio + CABECALHO + 1;
+        var id = new UUID(segmento.getLong(i), segmento.getLong(i + 8));
+        var versao = segmento.getLong(i + 16);
+        var gostei = segmento.getInt(i + 24);
+        var data = LocalDateTime.ofEpochSecond(segmento.getLong(i + 28), segmento.getInt(i + 36), ZoneOffset.UTC);
+        var tamanhoUsuario = segmento.getInt(i + 40);
+        var usuario = texto(segmento, i + 44, tamanhoUsuario);
+        var tamanhoConteudo = segmento.getInt(i + 44 + tamanhoUsuario);
+        var conteudo = texto(segmento, i + 48 + tamanhoUsuario, tamanhoConteudo);
+        return new Mensagem(id, usuario, conteudo, data, gostei, versao);
+    }
+
+    private static String texto(ByteBuffer segmento, int inicio, int tamanho) {
+        var bytes = new byte[tamanho];
+        segmento.get(inicio, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] fechar(ByteBuffer registro) {
+        var tamanho = registro.position() - CABECALHO;
+        var crc = new CRC32C();
+        crc.update(registro.array(), CABECALHO, tamanho);
+        registro.putInt(0, tamanho).putInt(4, (int) crc.getValue());
+        return registro.array();
+    }
+}
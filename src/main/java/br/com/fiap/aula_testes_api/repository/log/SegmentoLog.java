@@ -0,0 +1,92 @@
+package br.com.fiap.aula_testes_api.repository.log;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Um arquivo do log, mapeado em memória por inteiro. O arquivo é criado já com o tamanho final
+ * (zerado), então o fim dos registros é o primeiro cabeçalho com tamanho 0.
+ * <p>
+ * Só o {@link ArmazenamentoLog} escreve, sempre no fim e sob a trava de escrita; as leituras são
+ * absolutas e podem acontecer em paralelo com a escrita de registros posteriores.
+ */
+final class SegmentoLog {
+
+    private final long numero;
+    private final Path arquivo;
+    private final MappedByteBuffer buffer;
+    /**
+     * Bytes de registros que ainda são a versão atual de alguma mensagem.
+     */
+    private final AtomicLong vivos = new AtomicLong();
+    private int posicao;
+
+    private SegmentoLog(long numero, Path arquivo, MappedByteBuffer buffer) {
+        this.numero = numero;
+        this.arquivo = arquivo;
+        this.buffer = buffer;
+    }
+
+    static SegmentoLog abrir(Path diretorio, long numero, int tamanhoMinimo) {
+        var arquivo = diretorio.resolve(String.format("%010d.log", numero));
+        try (var canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            var tamanho = Math.max(tamanhoMinimo, (int) Math.min(canal.size(), Integer.MAX_VALUE));
+            // O mapeamento continua válido depois que o canal é fechado.
+            return new SegmentoLog(numero, arquivo, canal.map(FileChannel.MapMode.READ_WRITE, 0, tamanho));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao abrir o segmento " + arquivo, e);
+        }
+    }
+
+    static long numero(Path arquivo) {
+        var nome = arquivo.getFileName().toString();
+        return Long.parseLong(nome.substring(0, nome.length() - ".log".length()));
+    }
+
+    long numero() {
+        return numero;
+    }
+
+    MappedByteBuffer buffer() {
+        return buffer;
+    }
+
+    int posicao() {
+        return posicao;
+    }
+
+    void posicionar(int posicao) {
+        this.posicao = posicao;
+    }
+
+    int livre() {
+        return buffer.capacity() - posicao;
+    }
+
+    AtomicLong vivos() {
+        return vivos;
+    }
+
+    void sincronizar() {
+        buffer.force();
+    }
+
+    /**
+     * Apaga o arquivo. Leitores que ainda tenham uma posição neste segmento continuam lendo do
+     * mapeamento, que só é liberado quando o buffer deixa de ser referenciado.
+     */
+    void apagar() {
+        try {
+            Files.deleteIfExists(arquivo);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao apagar o segmento " + arquivo, e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package br.com.fiap.aula_testes_api.repository.shard;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Intercala k sequências já ordenadas numa só, mantendo numa fila de prioridade apenas o
+ * próximo elemento de cada uma: cada passo custa O(log k) e nenhuma sequência é lida além do
+ * que for consumido.
+ */
+final class IntercalacaoOrdenada<T> implements Iterator<T> {
+
+    private final PriorityQueue<Cabeca<T>> cabecas;
+
+    IntercalacaoOrdenada(List<? extends Iterator<? extends T>> fontes, Comparator<? super T> ordem) {
+        this.cabecas = new PriorityQueue<>(Math.max(1, fontes.size()),
+                (a, b) -> ordem.compare(a.valor(), b.valor()));
+        fontes.forEach(this::avancar);
+    }
+
+    /**
+     * Intercala listas ordenadas, descartando os {@code pular} primeiros elementos do resultado.
+     */
+    static <T> List<T> intercalar(List<? extends List<? extends T>> listas, Comparator<? super T> ordem,
+                                  long pular, int quantidade) {
+        var intercalacao = new IntercalacaoOrdenada<T>(listas.stream().map(List::iterator).toList(), ordem);
+        for (long i = 0; i < pular && intercalacao.hasNext(); i++) {
+            intercalacao.next();
+        }
+        var resultado = new ArrayList<T>(Math.min(quantidade, listas.stream().mapToInt(List::size).sum()));
+        while (resultado.size() < quantidade && intercalacao.hasNext()) {
+            resultado.add(intercalacao.next());
+        }
+        return resultado;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !cabecas.isEmpty();
+    }
+
+    @Override
+    public T next() {
+        var cabeca = cabecas.poll();
+        if (cabeca == null) {
+            throw new NoSuchElementException();
+        }
+        avancar(cabeca.fonte());
+        return cabeca.valor();
+    }
+
+    private void avancar(Iterator<? extends T> fonte) {
+        if (fonte.hasNext()) {
+            cabecas.add(new Cabeca<>(fonte.next(), fonte));
+        }
+    }
+
+    private record Cabeca<T>(T valor, Iterator<? extends T> fonte) {
+    }
+}
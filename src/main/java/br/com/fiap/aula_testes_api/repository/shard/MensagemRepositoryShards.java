@@ -0,0 +1,557 @@
+package br.com.fiap.aula_testes_api.repository.shard;
+
+import br.com.fiap.aula_testes_api.model.ConteudoMensagem;
+import br.com.fiap.aula_testes_api.model.CursorMensagem;
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.model.TotalHora;
+import br.com.fiap.aula_testes_api.model.VersaoMensagem;
+import br.com.fiap.aula_testes_api.repository.ArmazenamentoMensagens;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.ConnectionHolder;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * {@link ArmazenamentoMensagens} que distribui as mensagens entre vários bancos pelo {@code id},
+ * ativado pelo perfil {@code shards}. As demais tabelas (travas, chaves de idempotência)
+ * continuam no datasource principal.
+ * <p>
+ * Operações por id vão a um único shard: o dos bits menos significativos do id, que são
+ * aleatórios tanto nos UUIDs v4 quanto nos v7. Listagens consultam todos os shards em paralelo,
+ * cada um já na ordem do feed e limitado ao que a página precisa (deslocamento mais tamanho), e
+ * intercalam os resultados com a {@link IntercalacaoOrdenada}. Páginas por cursor custam o
+ * tamanho da página em cada shard; páginas por número custam também o deslocamento.
+ * <p>
+ * Mantém a semântica que o serviço espera do JPA, como o {@code MensagemRepositoryLog}: versão
+ * a partir de 0, {@link ObjectOptimisticLockingFailureException} no {@code save} com versão
+ * desatualizada e "gostei" somados sem alterar a versão.
+ * <p>
+ * Dentro de uma transação de escrita do serviço, cada shard usado recebe uma conexão sem
+ * autocommit, ligada à thread até o fim da transação: os comandos de cada shard são confirmados
+ * juntos, antes do commit do serviço, ou desfeitos se a transação for desfeita. Não há commit em
+ * duas fases: se a confirmação de um shard falhar, os shards já confirmados não voltam atrás.
+ * Nessas transações as consultas a todos os shards são feitas em sequência, na thread da
+ * transação, para enxergarem o que ela já alterou.
+ */
+@Slf4j
+@Repository
+@Primary
+@Profile("shards")
+@EnableConfigurationProperties(ShardsMensagem.class)
+public class MensagemRepositoryShards implements ArmazenamentoMensagens {
+
+    private static final String COLUNAS = "id, usuario, conteudo, data_criacao_mensagem, gostei, versao";
+    private static final String ORDEM_FEED = " ORDER BY data_criacao_mensagem DESC, id DESC";
+    private static final String APOS = "(data_criacao_mensagem < ? OR (data_criacao_mensagem = ? AND id < ?))";
+
+    private static final String[] ESQUEMA = {
+            "CREATE TABLE IF NOT EXISTS mensagem (id UUID PRIMARY KEY, usuario VARCHAR(255) NOT NULL, "
+                    + "conteudo VARCHAR(255) NOT NULL, data_criacao_mensagem TIMESTAMP(6), gostei INTEGER, "
+                    + "versao BIGINT NOT NULL)",
+            "CREATE INDEX IF NOT EXISTS idx_mensagem_data_criacao_id "
+                    + "ON mensagem (data_criacao_mensagem DESC, id DESC)",
+            "CREATE INDEX IF NOT EXISTS idx_mensagem_usuario_data_criacao_id "
+                    + "ON mensagem (usuario, data_criacao_mensagem DESC, id DESC)"
+    };
+
+    private static final RowMapper<Mensagem> MENSAGEM = (rs, linha) -> Mensagem.builder()
+            .id(rs.getObject(1, UUID.class))
+            .usuario(rs.getString(2))
+            .conteudo(rs.getString(3))
+            .dataCriacaoMensagem(rs.getObject(4, LocalDateTime.class))
+            .gostei(rs.getInt(5))
+            .versao(rs.getLong(6))
+            .build();
+
+    private static final Comparator<Mensagem> ORDEM_MENSAGEM =
+            Comparator.comparing(CursorMensagem::de, CursorMensagem.ORDEM_FEED);
+
+    private final List<JdbcTemplate> shards;
+    private final List<DataSource> bancos;
+    private final ExecutorService executor;
+
+    @Autowired
+    public MensagemRepositoryShards(ShardsMensagem configuracao, MeterRegistry meterRegistry) {
+        this(pools(configuracao, meterRegistry), ExecutorServiceMetrics.monitor(meterRegistry,
+                Executors.newFixedThreadPool(configuracao.threads(), new CustomizableThreadFactory("mensagem-shard-")),
+                "mensagem-shards"));
+    }
+
+    MensagemRepositoryShards(List<? extends DataSource> bancos, ExecutorService executor) {
+        if (bancos.isEmpty()) {
+            throw new IllegalStateException("Nenhum banco configurado em mensagem.shards.bancos");
+        }
+        this.bancos = List.copyOf(bancos);
+        this.shards = this.bancos.stream().map(JdbcTemplate::new).toList();
+        this.executor = executor;
+        for (var shard : shards) {
+            for (var comando : ESQUEMA) {
+                shard.execute(comando);
+            }
+        }
+    }
+
+    private static List<HikariDataSource> pools(ShardsMensagem configuracao, MeterRegistry meterRegistry) {
+        var pools = new ArrayList<HikariDataSource>();
+        for (var banco : configuracao.bancos()) {
+            var pool = new HikariDataSource();
+            pool.setPoolName("shard-" + pools.size());
+            pool.setJdbcUrl(banco.url());
+            pool.setUsername(banco.username());
+            pool.setPassword(banco.password());
+            pool.setMaximumPoolSize(banco.tamanhoPool());
+            pool.setMetricRegistry(meterRegistry);
+            pools.add(pool);
+        }
+        return pools;
+    }
+
+    @PreDestroy
+    public void fechar() {
+        executor.shutdown();
+        for (var banco : bancos) {
+            if (banco instanceof HikariDataSource pool) {
+                pool.close();
+            }
+        }
+    }
+
+    /**
+     * Índice do shard que guarda a mensagem.
+     */
+    int shard(UUID id) {
+        return Math.floorMod(id.getLeastSignificantBits(), shards.size());
+    }
+
+    @Override
+    public <S extends Mensagem> S save(S mensagem) {
+        if (mensagem.getDataCriacaoMensagem() == null) {
+            mensagem.setDataCriacaoMensagem(LocalDateTime.now());
+        }
+        var versao = mensagem.getVersao();
+        if (versao == null) {
+            // Como no JPA, versão nula é mensagem nova: um id existente falha na chave primária.
+            inserir(mensagem);
+            return mensagem;
+        }
+        if (shardDe(mensagem.getId()).update("UPDATE mensagem SET usuario = ?, conteudo = ?, gostei = ?, "
+                        + "versao = versao + 1 WHERE id = ? AND versao = ?", mensagem.getUsuario(), mensagem.getConteudo(),
+                Objects.requireNonNullElse(mensagem.getGostei(), 0), mensagem.getId(), versao) == 1) {
+            mensagem.setVersao(versao + 1);
+            return mensagem;
+        }
+        if (existsById(mensagem.getId())) {
+            throw new ObjectOptimisticLockingFailureException(Mensagem.class, mensagem.getId());
+        }
+        inserir(mensagem);
+        return mensagem;
+    }
+
+    @Override
+    public void inserir(Mensagem mensagem) {
+        if (mensagem.getDataCriacaoMensagem() == null) {
+            mensagem.setDataCriacaoMensagem(LocalDateTime.now());
+        }
+        shardDe(mensagem.getId()).update("INSERT INTO mensagem (" + COLUNAS + ") VALUES (?, ?, ?, ?, ?, 0)",
+                mensagem.getId(), mensagem.getUsuario(), mensagem.getConteudo(),
+                mensagem.getDataCriacaoMensagem(), Objects.requireNonNullElse(mensagem.getGostei(), 0));
+        mensagem.setVersao(0L);
+    }
+
+    @Override
+    public Optional<Mensagem> findById(UUID id) {
+        return shardDe(id).query("SELECT " + COLUNAS + " FROM mensagem WHERE id = ?", MENSAGEM, id)
+                .stream().findFirst();
+    }
+
+    @Override
+    public boolean existsById(UUID id) {
+        return !shardDe(id).queryForList("SELECT 1 FROM mensagem WHERE id = ?", Integer.class, id).isEmpty();
+    }
+
+    @Override
+    public List<Mensagem> findAllById(Iterable<UUID> ids) {
+        var porShard = agrupar(ids);
+        return espalhar(shard -> {
+            var doShard = porShard.get(shard);
+            return doShard == null ? List.<Mensagem>of()
+                    : shard.query("SELECT " + COLUNAS + " FROM mensagem WHERE id IN (" + marcadores(doShard.size())
+                    + ")", MENSAGEM, doShard.toArray());
+        }).stream().flatMap(List::stream).toList();
+    }
+
+    public long count() {
+        return espalhar(shard -> shard.queryForObject("SELECT COUNT(*) FROM mensagem", Long.class))
+                .stream().mapToLong(Long::longValue).sum();
+    }
+
+    public void deleteAll() {
+        espalhar(shard -> shard.update("DELETE FROM mensagem"));
+    }
+
+    @Override
+    public Page<Mensagem> listarMensagens(Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            var todas = listarTodas();
+            return new PageImpl<>(todas, pageable, todas.size());
+        }
+        var conteudo = intercalar("", List.of(), pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(conteudo, pageable, count());
+    }
+
+    @Override
+    public Slice<Mensagem> listarFeed(Pageable pageable) {
+        return fatia("", List.of(), pageable);
+    }
+
+    @Override
+    public Slice<Mensagem> listarFeedApos(LocalDateTime dataCriacao, UUID id, Pageable pageable) {
+        return fatia(" WHERE " + APOS, List.of(dataCriacao, dataCriacao, id), pageable);
+    }
+
+    @Override
+    public Slice<Mensagem> listarPorUsuario(String usuario, Pageable pageable) {
+        return fatia(" WHERE usuario = ?", List.of(usuario), pageable);
+    }
+
+    @Override
+    public Slice<Mensagem> listarPorUsuarioApos(String usuario, LocalDateTime dataCriacao, UUID id, Pageable pageable) {
+        return fatia(" WHERE usuario = ? AND " + APOS, List.of(usuario, dataCriacao, dataCriacao, id), pageable);
+    }
+
+    /**
+     * Intercala, sem carregá-los, os streams de todos os shards na ordem do feed; cada shard
+     * mantém uma conexão aberta até o stream ser fechado.
+     */
+    @Override
+    public Stream<Mensagem> exportarMensagens() {
+        var streams = new ArrayList<Stream<Mensagem>>(shards.size());
+        try {
+            for (var shard : shards) {
+                streams.add(shard.queryForStream("SELECT " + COLUNAS + " FROM mensagem" + ORDEM_FEED, MENSAGEM));
+            }
+        } catch (RuntimeException e) {
+            streams.forEach(Stream::close);
+            throw e;
+        }
+        var intercalacao = new IntercalacaoOrdenada<>(streams.stream().map(Stream::iterator).toList(), ORDEM_MENSAGEM);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(intercalacao,
+                        Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> streams.forEach(Stream::close));
+    }
+
+    @Override
+    public Stream<ConteudoMensagem> listarConteudos() {
+        return shards.stream().flatMap(shard -> shard.queryForStream("SELECT id, conteudo FROM mensagem",
+                (rs, linha) -> new ConteudoMensagem(rs.getObject(1, UUID.class), rs.getString(2))));
+    }
+
+    @Override
+    public Optional<VersaoMensagem> buscarVersao(UUID id) {
+        return shardDe(id).query("SELECT versao, gostei FROM mensagem WHERE id = ?",
+                (rs, linha) -> new VersaoMensagem(rs.getLong(1), rs.getLong(2)), id).stream().findFirst();
+    }
+
+    @Override
+    public Optional<Mensagem> alterarParcialmente(UUID id, String usuario, String conteudo, Long versao) {
+        var sql = new StringBuilder("UPDATE mensagem SET versao = versao + 1");
+        var parametros = new ArrayList<Object>();
+        if (usuario != null) {
+            sql.append(", usuario = ?");
+            parametros.add(usuario);
+        }
+        if (conteudo != null) {
+            sql.append(", conteudo = ?");
+            parametros.add(conteudo);
+        }
+        sql.append(" WHERE id = ?");
+        parametros.add(id);
+        if (versao != null) {
+            sql.append(" AND versao = ?");
+            parametros.add(versao);
+        }
+        return shardDe(id).query("SELECT " + COLUNAS + " FROM OLD TABLE (" + sql + ")", MENSAGEM,
+                parametros.toArray()).stream().findFirst();
+    }
+
+    @Override
+    public int incrementarGostei(UUID id, int quantidade) {
+        return shardDe(id).update("UPDATE mensagem SET gostei = gostei + ? WHERE id = ?", quantidade, id);
+    }
+
+    @Override
+    public void incrementarGostei(Map<UUID, Long> incrementos) {
+        var porShard = agrupar(incrementos.keySet());
+        espalhar(shard -> {
+            var doShard = porShard.getOrDefault(shard, List.of());
+            var parametros = new ArrayList<Object[]>(doShard.size());
+            doShard.forEach(id -> parametros.add(new Object[]{incrementos.get(id), id}));
+            return shard.batchUpdate("UPDATE mensagem SET gostei = gostei + ? WHERE id = ?", parametros);
+        });
+    }
+
+    @Override
+    public List<CursorMensagem> listarExpiradas(LocalDateTime limite, String usuario, Collection<String> excetoUsuarios,
+                                                CursorMensagem apos, int quantidade) {
+        var sql = new StringBuilder("SELECT data_criacao_mensagem, id FROM mensagem WHERE data_criacao_mensagem < ?");
+        var parametros = new ArrayList<Object>();
+        parametros.add(limite);
+        if (usuario != null) {
+            sql.append(" AND usuario = ?");
+            parametros.add(usuario);
+        }
+        if (!excetoUsuarios.isEmpty()) {
+            sql.append(" AND usuario NOT IN (").append(marcadores(excetoUsuarios.size())).append(')');
+            parametros.addAll(excetoUsuarios);
+        }
+        if (apos != null) {
+            sql.append(" AND ").append(APOS);
+            parametros.add(apos.dataCriacaoMensagem());
+            parametros.add(apos.dataCriacaoMensagem());
+            parametros.add(apos.id());
+        }
+        sql.append(ORDEM_FEED).append(" FETCH FIRST ? ROWS ONLY");
+        parametros.add(quantidade);
+        var porShard = espalhar(shard -> shard.query(sql.toString(),
+                (rs, linha) -> new CursorMensagem(rs.getObject(1, LocalDateTime.class), rs.getObject(2, UUID.class)),
+                parametros.toArray()));
+        return IntercalacaoOrdenada.intercalar(porShard, CursorMensagem.ORDEM_FEED, 0, quantidade);
+    }
+
+    @Override
+    public List<Mensagem> removerExpiradas(Collection<UUID> ids, LocalDateTime limite) {
+        var porShard = agrupar(ids);
+        return espalhar(shard -> {
+            var doShard = porShard.get(shard);
+            if (doShard == null) {
+                return List.<Mensagem>of();
+            }
+            var parametros = new ArrayList<Object>(doShard);
+            parametros.add(limite);
+            return shard.query("SELECT " + COLUNAS + " FROM OLD TABLE (DELETE FROM mensagem WHERE id IN ("
+                    + marcadores(doShard.size()) + ") AND data_criacao_mensagem < ?)", MENSAGEM, parametros.toArray());
+        }).stream().flatMap(List::stream).toList();
+    }
+
+    @Override
+    public Optional<Mensagem> removerDevolvendo(UUID id) {
+        return shardDe(id).query("SELECT " + COLUNAS + " FROM OLD TABLE (DELETE FROM mensagem WHERE id = ?)",
+                MENSAGEM, id).stream().findFirst();
+    }
+
+    @Override
+    public List<TotalHora> totalizarPorHora(LocalDateTime desde) {
+        var filtro = desde == null ? "" : " WHERE data_criacao_mensagem >= ?";
+        var parametros = desde == null ? new Object[0] : new Object[]{desde};
+        var porShard = espalhar(shard -> shard.query("SELECT usuario, DATE_TRUNC(HOUR, data_criacao_mensagem) AS hora, "
+                        + "COUNT(*), COALESCE(SUM(gostei), 0) FROM mensagem" + filtro + " GROUP BY usuario, hora",
+                (rs, linha) -> new TotalHora(rs.getString(1), rs.getObject(2, LocalDateTime.class),
+                        rs.getLong(3), rs.getLong(4)),
+                parametros));
+        if (porShard.size() == 1) {
+            return porShard.get(0);
+        }
+        // O mesmo usuário tem mensagens em vários shards: soma os totais de cada hora.
+        var totais = new HashMap<TotalHora, TotalHora>();
+        porShard.stream().flatMap(List::stream).forEach(total -> totais.merge(
+                new TotalHora(total.usuario(), total.hora(), 0, 0), total,
+                (a, b) -> new TotalHora(a.usuario(), a.hora(), a.mensagens() + b.mensagens(), a.gostei() + b.gostei())));
+        return List.copyOf(totais.values());
+    }
+
+    @Override
+    public void desanexar(Mensagem mensagem) {
+        // Cada leitura já devolve uma instância nova; não há contexto de persistência.
+    }
+
+    @Override
+    public void limparContexto() {
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    private JdbcTemplate shardDe(UUID id) {
+        return shardNaTransacao(shard(id));
+    }
+
+    /**
+     * O shard pelo índice, antes ligando à transação de escrita corrente, se houver, uma conexão
+     * sem autocommit com ele; o {@link JdbcTemplate} a encontra pelo {@link DataSourceUtils}.
+     */
+    private JdbcTemplate shardNaTransacao(int indice) {
+        var banco = bancos.get(indice);
+        if (emTransacaoDeEscrita() && !TransactionSynchronizationManager.hasResource(banco)) {
+            Connection conexao = null;
+            try {
+                conexao = banco.getConnection();
+                conexao.setAutoCommit(false);
+            } catch (SQLException e) {
+                DataSourceUtils.releaseConnection(conexao, null);
+                throw new CannotGetJdbcConnectionException("Falha ao abrir conexão com o shard " + indice, e);
+            }
+            var holder = new ConnectionHolder(conexao);
+            holder.setSynchronizedWithTransaction(true);
+            TransactionSynchronizationManager.bindResource(banco, holder);
+            TransactionSynchronizationManager.registerSynchronization(new TransacaoShard(banco, holder));
+        }
+        return shards.get(indice);
+    }
+
+    private static boolean emTransacaoDeEscrita() {
+        return TransactionSynchronizationManager.isSynchronizationActive()
+                && TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private Map<JdbcTemplate, List<UUID>> agrupar(Iterable<? extends UUID> ids) {
+        var porShard = new IdentityHashMap<JdbcTemplate, List<UUID>>();
+        ids.forEach(id -> porShard.computeIfAbsent(shardDe(id), shard -> new ArrayList<>()).add(id));
+        return porShard;
+    }
+
+    /**
+     * Executa a consulta em todos os shards em paralelo e devolve os resultados na ordem dos shards.
+     */
+    private <T> List<T> espalhar(Function<JdbcTemplate, T> consulta) {
+        if (shards.size() == 1 || emTransacaoDeEscrita()) {
+            // As conexões da transação estão ligadas a esta thread.
+            return IntStream.range(0, shards.size()).mapToObj(indice -> consulta.apply(shardNaTransacao(indice))).toList();
+        }
+        var futuros = shards.stream()
+                .map(shard -> CompletableFuture.supplyAsync(() -> consulta.apply(shard), executor))
+                .toList();
+        try {
+            return futuros.stream().map(CompletableFuture::join).toList();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    private List<Mensagem> listarTodas() {
+        return intercalar("", List.of(), 0, null);
+    }
+
+    private Slice<Mensagem> fatia(String filtro, List<Object> parametros, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(intercalar(filtro, parametros, 0, null), pageable, false);
+        }
+        var conteudo = intercalar(filtro, parametros, pageable.getOffset(), pageable.getPageSize() + 1);
+        var temProxima = conteudo.size() > pageable.getPageSize();
+        return new SliceImpl<>(temProxima ? conteudo.subList(0, pageable.getPageSize()) : conteudo, pageable, temProxima);
+    }
+
+    /**
+     * Busca em cada shard só as {@code pular + quantidade} primeiras mensagens na ordem do feed
+     * (todas, com {@code quantidade} nula) e intercala, descartando as {@code pular} primeiras.
+     */
+    private List<Mensagem> intercalar(String filtro, List<Object> parametros, long pular, Integer quantidade) {
+        var sql = "SELECT " + COLUNAS + " FROM mensagem" + filtro + ORDEM_FEED;
+        var argumentos = new ArrayList<>(parametros);
+        if (quantidade != null) {
+            sql += " FETCH FIRST ? ROWS ONLY";
+            argumentos.add(pular + quantidade);
+        }
+        var consulta = sql;
+        var porShard = espalhar(shard -> shard.query(consulta, MENSAGEM, argumentos.toArray()));
+        return IntercalacaoOrdenada.intercalar(porShard, ORDEM_MENSAGEM, pular,
+                quantidade == null ? Integer.MAX_VALUE : quantidade);
+    }
+
+    private static String marcadores(int quantidade) {
+        return String.join(", ", Collections.nCopies(quantidade, "?"));
+    }
+
+    /**
+     * Confirma a conexão de um shard antes do commit da transação do serviço (uma falha ainda
+     * desfaz o serviço) e, no fim, desfaz o que não foi confirmado e devolve a conexão ao pool.
+     */
+    private record TransacaoShard(DataSource banco, ConnectionHolder holder) implements TransactionSynchronization {
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(banco);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(banco, holder);
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            try {
+                holder.getConnection().commit();
+            } catch (SQLException e) {
+                throw new TransactionSystemException("Falha ao confirmar a transação do shard", e);
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(banco);
+            var conexao = holder.getConnection();
+            try {
+                if (status != STATUS_COMMITTED) {
+                    conexao.rollback();
+                }
+                conexao.setAutoCommit(true);
+            } catch (SQLException e) {
+                log.warn("Falha ao encerrar a transação do shard", e);
+            } finally {
+                DataSourceUtils.releaseConnection(conexao, null);
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package br.com.fiap.aula_testes_api.repository.shard;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.List;
+
+/**
+ * Bancos entre os quais as mensagens são distribuídas no perfil {@code shards}
+ * ({@code mensagem.shards.*}). A ordem importa: o shard de cada mensagem é a posição na lista,
+ * então incluir, remover ou reordenar bancos exige redistribuir as mensagens existentes.
+ *
+ * @param bancos  um banco por shard
+ * @param threads threads que consultam os shards em paralelo nas listagens
+ */
+@ConfigurationProperties("mensagem.shards")
+public record ShardsMensagem(@DefaultValue List<Banco> bancos, @DefaultValue("8") int threads) {
+
+    public record Banco(String url, String username, String password, @DefaultValue("10") int tamanhoPool) {
+    }
+}
@@ -0,0 +1,154 @@
+package br.com.fiap.aula_testes_api.service;
+
+import br.com.fiap.aula_testes_api.repository.ArmazenamentoMensagens;
+import br.com.fiap.aula_testes_api.service.estatisticas.AgregadosMensagens;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Acumula os "gostei" em memória e os grava no banco periodicamente (write-behind).
+ * <p>
+ * Cada mensagem tem um {@link LongAdder}, então curtidas simultâneas na mesma mensagem não
+ * disputam um lock nem a linha da tabela; a descarga soma os contadores e envia um único lote
+ * de {@code UPDATE ... SET gostei = gostei + ?}.
+ * <p>
+ * Contadores sem curtidas desde a última descarga são aposentados para liberar memória. Uma
+ * thread pode ter obtido o contador antes da aposentadoria e incrementá-lo logo depois, por isso
+ * o contador aposentado continua sendo lido nas descargas seguintes durante uma carência antes
+ * de ser descartado.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AcumuladorGostei {
+
+    private static final long CARENCIA_APOSENTADOS_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final ArmazenamentoMensagens mensagemRepository;
+    private final CacheMensagem cacheMensagem;
+    private final AgregadosMensagens agregadosMensagens;
+
+    private final ConcurrentHashMap<UUID, Contador> contadores = new ConcurrentHashMap<>();
+    private final List<Contador> aposentados = new ArrayList<>();
+
+    public void incrementar(UUID id) {
+        while (!contadores.computeIfAbsent(id, Contador::new).incrementar()) {
+            Thread.onSpinWait();
+        }
+    }
+
+    public boolean contem(UUID id) {
+        return contadores.containsKey(id);
+    }
+
+    public long pendentes(UUID id) {
+        var contador = contadores.get(id);
+        return contador == null ? 0 : contador.valor.sum();
+    }
+
+    public void descartar(UUID id) {
+        var contador = contadores.remove(id);
+        if (contador != null) {
+            contador.aposentadoEm = System.nanoTime();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${mensagem.gostei.intervalo-descarga:1000}")
+    public void descarregar() {
+        descarregar(false);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        // Sem novas requisições (shutdown gracioso), os aposentados podem ser descartados já.
+        descarregar(true);
+    }
+
+    private synchronized void descarregar(boolean encerrando) {
+        var agora = System.nanoTime();
+        var incrementos = new HashMap<UUID, Long>();
+        aposentados.removeIf(contador -> {
+            adicionar(incrementos, contador.id, contador.retirar());
+            return encerrando || agora - contador.aposentadoEm >= CARENCIA_APOSENTADOS_NANOS;
+        });
+
+        for (var contador : contadores.values()) {
+            var quantidade = contador.retirar();
+            if (quantidade == 0) {
+                contador.aposentadoEm = agora;
+                contadores.remove(contador.id, contador);
+                aposentados.add(contador);
+            }
+            adicionar(incrementos, contador.id, quantidade);
+        }
+
+        if (incrementos.isEmpty()) {
+            return;
+        }
+        try {
+            agregadosMensagens.contabilizando(() -> {
+                mensagemRepository.incrementarGostei(incrementos);
+                // Antes de invalidar: as estatísticas tiram do cache a data e o usuário das mensagens.
+                agregadosMensagens.registrarGostei(incrementos);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Falha ao gravar {} contadores de gostei, nova tentativa na próxima descarga",
+                    incrementos.size(), e);
+            incrementos.forEach((id, quantidade) ->
+                    contadores.computeIfAbsent(id, Contador::new).valor.add(quantidade));
+            return;
+        }
+        cacheMensagem.invalidar(incrementos.keySet());
+    }
+
+    private static void adicionar(Map<UUID, Long> incrementos, UUID id, long quantidade) {
+        if (quantidade != 0) {
+            incrementos.merge(id, quantidade, Long::sum);
+        }
+    }
+
+    private static final class Contador {
+        private static final long ATIVO = Long.MIN_VALUE;
+
+        private final UUID id;
+        private final LongAdder valor = new LongAdder();
+        private volatile long aposentadoEm = ATIVO;
+
+        private Contador(UUID id) {
+            this.id = id;
+        }
+
+        private boolean incrementar() {
+            if (aposentadoEm != ATIVO) {
+                return false;
+            }
+            valor.increment();
+            return true;
+        }
+
+        /**
+         * Subtrai o que foi lido em vez de usar {@link LongAdder#sumThenReset()}, que pode perder
+         * incrementos concorrentes com o reset.
+         */
+        private long retirar() {
+            var quantidade = valor.sum();
+            if (quantidade != 0) {
+                valor.add(-quantidade);
+            }
+            return quantidade;
+        }
+    }
+}
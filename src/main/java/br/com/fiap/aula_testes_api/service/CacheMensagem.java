@@ -0,0 +1,126 @@
+package br.com.fiap.aula_testes_api.service;
+
+import br.com.fiap.aula_testes_api.config.ReplicasLeitura;
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Cache em memória das mensagens lidas por {@code buscarMensagem}, limitado por tamanho
+ * (despejo W-TinyLFU do Caffeine) e por tempo desde a escrita. Tamanho máximo 0 desliga o cache.
+ * <p>
+ * Guarda e devolve cópias, para que a entidade em cache nunca seja a mesma instância
+ * gerenciada por um {@code EntityManager}. Escritas devem invalidar a entrada; a invalidação
+ * aguarda uma carga em andamento da mesma chave, então um valor lido antes da escrita não
+ * permanece no cache.
+ * <p>
+ * Com réplicas de leitura, a leitura que segue uma escrita pode vir de uma réplica atrasada:
+ * durante {@link ReplicasLeitura#janelaEscritaRecente()} depois de invalidada, a chave é lida
+ * sem ser guardada, para que uma versão anterior à escrita não fique no cache até expirar.
+ * <p>
+ * As estatísticas ficam disponíveis em {@code /actuator/metrics/cache.gets} e
+ * {@code cache.evictions} com a tag {@code cache=mensagens}.
+ */
+@Component
+public class CacheMensagem {
+
+    private static final long ESCRITAS_RECENTES_MAXIMAS = 100_000;
+
+    private final Cache<UUID, Mensagem> cache;
+    private final Cache<UUID, Boolean> escritasRecentes;
+    private final boolean habilitado;
+
+    public CacheMensagem(long tamanhoMaximo, Duration expiracao, MeterRegistry meterRegistry) {
+        this(tamanhoMaximo, expiracao, Duration.ZERO, meterRegistry);
+    }
+
+    @Autowired
+    public CacheMensagem(@Value("${mensagem.cache.tamanho-maximo:10000}") long tamanhoMaximo,
+                         @Value("${mensagem.cache.expiracao:60s}") Duration expiracao,
+                         ReplicasLeitura replicasLeitura,
+                         MeterRegistry meterRegistry) {
+        this(tamanhoMaximo, expiracao, replicasLeitura.janelaEscritaRecente(), meterRegistry);
+    }
+
+    CacheMensagem(long tamanhoMaximo, Duration expiracao, Duration janelaEscritaRecente, MeterRegistry meterRegistry) {
+        this.habilitado = tamanhoMaximo > 0;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfterWrite(expiracao)
+                .recordStats()
+                .build();
+        this.escritasRecentes = janelaEscritaRecente.isZero() ? null : Caffeine.newBuilder()
+                .maximumSize(ESCRITAS_RECENTES_MAXIMAS)
+                .expireAfterWrite(janelaEscritaRecente)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "mensagens");
+    }
+
+    /**
+     * Retorna uma cópia da mensagem, carregando-a com {@code carregar} em caso de falta.
+     * {@code null} quando a mensagem não existe (ausências não são guardadas).
+     */
+    public Mensagem buscar(UUID id, Function<UUID, Mensagem> carregar) {
+        if (!habilitado || escritaRecente(id)) {
+            return copiar(carregar.apply(id));
+        }
+        var mensagem = cache.get(id, chave -> copiar(carregar.apply(chave)));
+        return copiar(mensagem);
+    }
+
+    /**
+     * Retorna uma cópia da mensagem se ela estiver no cache, sem carregá-la.
+     */
+    public Mensagem buscarSePresente(UUID id) {
+        return copiar(cache.getIfPresent(id));
+    }
+
+    public boolean contem(UUID id) {
+        return cache.getIfPresent(id) != null;
+    }
+
+    public void invalidar(UUID id) {
+        if (escritasRecentes != null) {
+            escritasRecentes.put(id, Boolean.TRUE);
+        }
+        cache.invalidate(id);
+    }
+
+    public void invalidar(Collection<UUID> ids) {
+        if (escritasRecentes != null) {
+            ids.forEach(id -> escritasRecentes.put(id, Boolean.TRUE));
+        }
+        cache.invalidateAll(ids);
+    }
+
+    /**
+     * Invalida após o término da transação corrente (ou imediatamente, sem transação), para que
+     * uma leitura concorrente não recoloque no cache o valor anterior ao commit.
+     */
+    public void invalidarAposCommit(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        var copia = List.copyOf(ids);
+        AposCommit.executar(() -> invalidar(copia));
+    }
+
+    private boolean escritaRecente(UUID id) {
+        return escritasRecentes != null && escritasRecentes.getIfPresent(id) != null;
+    }
+
+    private static Mensagem copiar(Mensagem mensagem) {
+        return mensagem == null ? null : mensagem.toBuilder().build();
+    }
+}
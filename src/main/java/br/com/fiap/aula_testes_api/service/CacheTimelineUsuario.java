@@ -0,0 +1,268 @@
+package br.com.fiap.aula_testes_api.service;
+
+import br.com.fiap.aula_testes_api.config.ReplicasLeitura;
+import br.com.fiap.aula_testes_api.model.CursorMensagem;
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Guarda em memória as últimas mensagens de cada usuário ativo, num buffer circular de tamanho
+ * fixo, para que a primeira página da timeline não consulte o banco.
+ * <p>
+ * O buffer é carregado na primeira leitura do usuário e mantido pelas escritas: mensagens novas
+ * entram no início (descartando a mais antiga quando cheio); alterações e remoções descartam o
+ * buffer, que é recarregado na próxima leitura. Escritas que não conhecem o autor (alteração
+ * parcial e remoção direta) descartam os buffers que contêm a mensagem, varrendo-os em memória. Os contadores de "gostei" podem ficar defasados
+ * até a expiração ({@code mensagem.timeline.expiracao}).
+ * <p>
+ * Como em {@link CacheMensagem}, o buffer de um usuário com escrita há menos de
+ * {@link ReplicasLeitura#janelaEscritaRecente()} não é carregado: a leitura pode ter vindo de
+ * uma réplica que ainda não tem a escrita.
+ * <p>
+ * Limitado pela quantidade de usuários (despejo W-TinyLFU do Caffeine); 0 desliga o cache.
+ * Estatísticas com a tag {@code cache=timeline}.
+ */
+@Component
+public class CacheTimelineUsuario {
+
+    /**
+     * Ordem da timeline: a mesma do feed no banco, para que os empates saiam iguais.
+     */
+    static final Comparator<Mensagem> ORDEM_TIMELINE = Comparator.comparing(CursorMensagem::de, CursorMensagem.ORDEM_FEED);
+
+    private static final long ESCRITAS_RECENTES_MAXIMAS = 100_000;
+
+    private final Cache<String, UltimasMensagens> cache;
+    private final Cache<String, Boolean> escritasRecentes;
+    private final int tamanhoBuffer;
+    private final boolean habilitado;
+
+    public CacheTimelineUsuario(long usuariosAtivos, int tamanhoBuffer, Duration expiracao,
+                                MeterRegistry meterRegistry) {
+        this(usuariosAtivos, tamanhoBuffer, expiracao, Duration.ZERO, meterRegistry);
+    }
+
+    @Autowired
+    public CacheTimelineUsuario(@Value("${mensagem.timeline.usuarios-ativos:10000}") long usuariosAtivos,
+                                @Value("${mensagem.timeline.tamanho-buffer:50}") int tamanhoBuffer,
+                                @Value("${mensagem.timeline.expiracao:60s}") Duration expiracao,
+                                ReplicasLeitura replicasLeitura,
+                                MeterRegistry meterRegistry) {
+        this(usuariosAtivos, tamanhoBuffer, expiracao, replicasLeitura.janelaEscritaRecente(), meterRegistry);
+    }
+
+    CacheTimelineUsuario(long usuariosAtivos, int tamanhoBuffer, Duration expiracao, Duration janelaEscritaRecente,
+                         MeterRegistry meterRegistry) {
+        this.habilitado = usuariosAtivos > 0 && tamanhoBuffer > 0;
+        this.tamanhoBuffer = Math.max(1, tamanhoBuffer);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(usuariosAtivos)
+                .expireAfterWrite(expiracao)
+                .recordStats()
+                .build();
+        this.escritasRecentes = janelaEscritaRecente.isZero() ? null : Caffeine.newBuilder()
+                .maximumSize(ESCRITAS_RECENTES_MAXIMAS)
+                .expireAfterWrite(janelaEscritaRecente)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "timeline");
+    }
+
+    /**
+     * Primeira página da timeline do usuário a partir do buffer, carregando-o com
+     * {@code carregar} (que recebe a quantidade de linhas a ler) em caso de falta.
+     * Vazio quando o buffer não tem mensagens suficientes para responder.
+     */
+    public Optional<Slice<Mensagem>> primeiraPagina(String usuario, int tamanho,
+                                                    Function<Integer, List<Mensagem>> carregar) {
+        if (!habilitado || tamanho > tamanhoBuffer) {
+            return Optional.empty();
+        }
+        if (escritaRecente(usuario)) {
+            // Só usa o buffer já carregado, que as escritas mantêm; não carrega de uma réplica.
+            return Optional.ofNullable(cache.getIfPresent(usuario)).map(buffer -> buffer.pagina(tamanho));
+        }
+        var buffer = cache.get(usuario, chave -> UltimasMensagens.de(carregar.apply(tamanhoBuffer + 1), tamanhoBuffer));
+        return Optional.ofNullable(buffer.pagina(tamanho));
+    }
+
+    /**
+     * Inclui a mensagem no buffer do autor após o commit, se o buffer estiver carregado.
+     */
+    public void adicionarAposCommit(Collection<Mensagem> mensagens) {
+        if (!habilitado || mensagens.isEmpty()) {
+            return;
+        }
+        var copias = mensagens.stream().map(CacheTimelineUsuario::copiar).toList();
+        AposCommit.executar(() -> copias.forEach(mensagem -> {
+            marcarEscrita(mensagem.getUsuario());
+            cache.asMap().computeIfPresent(mensagem.getUsuario(), (usuario, buffer) -> {
+                buffer.adicionar(mensagem);
+                return buffer;
+            });
+        }));
+    }
+
+    public void invalidarAposCommit(Collection<String> usuarios) {
+        if (!habilitado || usuarios.isEmpty()) {
+            return;
+        }
+        var copia = Set.copyOf(usuarios.stream().filter(Objects::nonNull).toList());
+        AposCommit.executar(() -> {
+            copia.forEach(this::marcarEscrita);
+            cache.invalidateAll(copia);
+        });
+    }
+
+    /**
+     * Descarta após o commit os buffers que contêm alguma das mensagens, para escritas que não
+     * carregam a mensagem e por isso não sabem o autor anterior.
+     */
+    public void invalidarMensagensAposCommit(Collection<UUID> ids) {
+        if (!habilitado || ids.isEmpty()) {
+            return;
+        }
+        var copia = Set.copyOf(ids);
+        AposCommit.executar(() -> cache.asMap().entrySet().removeIf(buffer -> {
+            if (!buffer.getValue().contemAlguma(copia)) {
+                return false;
+            }
+            marcarEscrita(buffer.getKey());
+            return true;
+        }));
+    }
+
+    public boolean contem(String usuario) {
+        return cache.getIfPresent(usuario) != null;
+    }
+
+    private void marcarEscrita(String usuario) {
+        if (escritasRecentes != null) {
+            escritasRecentes.put(usuario, Boolean.TRUE);
+        }
+    }
+
+    private boolean escritaRecente(String usuario) {
+        return escritasRecentes != null && escritasRecentes.getIfPresent(usuario) != null;
+    }
+
+    private static Mensagem copiar(Mensagem mensagem) {
+        return mensagem.toBuilder().build();
+    }
+
+    /**
+     * Buffer circular com as mensagens mais recentes de um usuário. {@code inicio} aponta para a
+     * mais recente; inserir uma mensagem nova sobrescreve a mais antiga quando o buffer está cheio.
+     * {@code completo} indica que o buffer contém todas as mensagens do usuário.
+     */
+    static final class UltimasMensagens {
+
+        private final Mensagem[] itens;
+        private int inicio;
+        private int tamanho;
+        private boolean completo;
+
+        UltimasMensagens(int capacidade) {
+            this.itens = new Mensagem[capacidade];
+        }
+
+        /**
+         * @param carregadas até {@code capacidade + 1} mensagens, da mais recente para a mais antiga
+         */
+        static UltimasMensagens de(List<Mensagem> carregadas, int capacidade) {
+            var buffer = new UltimasMensagens(capacidade);
+            int quantidade = Math.min(carregadas.size(), capacidade);
+            for (int i = 0; i < quantidade; i++) {
+                buffer.itens[i] = copiar(carregadas.get(i));
+            }
+            buffer.tamanho = quantidade;
+            buffer.completo = carregadas.size() <= capacidade;
+            return buffer;
+        }
+
+        synchronized void adicionar(Mensagem mensagem) {
+            for (int i = 0; i < tamanho; i++) {
+                if (item(i).getId().equals(mensagem.getId())) {
+                    return;
+                }
+            }
+            var cheio = tamanho == itens.length;
+            if (tamanho == 0 || ORDEM_TIMELINE.compare(mensagem, item(0)) < 0) {
+                // Caso comum: a mensagem nova é a mais recente do usuário.
+                inicio = (inicio - 1 + itens.length) % itens.length;
+                itens[inicio] = mensagem;
+            } else if (cheio && ORDEM_TIMELINE.compare(mensagem, item(tamanho - 1)) > 0) {
+                // Mais antiga que todo o buffer: fica só no banco.
+                completo = false;
+                return;
+            } else {
+                inserirForaDeOrdem(mensagem);
+            }
+            if (cheio) {
+                completo = false;
+            } else {
+                tamanho++;
+            }
+        }
+
+        synchronized boolean contemAlguma(Set<UUID> ids) {
+            for (int i = 0; i < tamanho; i++) {
+                if (ids.contains(item(i).getId())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        synchronized Slice<Mensagem> pagina(int tamanhoPagina) {
+            if (tamanhoPagina > tamanho && !completo) {
+                return null;
+            }
+            int quantidade = Math.min(tamanhoPagina, tamanho);
+            var mensagens = new ArrayList<Mensagem>(quantidade);
+            for (int i = 0; i < quantidade; i++) {
+                mensagens.add(copiar(item(i)));
+            }
+            var temProxima = tamanho > tamanhoPagina || (!completo && tamanho == tamanhoPagina);
+            return new SliceImpl<>(mensagens, PageRequest.ofSize(tamanhoPagina), temProxima);
+        }
+
+        private Mensagem item(int posicao) {
+            return itens[(inicio + posicao) % itens.length];
+        }
+
+        private void inserirForaDeOrdem(Mensagem mensagem) {
+            var ordenadas = new ArrayList<Mensagem>(tamanho + 1);
+            for (int i = 0; i < tamanho; i++) {
+                ordenadas.add(item(i));
+            }
+            ordenadas.add(mensagem);
+            ordenadas.sort(ORDEM_TIMELINE);
+            int quantidade = Math.min(ordenadas.size(), itens.length);
+            for (int i = 0; i < quantidade; i++) {
+                itens[i] = ordenadas.get(i);
+            }
+            inicio = 0;
+            // O chamador ajusta o tamanho.
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package br.com.fiap.aula_testes_api.service;
+
+import java.util.UUID;
+
+/**
+ * Estratégia de geração do identificador de novas mensagens.
+ * Selecionada pela propriedade {@code mensagem.id.gerador} ({@code v7} ou {@code aleatorio}).
+ */
+public interface GeradorIdMensagem {
+    UUID gerar();
+}
@@ -0,0 +1,16 @@
+package br.com.fiap.aula_testes_api.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+@Component
+@ConditionalOnProperty(name = "mensagem.id.gerador", havingValue = "aleatorio")
+public class GeradorUuidAleatorio implements GeradorIdMensagem {
+
+    @Override
+    public UUID gerar() {
+        return UUID.randomUUID();
+    }
+}
@@ -0,0 +1,64 @@
+package br.com.fiap.aula_testes_api.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gera UUIDs versão 7 (RFC 9562): 48 bits de timestamp em milissegundos seguidos de um
+ * contador de 12 bits, de modo que ids consecutivos são crescentes e novas linhas são
+ * inseridas no final do índice da chave primária.
+ * <p>
+ * O par timestamp + contador é mantido em um único {@link AtomicLong}; dentro do mesmo
+ * milissegundo o contador é incrementado e, se estourar, avança o timestamp, garantindo
+ * monotonicidade mesmo com várias threads ou com o relógio voltando no tempo.
+ */
+@Component
+@ConditionalOnProperty(name = "mensagem.id.gerador", havingValue = "v7", matchIfMissing = true)
+public class GeradorUuidV7 implements GeradorIdMensagem {
+
+    private static final int BITS_CONTADOR = 12;
+    private static final long VERSAO = 0x7000L;
+    private static final long VARIANTE = 0x8000_0000_0000_0000L;
+
+    private final Clock clock;
+    private final AtomicLong ultimoEstado = new AtomicLong();
+
+    public GeradorUuidV7() {
+        this(Clock.systemUTC());
+    }
+
+    GeradorUuidV7(Clock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public UUID gerar() {
+        var random = ThreadLocalRandom.current();
+        long estado = proximoEstado(random);
+        long timestamp = estado >>> BITS_CONTADOR;
+        long contador = estado & ((1L << BITS_CONTADOR) - 1);
+        long maisSignificativos = (timestamp << 16) | VERSAO | contador;
+        long menosSignificativos = VARIANTE | (random.nextLong() >>> 2);
+        return new UUID(maisSignificativos, menosSignificativos);
+    }
+
+    private long proximoEstado(ThreadLocalRandom random) {
+        while (true) {
+            long anterior = ultimoEstado.get();
+            long agora = clock.millis() << BITS_CONTADOR;
+            // Metade inferior do contador é sorteada a cada novo milissegundo, deixando folga
+            // para incrementos sem invadir o próximo timestamp.
+            long proximo = agora > anterior
+                    ? agora | random.nextInt(1 << (BITS_CONTADOR - 1))
+                    : anterior + 1;
+            if (ultimoEstado.compareAndSet(anterior, proximo)) {
+                return proximo;
+            }
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package br.com.fiap.aula_testes_api.service;
+
+import br.com.fiap.aula_testes_api.exception.ChaveIdempotenciaReutilizadaException;
+import br.com.fiap.aula_testes_api.exception.MensagemNotFoundException;
+import br.com.fiap.aula_testes_api.exception.RequisicaoEmAndamentoException;
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.repository.ArmazenamentoMensagens;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Torna seguro repetir um {@code POST /mensagens} com o mesmo {@code Idempotency-Key}: só a
+ * primeira requisição registra a mensagem, e as repetições recebem a mesma mensagem.
+ * <p>
+ * As chaves ficam num cache em memória limitado ({@code mensagem.idempotencia.chaves-maximas})
+ * que expira após {@code mensagem.idempotencia.validade}. A entrada é criada antes do registro,
+ * com um futuro: repetições simultâneas recebem esse futuro em vez de inserir de novo, sem
+ * bloquear a thread que as atende, e as posteriores são respondidas da memória, sem consultar o
+ * banco. Se o registro falhar, a chave é liberada para uma nova tentativa. A mesma chave com
+ * outro usuário ou conteúdo é recusada.
+ * <p>
+ * Com vários nós, {@code mensagem.idempotencia.persistente} grava a chave na tabela
+ * {@code chave_idempotencia} na mesma transação da mensagem. A chave primária garante uma única
+ * inserção entre os nós; uma repetição que chega a outro nó lê a chave e a mensagem do banco.
+ * As chaves expiradas são removidas periodicamente.
+ */
+@Slf4j
+@Component
+public class IdempotenciaMensagens {
+
+    private final Cache<String, Registro> registros;
+    private final Duration validade;
+    private final Duration espera;
+    private final boolean persistente;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ArmazenamentoMensagens mensagemRepository;
+    private final Counter repeticoes;
+
+    public IdempotenciaMensagens(@Value("${mensagem.idempotencia.chaves-maximas:100000}") long chavesMaximas,
+                                 @Value("${mensagem.idempotencia.validade:24h}") Duration validade,
+                                 @Value("${mensagem.idempotencia.espera:5s}") Duration espera,
+                                 @Value("${mensagem.idempotencia.persistente:false}") boolean persistente,
+                                 JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 ArmazenamentoMensagens mensagemRepository,
+                                 MeterRegistry meterRegistry) {
+        this.registros = Caffeine.newBuilder()
+                .maximumSize(chavesMaximas)
+                .expireAfterWrite(validade)
+                .recordStats()
+                .build();
+        this.validade = validade;
+        this.espera = espera;
+        this.persistente = persistente;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.mensagemRepository = mensagemRepository;
+        this.repeticoes = Counter.builder("mensagem.idempotencia.repeticoes")
+                .description("Requisições respondidas com a mensagem já registrada com a mesma chave")
+                .register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, registros, "idempotencia");
+    }
+
+    /**
+     * Registra a mensagem com {@code registrar} na primeira vez que a chave é usada, devolvendo um
+     * futuro já concluído; nas demais, devolve a mensagem já registrada. Uma repetição da
+     * requisição ainda em andamento recebe um futuro que conclui com a mensagem da original, ou
+     * falha com o mesmo erro dela, sem bloquear quem chamou.
+     *
+     * @return futuro que falha com {@link RequisicaoEmAndamentoException} se a requisição original
+     * não terminar dentro de {@code mensagem.idempotencia.espera}
+     * @throws ChaveIdempotenciaReutilizadaException se a chave foi usada com outra mensagem
+     */
+    public CompletableFuture<Mensagem> registrar(String chave, Mensagem mensagem, Supplier<Mensagem> registrar) {
+        var resumo = resumo(mensagem);
+        var novo = new Registro(resumo, new CompletableFuture<>());
+        var existente = registros.asMap().putIfAbsent(chave, novo);
+        if (existente != null) {
+            return repetir(existente, resumo);
+        }
+        try {
+            var registrada = persistente ? registrarPersistindo(chave, resumo, registrar) : registrar.get();
+            novo.mensagem.complete(copiar(registrada));
+            return CompletableFuture.completedFuture(registrada);
+        } catch (RuntimeException e) {
+            registros.asMap().remove(chave, novo);
+            novo.mensagem.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${mensagem.idempotencia.intervalo-expurgo:600000}")
+    public void expurgarExpiradas() {
+        if (persistente) {
+            var removidas = jdbcTemplate.update("DELETE FROM chave_idempotencia WHERE expira_em <= ?",
+                    Timestamp.valueOf(LocalDateTime.now()));
+            log.debug("{} chaves de idempotência expiradas removidas", removidas);
+        }
+    }
+
+    private CompletableFuture<Mensagem> repetir(Registro registro, String resumo) {
+        verificarResumo(registro.resumo, resumo);
+        // Cópia: o prazo desta repetição não pode concluir o futuro compartilhado da original.
+        return registro.mensagem.copy()
+                .orTimeout(espera.toMillis(), TimeUnit.MILLISECONDS)
+                .handle((mensagem, erro) -> {
+                    if (erro == null) {
+                        repeticoes.increment();
+                        return copiar(mensagem);
+                    }
+                    var causa = erro instanceof CompletionException && erro.getCause() != null ? erro.getCause() : erro;
+                    if (causa instanceof TimeoutException) {
+                        throw new RequisicaoEmAndamentoException("Requisição com a mesma chave de idempotência em andamento");
+                    }
+                    // A original falhou e liberou a chave; a repetição recebe o mesmo erro.
+                    throw causa instanceof RuntimeException excecao ? excecao : new IllegalStateException(causa);
+                });
+    }
+
+    private Mensagem registrarPersistindo(String chave, String resumo, Supplier<Mensagem> registrar) {
+        var persistida = buscarPersistida(chave);
+        if (persistida.isPresent()) {
+            return repetirPersistida(persistida.get(), resumo);
+        }
+        try {
+            return transactionTemplate.execute(status -> {
+                var agora = LocalDateTime.now();
+                jdbcTemplate.update("DELETE FROM chave_idempotencia WHERE chave = ? AND expira_em <= ?",
+                        chave, Timestamp.valueOf(agora));
+                jdbcTemplate.update("INSERT INTO chave_idempotencia (chave, resumo, expira_em) VALUES (?, ?, ?)",
+                        chave, resumo, Timestamp.valueOf(agora.plus(validade)));
+                var registrada = registrar.get();
+                jdbcTemplate.update("UPDATE chave_idempotencia SET mensagem_id = ? WHERE chave = ?",
+                        registrada.getId(), chave);
+                return registrada;
+            });
+        } catch (DuplicateKeyException e) {
+            // Outro nó inseriu a chave primeiro; o INSERT esperou o commit dele.
+            return buscarPersistida(chave)
+                    .map(chavePersistida -> repetirPersistida(chavePersistida, resumo))
+                    .orElseThrow(() -> new RequisicaoEmAndamentoException(
+                            "Requisição com a mesma chave de idempotência em andamento"));
+        }
+    }
+
+    private Optional<ChavePersistida> buscarPersistida(String chave) {
+        return jdbcTemplate.query("SELECT resumo, mensagem_id FROM chave_idempotencia WHERE chave = ? AND expira_em > ?",
+                (rs, i) -> new ChavePersistida(rs.getString(1), rs.getObject(2, UUID.class)),
+                chave, Timestamp.valueOf(LocalDateTime.now())).stream().findFirst();
+    }
+
+    private Mensagem repetirPersistida(ChavePersistida persistida, String resumo) {
+        verificarResumo(persistida.resumo, resumo);
+        // Leitura e escrita: o findById sozinho é somente leitura e iria para uma réplica, que
+        // pode ainda não ter a mensagem que outro nó acabou de registrar.
+        var mensagem = transactionTemplate.execute(status -> mensagemRepository.findById(persistida.mensagemId))
+                .orElseThrow(() -> new MensagemNotFoundException("Mensagem registrada com esta chave foi removida"));
+        repeticoes.increment();
+        return mensagem;
+    }
+
+    private static void verificarResumo(String registrado, String recebido) {
+        if (!registrado.equals(recebido)) {
+            throw new ChaveIdempotenciaReutilizadaException("Chave de idempotência já usada com outra mensagem");
+        }
+    }
+
+    static String resumo(Mensagem mensagem) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256");
+            digest.update(Objects.toString(mensagem.getUsuario(), "").getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(Objects.toString(mensagem.getConteudo(), "").getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Mensagem copiar(Mensagem mensagem) {
+        return mensagem.toBuilder().build();
+    }
+
+    private record Registro(String resumo, CompletableFuture<Mensagem> mensagem) {
+    }
+
+    private record ChavePersistida(String resumo, UUID mensagemId) {
+    }
+}
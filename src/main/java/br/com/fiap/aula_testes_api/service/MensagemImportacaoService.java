@@ -0,0 +1,17 @@
+package br.com.fiap.aula_testes_api.service;
+
+import br.com.fiap.aula_testes_api.model.ResultadoImportacao;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface MensagemImportacaoService {
+
+    /**
+     * Lê mensagens em NDJSON (uma por linha) à medida que chegam e as grava em lotes de tamanho
+     * fixo, com uma transação por lote. Linhas inválidas são rejeitadas individualmente; uma linha
+     * longa demais interrompe a importação com {@link br.com.fiap.aula_testes_api.exception.LinhaMuitoLongaException},
+     * mantendo os lotes já gravados.
+     */
+    ResultadoImportacao importarMensagens(InputStream ndjson) throws IOException;
+}
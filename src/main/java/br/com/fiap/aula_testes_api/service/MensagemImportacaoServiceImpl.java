@@ -0,0 +1,177 @@
+package br.com.fiap.aula_testes_api.service;
+
+import br.com.fiap.aula_testes_api.exception.LinhaMuitoLongaException;
+import br.com.fiap.aula_testes_api.model.LinhaRejeitada;
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.model.ResultadoImportacao;
+import br.com.fiap.aula_testes_api.repository.ArmazenamentoMensagens;
+import br.com.fiap.aula_testes_api.service.busca.IndiceMensagens;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class MensagemImportacaoServiceImpl implements MensagemImportacaoService {
+
+    private static final int MAXIMO_ERROS_REPORTADOS = 1000;
+
+    private final ArmazenamentoMensagens mensagemRepository;
+    private final GeradorIdMensagem geradorId;
+    private final Validator validator;
+    private final IndiceMensagens indiceMensagens;
+    private final CacheTimelineUsuario cacheTimeline;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectReader leitorMensagem;
+    private final int tamanhoLote;
+    private final int maximoCaracteresLinha;
+
+    public MensagemImportacaoServiceImpl(ArmazenamentoMensagens mensagemRepository,
+                                         GeradorIdMensagem geradorId,
+                                         Validator validator,
+                                         IndiceMensagens indiceMensagens,
+                                         CacheTimelineUsuario cacheTimeline,
+                                         PlatformTransactionManager transactionManager,
+                                         ObjectMapper objectMapper,
+                                         @Value("${mensagem.importacao.tamanho-lote:500}") int tamanhoLote,
+                                         @Value("${mensagem.importacao.maximo-caracteres-linha:65536}") int maximoCaracteresLinha) {
+        this.mensagemRepository = mensagemRepository;
+        this.geradorId = geradorId;
+        this.validator = validator;
+        this.indiceMensagens = indiceMensagens;
+        this.cacheTimeline = cacheTimeline;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.leitorMensagem = objectMapper.readerFor(Mensagem.class);
+        this.tamanhoLote = tamanhoLote;
+        this.maximoCaracteresLinha = maximoCaracteresLinha;
+    }
+
+    @Override
+    public ResultadoImportacao importarMensagens(InputStream ndjson) throws IOException {
+        var importacao = new Importacao();
+        var lote = new ArrayList<Mensagem>(tamanhoLote);
+        var linhasDoLote = new long[tamanhoLote];
+
+        try (var leitor = new BufferedReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8))) {
+            var buffer = new StringBuilder();
+            long numeroLinha = 0;
+            String linha;
+            while ((linha = lerLinha(leitor, buffer, numeroLinha + 1, importacao)) != null) {
+                numeroLinha++;
+                if (linha.isBlank()) {
+                    continue;
+                }
+                var mensagem = ler(linha, numeroLinha, importacao);
+                if (mensagem == null) {
+                    continue;
+                }
+                linhasDoLote[lote.size()] = numeroLinha;
+                lote.add(mensagem);
+                if (lote.size() == tamanhoLote) {
+                    gravar(lote, linhasDoLote, importacao);
+                }
+            }
+        }
+        gravar(lote, linhasDoLote, importacao);
+        return new ResultadoImportacao(importacao.aceitas, importacao.rejeitadas, importacao.erros);
+    }
+
+    /**
+     * Como {@link BufferedReader#readLine()}, mas sem acumular mais que {@code maximoCaracteresLinha}
+     * caracteres: uma linha sem fim não pode esgotar a memória.
+     */
+    private String lerLinha(BufferedReader leitor, StringBuilder buffer, long numeroLinha, Importacao importacao)
+            throws IOException {
+        buffer.setLength(0);
+        int caractere;
+        while ((caractere = leitor.read()) != -1 && caractere != '\n') {
+            if (buffer.length() == maximoCaracteresLinha) {
+                throw new LinhaMuitoLongaException("Linha " + numeroLinha + " excede " + maximoCaracteresLinha
+                        + " caracteres; " + importacao.aceitas + " mensagens anteriores já foram importadas");
+            }
+            buffer.append((char) caractere);
+        }
+        if (caractere == -1 && buffer.isEmpty()) {
+            return null;
+        }
+        var fim = buffer.length();
+        if (fim > 0 && buffer.charAt(fim - 1) == '\r') {
+            fim--;
+        }
+        return buffer.substring(0, fim);
+    }
+
+    private Mensagem ler(String linha, long numeroLinha, Importacao importacao) {
+        Mensagem mensagem;
+        try {
+            mensagem = leitorMensagem.readValue(linha);
+        } catch (JsonProcessingException e) {
+            importacao.rejeitar(numeroLinha, "JSON inválido: " + e.getOriginalMessage());
+            return null;
+        }
+        if (mensagem == null) {
+            importacao.rejeitar(numeroLinha, "Mensagem não informada");
+            return null;
+        }
+        var violacoes = validator.validate(mensagem);
+        if (!violacoes.isEmpty()) {
+            importacao.rejeitar(numeroLinha, violacoes.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+            return null;
+        }
+        mensagem.setId(geradorId.gerar());
+        return mensagem;
+    }
+
+    private void gravar(List<Mensagem> lote, long[] linhasDoLote, Importacao importacao) {
+        if (lote.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                lote.forEach(mensagemRepository::inserir);
+                mensagemRepository.limparContexto();
+            });
+            importacao.aceitas += lote.size();
+            lote.forEach(mensagem -> indiceMensagens.indexar(mensagem.getId(), mensagem.getConteudo()));
+            cacheTimeline.adicionarAposCommit(lote);
+        } catch (RuntimeException e) {
+            log.warn("Falha ao gravar lote de {} mensagens importadas", lote.size(), e);
+            for (int i = 0; i < lote.size(); i++) {
+                importacao.rejeitar(linhasDoLote[i], "Falha ao gravar o lote: " + e.getMessage());
+            }
+        }
+        lote.clear();
+    }
+
+    private static final class Importacao {
+        private long aceitas;
+        private long rejeitadas;
+        private final List<LinhaRejeitada> erros = new ArrayList<>();
+
+        private void rejeitar(long linha, String erro) {
+            rejeitadas++;
+            if (erros.size() < MAXIMO_ERROS_REPORTADOS) {
+                erros.add(new LinhaRejeitada(linha, erro));
+            }
+        }
+    }
+}
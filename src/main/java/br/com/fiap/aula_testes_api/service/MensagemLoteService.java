@@ -0,0 +1,15 @@
+package br.com.fiap.aula_testes_api.service;
+
+import br.com.fiap.aula_testes_api.model.OperacaoLote;
+import br.com.fiap.aula_testes_api.model.ResultadoOperacao;
+
+import java.util.List;
+
+public interface MensagemLoteService {
+
+    /**
+     * Executa as operações em uma única transação, na ordem recebida. Operações inválidas ou
+     * sobre mensagens inexistentes são reportadas no resultado sem interromper as demais.
+     */
+    List<ResultadoOperacao> processarLote(List<OperacaoLote> operacoes);
+}
@@ -0,0 +1,196 @@
+package br.com.fiap.aula_testes_api.service;
+
+import br.com.fiap.aula_testes_api.model.ConteudoMensagem;
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.model.OperacaoLote;
+import br.com.fiap.aula_testes_api.model.ResultadoOperacao;
+import br.com.fiap.aula_testes_api.model.StatusOperacao;
+import br.com.fiap.aula_testes_api.model.TipoOperacao;
+import br.com.fiap.aula_testes_api.repository.ArmazenamentoMensagens;
+import br.com.fiap.aula_testes_api.service.busca.IndiceMensagens;
+import br.com.fiap.aula_testes_api.service.estatisticas.AgregadosMensagens;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class MensagemLoteServiceImpl implements MensagemLoteService {
+    private final ArmazenamentoMensagens mensagemRepository;
+    private final GeradorIdMensagem geradorId;
+    private final Validator validator;
+    private final CacheMensagem cacheMensagem;
+    private final IndiceMensagens indiceMensagens;
+    private final CacheTimelineUsuario cacheTimeline;
+    private final AgregadosMensagens agregadosMensagens;
+
+    @Override
+    @Transactional
+    public List<ResultadoOperacao> processarLote(List<OperacaoLote> operacoes) {
+        agregadosMensagens.contabilizandoTransacao();
+        // Carrega de uma vez todas as mensagens referenciadas, em vez de um SELECT por operação.
+        var idsReferenciados = operacoes.stream()
+                .filter(operacao -> operacao.tipo() != TipoOperacao.CRIAR)
+                .map(OperacaoLote::id)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        var existentes = new HashMap<UUID, Mensagem>();
+        mensagemRepository.findAllById(idsReferenciados)
+                .forEach(mensagem -> existentes.put(mensagem.getId(), mensagem));
+        // Autores antes das alterações, para descartar as timelines que deixam de estar corretas.
+        var usuariosAfetados = new HashSet<String>();
+        existentes.values().forEach(mensagem -> usuariosAfetados.add(mensagem.getUsuario()));
+
+        var gosteiPorMensagem = new LinkedHashMap<UUID, Integer>();
+        var criadas = new HashSet<UUID>();
+        var resultados = new ArrayList<ResultadoOperacao>(operacoes.size());
+        for (int indice = 0; indice < operacoes.size(); indice++) {
+            resultados.add(processar(indice, operacoes.get(indice), existentes, gosteiPorMensagem, criadas));
+        }
+
+        gosteiPorMensagem.forEach((id, quantidade) -> {
+            mensagemRepository.incrementarGostei(id, quantidade);
+            // Removidas depois do "gostei" não estão mais em existentes nem nas estatísticas.
+            var mensagem = existentes.get(id);
+            if (mensagem != null) {
+                agregadosMensagens.registrarGosteiAposCommit(copiar(mensagem), quantidade);
+            }
+        });
+        cacheMensagem.invalidarAposCommit(idsReferenciados);
+        atualizarEmMemoria(resultados, existentes, usuariosAfetados);
+        return resultados;
+    }
+
+    private void atualizarEmMemoria(List<ResultadoOperacao> resultados, Map<UUID, Mensagem> existentes,
+                                    Set<String> usuariosAfetados) {
+        var indexar = new LinkedHashMap<UUID, ConteudoMensagem>();
+        var remover = new ArrayList<UUID>();
+        var criadas = new ArrayList<Mensagem>();
+        for (var resultado : resultados) {
+            if (resultado.status() != StatusOperacao.SUCESSO) {
+                continue;
+            }
+            var mensagem = existentes.get(resultado.id());
+            if (mensagem != null && (resultado.tipo() == TipoOperacao.CRIAR || resultado.tipo() == TipoOperacao.ALTERAR)) {
+                indexar.put(mensagem.getId(), new ConteudoMensagem(mensagem.getId(), mensagem.getConteudo()));
+                if (resultado.tipo() == TipoOperacao.CRIAR) {
+                    criadas.add(mensagem);
+                } else {
+                    usuariosAfetados.add(mensagem.getUsuario());
+                }
+            } else if (resultado.tipo() == TipoOperacao.REMOVER) {
+                indexar.remove(resultado.id());
+                remover.add(resultado.id());
+            }
+        }
+        indiceMensagens.indexarAposCommit(indexar.values());
+        indiceMensagens.removerAposCommit(remover);
+        cacheTimeline.invalidarAposCommit(usuariosAfetados);
+        cacheTimeline.adicionarAposCommit(criadas);
+    }
+
+    private ResultadoOperacao processar(int indice, OperacaoLote operacao, Map<UUID, Mensagem> existentes,
+                                        Map<UUID, Integer> gosteiPorMensagem, Set<UUID> criadas) {
+        var tipo = operacao.tipo();
+        if (tipo == null) {
+            return ResultadoOperacao.invalida(indice, null, operacao.id(), "Tipo de operação não informado");
+        }
+        if (tipo == TipoOperacao.CRIAR) {
+            return criar(indice, operacao.mensagem(), existentes, criadas);
+        }
+
+        var id = operacao.id();
+        if (id == null) {
+            return ResultadoOperacao.invalida(indice, tipo, null, "ID não informado");
+        }
+        var mensagem = existentes.get(id);
+        if (mensagem == null) {
+            return ResultadoOperacao.naoEncontrada(indice, tipo, id);
+        }
+
+        switch (tipo) {
+            case ALTERAR -> {
+                return alterar(indice, mensagem, operacao.mensagem(), existentes, criadas);
+            }
+            case REMOVER -> {
+                mensagemRepository.removerDevolvendo(id).ifPresent(agregadosMensagens::removerAposCommit);
+                existentes.remove(id);
+            }
+            case GOSTEI -> gosteiPorMensagem.merge(id, 1, Integer::sum);
+            default -> throw new IllegalStateException("Tipo de operação não suportado: " + tipo);
+        }
+        return ResultadoOperacao.sucesso(indice, tipo, id);
+    }
+
+    private ResultadoOperacao criar(int indice, Mensagem mensagem, Map<UUID, Mensagem> existentes,
+                                    Set<UUID> criadas) {
+        var erro = validar(mensagem);
+        if (erro != null) {
+            return ResultadoOperacao.invalida(indice, TipoOperacao.CRIAR, null, erro);
+        }
+        mensagem.setId(geradorId.gerar());
+        mensagemRepository.inserir(mensagem);
+        existentes.put(mensagem.getId(), mensagem);
+        criadas.add(mensagem.getId());
+        // Sem cópia: a data de criação só é preenchida no INSERT, e a soma usa o usuário final do lote.
+        agregadosMensagens.registrarAposCommit(mensagem);
+        return ResultadoOperacao.sucesso(indice, TipoOperacao.CRIAR, mensagem.getId());
+    }
+
+    private ResultadoOperacao alterar(int indice, Mensagem mensagem, Mensagem mensagemAtualizada,
+                                      Map<UUID, Mensagem> existentes, Set<UUID> criadas) {
+        var erro = validar(mensagemAtualizada);
+        if (erro == null && mensagemAtualizada.getId() != null
+                && !mensagem.getId().equals(mensagemAtualizada.getId())) {
+            erro = "Mensagem atualizada não apresenta o ID correto";
+        }
+        if (erro != null) {
+            return ResultadoOperacao.invalida(indice, TipoOperacao.ALTERAR, mensagem.getId(), erro);
+        }
+        var usuarioAnterior = mensagem.getUsuario();
+        mensagem.setConteudo(mensagemAtualizada.getConteudo());
+        mensagem.setUsuario(mensagemAtualizada.getUsuario());
+        // Grava explicitamente: só o JPA acompanharia a alteração da entidade carregada.
+        var salva = mensagemRepository.save(mensagem);
+        existentes.put(salva.getId(), salva);
+        if (!criadas.contains(salva.getId())) {
+            agregadosMensagens.alterarUsuarioAposCommit(copiar(salva), usuarioAnterior);
+        }
+        return ResultadoOperacao.sucesso(indice, TipoOperacao.ALTERAR, mensagem.getId());
+    }
+
+    /**
+     * As somas nas estatísticas leem a mensagem depois do commit; a cópia guarda o estado desta
+     * operação, que as seguintes do lote ainda podem alterar.
+     */
+    private static Mensagem copiar(Mensagem mensagem) {
+        return mensagem.toBuilder().build();
+    }
+
+    private String validar(Mensagem mensagem) {
+        if (mensagem == null) {
+            return "Mensagem não informada";
+        }
+        var violacoes = validator.validate(mensagem);
+        if (violacoes.isEmpty()) {
+            return null;
+        }
+        return violacoes.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+}
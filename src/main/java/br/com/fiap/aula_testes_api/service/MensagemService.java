@@ -1,9 +1,18 @@
 package br.com.fiap.aula_testes_api.service;
 
+import br.com.fiap.aula_testes_api.model.CursorMensagem;
+import br.com.fiap.aula_testes_api.model.EstatisticasMensagens;
+import br.com.fiap.aula_testes_api.model.Granularidade;
 import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.model.ResultadoBusca;
+import br.com.fiap.aula_testes_api.model.VersaoMensagem;
+import java.time.LocalDateTime;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 /**
  * TBD.
@@ -12,11 +21,92 @@ import org.springframework.data.domain.Pageable;
 public interface MensagemService {
     Mensagem registrarMensagem(Mensagem mensagem);
 
+    /**
+     * Registra a mensagem uma única vez por {@code chaveIdempotencia}: repetições com a mesma
+     * chave devolvem a mensagem já registrada. Sem chave, equivale a {@link #registrarMensagem(Mensagem)}.
+     * O registro é feito antes de retornar; só a repetição de uma requisição ainda em andamento
+     * devolve um futuro pendente, que conclui junto com a original.
+     *
+     * @return futuro que falha com {@link br.com.fiap.aula_testes_api.exception.RequisicaoEmAndamentoException}
+     * se a requisição original com a chave não terminar a tempo
+     * @throws br.com.fiap.aula_testes_api.exception.ChaveIdempotenciaReutilizadaException se a
+     * chave já foi usada com outra mensagem
+     */
+    CompletableFuture<Mensagem> registrarMensagem(Mensagem mensagem, String chaveIdempotencia);
+
     Mensagem buscarMensagem(UUID id);
 
+    /**
+     * Versão atual da mensagem, para requisições condicionais, sem carregar o conteúdo: vem do
+     * cache quando a mensagem está lá, senão de uma consulta só à versão e aos "gostei".
+     * Os "gostei" incluem os pendentes, como em {@link #buscarMensagem}.
+     */
+    VersaoMensagem buscarVersao(UUID id);
+
     Mensagem alterarMensagem(UUID id, Mensagem mensagemAtualizada);
 
+    /**
+     * Altera a mensagem somente se ela ainda estiver na versão {@code versaoEsperada}
+     * ({@code null} não verifica). Lança
+     * {@link br.com.fiap.aula_testes_api.exception.VersaoConflitanteException} quando a versão
+     * é outra ou quando outra alteração é gravada entre a leitura e a escrita.
+     */
+    Mensagem alterarMensagem(UUID id, Mensagem mensagemAtualizada, Long versaoEsperada);
+
+    /**
+     * Altera só os campos informados ({@code usuario} e/ou {@code conteudo}) com um único UPDATE,
+     * sem ler a mensagem. Com {@code versaoEsperada}, só altera se a mensagem estiver nela.
+     * O id, se informado, deve ser o da mensagem.
+     *
+     * @throws br.com.fiap.aula_testes_api.exception.VersaoConflitanteException se a mensagem
+     * existe em outra versão
+     */
+    void alterarParcialmente(UUID id, Mensagem alteracoes, Long versaoEsperada);
+
+    /**
+     * Remove a mensagem com um único DELETE, sem lê-la antes.
+     */
     boolean removerMensagem(UUID id);
 
+    /**
+     * Registra um "gostei" na mensagem. O contador é acumulado em memória e gravado em lote,
+     * então {@link #buscarMensagem} já reflete o valor, mas o banco é atualizado com atraso.
+     */
+    void registrarGostei(UUID id);
+
     Page<Mensagem> listarMensagens(Pageable pageable);
+
+    /**
+     * Lista as mensagens mais recentes a partir do cursor (exclusivo), sem COUNT nem OFFSET.
+     * Um cursor {@code null} retorna a primeira página.
+     */
+    Slice<Mensagem> listarFeed(CursorMensagem cursor, int tamanho);
+
+    /**
+     * Lista as mensagens do usuário, da mais recente para a mais antiga, a partir do cursor
+     * (exclusivo). A primeira página de usuários ativos é servida da memória.
+     */
+    Slice<Mensagem> listarPorUsuario(String usuario, CursorMensagem cursor, int tamanho);
+
+    /**
+     * Busca mensagens pelo conteúdo no índice invertido em memória, ignorando acentos,
+     * maiúsculas e palavras comuns. Basta um dos termos para a mensagem ser encontrada;
+     * as que contêm mais termos, e termos mais raros, vêm primeiro.
+     */
+    ResultadoBusca buscarPorTexto(String texto, int pagina, int tamanho);
+
+    /**
+     * Percorre todas as mensagens, da mais recente para a mais antiga, sem carregá-las de uma vez:
+     * cada mensagem é entregue ao consumidor e desanexada em seguida.
+     *
+     * @return quantidade de mensagens exportadas
+     */
+    long exportarMensagens(Consumer<Mensagem> consumidor);
+
+    /**
+     * Mensagens criadas e "gostei" recebidos por balde de tempo, de um usuário ou de todos
+     * ({@code usuario} nulo), lidos dos agregados em memória sem consultar a tabela.
+     */
+    EstatisticasMensagens consultarEstatisticas(Granularidade granularidade, String usuario,
+                                                LocalDateTime de, LocalDateTime ate);
 }
@@ -0,0 +1,50 @@
+package br.com.fiap.aula_testes_api.service;
+
+import br.com.fiap.aula_testes_api.model.CursorMensagem;
+import br.com.fiap.aula_testes_api.model.EstatisticasMensagens;
+import br.com.fiap.aula_testes_api.model.Granularidade;
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.model.ResultadoBusca;
+import br.com.fiap.aula_testes_api.model.VersaoMensagem;
+import org.springframework.data.domain.Slice;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Versão assíncrona de {@link MensagemService}, executada num pool próprio e limitado, para que
+ * um banco lento não prenda as threads do Tomcat.
+ * <p>
+ * Os futuros falham com {@link br.com.fiap.aula_testes_api.exception.ServicoSobrecarregadoException}
+ * quando a fila do pool está cheia e com
+ * {@link br.com.fiap.aula_testes_api.exception.TempoEsgotadoException} quando a operação passa
+ * do prazo; as demais exceções são as mesmas de {@link MensagemService}. Numa escrita, o prazo
+ * esgotado não garante que nada foi gravado (ver {@link MensagemServiceAsyncImpl}).
+ */
+public interface MensagemServiceAsync {
+    CompletableFuture<Mensagem> registrarMensagem(Mensagem mensagem);
+
+    CompletableFuture<Mensagem> registrarMensagem(Mensagem mensagem, String chaveIdempotencia);
+
+    CompletableFuture<Mensagem> buscarMensagem(UUID id);
+
+    CompletableFuture<VersaoMensagem> buscarVersao(UUID id);
+
+    CompletableFuture<Mensagem> alterarMensagem(UUID id, Mensagem mensagemAtualizada, Long versaoEsperada);
+
+    CompletableFuture<Void> alterarParcialmente(UUID id, Mensagem alteracoes, Long versaoEsperada);
+
+    CompletableFuture<Boolean> removerMensagem(UUID id);
+
+    CompletableFuture<Void> registrarGostei(UUID id);
+
+    CompletableFuture<Slice<Mensagem>> listarFeed(CursorMensagem cursor, int tamanho);
+
+    CompletableFuture<Slice<Mensagem>> listarPorUsuario(String usuario, CursorMensagem cursor, int tamanho);
+
+    CompletableFuture<ResultadoBusca> buscarPorTexto(String texto, int pagina, int tamanho);
+
+    CompletableFuture<EstatisticasMensagens> consultarEstatisticas(Granularidade granularidade, String usuario,
+                                                                   LocalDateTime de, LocalDateTime ate);
+}
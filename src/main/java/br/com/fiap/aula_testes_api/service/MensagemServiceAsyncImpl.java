@@ -0,0 +1,204 @@
+package br.com.fiap.aula_testes_api.service;
+
+import br.com.fiap.aula_testes_api.config.LeituraPropria;
+import br.com.fiap.aula_testes_api.config.PrazoTransacao;
+import br.com.fiap.aula_testes_api.exception.ServicoSobrecarregadoException;
+import br.com.fiap.aula_testes_api.exception.TempoEsgotadoException;
+import br.com.fiap.aula_testes_api.model.CursorMensagem;
+import br.com.fiap.aula_testes_api.model.EstatisticasMensagens;
+import br.com.fiap.aula_testes_api.model.Granularidade;
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.model.ResultadoBusca;
+import br.com.fiap.aula_testes_api.model.VersaoMensagem;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Executa as chamadas a {@link MensagemService} num {@link ThreadPoolExecutor} de tamanho fixo
+ * com fila limitada (bulkhead): com a fila cheia a chamada falha imediatamente, em vez de
+ * acumular requisições esperando um banco que não responde.
+ * <p>
+ * Cada operação tem um prazo, contado a partir da submissão (inclui o tempo na fila). Esgotado
+ * o prazo, o futuro falha e a tarefa é cancelada; se ainda estiver na fila, não chega a executar.
+ * A tarefa já em execução não é interrompida, o que poderia deixar a conexão JDBC num estado
+ * inválido: as transações que ela abre recebem o restante do prazo como timeout (ver
+ * {@link PrazoTransacao}), e o banco cancela o comando que passar dele.
+ * <p>
+ * Por isso uma escrita que falhou por tempo esgotado (504) pode ter sido gravada: o commit pode
+ * terminar depois de o futuro falhar. O cliente deve consultar a mensagem ou repetir com a mesma
+ * chave de idempotência, em vez de supor que nada foi gravado.
+ * <p>
+ * A marca de {@link LeituraPropria} da thread da requisição acompanha a chamada até o pool.
+ * <p>
+ * O pool é monitorado em {@code /actuator/metrics/executor.*} com a tag {@code name=mensagens}.
+ */
+@Slf4j
+@Service
+public class MensagemServiceAsyncImpl implements MensagemServiceAsync {
+
+    private final MensagemService mensagemService;
+    private final ExecutorService executor;
+    private final ScheduledThreadPoolExecutor agendadorPrazos;
+    private final Duration prazoLeitura;
+    private final Duration prazoEscrita;
+
+    @Autowired
+    public MensagemServiceAsyncImpl(MensagemService mensagemService,
+                                    @Value("${mensagem.async.threads:16}") int threads,
+                                    @Value("${mensagem.async.fila:64}") int fila,
+                                    @Value("${mensagem.async.prazo-leitura:2s}") Duration prazoLeitura,
+                                    @Value("${mensagem.async.prazo-escrita:5s}") Duration prazoEscrita,
+                                    MeterRegistry meterRegistry) {
+        this(mensagemService,
+                ExecutorServiceMetrics.monitor(meterRegistry, new ThreadPoolExecutor(threads, threads,
+                        0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(fila),
+                        new CustomizableThreadFactory("mensagem-async-"),
+                        new ThreadPoolExecutor.AbortPolicy()), "mensagens"),
+                prazoLeitura, prazoEscrita);
+    }
+
+    public MensagemServiceAsyncImpl(MensagemService mensagemService, ExecutorService executor,
+                                    Duration prazoLeitura, Duration prazoEscrita) {
+        this.mensagemService = mensagemService;
+        this.executor = executor;
+        this.prazoLeitura = prazoLeitura;
+        this.prazoEscrita = prazoEscrita;
+        this.agendadorPrazos = new ScheduledThreadPoolExecutor(1, new CustomizableThreadFactory("mensagem-prazo-"));
+        this.agendadorPrazos.setRemoveOnCancelPolicy(true);
+    }
+
+    @Override
+    public CompletableFuture<Mensagem> registrarMensagem(Mensagem mensagem) {
+        return executar("registrarMensagem", prazoEscrita, () -> mensagemService.registrarMensagem(mensagem));
+    }
+
+    @Override
+    public CompletableFuture<Mensagem> registrarMensagem(Mensagem mensagem, String chaveIdempotencia) {
+        // A repetição de uma requisição em andamento devolve um futuro pendente: aguardá-lo aqui,
+        // fora do executor, libera a thread do bulkhead.
+        return executar("registrarMensagem", prazoEscrita,
+                () -> mensagemService.registrarMensagem(mensagem, chaveIdempotencia))
+                .thenCompose(registro -> registro);
+    }
+
+    @Override
+    public CompletableFuture<Mensagem> buscarMensagem(UUID id) {
+        return executar("buscarMensagem", prazoLeitura, () -> mensagemService.buscarMensagem(id));
+    }
+
+    @Override
+    public CompletableFuture<VersaoMensagem> buscarVersao(UUID id) {
+        return executar("buscarVersao", prazoLeitura, () -> mensagemService.buscarVersao(id));
+    }
+
+    @Override
+    public CompletableFuture<Mensagem> alterarMensagem(UUID id, Mensagem mensagemAtualizada, Long versaoEsperada) {
+        return executar("alterarMensagem", prazoEscrita,
+                () -> mensagemService.alterarMensagem(id, mensagemAtualizada, versaoEsperada));
+    }
+
+    @Override
+    public CompletableFuture<Void> alterarParcialmente(UUID id, Mensagem alteracoes, Long versaoEsperada) {
+        return executar("alterarParcialmente", prazoEscrita, () -> {
+            mensagemService.alterarParcialmente(id, alteracoes, versaoEsperada);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> removerMensagem(UUID id) {
+        return executar("removerMensagem", prazoEscrita, () -> mensagemService.removerMensagem(id));
+    }
+
+    @Override
+    public CompletableFuture<Void> registrarGostei(UUID id) {
+        return executar("registrarGostei", prazoEscrita, () -> {
+            mensagemService.registrarGostei(id);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Slice<Mensagem>> listarFeed(CursorMensagem cursor, int tamanho) {
+        return executar("listarFeed", prazoLeitura, () -> mensagemService.listarFeed(cursor, tamanho));
+    }
+
+    @Override
+    public CompletableFuture<Slice<Mensagem>> listarPorUsuario(String usuario, CursorMensagem cursor, int tamanho) {
+        return executar("listarPorUsuario", prazoLeitura, () -> mensagemService.listarPorUsuario(usuario, cursor, tamanho));
+    }
+
+    @Override
+    public CompletableFuture<ResultadoBusca> buscarPorTexto(String texto, int pagina, int tamanho) {
+        return executar("buscarPorTexto", prazoLeitura, () -> mensagemService.buscarPorTexto(texto, pagina, tamanho));
+    }
+
+    @Override
+    public CompletableFuture<EstatisticasMensagens> consultarEstatisticas(Granularidade granularidade, String usuario,
+                                                                          LocalDateTime de, LocalDateTime ate) {
+        return executar("consultarEstatisticas", prazoLeitura,
+                () -> mensagemService.consultarEstatisticas(granularidade, usuario, de, ate));
+    }
+
+    @PreDestroy
+    public void encerrar() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(prazoEscrita.toMillis(), TimeUnit.MILLISECONDS)) {
+            log.warn("Pool assíncrono de mensagens encerrado com tarefas pendentes");
+            executor.shutdownNow();
+        }
+        agendadorPrazos.shutdownNow();
+    }
+
+    private <T> CompletableFuture<T> executar(String operacao, Duration prazo, Supplier<T> chamada) {
+        var resultado = new CompletableFuture<T>();
+        var limiteNanos = System.nanoTime() + prazo.toNanos();
+        var chamadaNoContexto = PrazoTransacao.limitar(LeituraPropria.propagar(chamada), limiteNanos);
+        Future<?> tarefa;
+        try {
+            tarefa = executor.submit(() -> {
+                if (resultado.isDone()) {
+                    // O prazo esgotou enquanto a tarefa aguardava na fila.
+                    return;
+                }
+                try {
+                    resultado.complete(chamadaNoContexto.get());
+                } catch (RuntimeException e) {
+                    resultado.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(
+                    new ServicoSobrecarregadoException("Serviço sobrecarregado, tente novamente"));
+        }
+
+        var expiracao = agendadorPrazos.schedule(() -> {
+            if (resultado.completeExceptionally(new TempoEsgotadoException(
+                    "Tempo esgotado em " + operacao + " após " + prazo.toMillis() + " ms"))) {
+                tarefa.cancel(false);
+            }
+        }, prazo.toMillis(), TimeUnit.MILLISECONDS);
+        resultado.whenComplete((valor, erro) -> expiracao.cancel(false));
+        return resultado;
+    }
+}
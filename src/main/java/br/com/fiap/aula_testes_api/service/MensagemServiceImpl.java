@@ -1,54 +1,273 @@
 package br.com.fiap.aula_testes_api.service;
 
 import br.com.fiap.aula_testes_api.exception.MensagemNotFoundException;
+import br.com.fiap.aula_testes_api.exception.VersaoConflitanteException;
+import br.com.fiap.aula_testes_api.model.ConteudoMensagem;
+import br.com.fiap.aula_testes_api.model.CursorMensagem;
+import br.com.fiap.aula_testes_api.model.EstatisticasMensagens;
+import br.com.fiap.aula_testes_api.model.Granularidade;
 import br.com.fiap.aula_testes_api.model.Mensagem;
-import br.com.fiap.aula_testes_api.repository.MensagemRepository;
+import br.com.fiap.aula_testes_api.model.ResultadoBusca;
+import br.com.fiap.aula_testes_api.model.VersaoMensagem;
+import br.com.fiap.aula_testes_api.repository.ArmazenamentoMensagens;
+import br.com.fiap.aula_testes_api.service.busca.IndiceMensagens;
+import br.com.fiap.aula_testes_api.service.estatisticas.AgregadosMensagens;
+import br.com.fiap.aula_testes_api.service.stream.TransmissaoMensagens;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
+@Timed(value = "mensagem.servico", description = "Duração dos métodos de MensagemService", histogram = true)
 public class MensagemServiceImpl implements MensagemService{
-    private final MensagemRepository mensagemRepository;
+    private final ArmazenamentoMensagens mensagemRepository;
+    private final GeradorIdMensagem geradorId;
+    private final AcumuladorGostei acumuladorGostei;
+    private final CacheMensagem cacheMensagem;
+    private final IndiceMensagens indiceMensagens;
+    private final CacheTimelineUsuario cacheTimeline;
+    private final TransmissaoMensagens transmissaoMensagens;
+    private final IdempotenciaMensagens idempotencia;
+    private final AgregadosMensagens agregadosMensagens;
+    private final TransactionTemplate transactionTemplate;
 
     @Override
+    @Transactional
     public Mensagem registrarMensagem(Mensagem mensagem) {
-        mensagem.setId(UUID.randomUUID());
-        return mensagemRepository.save(mensagem);
+        return registrar(mensagem);
+    }
+
+    /**
+     * Sem o proxy, {@code @Transactional} não se aplica: o registro idempotente usa o
+     * {@link #transactionTemplate}.
+     */
+    private Mensagem registrar(Mensagem mensagem) {
+        agregadosMensagens.contabilizandoTransacao();
+        mensagem.setId(geradorId.gerar());
+        var mensagemRegistrada = mensagemRepository.save(mensagem);
+        indiceMensagens.indexarAposCommit(List.of(conteudo(mensagemRegistrada)));
+        cacheTimeline.adicionarAposCommit(List.of(mensagemRegistrada));
+        transmissaoMensagens.publicarAposCommit(mensagemRegistrada);
+        agregadosMensagens.registrarAposCommit(mensagemRegistrada);
+        return mensagemRegistrada;
     }
 
     @Override
+    public CompletableFuture<Mensagem> registrarMensagem(Mensagem mensagem, String chaveIdempotencia) {
+        Supplier<Mensagem> registrar = () -> transactionTemplate.execute(status -> registrar(mensagem));
+        if (chaveIdempotencia == null) {
+            return CompletableFuture.completedFuture(registrar.get());
+        }
+        return idempotencia.registrar(chaveIdempotencia, mensagem, registrar);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Mensagem buscarMensagem(UUID id) {
-        return mensagemRepository.findById(id)
-                .orElseThrow(() -> new MensagemNotFoundException("Mensagem não encontrada"));
+        var mensagem = cacheMensagem.buscar(id, chave -> mensagemRepository.findById(chave).orElse(null));
+        if (mensagem == null) {
+            throw new MensagemNotFoundException("Mensagem não encontrada");
+        }
+        // O cache devolve uma cópia, então somar os pendentes não altera a entidade gerenciada.
+        mensagem.setGostei((int) (mensagem.getGostei() + acumuladorGostei.pendentes(id)));
+        return mensagem;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public VersaoMensagem buscarVersao(UUID id) {
+        var emCache = cacheMensagem.buscarSePresente(id);
+        var versao = emCache != null
+                ? VersaoMensagem.de(emCache)
+                : mensagemRepository.buscarVersao(id)
+                        .orElseThrow(() -> new MensagemNotFoundException("Mensagem não encontrada"));
+        return new VersaoMensagem(versao.versao(), versao.gostei() + acumuladorGostei.pendentes(id));
     }
 
     @Override
+    @Transactional
     public Mensagem alterarMensagem(UUID id, Mensagem mensagemAtualizada) {
-        var mensagem = buscarMensagem(id);
+        return alterarMensagem(id, mensagemAtualizada, null);
+    }
+
+    /**
+     * Transação de leitura e escrita também para a leitura inicial: fora dela, o
+     * {@code findById} do repositório é somente leitura e pode ir para uma réplica atrasada.
+     */
+    @Override
+    @Transactional
+    public Mensagem alterarMensagem(UUID id, Mensagem mensagemAtualizada, Long versaoEsperada) {
+        agregadosMensagens.contabilizandoTransacao();
+        var mensagem = encontrarMensagem(id);
         if(!mensagem.getId().equals(mensagemAtualizada.getId())) {
             throw new MensagemNotFoundException("Mensagem atualizada não apresenta o ID correto");
         }
+        if (versaoEsperada != null && !versaoEsperada.equals(mensagem.getVersao())) {
+            throw new VersaoConflitanteException("Mensagem alterada por outra requisição");
+        }
+        var usuarioAnterior = mensagem.getUsuario();
         mensagem.setConteudo(mensagemAtualizada.getConteudo());
         mensagem.setUsuario(mensagemAtualizada.getUsuario());
-        return mensagemRepository.save(mensagem);
+        Mensagem mensagemSalva;
+        try {
+            // O UPDATE compara a versão lida acima: uma alteração concorrente não é sobrescrita.
+            mensagemSalva = mensagemRepository.save(mensagem);
+            // Dentro da transação o UPDATE só sairia no commit, fora deste try.
+            mensagemRepository.flush();
+        } catch (OptimisticLockingFailureException e) {
+            throw new VersaoConflitanteException("Mensagem alterada por outra requisição");
+        }
+        cacheMensagem.invalidarAposCommit(List.of(id));
+        cacheTimeline.invalidarAposCommit(Arrays.asList(usuarioAnterior, mensagemSalva.getUsuario()));
+        indiceMensagens.indexarAposCommit(List.of(conteudo(mensagemSalva)));
+        agregadosMensagens.alterarUsuarioAposCommit(mensagemSalva, usuarioAnterior);
+        return mensagemSalva;
     }
 
     @Override
+    @Transactional
+    public void alterarParcialmente(UUID id, Mensagem alteracoes, Long versaoEsperada) {
+        if (alteracoes.getId() != null && !alteracoes.getId().equals(id)) {
+            throw new MensagemNotFoundException("Mensagem atualizada não apresenta o ID correto");
+        }
+        agregadosMensagens.contabilizandoTransacao();
+        var alterada = mensagemRepository.alterarParcialmente(id, alteracoes.getUsuario(), alteracoes.getConteudo(),
+                versaoEsperada);
+        if (alterada.isEmpty()) {
+            // Só o caminho de falha faz uma segunda consulta, para diferenciar os dois casos.
+            if (versaoEsperada != null && mensagemRepository.existsById(id)) {
+                throw new VersaoConflitanteException("Mensagem alterada por outra requisição");
+            }
+            throw new MensagemNotFoundException("Mensagem não encontrada");
+        }
+        var anterior = alterada.get();
+        cacheMensagem.invalidarAposCommit(List.of(id));
+        cacheTimeline.invalidarMensagensAposCommit(List.of(id));
+        cacheTimeline.invalidarAposCommit(Arrays.asList(anterior.getUsuario(), alteracoes.getUsuario()));
+        if (alteracoes.getConteudo() != null) {
+            indiceMensagens.indexarAposCommit(List.of(new ConteudoMensagem(id, alteracoes.getConteudo())));
+        }
+        if (alteracoes.getUsuario() != null) {
+            agregadosMensagens.alterarUsuarioAposCommit(anterior.toBuilder().usuario(alteracoes.getUsuario()).build(),
+                    anterior.getUsuario());
+        }
+    }
+
+    @Override
+    @Transactional
     public boolean removerMensagem(UUID id) {
-        buscarMensagem(id);
-        mensagemRepository.deleteById(id);
+        agregadosMensagens.contabilizandoTransacao();
+        var removida = mensagemRepository.removerDevolvendo(id)
+                .orElseThrow(() -> new MensagemNotFoundException("Mensagem não encontrada"));
+        cacheTimeline.invalidarMensagensAposCommit(List.of(id));
+        cacheTimeline.invalidarAposCommit(List.of(removida.getUsuario()));
+        cacheMensagem.invalidarAposCommit(List.of(id));
+        acumuladorGostei.descartar(id);
+        indiceMensagens.removerAposCommit(List.of(id));
+        agregadosMensagens.removerAposCommit(removida);
         return true;
     }
 
     @Override
+    @Transactional
+    public void registrarGostei(UUID id) {
+        // Só consulta o banco se a mensagem não está no acumulador nem no cache.
+        if (!acumuladorGostei.contem(id) && !cacheMensagem.contem(id) && !mensagemRepository.existsById(id)) {
+            throw new MensagemNotFoundException("Mensagem não encontrada");
+        }
+        acumuladorGostei.incrementar(id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Page<Mensagem> listarMensagens(Pageable pageable) {
         return mensagemRepository.listarMensagens(pageable);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Mensagem> listarFeed(CursorMensagem cursor, int tamanho) {
+        var pagina = PageRequest.ofSize(tamanho);
+        if (cursor == null) {
+            return mensagemRepository.listarFeed(pagina);
+        }
+        return mensagemRepository.listarFeedApos(cursor.dataCriacaoMensagem(), cursor.id(), pagina);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Mensagem> listarPorUsuario(String usuario, CursorMensagem cursor, int tamanho) {
+        if (cursor == null) {
+            var emMemoria = cacheTimeline.primeiraPagina(usuario, tamanho, quantidade ->
+                    mensagemRepository.listarPorUsuario(usuario, PageRequest.ofSize(quantidade)).getContent());
+            if (emMemoria.isPresent()) {
+                return emMemoria.get();
+            }
+            return mensagemRepository.listarPorUsuario(usuario, PageRequest.ofSize(tamanho));
+        }
+        return mensagemRepository.listarPorUsuarioApos(usuario, cursor.dataCriacaoMensagem(), cursor.id(),
+                PageRequest.ofSize(tamanho));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ResultadoBusca buscarPorTexto(String texto, int pagina, int tamanho) {
+        var resultado = indiceMensagens.buscar(texto, Math.multiplyExact(pagina, tamanho), tamanho);
+        var encontradas = new HashMap<UUID, Mensagem>();
+        mensagemRepository.findAllById(resultado.ids())
+                .forEach(mensagem -> encontradas.put(mensagem.getId(), mensagem));
+        // findAllById não preserva a ordem; reordena pela relevância devolvida pelo índice.
+        var mensagens = resultado.ids().stream()
+                .map(encontradas::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return new ResultadoBusca(mensagens, resultado.total(), pagina, tamanho);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportarMensagens(Consumer<Mensagem> consumidor) {
+        long total = 0;
+        try (var mensagens = mensagemRepository.exportarMensagens()) {
+            for (var iterador = mensagens.iterator(); iterador.hasNext(); total++) {
+                var mensagem = iterador.next();
+                consumidor.accept(mensagem);
+                mensagemRepository.desanexar(mensagem);
+            }
+        }
+        return total;
+    }
 
+    @Override
+    public EstatisticasMensagens consultarEstatisticas(Granularidade granularidade, String usuario,
+                                                       LocalDateTime de, LocalDateTime ate) {
+        return agregadosMensagens.consultar(granularidade, usuario, de, ate);
+    }
+
+    private static ConteudoMensagem conteudo(Mensagem mensagem) {
+        return new ConteudoMensagem(mensagem.getId(), mensagem.getConteudo());
+    }
+
+    private Mensagem encontrarMensagem(UUID id) {
+        return mensagemRepository.findById(id)
+                .orElseThrow(() -> new MensagemNotFoundException("Mensagem não encontrada"));
+    }
 }
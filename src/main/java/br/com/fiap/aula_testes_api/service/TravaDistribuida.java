@@ -0,0 +1,65 @@
+package br.com.fiap.aula_testes_api.service;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Trava com prazo (lease) na tabela {@code trava_tarefa}, compartilhada pelos nós que usam o
+ * mesmo banco. Quem adquire deve renovar antes do prazo; se o nó cair, a trava expira e outro
+ * nó a assume. Cada comando é atômico e confirmado na hora (autocommit), então nenhuma
+ * transação fica aberta enquanto a trava é mantida.
+ * <p>
+ * O prazo usa o relógio local: a duração da trava deve ser bem maior que a diferença entre os
+ * relógios dos nós.
+ */
+@Component
+public class TravaDistribuida {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String dono;
+
+    public TravaDistribuida(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dono = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+    }
+
+    /**
+     * Adquire a trava se ela estiver livre, expirada ou já for deste nó.
+     */
+    public boolean adquirir(String nome, Duration duracao) {
+        var agora = LocalDateTime.now();
+        var expiraEm = Timestamp.valueOf(agora.plus(duracao));
+        if (jdbcTemplate.update("UPDATE trava_tarefa SET dono = ?, expira_em = ? "
+                + "WHERE nome = ? AND (expira_em <= ? OR dono = ?)", dono, expiraEm, nome, Timestamp.valueOf(agora), dono) > 0) {
+            return true;
+        }
+        try {
+            jdbcTemplate.update("INSERT INTO trava_tarefa (nome, dono, expira_em) VALUES (?, ?, ?)", nome, dono, expiraEm);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Estende o prazo de uma trava deste nó.
+     *
+     * @return {@code false} se a trava expirou e foi assumida por outro nó
+     */
+    public boolean renovar(String nome, Duration duracao) {
+        return jdbcTemplate.update("UPDATE trava_tarefa SET expira_em = ? WHERE nome = ? AND dono = ?",
+                Timestamp.valueOf(LocalDateTime.now().plus(duracao)), nome, dono) > 0;
+    }
+
+    public void liberar(String nome) {
+        jdbcTemplate.update("UPDATE trava_tarefa SET expira_em = ? WHERE nome = ? AND dono = ?",
+                Timestamp.valueOf(LocalDateTime.now()), nome, dono);
+    }
+}
@@ -0,0 +1,299 @@
+package br.com.fiap.aula_testes_api.service.busca;
+
+import br.com.fiap.aula_testes_api.model.ConteudoMensagem;
+import br.com.fiap.aula_testes_api.repository.ArmazenamentoMensagens;
+import br.com.fiap.aula_testes_api.service.AposCommit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido em memória sobre {@code Mensagem.conteudo}.
+ * <p>
+ * Cada mensagem indexada recebe um número de documento crescente; cada termo aponta para uma
+ * {@link ListaPostagens} comprimida. Alterações reindexam a mensagem com um número novo e
+ * remoções apenas marcam o documento antigo, que é ignorado nas buscas. Os resultados são
+ * ordenados por TF-IDF normalizado pelo tamanho do conteúdo.
+ * <p>
+ * O índice é reconstruído a partir do banco quando a aplicação sobe, tokenizando em paralelo,
+ * numa estrutura nova que substitui a atual só no fim; as buscas usam a atual até lá, e as
+ * marcas de remoção acumuladas são descartadas. Escritas feitas durante a reconstrução são
+ * aplicadas às duas e têm precedência sobre o que foi lido do banco.
+ */
+@Slf4j
+@Component
+public class IndiceMensagens {
+
+    private static final int TAMANHO_LOTE_RECONSTRUCAO = 5_000;
+
+    private final ArmazenamentoMensagens mensagemRepository;
+    private final TransactionTemplate transacaoLeitura;
+    private final boolean reconstruirNaInicializacao;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Estrutura atual = new Estrutura();
+
+    /** Estrutura sendo reconstruída; {@code null} fora da reconstrução. */
+    private Estrutura reconstrucao;
+    private final Set<UUID> alteradosDuranteReconstrucao = new HashSet<>();
+
+    public IndiceMensagens(ArmazenamentoMensagens mensagemRepository,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${mensagem.busca.reconstruir-na-inicializacao:true}") boolean reconstruirNaInicializacao) {
+        this.mensagemRepository = mensagemRepository;
+        this.transacaoLeitura = new TransactionTemplate(transactionManager);
+        this.transacaoLeitura.setReadOnly(true);
+        this.reconstruirNaInicializacao = reconstruirNaInicializacao;
+    }
+
+    public void indexar(UUID id, String conteudo) {
+        var documento = new Documento(id, TokenizadorPortugues.tokenizar(conteudo));
+        lock.writeLock().lock();
+        try {
+            atual.remover(id);
+            atual.adicionar(documento);
+            if (reconstrucao != null) {
+                alteradosDuranteReconstrucao.add(id);
+                reconstrucao.remover(id);
+                reconstrucao.adicionar(documento);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remover(UUID id) {
+        lock.writeLock().lock();
+        try {
+            atual.remover(id);
+            if (reconstrucao != null) {
+                alteradosDuranteReconstrucao.add(id);
+                reconstrucao.remover(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexa as mensagens após o commit da transação corrente, para que o índice nunca
+     * aponte para uma gravação que acabou desfeita.
+     */
+    public void indexarAposCommit(Collection<ConteudoMensagem> conteudos) {
+        if (conteudos.isEmpty()) {
+            return;
+        }
+        var copia = List.copyOf(conteudos);
+        AposCommit.executar(() -> copia.forEach(conteudo -> indexar(conteudo.id(), conteudo.conteudo())));
+    }
+
+    public void removerAposCommit(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        var copia = List.copyOf(ids);
+        AposCommit.executar(() -> copia.forEach(this::remover));
+    }
+
+    /**
+     * Busca as mensagens que contêm algum dos termos do texto, da mais relevante para a menos
+     * relevante, pulando as {@code deslocamento} primeiras.
+     */
+    public ResultadoIndice buscar(String texto, int deslocamento, int limite) {
+        var termos = new LinkedHashMap<String, Integer>();
+        TokenizadorPortugues.tokenizar(texto).forEach(termo -> termos.merge(termo, 1, Integer::sum));
+        if (termos.isEmpty()) {
+            return new ResultadoIndice(List.of(), 0);
+        }
+
+        lock.readLock().lock();
+        try {
+            var pontuacoes = atual.pontuar(termos.keySet());
+            var melhores = new PriorityQueue<Map.Entry<Integer, Double>>(ORDEM_RELEVANCIA.reversed());
+            var mantidos = (long) deslocamento + limite;
+            for (var entrada : pontuacoes.entrySet()) {
+                melhores.offer(entrada);
+                if (melhores.size() > mantidos) {
+                    melhores.poll();
+                }
+            }
+            var ordenados = new ArrayList<>(melhores);
+            ordenados.sort(ORDEM_RELEVANCIA);
+            var ids = ordenados.stream()
+                    .skip(deslocamento)
+                    .map(entrada -> atual.idPorDocumento[entrada.getKey()])
+                    .toList();
+            return new ResultadoIndice(ids, pontuacoes.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int totalDocumentos() {
+        lock.readLock().lock();
+        try {
+            return atual.documentoPorId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconstruirNaInicializacao() {
+        if (reconstruirNaInicializacao) {
+            reconstruir();
+        }
+    }
+
+    public void reconstruir() {
+        var inicio = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            if (reconstrucao != null) {
+                log.warn("Reconstrução do índice de busca já em andamento");
+                return;
+            }
+            reconstrucao = new Estrutura();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        var concluida = false;
+        try {
+            transacaoLeitura.executeWithoutResult(status -> {
+                try (var conteudos = mensagemRepository.listarConteudos()) {
+                    var lote = new ArrayList<ConteudoMensagem>(TAMANHO_LOTE_RECONSTRUCAO);
+                    conteudos.forEach(conteudo -> {
+                        lote.add(conteudo);
+                        if (lote.size() == TAMANHO_LOTE_RECONSTRUCAO) {
+                            indexarLote(lote);
+                            lote.clear();
+                        }
+                    });
+                    indexarLote(lote);
+                }
+            });
+            concluida = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (concluida) {
+                    atual = reconstrucao;
+                }
+                reconstrucao = null;
+                alteradosDuranteReconstrucao.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.info("Índice de busca reconstruído com {} mensagens em {} ms",
+                totalDocumentos(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    private void indexarLote(List<ConteudoMensagem> lote) {
+        var documentos = lote.parallelStream()
+                .map(conteudo -> new Documento(conteudo.id(), TokenizadorPortugues.tokenizar(conteudo.conteudo())))
+                .toList();
+        lock.writeLock().lock();
+        try {
+            for (var documento : documentos) {
+                if (!alteradosDuranteReconstrucao.contains(documento.id())
+                        && !reconstrucao.documentoPorId.containsKey(documento.id())) {
+                    reconstrucao.adicionar(documento);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Maior pontuação primeiro; em empate, o documento indexado mais recentemente.
+     */
+    private static final Comparator<Map.Entry<Integer, Double>> ORDEM_RELEVANCIA =
+            Map.Entry.<Integer, Double>comparingByValue().reversed()
+                    .thenComparing(Map.Entry.<Integer, Double>comparingByKey().reversed());
+
+    /**
+     * Postagens e documentos de uma geração do índice; acessada sob {@link #lock}.
+     */
+    private static final class Estrutura {
+
+        private final Map<String, ListaPostagens> postagens = new HashMap<>();
+        private final Map<UUID, Integer> documentoPorId = new HashMap<>();
+        private final BitSet removidos = new BitSet();
+        private UUID[] idPorDocumento = new UUID[1024];
+        private int[] comprimentoPorDocumento = new int[1024];
+        private int proximoDocumento;
+
+        private Map<Integer, Double> pontuar(Set<String> termos) {
+            var pontuacoes = new HashMap<Integer, Double>();
+            var totalDocumentos = Math.max(1, documentoPorId.size());
+            for (var termo : termos) {
+                var lista = postagens.get(termo);
+                if (lista == null) {
+                    continue;
+                }
+                var idf = Math.log(1 + (double) totalDocumentos / lista.quantidade());
+                lista.percorrer((documento, frequencia) -> {
+                    if (!removidos.get(documento)) {
+                        var peso = (1 + Math.log(frequencia)) * idf / Math.sqrt(comprimentoPorDocumento[documento]);
+                        pontuacoes.merge(documento, peso, Double::sum);
+                    }
+                });
+            }
+            return pontuacoes;
+        }
+
+        private void adicionar(Documento documento) {
+            if (documento.termos().isEmpty()) {
+                return;
+            }
+            int numero = proximoDocumento++;
+            if (numero == idPorDocumento.length) {
+                idPorDocumento = Arrays.copyOf(idPorDocumento, numero * 2);
+                comprimentoPorDocumento = Arrays.copyOf(comprimentoPorDocumento, numero * 2);
+            }
+            idPorDocumento[numero] = documento.id();
+            comprimentoPorDocumento[numero] = documento.termos().size();
+            documentoPorId.put(documento.id(), numero);
+
+            var frequencias = new HashMap<String, Integer>();
+            documento.termos().forEach(termo -> frequencias.merge(termo, 1, Integer::sum));
+            frequencias.forEach((termo, frequencia) ->
+                    postagens.computeIfAbsent(termo, t -> new ListaPostagens()).adicionar(numero, frequencia));
+        }
+
+        private void remover(UUID id) {
+            var numero = documentoPorId.remove(id);
+            if (numero != null) {
+                removidos.set(numero);
+                idPorDocumento[numero] = null;
+            }
+        }
+    }
+
+    private record Documento(UUID id, List<String> termos) {
+    }
+
+    public record ResultadoIndice(List<UUID> ids, long total) {
+    }
+}
@@ -0,0 +1,82 @@
+package br.com.fiap.aula_testes_api.service.busca;
+
+import java.util.Arrays;
+
+/**
+ * Lista de documentos (e frequência do termo em cada um) de um termo do índice.
+ * <p>
+ * Os ids de documento são crescentes, então cada entrada é gravada como a diferença para o id
+ * anterior seguida da frequência, ambas em varint (7 bits por byte). Termos comuns ficam com
+ * 2 bytes por documento em vez dos 8 de um par de ints. Não é thread-safe; o
+ * {@link IndiceMensagens} controla o acesso.
+ */
+final class ListaPostagens {
+
+    private byte[] dados = new byte[8];
+    private int tamanho;
+    private int ultimoDocumento = -1;
+    private int quantidade;
+
+    void adicionar(int documento, int frequencia) {
+        if (documento <= ultimoDocumento) {
+            throw new IllegalArgumentException("Documentos devem ser adicionados em ordem crescente");
+        }
+        garantirCapacidade(10);
+        escrever(documento - ultimoDocumento);
+        escrever(frequencia);
+        ultimoDocumento = documento;
+        quantidade++;
+    }
+
+    int quantidade() {
+        return quantidade;
+    }
+
+    int bytesUsados() {
+        return tamanho;
+    }
+
+    void percorrer(Visitante visitante) {
+        int posicao = 0;
+        int documento = -1;
+        while (posicao < tamanho) {
+            int valor = 0;
+            int deslocamento = 0;
+            byte b;
+            do {
+                b = dados[posicao++];
+                valor |= (b & 0x7F) << deslocamento;
+                deslocamento += 7;
+            } while (b < 0);
+            documento += valor;
+
+            int frequencia = 0;
+            deslocamento = 0;
+            do {
+                b = dados[posicao++];
+                frequencia |= (b & 0x7F) << deslocamento;
+                deslocamento += 7;
+            } while (b < 0);
+            visitante.visitar(documento, frequencia);
+        }
+    }
+
+    private void escrever(int valor) {
+        while ((valor & ~0x7F) != 0) {
+            dados[tamanho++] = (byte) ((valor & 0x7F) | 0x80);
+            valor >>>= 7;
+        }
+        dados[tamanho++] = (byte) valor;
+    }
+
+    private void garantirCapacidade(int adicional) {
+        if (tamanho + adicional > dados.length) {
+            dados = Arrays.copyOf(dados, Math.max(dados.length * 2, tamanho + adicional));
+        }
+    }
+
+    @FunctionalInterface
+    interface Visitante {
+        void visitar(int documento, int frequencia);
+    }
+}
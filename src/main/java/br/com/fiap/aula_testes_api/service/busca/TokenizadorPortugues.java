@@ -0,0 +1,52 @@
+package br.com.fiap.aula_testes_api.service.busca;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Quebra texto em português em termos de busca: remove acentos, converte para minúsculas,
+ * separa por caracteres não alfanuméricos e descarta stop words e termos de uma letra.
+ */
+public final class TokenizadorPortugues {
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "ao", "aos", "as", "ate", "com", "como", "da", "das", "de", "dela", "dele", "do", "dos",
+            "e", "ela", "ele", "em", "entre", "era", "essa", "esse", "esta", "este", "eu", "foi", "ha",
+            "isso", "isto", "ja", "la", "lhe", "mais", "mas", "me", "mesmo", "meu", "minha", "muito",
+            "na", "nao", "nas", "nem", "no", "nos", "o", "os", "ou", "para", "pela", "pelo", "por",
+            "quando", "que", "se", "sem", "ser", "seu", "sua", "so", "tambem", "te", "tem", "um",
+            "uma", "voce");
+
+    private TokenizadorPortugues() {
+    }
+
+    public static List<String> tokenizar(String texto) {
+        var termos = new ArrayList<String>();
+        if (texto == null || texto.isEmpty()) {
+            return termos;
+        }
+        var normalizado = Normalizer.normalize(texto, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+        int inicio = -1;
+        for (int i = 0; i <= normalizado.length(); i++) {
+            boolean alfanumerico = i < normalizado.length() && Character.isLetterOrDigit(normalizado.charAt(i));
+            if (alfanumerico && inicio < 0) {
+                inicio = i;
+            } else if (!alfanumerico && inicio >= 0) {
+                adicionar(termos, normalizado.substring(inicio, i));
+                inicio = -1;
+            }
+        }
+        return termos;
+    }
+
+    private static void adicionar(List<String> termos, String termo) {
+        if (termo.length() > 1 && !STOP_WORDS.contains(termo)) {
+            termos.add(termo);
+        }
+    }
+}
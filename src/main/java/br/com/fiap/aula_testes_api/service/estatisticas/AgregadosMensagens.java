@@ -0,0 +1,318 @@
+package br.com.fiap.aula_testes_api.service.estatisticas;
+
+import br.com.fiap.aula_testes_api.model.EstatisticasMensagens;
+import br.com.fiap.aula_testes_api.model.Granularidade;
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.model.TotalHora;
+import br.com.fiap.aula_testes_api.repository.ArmazenamentoMensagens;
+import br.com.fiap.aula_testes_api.service.AposCommit;
+import br.com.fiap.aula_testes_api.service.CacheMensagem;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Mensagens criadas e "gostei" recebidos por usuário e no total, em baldes por hora e por dia,
+ * mantidos em memória: cada registro, remoção (inclusive pela retenção) ou alteração de usuário
+ * soma (ou subtrai) nos baldes da data de criação da mensagem depois do commit, e os "gostei"
+ * entram quando o {@link br.com.fiap.aula_testes_api.service.AcumuladorGostei} os grava no
+ * banco. Uma consulta percorre só os baldes do intervalo, sem tocar na tabela.
+ * <p>
+ * Periodicamente, os baldes dos últimos dias são reconciliados com um {@code GROUP BY} no banco
+ * restrito a esse período, o que corrige o que não passa pelos incrementos, como a importação e
+ * as escritas de outros nós. Na inicialização, a reconciliação cobre a tabela inteira.
+ * <p>
+ * A reconciliação soma a diferença entre o banco e a cópia tirada antes da consulta. Um
+ * incremento cuja escrita a consulta já viu, mas que ainda não tinha sido somado na cópia, seria
+ * contado duas vezes; só a próxima reconciliação o corrige, e apenas se o balde estiver na
+ * janela. Por isso toda escrita deste nó que soma nas estatísticas grava, faz o commit e soma
+ * dentro de {@link #contabilizando} ou de {@link #contabilizandoTransacao}, que a reconciliação
+ * espera: os "gostei", a retenção, as escritas do serviço e as dos lotes, que podem alterar ou
+ * remover mensagens antigas, fora da janela.
+ * <p>
+ * Os baldes por hora são descartados depois de {@code retencaoHoras}; os diários são mantidos.
+ */
+@Slf4j
+@Component
+public class AgregadosMensagens {
+
+    private final ArmazenamentoMensagens mensagemRepository;
+    private final CacheMensagem cacheMensagem;
+    private final Duration janelaReconciliacao;
+    private final Duration retencaoHoras;
+    private final boolean reconstruirNaInicializacao;
+    private final Clock clock;
+
+    private final Map<Granularidade, SerieBaldes> total = new EnumMap<>(Granularidade.class);
+    private final Map<Granularidade, ConcurrentHashMap<String, SerieBaldes>> porUsuario =
+            new EnumMap<>(Granularidade.class);
+    /** Leitura: escritas em {@link #contabilizando}; escrita: a reconciliação. */
+    private final ReentrantReadWriteLock reconciliacao = new ReentrantReadWriteLock();
+
+    private final Timer duracaoReconciliacao;
+    private final Counter correcoes;
+
+    @Autowired
+    public AgregadosMensagens(ArmazenamentoMensagens mensagemRepository,
+                              CacheMensagem cacheMensagem,
+                              @Value("${mensagem.estatisticas.janela-reconciliacao:2d}") Duration janelaReconciliacao,
+                              @Value("${mensagem.estatisticas.retencao-horas:30d}") Duration retencaoHoras,
+                              @Value("${mensagem.estatisticas.reconstruir-na-inicializacao:true}") boolean reconstruirNaInicializacao,
+                              MeterRegistry meterRegistry) {
+        this(mensagemRepository, cacheMensagem, janelaReconciliacao, retencaoHoras, reconstruirNaInicializacao,
+                Clock.systemDefaultZone(), meterRegistry);
+    }
+
+    AgregadosMensagens(ArmazenamentoMensagens mensagemRepository, CacheMensagem cacheMensagem,
+                       Duration janelaReconciliacao, Duration retencaoHoras, boolean reconstruirNaInicializacao,
+                       Clock clock, MeterRegistry meterRegistry) {
+        this.mensagemRepository = mensagemRepository;
+        this.cacheMensagem = cacheMensagem;
+        this.janelaReconciliacao = janelaReconciliacao;
+        this.retencaoHoras = retencaoHoras;
+        this.reconstruirNaInicializacao = reconstruirNaInicializacao;
+        this.clock = clock;
+        for (var granularidade : Granularidade.values()) {
+            total.put(granularidade, new SerieBaldes());
+            porUsuario.put(granularidade, new ConcurrentHashMap<>());
+        }
+        this.duracaoReconciliacao = Timer.builder("mensagem.estatisticas.reconciliacao")
+                .description("Duração da reconciliação das estatísticas com o banco")
+                .register(meterRegistry);
+        this.correcoes = Counter.builder("mensagem.estatisticas.correcoes")
+                .description("Baldes de estatísticas corrigidos pela reconciliação")
+                .register(meterRegistry);
+    }
+
+    public void registrarAposCommit(Mensagem mensagem) {
+        AposCommit.executar(() -> somar(mensagem.getUsuario(), mensagem.getDataCriacaoMensagem(),
+                1, mensagem.getGostei()));
+    }
+
+    public void removerAposCommit(Mensagem mensagem) {
+        AposCommit.executar(() -> somar(mensagem.getUsuario(), mensagem.getDataCriacaoMensagem(),
+                -1, -mensagem.getGostei()));
+    }
+
+    public void removerAposCommit(Collection<Mensagem> mensagens) {
+        if (mensagens.isEmpty()) {
+            return;
+        }
+        AposCommit.executar(() -> mensagens.forEach(mensagem -> somar(mensagem.getUsuario(),
+                mensagem.getDataCriacaoMensagem(), -1, -mensagem.getGostei())));
+    }
+
+    /**
+     * Executa uma escrita no banco, incluindo o commit e o que ela soma nas estatísticas, sem que
+     * uma reconciliação tire a cópia ou consulte o banco no meio dela.
+     */
+    public <T> T contabilizando(Supplier<T> escrita) {
+        reconciliacao.readLock().lock();
+        try {
+            return escrita.get();
+        } finally {
+            reconciliacao.readLock().unlock();
+        }
+    }
+
+    /**
+     * Como {@link #contabilizando}, para a transação corrente: trava já e só libera depois do
+     * commit, e do que ele soma nas estatísticas, ou do rollback. Deve ser chamado antes da
+     * primeira escrita; sem transação não trava, e as somas acontecem logo após cada escrita.
+     */
+    public void contabilizandoTransacao() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        reconciliacao.readLock().lock();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                reconciliacao.readLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Soma "gostei" que a transação corrente grava na mensagem informada.
+     */
+    public void registrarGosteiAposCommit(Mensagem mensagem, long quantidade) {
+        AposCommit.executar(() -> somar(mensagem.getUsuario(), mensagem.getDataCriacaoMensagem(), 0, quantidade));
+    }
+
+    /**
+     * Move a mensagem, com os seus "gostei", dos baldes do usuário anterior para os do atual.
+     */
+    public void alterarUsuarioAposCommit(Mensagem mensagem, String usuarioAnterior) {
+        if (Objects.equals(usuarioAnterior, mensagem.getUsuario())) {
+            return;
+        }
+        AposCommit.executar(() -> {
+            somarUsuario(usuarioAnterior, mensagem.getDataCriacaoMensagem(), -1, -mensagem.getGostei());
+            somarUsuario(mensagem.getUsuario(), mensagem.getDataCriacaoMensagem(), 1, mensagem.getGostei());
+        });
+    }
+
+    /**
+     * Soma "gostei" já gravados no banco. A data de criação e o usuário vêm do cache ou, para as
+     * mensagens fora dele, de uma única consulta; as que não existem mais são ignoradas.
+     */
+    public void registrarGostei(Map<UUID, Long> incrementos) {
+        try {
+            var foraDoCache = new ArrayList<UUID>();
+            incrementos.forEach((id, quantidade) -> {
+                var emCache = cacheMensagem.buscarSePresente(id);
+                if (emCache == null) {
+                    foraDoCache.add(id);
+                } else {
+                    somar(emCache.getUsuario(), emCache.getDataCriacaoMensagem(), 0, quantidade);
+                }
+            });
+            if (!foraDoCache.isEmpty()) {
+                mensagemRepository.findAllById(foraDoCache).forEach(mensagem -> somar(mensagem.getUsuario(),
+                        mensagem.getDataCriacaoMensagem(), 0, incrementos.get(mensagem.getId())));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Falha ao contabilizar {} contadores de gostei nas estatísticas; "
+                    + "a próxima reconciliação corrige", incrementos.size(), e);
+        }
+    }
+
+    /**
+     * Baldes de {@code [de, ate)}, com os limites estendidos para os dos baldes que os contêm.
+     *
+     * @param usuario só as mensagens deste usuário; {@code null} para todos
+     */
+    public EstatisticasMensagens consultar(Granularidade granularidade, String usuario,
+                                           LocalDateTime de, LocalDateTime ate) {
+        var inicio = granularidade.truncar(de);
+        var fim = granularidade.truncar(ate);
+        if (fim.isBefore(ate)) {
+            fim = granularidade.proximo(fim);
+        }
+        var serie = usuario == null ? total.get(granularidade) : porUsuario.get(granularidade).get(usuario);
+        return new EstatisticasMensagens(granularidade, usuario, inicio, fim,
+                serie == null ? List.of() : serie.consultar(inicio, fim));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconstruirNaInicializacao() {
+        if (reconstruirNaInicializacao) {
+            reconciliar(null);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${mensagem.estatisticas.intervalo-reconciliacao:600000}",
+            fixedDelayString = "${mensagem.estatisticas.intervalo-reconciliacao:600000}")
+    public void reconciliarRecentes() {
+        reconciliar(LocalDateTime.now(clock).minus(janelaReconciliacao));
+    }
+
+    /**
+     * Recalcula pelo banco os baldes a partir do dia de {@code desde} (todos, se nulo): o início
+     * é estendido até a meia-noite para que os baldes diários sejam recalculados inteiros.
+     */
+    public void reconciliar(LocalDateTime desde) {
+        var inicio = desde == null ? null : Granularidade.DIA.truncar(desde);
+        reconciliacao.writeLock().lock();
+        try {
+            var amostra = Timer.start();
+            var antes = new HashMap<SerieBaldes, Map<LocalDateTime, long[]>>();
+            for (var granularidade : Granularidade.values()) {
+                antes.put(total.get(granularidade), total.get(granularidade).copiar(inicio));
+                porUsuario.get(granularidade).values().forEach(serie -> antes.put(serie, serie.copiar(inicio)));
+            }
+            var banco = agrupar(mensagemRepository.totalizarPorHora(inicio));
+
+            var corrigidos = 0;
+            var series = new HashSet<>(antes.keySet());
+            series.addAll(banco.keySet());
+            for (var serie : series) {
+                var anterior = antes.getOrDefault(serie, Map.of());
+                var atual = banco.getOrDefault(serie, Map.of());
+                var baldes = new HashSet<>(anterior.keySet());
+                baldes.addAll(atual.keySet());
+                for (var balde : baldes) {
+                    var noBanco = atual.getOrDefault(balde, new long[2]);
+                    var emMemoria = anterior.getOrDefault(balde, new long[2]);
+                    if (noBanco[0] != emMemoria[0] || noBanco[1] != emMemoria[1]) {
+                        serie.somar(balde, noBanco[0] - emMemoria[0], noBanco[1] - emMemoria[1]);
+                        corrigidos++;
+                    }
+                }
+            }
+
+            var limiteHoras = Granularidade.HORA.truncar(LocalDateTime.now(clock).minus(retencaoHoras));
+            total.get(Granularidade.HORA).descartarAntes(limiteHoras);
+            porUsuario.get(Granularidade.HORA).values().forEach(serie -> serie.descartarAntes(limiteHoras));
+
+            correcoes.increment(corrigidos);
+            var duracao = amostra.stop(duracaoReconciliacao);
+            log.info("Estatísticas reconciliadas {} com {} baldes corrigidos em {} ms",
+                    inicio == null ? "por completo" : "desde " + inicio, corrigidos, duracao / 1_000_000);
+        } finally {
+            reconciliacao.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Distribui os totais por hora do banco nas séries de cada granularidade.
+     */
+    private Map<SerieBaldes, Map<LocalDateTime, long[]>> agrupar(List<TotalHora> totais) {
+        var porSerie = new HashMap<SerieBaldes, Map<LocalDateTime, long[]>>();
+        for (var totalHora : totais) {
+            for (var granularidade : Granularidade.values()) {
+                var balde = granularidade.truncar(totalHora.hora());
+                for (var serie : List.of(total.get(granularidade), serie(granularidade, totalHora.usuario()))) {
+                    var somado = porSerie.computeIfAbsent(serie, s -> new HashMap<>())
+                            .computeIfAbsent(balde, b -> new long[2]);
+                    somado[0] += totalHora.mensagens();
+                    somado[1] += totalHora.gostei();
+                }
+            }
+        }
+        return porSerie;
+    }
+
+    private void somar(String usuario, LocalDateTime dataCriacao, long mensagens, long gostei) {
+        for (var granularidade : Granularidade.values()) {
+            total.get(granularidade).somar(granularidade.truncar(dataCriacao), mensagens, gostei);
+        }
+        somarUsuario(usuario, dataCriacao, mensagens, gostei);
+    }
+
+    private void somarUsuario(String usuario, LocalDateTime dataCriacao, long mensagens, long gostei) {
+        for (var granularidade : Granularidade.values()) {
+            serie(granularidade, usuario).somar(granularidade.truncar(dataCriacao), mensagens, gostei);
+        }
+    }
+
+    private SerieBaldes serie(Granularidade granularidade, String usuario) {
+        return porUsuario.get(granularidade).computeIfAbsent(usuario, u -> new SerieBaldes());
+    }
+}
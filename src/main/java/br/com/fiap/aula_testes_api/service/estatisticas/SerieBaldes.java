@@ -0,0 +1,60 @@
+package br.com.fiap.aula_testes_api.service.estatisticas;
+
+import br.com.fiap.aula_testes_api.model.EstatisticasMensagens;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Totais de uma série (um usuário ou todos, numa granularidade) indexados pelo início do balde.
+ * Os totais só recebem somas, inclusive as correções da reconciliação, para que nenhum
+ * incremento concorrente se perca; um intervalo é lido em O(log n + baldes no intervalo).
+ */
+final class SerieBaldes {
+
+    private final ConcurrentSkipListMap<LocalDateTime, Totais> baldes = new ConcurrentSkipListMap<>();
+
+    void somar(LocalDateTime inicio, long mensagens, long gostei) {
+        var totais = baldes.computeIfAbsent(inicio, chave -> new Totais());
+        if (mensagens != 0) {
+            totais.mensagens.add(mensagens);
+        }
+        if (gostei != 0) {
+            totais.gostei.add(gostei);
+        }
+    }
+
+    /**
+     * Baldes não vazios que começam em {@code [de, ate)}.
+     */
+    List<EstatisticasMensagens.Balde> consultar(LocalDateTime de, LocalDateTime ate) {
+        return baldes.subMap(de, true, ate, false).entrySet().stream()
+                .map(balde -> new EstatisticasMensagens.Balde(balde.getKey(),
+                        balde.getValue().mensagens.sum(), balde.getValue().gostei.sum()))
+                .filter(balde -> balde.mensagens() != 0 || balde.gostei() != 0)
+                .toList();
+    }
+
+    /**
+     * Cópia dos totais dos baldes a partir de {@code desde} (todos, se nulo): {mensagens, gostei}.
+     */
+    Map<LocalDateTime, long[]> copiar(LocalDateTime desde) {
+        var copia = new HashMap<LocalDateTime, long[]>();
+        (desde == null ? baldes : baldes.tailMap(desde, true)).forEach((inicio, totais) ->
+                copia.put(inicio, new long[]{totais.mensagens.sum(), totais.gostei.sum()}));
+        return copia;
+    }
+
+    void descartarAntes(LocalDateTime limite) {
+        baldes.headMap(limite, false).clear();
+    }
+
+    private static final class Totais {
+        private final LongAdder mensagens = new LongAdder();
+        private final LongAdder gostei = new LongAdder();
+    }
+}
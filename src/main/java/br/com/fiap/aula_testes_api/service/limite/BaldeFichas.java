@@ -0,0 +1,40 @@
+package br.com.fiap.aula_testes_api.service.limite;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Balde de fichas sem trava, guardado num único {@code long}: o instante (em nanos) em que o
+ * balde estaria cheio de novo. Consumir uma ficha é empurrar esse instante um intervalo para
+ * frente com um CAS; a requisição passa enquanto ele não está mais que {@code rajada - 1}
+ * intervalos à frente do agora. É a formulação GCRA do balde de fichas: não há reabastecimento a
+ * agendar nem contador separado para manter consistente.
+ */
+final class BaldeFichas {
+
+    private final AtomicLong cheioEm;
+
+    BaldeFichas(long agora) {
+        this.cheioEm = new AtomicLong(agora);
+    }
+
+    /**
+     * Consome uma ficha.
+     *
+     * @param intervalo nanos entre duas fichas ({@code 1s / taxa})
+     * @param tolerancia nanos que o balde pode adiantar ({@code (rajada - 1) * intervalo})
+     * @return 0 se a ficha foi consumida, senão os nanos até haver uma
+     */
+    long consumir(long agora, long intervalo, long tolerancia) {
+        while (true) {
+            var atual = cheioEm.get();
+            var base = Math.max(atual, agora);
+            var adiantamento = base - agora;
+            if (adiantamento > tolerancia) {
+                return adiantamento - tolerancia;
+            }
+            if (cheioEm.compareAndSet(atual, base + intervalo)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package br.com.fiap.aula_testes_api.service.limite;
+
+import br.com.fiap.aula_testes_api.exception.LimiteTaxaExcedidoException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limita a taxa de escritas por usuário e por IP do cliente com um balde de fichas por chave
+ * (ver {@link BaldeFichas}): cada balde acumula até {@code rajada} fichas e recebe {@code taxa}
+ * fichas por segundo.
+ * <p>
+ * Os baldes ficam num cache limitado ({@code mensagem.limite.chaves-maximas}) que descarta os
+ * ociosos após {@code mensagem.limite.ociosidade}: um balde ocioso por mais que
+ * {@code rajada / taxa} segundos já estaria cheio, então descartá-lo não muda o resultado.
+ * A leitura de um balde existente não trava, e o consumo é um CAS no próprio balde, então
+ * clientes diferentes não disputam nada entre si.
+ * <p>
+ * Taxa zero desliga o limite correspondente.
+ */
+@Component
+public class LimitadorTaxa {
+
+    private final Cache<String, BaldeFichas> baldes;
+    private final Ticker ticker;
+    private final Limite porUsuario;
+    private final Limite porIp;
+    private final Counter recusadasUsuario;
+    private final Counter recusadasIp;
+
+    @Autowired
+    public LimitadorTaxa(@Value("${mensagem.limite.usuario.taxa:20}") double taxaUsuario,
+                         @Value("${mensagem.limite.usuario.rajada:40}") int rajadaUsuario,
+                         @Value("${mensagem.limite.ip.taxa:50}") double taxaIp,
+                         @Value("${mensagem.limite.ip.rajada:100}") int rajadaIp,
+                         @Value("${mensagem.limite.chaves-maximas:100000}") long chavesMaximas,
+                         @Value("${mensagem.limite.ociosidade:10m}") Duration ociosidade,
+                         MeterRegistry meterRegistry) {
+        this(taxaUsuario, rajadaUsuario, taxaIp, rajadaIp, chavesMaximas, ociosidade, meterRegistry, Ticker.systemTicker());
+    }
+
+    LimitadorTaxa(double taxaUsuario, int rajadaUsuario, double taxaIp, int rajadaIp, long chavesMaximas,
+                  Duration ociosidade, MeterRegistry meterRegistry, Ticker ticker) {
+        this.ticker = ticker;
+        this.porUsuario = Limite.de(taxaUsuario, rajadaUsuario);
+        this.porIp = Limite.de(taxaIp, rajadaIp);
+        this.baldes = Caffeine.newBuilder()
+                .maximumSize(chavesMaximas)
+                .expireAfterAccess(ociosidade)
+                .ticker(ticker)
+                .recordStats()
+                .build();
+        this.recusadasUsuario = recusadas(meterRegistry, "usuario");
+        this.recusadasIp = recusadas(meterRegistry, "ip");
+        CaffeineCacheMetrics.monitor(meterRegistry, baldes, "limite-taxa");
+    }
+
+    /**
+     * @throws LimiteTaxaExcedidoException se o usuário passou do limite
+     */
+    public void verificarUsuario(String usuario) {
+        if (usuario != null) {
+            verificar("u:" + usuario, porUsuario, recusadasUsuario, "Limite de requisições do usuário excedido");
+        }
+    }
+
+    /**
+     * @throws LimiteTaxaExcedidoException se o IP passou do limite
+     */
+    public void verificarIp(String ip) {
+        if (ip != null) {
+            verificar("i:" + ip, porIp, recusadasIp, "Limite de requisições do IP excedido");
+        }
+    }
+
+    private void verificar(String chave, Limite limite, Counter recusadas, String mensagem) {
+        if (limite == null) {
+            return;
+        }
+        var agora = ticker.read();
+        var balde = baldes.getIfPresent(chave);
+        if (balde == null) {
+            balde = baldes.get(chave, k -> new BaldeFichas(agora));
+        }
+        var espera = balde.consumir(agora, limite.intervalo, limite.tolerancia);
+        if (espera > 0) {
+            recusadas.increment();
+            throw new LimiteTaxaExcedidoException(mensagem, Duration.ofNanos(espera));
+        }
+    }
+
+    private static Counter recusadas(MeterRegistry meterRegistry, String tipo) {
+        return Counter.builder("mensagem.limite.recusadas")
+                .description("Escritas recusadas por excesso de requisições")
+                .tag("tipo", tipo)
+                .register(meterRegistry);
+    }
+
+    private record Limite(long intervalo, long tolerancia) {
+
+        static Limite de(double taxa, int rajada) {
+            if (taxa <= 0) {
+                return null;
+            }
+            var intervalo = (long) (TimeUnit.SECONDS.toNanos(1) / taxa);
+            // Com tolerância (rajada - 1) intervalos, um balde cheio aceita exatamente "rajada" seguidas.
+            return new Limite(intervalo, intervalo * (Math.max(rajada, 1) - 1));
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package br.com.fiap.aula_testes_api.service.retencao;
+
+import br.com.fiap.aula_testes_api.model.CursorMensagem;
+import br.com.fiap.aula_testes_api.repository.ArmazenamentoMensagens;
+import br.com.fiap.aula_testes_api.service.AcumuladorGostei;
+import br.com.fiap.aula_testes_api.service.AposCommit;
+import br.com.fiap.aula_testes_api.service.CacheMensagem;
+import br.com.fiap.aula_testes_api.service.CacheTimelineUsuario;
+import br.com.fiap.aula_testes_api.service.TravaDistribuida;
+import br.com.fiap.aula_testes_api.service.busca.IndiceMensagens;
+import br.com.fiap.aula_testes_api.service.estatisticas.AgregadosMensagens;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remove as mensagens mais antigas que a {@link PoliticaRetencao}, em segundo plano.
+ * <p>
+ * Em vez de um único DELETE, que travaria a tabela e geraria um undo log enorme, percorre as
+ * mensagens expiradas em lotes pela ordem do feed (cursor sobre os índices de data) e remove
+ * cada lote pela chave primária, numa transação curta. Entre os lotes pausa o suficiente para
+ * não passar de {@code linhasPorSegundo}, e pausa mais quando há requisições esperando conexão
+ * do pool, para não disputar o banco com o tráfego da API.
+ * <p>
+ * Com vários nós, só quem detém a {@link TravaDistribuida} executa; a trava é renovada a cada
+ * lote e, se for perdida, o expurgo para. Mesmo que dois nós removam ao mesmo tempo, o DELETE
+ * é idempotente. Caches e índice de busca são atualizados só no nó que removeu; nos demais, o
+ * cache expira sozinho e a busca ignora ids que não existem mais.
+ * <p>
+ * Progresso em {@code /actuator/metrics/mensagem.retencao.*}.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(PoliticaRetencao.class)
+public class ExpurgoMensagens {
+
+    static final String NOME_TRAVA = "expurgo-mensagens";
+
+    private final ArmazenamentoMensagens mensagemRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TravaDistribuida trava;
+    private final CacheMensagem cacheMensagem;
+    private final CacheTimelineUsuario cacheTimeline;
+    private final IndiceMensagens indiceMensagens;
+    private final AcumuladorGostei acumuladorGostei;
+    private final AgregadosMensagens agregadosMensagens;
+    private final PoliticaRetencao politica;
+    private final HikariDataSource pool;
+
+    private final Counter removidas;
+    private final Counter pausasContencao;
+    private final Timer duracaoLote;
+    private final AtomicBoolean emExecucao = new AtomicBoolean();
+    private final AtomicLong removidasExecucao = new AtomicLong();
+    private final AtomicLong ultimaConclusao = new AtomicLong();
+    private volatile boolean encerrando;
+
+    public ExpurgoMensagens(ArmazenamentoMensagens mensagemRepository,
+                            PlatformTransactionManager transactionManager,
+                            TravaDistribuida trava,
+                            CacheMensagem cacheMensagem,
+                            CacheTimelineUsuario cacheTimeline,
+                            IndiceMensagens indiceMensagens,
+                            AcumuladorGostei acumuladorGostei,
+                            AgregadosMensagens agregadosMensagens,
+                            PoliticaRetencao politica,
+                            DataSource dataSource,
+                            MeterRegistry meterRegistry) {
+        this.mensagemRepository = mensagemRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.trava = trava;
+        this.cacheMensagem = cacheMensagem;
+        this.cacheTimeline = cacheTimeline;
+        this.indiceMensagens = indiceMensagens;
+        this.acumuladorGostei = acumuladorGostei;
+        this.agregadosMensagens = agregadosMensagens;
+        this.politica = politica;
+        this.pool = hikari(dataSource);
+
+        this.removidas = Counter.builder("mensagem.retencao.removidas")
+                .description("Mensagens removidas pela política de retenção")
+                .register(meterRegistry);
+        this.pausasContencao = Counter.builder("mensagem.retencao.pausas.contencao")
+                .description("Pausas do expurgo por haver requisições esperando conexão")
+                .register(meterRegistry);
+        this.duracaoLote = Timer.builder("mensagem.retencao.lote")
+                .description("Duração da remoção de cada lote do expurgo")
+                .register(meterRegistry);
+        Gauge.builder("mensagem.retencao.em.execucao", emExecucao, emAndamento -> emAndamento.get() ? 1 : 0)
+                .description("1 enquanto o expurgo executa neste nó")
+                .register(meterRegistry);
+        Gauge.builder("mensagem.retencao.execucao.removidas", removidasExecucao, AtomicLong::get)
+                .description("Mensagens removidas na execução atual (ou na última)")
+                .register(meterRegistry);
+        Gauge.builder("mensagem.retencao.ultima.conclusao", ultimaConclusao, AtomicLong::get)
+                .description("Instante (epoch, em segundos) da última execução concluída")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${mensagem.retencao.intervalo:3600000}",
+            initialDelayString = "${mensagem.retencao.atraso-inicial:60000}")
+    public void agendado() {
+        if (politica.habilitada()) {
+            executar();
+        }
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        encerrando = true;
+    }
+
+    /**
+     * Executa o expurgo completo, se este nó obtiver a trava.
+     *
+     * @return mensagens removidas; 0 também quando outro nó está executando
+     */
+    public long executar() {
+        if (!emExecucao.compareAndSet(false, true)) {
+            return 0;
+        }
+        try {
+            if (!trava.adquirir(NOME_TRAVA, politica.duracaoTrava())) {
+                log.debug("Expurgo de mensagens em execução em outro nó");
+                return 0;
+            }
+            try {
+                removidasExecucao.set(0);
+                var inicio = System.nanoTime();
+                var concluido = expurgarTudo(LocalDateTime.now());
+                if (concluido) {
+                    ultimaConclusao.set(Instant.now().getEpochSecond());
+                }
+                log.info("Expurgo de mensagens {}: {} removidas em {} ms", concluido ? "concluído" : "interrompido",
+                        removidasExecucao.get(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+                return removidasExecucao.get();
+            } finally {
+                trava.liberar(NOME_TRAVA);
+            }
+        } finally {
+            emExecucao.set(false);
+        }
+    }
+
+    private boolean expurgarTudo(LocalDateTime agora) {
+        var comPoliticaPropria = politica.porUsuario().keySet();
+        if (politica.idadeMaxima() != null
+                && !expurgar(null, comPoliticaPropria, agora.minus(politica.idadeMaxima()))) {
+            return false;
+        }
+        for (var usuario : politica.porUsuario().entrySet()) {
+            if (!expurgar(usuario.getKey(), Set.of(), agora.minus(usuario.getValue()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return {@code false} se o expurgo precisou parar (encerramento ou trava perdida)
+     */
+    private boolean expurgar(String usuario, Collection<String> excetoUsuarios, LocalDateTime limite) {
+        CursorMensagem cursor = null;
+        while (true) {
+            if (encerrando || Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+            var inicio = System.nanoTime();
+            var chaves = mensagemRepository.listarExpiradas(limite, usuario, excetoUsuarios, cursor,
+                    politica.tamanhoLote());
+            if (chaves.isEmpty()) {
+                return true;
+            }
+            cursor = chaves.get(chaves.size() - 1);
+            var ids = chaves.stream().map(CursorMensagem::id).toList();
+            // O commit e a subtração nas estatísticas não podem ficar entre a cópia e a consulta da reconciliação.
+            var quantidade = duracaoLote.record(() -> agregadosMensagens.contabilizando(
+                    () -> transactionTemplate.execute(status -> remover(ids, limite))));
+            removidas.increment(quantidade);
+            removidasExecucao.addAndGet(quantidade);
+
+            if (!trava.renovar(NOME_TRAVA, politica.duracaoTrava())) {
+                log.warn("Trava do expurgo de mensagens perdida para outro nó");
+                return false;
+            }
+            if (chaves.size() < politica.tamanhoLote()) {
+                return true;
+            }
+            if (!pausar(quantidade, System.nanoTime() - inicio)) {
+                return false;
+            }
+        }
+    }
+
+    private int remover(List<UUID> ids, LocalDateTime limite) {
+        var removidas = mensagemRepository.removerExpiradas(ids, limite);
+        agregadosMensagens.removerAposCommit(removidas);
+        cacheMensagem.invalidarAposCommit(ids);
+        cacheTimeline.invalidarMensagensAposCommit(ids);
+        indiceMensagens.removerAposCommit(ids);
+        AposCommit.executar(() -> ids.forEach(acumuladorGostei::descartar));
+        return removidas.size();
+    }
+
+    /**
+     * Espera o tempo que o lote "custa" na vazão configurada, descontado o que ele já levou.
+     */
+    private boolean pausar(int quantidade, long decorridoNanos) {
+        var custoNanos = quantidade * TimeUnit.SECONDS.toNanos(1) / Math.max(1, politica.linhasPorSegundo());
+        var esperaNanos = Math.max(politica.pausaMinima().toNanos(), custoNanos - decorridoNanos);
+        if (bancoDisputado()) {
+            pausasContencao.increment();
+            esperaNanos = Math.max(esperaNanos, politica.pausaContencao().toNanos());
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(esperaNanos);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private boolean bancoDisputado() {
+        var estatisticas = pool == null ? null : pool.getHikariPoolMXBean();
+        return estatisticas != null && estatisticas.getThreadsAwaitingConnection() > 0;
+    }
+
+    private static HikariDataSource hikari(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package br.com.fiap.aula_testes_api.service.retencao;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Política de retenção de mensagens ({@code mensagem.retencao.*}), aplicada por
+ * {@link ExpurgoMensagens}.
+ *
+ * @param habilitada        liga a execução agendada; desligada, o expurgo só roda se chamado
+ * @param idadeMaxima       idade máxima, pela data de criação; {@code null} mantém as mensagens
+ *                          dos usuários sem política própria
+ * @param porUsuario        idade máxima por usuário, no lugar da global (em YAML, nomes com
+ *                          caracteres especiais vão entre colchetes: {@code "[Silva Sauro]": 30d})
+ * @param tamanhoLote       mensagens removidas por transação
+ * @param linhasPorSegundo  vazão máxima do expurgo
+ * @param pausaMinima       pausa mínima entre lotes, mesmo abaixo da vazão máxima
+ * @param pausaContencao    pausa extra quando há requisições esperando conexão do pool
+ * @param duracaoTrava      prazo da trava entre nós, renovada a cada lote
+ */
+@ConfigurationProperties("mensagem.retencao")
+public record PoliticaRetencao(@DefaultValue("false") boolean habilitada,
+                               Duration idadeMaxima,
+                               @DefaultValue Map<String, Duration> porUsuario,
+                               @DefaultValue("500") int tamanhoLote,
+                               @DefaultValue("2000") int linhasPorSegundo,
+                               @DefaultValue("20ms") Duration pausaMinima,
+                               @DefaultValue("500ms") Duration pausaContencao,
+                               @DefaultValue("5m") Duration duracaoTrava) {
+}
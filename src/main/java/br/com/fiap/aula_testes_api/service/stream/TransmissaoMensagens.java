@@ -0,0 +1,399 @@
+package br.com.fiap.aula_testes_api.service.stream;
+
+import br.com.fiap.aula_testes_api.exception.ServicoSobrecarregadoException;
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.service.AposCommit;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transmite as mensagens registradas aos assinantes de {@code GET /mensagens/stream} (SSE).
+ * <p>
+ * Quem registra apenas grava a mensagem, já serializada, num anel de tamanho fixo
+ * ({@code mensagem.stream.capacidade}) e acorda o despachante; nunca espera por assinante. O
+ * despachante, uma única thread, agenda a entrega para cada assinante atrasado, e as entregas
+ * rodam num pool pequeno ({@code mensagem.stream.threads}): cada assinante lê o anel a partir da
+ * sua própria posição e tem no máximo uma entrega em andamento, então um cliente lento ocupa uma
+ * thread, mas não atrasa o registro.
+ * <p>
+ * O despachante também desconecta, sem esperar pela entrega em andamento, o assinante que fica
+ * mais de uma volta do anel atrás e o que tem um envio bloqueado há mais de
+ * {@code mensagem.stream.timeout-escrita}. O envio bloqueado só termina quando o contêiner
+ * desiste da escrita ({@code server.tomcat.connection-timeout}); até lá o pool ganha uma thread
+ * no lugar da presa, para que clientes parados não atrasem a entrega aos demais, até
+ * {@code mensagem.stream.threads-maximas}. Acima disso o assinante travado é desconectado sem
+ * reposição e as entregas aos demais esperam na fila até uma thread voltar.
+ * <p>
+ * O id de cada evento é a posição no anel; ao reconectar com {@code Last-Event-ID}, o cliente recebe o que perdeu se ainda
+ * estiver no anel, ou um evento {@code resync}, indicando que deve recarregar o feed, seguido das
+ * mensagens novas. A memória fica limitada pelo anel e por {@code mensagem.stream.assinantes-maximos};
+ * acima do limite a assinatura é recusada com {@link ServicoSobrecarregadoException}.
+ * <p>
+ * Cada nó transmite apenas o que foi registrado nele.
+ */
+@Slf4j
+@Component
+public class TransmissaoMensagens {
+
+    static final String EVENTO_MENSAGEM = "mensagem";
+    static final String EVENTO_RESYNC = "resync";
+    private static final long RECONEXAO_MILIS = 3000;
+    private static final long OCIOSO = Long.MIN_VALUE;
+    private static final long TRAVADO = Long.MIN_VALUE + 1;
+    /** Travado com o pool já em {@code threadsMaximas}: nenhuma thread foi posta no lugar. */
+    private static final long ABANDONADO = Long.MIN_VALUE + 2;
+
+    private final ObjectMapper objectMapper;
+    private final Evento[] anel;
+    private final int mascara;
+    private final int assinantesMaximos;
+    private final long duracaoMaximaMilis;
+    private final long heartbeatNanos;
+    private final long timeoutEscritaNanos;
+    private final int threadsMaximas;
+    /**
+     * Identifica esta execução do nó nos ids dos eventos: posições de outro nó ou de antes de
+     * reiniciar não são confundidas com as deste anel.
+     */
+    private final String epoca = Long.toString(UUID.randomUUID().getMostSignificantBits() >>> 16, 36);
+
+    private final Set<Assinante> assinantes = ConcurrentHashMap.newKeySet();
+    private final Semaphore sinal = new Semaphore(0);
+    private final ThreadPoolExecutor entregas;
+    private final Thread despachante;
+    private final Counter enviados;
+    private final Counter descartados;
+    private final Counter escritasExpiradas;
+    private volatile long publicada = -1;
+    private volatile boolean encerrando;
+
+    public TransmissaoMensagens(ObjectMapper objectMapper,
+                                @Value("${mensagem.stream.capacidade:4096}") int capacidade,
+                                @Value("${mensagem.stream.assinantes-maximos:10000}") int assinantesMaximos,
+                                @Value("${mensagem.stream.threads:4}") int threads,
+                                @Value("${mensagem.stream.threads-maximas:16}") int threadsMaximas,
+                                @Value("${mensagem.stream.duracao-maxima:30m}") Duration duracaoMaxima,
+                                @Value("${mensagem.stream.heartbeat:15s}") Duration heartbeat,
+                                @Value("${mensagem.stream.timeout-escrita:10s}") Duration timeoutEscrita,
+                                MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        var tamanhoAnel = Integer.highestOneBit(Math.max(2, capacidade - 1)) << 1;
+        this.anel = new Evento[tamanhoAnel];
+        this.mascara = tamanhoAnel - 1;
+        this.assinantesMaximos = assinantesMaximos;
+        this.duracaoMaximaMilis = duracaoMaxima.toMillis();
+        this.heartbeatNanos = heartbeat.toNanos();
+        this.timeoutEscritaNanos = timeoutEscrita.toNanos();
+        this.threadsMaximas = Math.max(threads, threadsMaximas);
+        this.entregas = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), threads("mensagem-stream-"));
+        this.despachante = threads("mensagem-stream-despachante").newThread(this::despachar);
+        this.enviados = Counter.builder("mensagem.stream.enviados")
+                .description("Eventos de mensagem enviados aos assinantes do stream")
+                .register(meterRegistry);
+        this.descartados = Counter.builder("mensagem.stream.descartados")
+                .description("Assinantes desconectados por ficarem uma volta do anel atrás")
+                .register(meterRegistry);
+        this.escritasExpiradas = Counter.builder("mensagem.stream.escritas-expiradas")
+                .description("Assinantes desconectados por um envio bloqueado além do timeout de escrita")
+                .register(meterRegistry);
+        Gauge.builder("mensagem.stream.assinantes", assinantes, Set::size)
+                .description("Assinantes conectados ao stream neste nó")
+                .register(meterRegistry);
+        despachante.start();
+    }
+
+    /**
+     * Publica a mensagem após o commit da transação corrente.
+     */
+    public void publicarAposCommit(Mensagem mensagem) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(mensagem);
+        } catch (JsonProcessingException e) {
+            log.warn("Mensagem {} não pôde ser serializada para o stream", mensagem.getId(), e);
+            return;
+        }
+        AposCommit.executar(() -> publicar(json));
+    }
+
+    public SseEmitter assinar(String ultimoId) {
+        var emitter = new SseEmitter(duracaoMaximaMilis);
+        assinar(ultimoId, emitter);
+        return emitter;
+    }
+
+    void assinar(String ultimoId, SseEmitter emitter) {
+        if (encerrando || assinantes.size() >= assinantesMaximos) {
+            throw new ServicoSobrecarregadoException("Limite de assinantes do stream atingido, tente novamente");
+        }
+        var atual = publicada;
+        var retomada = posicaoRetomada(ultimoId, atual);
+        // Enviado antes de o assinante entrar no despacho: o Spring guarda o evento e o escreve,
+        // com os cabeçalhos, assim que a resposta começa, sem esperar a primeira mensagem.
+        var inicio = SseEmitter.event().reconnectTime(RECONEXAO_MILIS);
+        if (ultimoId != null && retomada < 0) {
+            inicio.name(EVENTO_RESYNC).data("Recarregue o feed");
+        } else {
+            inicio.comment("");
+        }
+        try {
+            emitter.send(inicio);
+        } catch (IOException e) {
+            return;
+        }
+        var assinante = new Assinante(emitter, retomada < 0 ? atual + 1 : retomada);
+        emitter.onCompletion(() -> assinantes.remove(assinante));
+        emitter.onTimeout(() -> assinantes.remove(assinante));
+        emitter.onError(erro -> assinantes.remove(assinante));
+        assinantes.add(assinante);
+        sinal.release();
+    }
+
+    int assinantes() {
+        return assinantes.size();
+    }
+
+    int threadsEntrega() {
+        return entregas.getMaximumPoolSize();
+    }
+
+    @PreDestroy
+    public void encerrar() throws InterruptedException {
+        encerrando = true;
+        despachante.interrupt();
+        despachante.join(TimeUnit.SECONDS.toMillis(5));
+        entregas.shutdownNow();
+        assinantes.forEach(assinante -> desconectar(assinante, null));
+    }
+
+    /**
+     * Único escritor do anel: a trava só serializa quem publica, que nunca espera por assinantes.
+     */
+    private synchronized void publicar(String json) {
+        var posicao = publicada + 1;
+        anel[(int) (posicao & mascara)] = new Evento(posicao, json);
+        publicada = posicao;
+        sinal.release();
+    }
+
+    /**
+     * @return posição seguinte ao último evento recebido, se ainda estiver no anel; -1 caso contrário
+     */
+    private long posicaoRetomada(String ultimoId, long atual) {
+        if (ultimoId == null || !ultimoId.startsWith(epoca + "-")) {
+            return -1;
+        }
+        try {
+            var seguinte = Long.parseLong(ultimoId.substring(epoca.length() + 1)) + 1;
+            return seguinte <= atual + 1 && seguinte > atual - anel.length ? seguinte : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void despachar() {
+        var ultimoHeartbeat = System.nanoTime();
+        var espera = Math.min(heartbeatNanos, timeoutEscritaNanos / 2);
+        while (!encerrando) {
+            try {
+                sinal.tryAcquire(espera, TimeUnit.NANOSECONDS);
+                sinal.drainPermits();
+            } catch (InterruptedException e) {
+                return;
+            }
+            var agora = System.nanoTime();
+            var heartbeat = agora - ultimoHeartbeat >= heartbeatNanos;
+            if (heartbeat) {
+                ultimoHeartbeat = agora;
+            }
+            var atual = publicada;
+            for (var assinante : assinantes) {
+                if (assinante.proxima <= atual - anel.length) {
+                    log.debug("Assinante do stream desconectado por atraso na posição {}", assinante.proxima);
+                    desconectar(assinante, descartados);
+                    continue;
+                }
+                if (expirou(assinante, agora)) {
+                    log.debug("Assinante do stream desconectado por envio bloqueado na posição {}", assinante.proxima);
+                    desconectar(assinante, escritasExpiradas);
+                    continue;
+                }
+                if (heartbeat) {
+                    assinante.heartbeatPendente = true;
+                }
+                if ((assinante.proxima <= atual || assinante.heartbeatPendente)
+                        && assinante.agendado.compareAndSet(false, true)) {
+                    entregas.execute(() -> entregar(assinante));
+                }
+            }
+        }
+    }
+
+    /**
+     * Declara travado o envio em andamento há mais de {@code timeoutEscrita}. A thread presa não é
+     * interrompida, o que não desbloqueia a escrita no contêiner; o pool ganha outra no lugar dela
+     * até o envio retornar, se ainda não tiver {@code threadsMaximas}.
+     */
+    private boolean expirou(Assinante assinante, long agora) {
+        var desde = assinante.envioDesde.get();
+        if (desde == OCIOSO || desde == TRAVADO || desde == ABANDONADO || agora - desde < timeoutEscritaNanos) {
+            return false;
+        }
+        var reposta = ajustarPool(1);
+        if (!assinante.envioDesde.compareAndSet(desde, reposta ? TRAVADO : ABANDONADO)) {
+            // O envio terminou nesse meio tempo.
+            if (reposta) {
+                ajustarPool(-1);
+            }
+            return false;
+        }
+        if (!reposta) {
+            log.warn("Pool do stream com {} threads, todas ocupadas ou presas; assinante travado desconectado "
+                    + "sem reposição", threadsMaximas);
+        }
+        return true;
+    }
+
+    private void entregar(Assinante assinante) {
+        try {
+            var enviou = false;
+            for (var atual = publicada; assinante.proxima <= atual && !assinante.encerrado; atual = publicada) {
+                var posicao = assinante.proxima;
+                var evento = anel[(int) (posicao & mascara)];
+                if (posicao <= atual - anel.length || evento.posicao != posicao) {
+                    desconectar(assinante, descartados);
+                    return;
+                }
+                enviar(assinante, SseEmitter.event()
+                        .id(epoca + "-" + posicao)
+                        .name(EVENTO_MENSAGEM)
+                        .data(evento.json, MediaType.APPLICATION_JSON));
+                enviados.increment();
+                assinante.proxima = posicao + 1;
+                enviou = true;
+            }
+            if (assinante.heartbeatPendente && !assinante.encerrado) {
+                assinante.heartbeatPendente = false;
+                if (!enviou) {
+                    enviar(assinante, SseEmitter.event().comment(""));
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Cliente desconectado ou emitter já concluído.
+            assinantes.remove(assinante);
+            return;
+        } finally {
+            assinante.agendado.set(false);
+            // Desconectado durante o envio: quem desconectou não concluiu o emitter para não esperar por ele.
+            if (assinante.encerrado && assinante.agendado.compareAndSet(false, true)) {
+                assinante.emitter.complete();
+            }
+        }
+        // Publicações durante o envio podem ter sido despachadas enquanto a entrega estava agendada.
+        if (assinante.proxima <= publicada) {
+            sinal.release();
+        }
+    }
+
+    private void enviar(Assinante assinante, SseEmitter.SseEventBuilder evento) throws IOException {
+        var inicio = System.nanoTime();
+        assinante.envioDesde.set(inicio);
+        try {
+            assinante.emitter.send(evento);
+        } finally {
+            if (!assinante.envioDesde.compareAndSet(inicio, OCIOSO) && assinante.envioDesde.get() == TRAVADO) {
+                // O despachante declarou o envio travado e pôs outra thread no lugar desta.
+                ajustarPool(-1);
+            }
+        }
+    }
+
+    /**
+     * Remove o assinante e conclui o emitter. {@link SseEmitter#complete()} espera o envio em
+     * andamento, então só é chamado aqui se não há entrega agendada; caso contrário, a entrega o
+     * conclui ao terminar.
+     */
+    private void desconectar(Assinante assinante, Counter motivo) {
+        // O despachante e a entrega podem desconectar o mesmo assinante.
+        if (!assinantes.remove(assinante)) {
+            return;
+        }
+        if (motivo != null) {
+            motivo.increment();
+        }
+        assinante.encerrado = true;
+        if (assinante.agendado.compareAndSet(false, true)) {
+            assinante.emitter.complete();
+        }
+    }
+
+    /**
+     * @return {@code false}, sem alterar o pool, se crescer passaria de {@code threadsMaximas}
+     */
+    private synchronized boolean ajustarPool(int delta) {
+        var tamanho = entregas.getMaximumPoolSize() + delta;
+        if (delta > 0) {
+            if (tamanho > threadsMaximas) {
+                return false;
+            }
+            entregas.setMaximumPoolSize(tamanho);
+            entregas.setCorePoolSize(tamanho);
+        } else {
+            entregas.setCorePoolSize(tamanho);
+            entregas.setMaximumPoolSize(tamanho);
+        }
+        return true;
+    }
+
+    private static ThreadFactory threads(String prefixo) {
+        var contador = new AtomicInteger();
+        return tarefa -> {
+            var thread = new Thread(tarefa, prefixo.endsWith("-") ? prefixo + contador.incrementAndGet() : prefixo);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record Evento(long posicao, String json) {
+    }
+
+    private static final class Assinante {
+
+        private final SseEmitter emitter;
+        private final AtomicBoolean agendado = new AtomicBoolean();
+        /** Início do envio em andamento, {@link #OCIOSO}, {@link #TRAVADO} ou {@link #ABANDONADO}. */
+        private final AtomicLong envioDesde = new AtomicLong(OCIOSO);
+        private volatile long proxima;
+        private volatile boolean heartbeatPendente;
+        private volatile boolean encerrado;
+
+        private Assinante(SseEmitter emitter, long proxima) {
+            this.emitter = emitter;
+            this.proxima = proxima;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package br.com.fiap.aula_testes_api.benchmark;
+
+import br.com.fiap.aula_testes_api.model.CursorMensagem;
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.repository.ArmazenamentoMensagens;
+import br.com.fiap.aula_testes_api.service.MensagemService;
+import br.com.fiap.aula_testes_api.utils.MensagemHelper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara o H2 com o armazenamento em log (perfil {@code log}) nas operações do serviço, com o
+ * cache de leitura desligado. No log, a massa é gravada pelo repositório; no H2, por JDBC.
+ * <pre>
+ * ./mvnw -Pbenchmark test-compile exec:exec -Djmh.args="ArmazenamentoBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ArmazenamentoBenchmark {
+
+    private static final long SEMENTE = 42;
+    private static final int TAMANHO_PAGINA = 20;
+
+    @Param({"h2", "log"})
+    public String armazenamento;
+
+    @Param("100000")
+    public int totalMensagens;
+
+    private Path diretorio;
+    private ConfigurableApplicationContext contexto;
+    private MensagemService mensagemService;
+    private UUID[] ids;
+    private CursorMensagem[] cursores;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        diretorio = Files.createTempDirectory("armazenamento-benchmark");
+        contexto = ContextoBenchmark.iniciar("armazenamento-benchmark",
+                "--mensagem.cache.tamanho-maximo=0",
+                "--spring.profiles.active=" + ("log".equals(armazenamento) ? "log" : "default"),
+                "--mensagem.log.diretorio=" + diretorio);
+        mensagemService = contexto.getBean(MensagemService.class);
+        var usuarios = Math.max(1, totalMensagens / 100);
+        if ("log".equals(armazenamento)) {
+            var mensagemRepository = contexto.getBean(ArmazenamentoMensagens.class);
+            var mensagens = new ArrayList<Mensagem>(totalMensagens);
+            for (int i = 0; i < totalMensagens; i++) {
+                mensagens.add(MensagemHelper.gerarMensagem(SEMENTE, i, usuarios));
+            }
+            mensagens.forEach(mensagemRepository::inserir);
+            ids = mensagens.stream().map(Mensagem::getId).toArray(UUID[]::new);
+        } else {
+            ids = MensagemHelper.popular(contexto.getBean(JdbcTemplate.class), SEMENTE, 0, totalMensagens, usuarios);
+        }
+        cursores = new CursorMensagem[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            cursores[i] = CursorMensagem.de(mensagemService.buscarMensagem(ids[i]));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        contexto.close();
+        FileSystemUtils.deleteRecursively(diretorio);
+    }
+
+    @State(Scope.Thread)
+    public static class Sorteio {
+        private final SplittableRandom random = new SplittableRandom(Thread.currentThread().getId());
+
+        int proximo(int limite) {
+            return random.nextInt(limite);
+        }
+    }
+
+    @Benchmark
+    public Mensagem registrarMensagem() {
+        return mensagemService.registrarMensagem(Mensagem.builder()
+                .usuario("benchmark")
+                .conteudo("conteúdo da mensagem")
+                .build());
+    }
+
+    @Benchmark
+    public Mensagem buscarMensagem(Sorteio sorteio) {
+        return mensagemService.buscarMensagem(ids[sorteio.proximo(ids.length)]);
+    }
+
+    @Benchmark
+    public Slice<Mensagem> listarFeed(Sorteio sorteio) {
+        return mensagemService.listarFeed(cursores[sorteio.proximo(cursores.length)], TAMANHO_PAGINA);
+    }
+}
@@ -0,0 +1,98 @@
+package br.com.fiap.aula_testes_api.benchmark;
+
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.service.MensagemService;
+import br.com.fiap.aula_testes_api.utils.MensagemHelper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latência de {@code buscarMensagem} com acessos em distribuição de Zipf (poucas mensagens
+ * muito lidas), com o cache desligado ({@code tamanhoCache = 0}) e ligado.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Threads(4)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CacheMensagemBenchmark {
+
+    private static final int TAMANHO_SEQUENCIA = 1 << 20;
+
+    @Param({"0", "10000"})
+    public int tamanhoCache;
+
+    @Param("100000")
+    public int totalMensagens;
+
+    @Param("1.0")
+    public double expoenteZipf;
+
+    private ConfigurableApplicationContext contexto;
+    private MensagemService mensagemService;
+    private UUID[] sequencia;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        contexto = ContextoBenchmark.iniciar("cache-benchmark", "--mensagem.cache.tamanho-maximo=" + tamanhoCache);
+        mensagemService = contexto.getBean(MensagemService.class);
+        var ids = MensagemHelper.popular(contexto.getBean(JdbcTemplate.class), 42, totalMensagens);
+
+        var acumulada = distribuicaoZipf(totalMensagens, expoenteZipf);
+        var random = new SplittableRandom(42);
+        sequencia = new UUID[TAMANHO_SEQUENCIA];
+        for (int i = 0; i < TAMANHO_SEQUENCIA; i++) {
+            sequencia[i] = ids[posicao(acumulada, random.nextDouble())];
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        contexto.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int posicao = (int) Thread.currentThread().getId() * 7919;
+    }
+
+    @Benchmark
+    public Mensagem buscarMensagem(Cursor cursor) {
+        var id = sequencia[cursor.posicao++ & (TAMANHO_SEQUENCIA - 1)];
+        return mensagemService.buscarMensagem(id);
+    }
+
+    private static double[] distribuicaoZipf(int quantidade, double expoente) {
+        var acumulada = new double[quantidade];
+        var soma = 0.0;
+        for (int i = 0; i < quantidade; i++) {
+            soma += 1.0 / Math.pow(i + 1, expoente);
+            acumulada[i] = soma;
+        }
+        for (int i = 0; i < quantidade; i++) {
+            acumulada[i] /= soma;
+        }
+        return acumulada;
+    }
+
+    private static int posicao(double[] acumulada, double valor) {
+        int inicio = 0;
+        int fim = acumulada.length - 1;
+        while (inicio < fim) {
+            int meio = (inicio + fim) >>> 1;
+            if (acumulada[meio] < valor) {
+                inicio = meio + 1;
+            } else {
+                fim = meio;
+            }
+        }
+        return inicio;
+    }
+}
@@ -0,0 +1,34 @@
+package br.com.fiap.aula_testes_api.benchmark;
+
+import br.com.fiap.aula_testes_api.AulaTestesApiApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sobe a aplicação sem servidor web, com um banco H2 em memória exclusivo do benchmark.
+ * <p>
+ * As configurações são passadas como argumentos de linha de comando ({@code "--chave=valor"})
+ * porque têm precedência sobre o {@code application.yaml}, ao contrário das propriedades
+ * padrão do {@link SpringApplicationBuilder}.
+ */
+final class ContextoBenchmark {
+
+    private ContextoBenchmark() {
+    }
+
+    static ConfigurableApplicationContext iniciar(String banco, String... argumentos) {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        var todos = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:" + banco + ";DB_CLOSE_DELAY=-1",
+                "--logging.level.root=WARN",
+                "--mensagem.busca.reconstruir-na-inicializacao=false"));
+        todos.addAll(List.of(argumentos));
+        return new SpringApplicationBuilder(AulaTestesApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(todos.toArray(String[]::new));
+    }
+}
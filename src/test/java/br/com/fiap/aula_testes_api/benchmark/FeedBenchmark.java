@@ -0,0 +1,69 @@
+package br.com.fiap.aula_testes_api.benchmark;
+
+import br.com.fiap.aula_testes_api.model.CursorMensagem;
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.service.MensagemService;
+import br.com.fiap.aula_testes_api.utils.MensagemHelper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara a paginação por OFFSET + COUNT ({@code listarMensagens}) com a paginação por cursor
+ * ({@code listarFeed}) em páginas rasas e profundas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FeedBenchmark {
+
+    private static final int TAMANHO_PAGINA = 20;
+
+    @Param("1000000")
+    public int totalMensagens;
+
+    @Param({"0", "1000", "49000"})
+    public int pagina;
+
+    private ConfigurableApplicationContext contexto;
+    private MensagemService mensagemService;
+    private CursorMensagem cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        contexto = ContextoBenchmark.iniciar("feed-benchmark");
+        mensagemService = contexto.getBean(MensagemService.class);
+
+        var jdbcTemplate = contexto.getBean(JdbcTemplate.class);
+        MensagemHelper.popular(jdbcTemplate, 42, totalMensagens);
+        cursor = pagina == 0 ? null : jdbcTemplate.queryForObject(
+                "SELECT data_criacao_mensagem, id FROM mensagem "
+                        + "ORDER BY data_criacao_mensagem DESC, id DESC OFFSET ? ROWS FETCH NEXT 1 ROWS ONLY",
+                (rs, i) -> new CursorMensagem(rs.getTimestamp(1).toLocalDateTime(), rs.getObject(2, UUID.class)),
+                pagina * TAMANHO_PAGINA - 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public Page<Mensagem> offset() {
+        return mensagemService.listarMensagens(PageRequest.of(pagina, TAMANHO_PAGINA));
+    }
+
+    @Benchmark
+    public Slice<Mensagem> cursor() {
+        return mensagemService.listarFeed(cursor, TAMANHO_PAGINA);
+    }
+}
@@ -0,0 +1,95 @@
+package br.com.fiap.aula_testes_api.benchmark;
+
+import br.com.fiap.aula_testes_api.json.MensagemJsonModule;
+import br.com.fiap.aula_testes_api.model.FeedMensagens;
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.protobuf.MensagemProtobuf;
+import br.com.fiap.aula_testes_api.utils.MensagemHelper;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo de codificar e decodificar uma mensagem e uma página de 1.000 mensagens em cada formato
+ * aceito pelos endpoints, com a mesma configuração da aplicação. O tamanho do payload de cada
+ * combinação é impresso no início do trial.
+ * <p>
+ * Bytes alocados por operação: {@code -Djmh.args="FormatosMensagemBenchmark -prof gc"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FormatosMensagemBenchmark {
+
+    @Param({"json", "smile", "cbor", "protobuf"})
+    public String formato;
+
+    @Param({"1", "1000"})
+    public int quantidade;
+
+    private ObjectMapper objectMapper;
+    private Object valor;
+    private byte[] payload;
+    private final ByteArrayOutputStream saida = new ByteArrayOutputStream(1 << 20);
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        var fabrica = switch (formato) {
+            case "smile" -> new SmileFactory();
+            case "cbor" -> new CBORFactory();
+            default -> new JsonFactory();
+        };
+        objectMapper = new ObjectMapper(fabrica)
+                .registerModule(new JavaTimeModule())
+                .registerModule(new MensagemJsonModule());
+
+        var mensagens = new ArrayList<Mensagem>();
+        for (int i = 0; i < quantidade; i++) {
+            var mensagem = MensagemHelper.gerarMensagem(42, i, 100);
+            mensagem.setVersao(0L);
+            mensagens.add(mensagem);
+        }
+        valor = quantidade == 1 ? mensagens.get(0) : new FeedMensagens(mensagens, null);
+        payload = codificar();
+        System.out.printf("%n%s, %d mensagem(ns): %d bytes%n", formato, quantidade, payload.length);
+    }
+
+    @Benchmark
+    public byte[] codificar() throws IOException {
+        saida.reset();
+        if (formato.equals("protobuf")) {
+            var protobuf = CodedOutputStream.newInstance(saida);
+            if (valor instanceof Mensagem mensagem) {
+                MensagemProtobuf.escrever(mensagem, protobuf);
+            } else {
+                MensagemProtobuf.escrever((FeedMensagens) valor, protobuf);
+            }
+            protobuf.flush();
+        } else {
+            objectMapper.writeValue(saida, valor);
+        }
+        return saida.toByteArray();
+    }
+
+    @Benchmark
+    public Object decodificar() throws IOException {
+        if (formato.equals("protobuf")) {
+            var entrada = CodedInputStream.newInstance(payload);
+            return quantidade == 1 ? MensagemProtobuf.lerMensagem(entrada) : MensagemProtobuf.lerFeed(entrada);
+        }
+        return objectMapper.readValue(payload, valor.getClass());
+    }
+}
@@ -0,0 +1,57 @@
+package br.com.fiap.aula_testes_api.benchmark;
+
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.service.MensagemService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vazão de inserção via {@code registrarMensagem} com ids UUIDv7 (ordenados no tempo)
+ * e UUIDv4 (aleatórios), partindo de uma tabela já populada.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Threads(4)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class IdMensagemBenchmark {
+
+    @Param({"v7", "aleatorio"})
+    public String gerador;
+
+    @Param("500000")
+    public int mensagensIniciais;
+
+    private ConfigurableApplicationContext contexto;
+    private MensagemService mensagemService;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        contexto = ContextoBenchmark.iniciar("id-benchmark", "--mensagem.id.gerador=" + gerador);
+        mensagemService = contexto.getBean(MensagemService.class);
+        for (int i = 0; i < mensagensIniciais; i++) {
+            mensagemService.registrarMensagem(novaMensagem());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public Mensagem registrarMensagem() {
+        return mensagemService.registrarMensagem(novaMensagem());
+    }
+
+    private static Mensagem novaMensagem() {
+        return Mensagem.builder()
+                .usuario("benchmark")
+                .conteudo("conteúdo da mensagem")
+                .build();
+    }
+}
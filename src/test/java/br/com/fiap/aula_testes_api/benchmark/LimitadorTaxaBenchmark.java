@@ -0,0 +1,56 @@
+package br.com.fiap.aula_testes_api.benchmark;
+
+import br.com.fiap.aula_testes_api.exception.LimiteTaxaExcedidoException;
+import br.com.fiap.aula_testes_api.service.limite.LimitadorTaxa;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo de {@link LimitadorTaxa#verificarUsuario} com 64 threads: todas no mesmo usuário
+ * ({@code usuarios = 1}, o pior caso de disputa pelo CAS do balde) e espalhadas por muitos
+ * usuários. A taxa é alta o bastante para que a maioria seja aceita, como no caminho normal.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Threads(64)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LimitadorTaxaBenchmark {
+
+    @Param({"1", "10000"})
+    public int usuarios;
+
+    private LimitadorTaxa limitador;
+    private String[] nomes;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        limitador = new LimitadorTaxa(1_000_000_000, 1_000_000, 0, 1, 100_000, Duration.ofMinutes(10),
+                new SimpleMeterRegistry());
+        nomes = new String[usuarios];
+        for (int i = 0; i < usuarios; i++) {
+            nomes[i] = "usuario-" + i;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int posicao = (int) Thread.currentThread().getId() * 7919;
+    }
+
+    @Benchmark
+    public boolean verificarUsuario(Cursor cursor) {
+        var nome = nomes[Math.floorMod(cursor.posicao++, usuarios)];
+        try {
+            limitador.verificarUsuario(nome);
+            return true;
+        } catch (LimiteTaxaExcedidoException e) {
+            return false;
+        }
+    }
+}
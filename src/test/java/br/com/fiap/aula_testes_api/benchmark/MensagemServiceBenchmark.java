@@ -0,0 +1,148 @@
+package br.com.fiap.aula_testes_api.benchmark;
+
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.service.MensagemService;
+import br.com.fiap.aula_testes_api.utils.MensagemHelper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Latência média das operações de {@link MensagemService} sobre o H2, com a tabela populada
+ * pela massa determinística de {@link MensagemHelper}.
+ * <p>
+ * O cache de leitura fica desligado por padrão para medir o caminho até o banco
+ * ({@code CacheMensagemBenchmark} mede o cache). {@code removerMensagem} percorre a massa em ordem
+ * embaralhada e reinsere cada mensagem removida logo após a chamada, fora da medição: a tabela
+ * mantém o tamanho e a massa nunca se esgota, por mais longa que seja a iteração.
+ * <pre>
+ * ./mvnw -Pbenchmark test-compile exec:exec -Djmh.args="MensagemServiceBenchmark -p totalMensagens=100000"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MensagemServiceBenchmark {
+
+    private static final long SEMENTE = 42;
+    private static final int TAMANHO_PAGINA = 20;
+
+    @Param({"10000", "1000000"})
+    public int totalMensagens;
+
+    @Param("0")
+    public int tamanhoCache;
+
+    private ConfigurableApplicationContext contexto;
+    private MensagemService mensagemService;
+    private JdbcTemplate jdbcTemplate;
+    private int usuarios;
+    private UUID[] ids;
+    private int[] ordemRemocao;
+    private final AtomicInteger proximaRemocao = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        contexto = ContextoBenchmark.iniciar("servico-benchmark", "--mensagem.cache.tamanho-maximo=" + tamanhoCache);
+        mensagemService = contexto.getBean(MensagemService.class);
+        jdbcTemplate = contexto.getBean(JdbcTemplate.class);
+        usuarios = Math.max(1, totalMensagens / 100);
+        ids = MensagemHelper.popular(jdbcTemplate, SEMENTE, 0, totalMensagens, usuarios);
+
+        var random = new SplittableRandom(SEMENTE);
+        ordemRemocao = new int[totalMensagens];
+        Arrays.setAll(ordemRemocao, i -> i);
+        for (int i = totalMensagens - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int troca = ordemRemocao[i];
+            ordemRemocao[i] = ordemRemocao[j];
+            ordemRemocao[j] = troca;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        contexto.close();
+    }
+
+    /**
+     * Gerador aleatório próprio de cada thread, semeado pelo id da thread, para que as threads
+     * sorteiem índices da massa sem disputar um gerador compartilhado.
+     */
+    @State(Scope.Thread)
+    public static class Sorteio {
+        private final SplittableRandom random = new SplittableRandom(Thread.currentThread().getId());
+
+        int proximo(int limite) {
+            return random.nextInt(limite);
+        }
+    }
+
+    /**
+     * Mensagem da massa a remover na próxima chamada. A reinserção acontece após a chamada e não
+     * entra no tempo medido.
+     */
+    @State(Scope.Thread)
+    public static class Remocao {
+        private int indice;
+
+        @Setup(Level.Invocation)
+        public void escolher(MensagemServiceBenchmark benchmark) {
+            indice = benchmark.ordemRemocao[benchmark.proximaRemocao.getAndUpdate(i -> (i + 1) % benchmark.totalMensagens)];
+        }
+
+        @TearDown(Level.Invocation)
+        public void reinserir(MensagemServiceBenchmark benchmark) {
+            MensagemHelper.popular(benchmark.jdbcTemplate, SEMENTE, new int[]{indice}, benchmark.usuarios);
+        }
+    }
+
+    @Benchmark
+    public Mensagem registrarMensagem() {
+        return mensagemService.registrarMensagem(Mensagem.builder()
+                .usuario("benchmark")
+                .conteudo("conteúdo da mensagem")
+                .build());
+    }
+
+    @Benchmark
+    public Mensagem buscarMensagem(Sorteio sorteio) {
+        return mensagemService.buscarMensagem(ids[sorteio.proximo(totalMensagens)]);
+    }
+
+    @Benchmark
+    public Mensagem alterarMensagem(Sorteio sorteio) {
+        var id = ids[sorteio.proximo(totalMensagens)];
+        return mensagemService.alterarMensagem(id, Mensagem.builder()
+                .id(id)
+                .usuario("benchmark")
+                .conteudo("conteúdo alterado " + sorteio.proximo(1000))
+                .build());
+    }
+
+    @Benchmark
+    public boolean removerMensagem(Remocao remocao) {
+        return mensagemService.removerMensagem(ids[remocao.indice]);
+    }
+
+    @Benchmark
+    public Page<Mensagem> listarMensagensPaginaRasa() {
+        return mensagemService.listarMensagens(PageRequest.of(0, TAMANHO_PAGINA));
+    }
+
+    @Benchmark
+    public Page<Mensagem> listarMensagensPaginaProfunda() {
+        return mensagemService.listarMensagens(PageRequest.of(totalMensagens / TAMANHO_PAGINA - 1, TAMANHO_PAGINA));
+    }
+}
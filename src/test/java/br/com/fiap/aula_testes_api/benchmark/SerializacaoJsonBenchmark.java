@@ -0,0 +1,80 @@
+package br.com.fiap.aula_testes_api.benchmark;
+
+import br.com.fiap.aula_testes_api.json.MensagemJsonModule;
+import br.com.fiap.aula_testes_api.model.FeedMensagens;
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.utils.MensagemHelper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vazão da serialização de uma página do feed com o serializador padrão do Jackson e com o
+ * {@link MensagemJsonModule}, escrevendo num stream que descarta os bytes, como a resposta HTTP.
+ * <p>
+ * Para ver os bytes alocados por operação ({@code gc.alloc.rate.norm}), rodar com o profiler
+ * de GC: {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="SerializacaoJsonBenchmark -prof gc"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SerializacaoJsonBenchmark {
+
+    @Param({"1", "20", "100"})
+    public int tamanhoPagina;
+
+    private final ObjectWriter padrao = new ObjectMapper().registerModule(new JavaTimeModule())
+            .writerFor(FeedMensagens.class);
+    private final ObjectWriter otimizado = new ObjectMapper().registerModule(new JavaTimeModule())
+            .registerModule(new MensagemJsonModule())
+            .writerFor(FeedMensagens.class);
+
+    private FeedMensagens feed;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        var mensagens = new ArrayList<Mensagem>();
+        for (int i = 0; i < tamanhoPagina; i++) {
+            var mensagem = MensagemHelper.gerarMensagem(42, i, 100);
+            mensagem.setVersao(0L);
+            mensagens.add(mensagem);
+        }
+        feed = new FeedMensagens(mensagens, "MjAyNC0wOC0yMFQxMjowMDowMC4xMjM0NVo");
+    }
+
+    @Benchmark
+    public void padrao() throws IOException {
+        padrao.writeValue(Descarte.INSTANCIA, feed);
+    }
+
+    @Benchmark
+    public void otimizado() throws IOException {
+        otimizado.writeValue(Descarte.INSTANCIA, feed);
+    }
+
+    private static final class Descarte extends OutputStream {
+
+        static final Descarte INSTANCIA = new Descarte();
+
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package br.com.fiap.aula_testes_api.carga;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Parâmetros do teste de carga, lidos de argumentos {@code --chave=valor}. Argumentos que não
+ * são do gerador (por exemplo {@code --mensagem.async.threads=32}) são repassados à aplicação.
+ */
+record ConfiguracaoCarga(ModeloCarga modelo,
+                         int taxa,
+                         int clientes,
+                         Duration aquecimento,
+                         Duration duracao,
+                         Map<OperacaoCarga, Integer> mix,
+                         int mensagensIniciais,
+                         long semente,
+                         int maximoPendentes,
+                         Path relatorio,
+                         List<String> argumentosAplicacao) {
+
+    static ConfiguracaoCarga de(String... argumentos) {
+        var modelo = ModeloCarga.ABERTO;
+        int taxa = 200;
+        int clientes = 16;
+        var aquecimento = Duration.ofSeconds(10);
+        var duracao = Duration.ofSeconds(30);
+        var mix = mix("registrar=20,buscar=70,alterar=10");
+        int mensagensIniciais = 10_000;
+        long semente = 42;
+        int maximoPendentes = 10_000;
+        Path relatorio = null;
+        var argumentosAplicacao = new ArrayList<String>();
+
+        for (var argumento : argumentos) {
+            var separador = argumento.indexOf('=');
+            if (!argumento.startsWith("--") || separador < 0) {
+                throw new IllegalArgumentException("Argumento inválido, use --chave=valor: " + argumento);
+            }
+            var valor = argumento.substring(separador + 1);
+            switch (argumento.substring(2, separador)) {
+                case "modelo" -> modelo = ModeloCarga.valueOf(valor.toUpperCase(Locale.ROOT));
+                case "taxa" -> taxa = Integer.parseInt(valor);
+                case "clientes" -> clientes = Integer.parseInt(valor);
+                case "aquecimento" -> aquecimento = DurationStyle.detectAndParse(valor);
+                case "duracao" -> duracao = DurationStyle.detectAndParse(valor);
+                case "mix" -> mix = mix(valor);
+                case "mensagens-iniciais" -> mensagensIniciais = Integer.parseInt(valor);
+                case "semente" -> semente = Long.parseLong(valor);
+                case "maximo-pendentes" -> maximoPendentes = Integer.parseInt(valor);
+                case "relatorio" -> relatorio = Path.of(valor);
+                default -> argumentosAplicacao.add(argumento);
+            }
+        }
+        if (relatorio == null) {
+            relatorio = Path.of("target", "carga", "relatorio-" + modelo.name().toLowerCase(Locale.ROOT) + ".txt");
+        }
+        return new ConfiguracaoCarga(modelo, taxa, clientes, aquecimento, duracao, mix, mensagensIniciais,
+                semente, maximoPendentes, relatorio, List.copyOf(argumentosAplicacao));
+    }
+
+    /**
+     * Sorteia a próxima operação respeitando os pesos do mix.
+     */
+    OperacaoCarga sortear(SplittableRandom random) {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        int sorteado = random.nextInt(total);
+        for (var entrada : mix.entrySet()) {
+            sorteado -= entrada.getValue();
+            if (sorteado < 0) {
+                return entrada.getKey();
+            }
+        }
+        throw new IllegalStateException("Mix vazio");
+    }
+
+    String descricao() {
+        var descricaoMix = mix.entrySet().stream()
+                .map(entrada -> entrada.getKey() + ":" + entrada.getValue())
+                .collect(Collectors.joining(","));
+        var carga = modelo == ModeloCarga.ABERTO ? "taxa=" + taxa + "/s" : "clientes=" + clientes;
+        return "modelo=" + modelo + " " + carga + " aquecimento=" + aquecimento.toSeconds() + "s"
+                + " duracao=" + duracao.toSeconds() + "s mix=" + descricaoMix
+                + " mensagensIniciais=" + mensagensIniciais + " semente=" + semente
+                + (argumentosAplicacao.isEmpty() ? "" : " aplicacao=" + String.join(" ", argumentosAplicacao));
+    }
+
+    private static Map<OperacaoCarga, Integer> mix(String valor) {
+        var mix = new EnumMap<OperacaoCarga, Integer>(OperacaoCarga.class);
+        for (var parte : valor.split(",")) {
+            var pesos = parte.split("=");
+            var peso = Integer.parseInt(pesos[1].trim());
+            if (peso > 0) {
+                mix.put(OperacaoCarga.valueOf(pesos[0].trim().toUpperCase(Locale.ROOT)), peso);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("Mix sem operações: " + valor);
+        }
+        return mix;
+    }
+}
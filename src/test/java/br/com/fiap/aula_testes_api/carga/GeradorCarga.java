@@ -0,0 +1,241 @@
+package br.com.fiap.aula_testes_api.carga;
+
+import br.com.fiap.aula_testes_api.AulaTestesApiApplication;
+import br.com.fiap.aula_testes_api.utils.MensagemHelper;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Teste de carga HTTP: sobe a aplicação numa porta aleatória, popula o banco com a massa de
+ * {@link MensagemHelper} e dispara {@code POST/GET/PUT /mensagens} com o mix configurado,
+ * usando o {@link HttpClient} do JDK. Ao final grava o relatório de {@link RelatorioCarga}.
+ * <pre>
+ * ./mvnw -Pcarga test-compile exec:exec -Dcarga.args="--modelo=aberto --taxa=500 --duracao=60s"
+ * ./mvnw -Pcarga test-compile exec:exec -Dcarga.args="--modelo=fechado --clientes=32 --mix=buscar=100"
+ * </pre>
+ * O aquecimento roda a mesma carga, mas suas requisições não entram no relatório.
+ */
+public class GeradorCarga {
+
+    private static final Duration TEMPO_LIMITE_REQUISICAO = Duration.ofSeconds(30);
+
+    private final ConfiguracaoCarga configuracao;
+    private final URI base;
+    private final UUID[] ids;
+    private final HttpClient cliente;
+    private final ExecutorService executorCliente;
+    private final RelatorioCarga relatorio = new RelatorioCarga();
+
+    GeradorCarga(ConfiguracaoCarga configuracao, URI base, UUID[] ids) {
+        this.configuracao = configuracao;
+        this.base = base;
+        this.ids = ids;
+        this.executorCliente = Executors.newCachedThreadPool();
+        this.cliente = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(executorCliente)
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        var configuracao = ConfiguracaoCarga.de(args);
+        try (var contexto = iniciar(configuracao)) {
+            var porta = ((WebServerApplicationContext) contexto).getWebServer().getPort();
+            var ids = MensagemHelper.popular(contexto.getBean(JdbcTemplate.class),
+                    configuracao.semente(), configuracao.mensagensIniciais());
+            new GeradorCarga(configuracao, URI.create("http://localhost:" + porta), ids).executar();
+        }
+    }
+
+    void executar() throws Exception {
+        System.out.println("Iniciando carga: " + configuracao.descricao());
+        var inicio = System.nanoTime();
+        var inicioMedicao = inicio + configuracao.aquecimento().toNanos();
+        var fim = inicioMedicao + configuracao.duracao().toNanos();
+        try {
+            if (configuracao.modelo() == ModeloCarga.ABERTO) {
+                executarAberto(inicio, inicioMedicao, fim);
+            } else {
+                executarFechado(inicioMedicao, fim);
+            }
+        } finally {
+            executorCliente.shutdownNow();
+        }
+        relatorio.escrever(configuracao, configuracao.duracao().toNanos() / 1e9);
+    }
+
+    /**
+     * Agenda a i-ésima requisição para {@code inicio + i * intervalo} e mede a latência a partir
+     * desse instante previsto, não de quando ela de fato saiu. Com {@code maximoPendentes}
+     * requisições em voo, as chegadas esperam numa fila e essa espera entra na latência; as que
+     * ainda estão na fila quando o tempo de espera final acaba são registradas como descartadas.
+     */
+    private void executarAberto(long inicio, long inicioMedicao, long fim) throws InterruptedException {
+        var intervalo = 1_000_000_000L / configuracao.taxa();
+        var random = new SplittableRandom(configuracao.semente());
+        var fila = new FilaAberta();
+        for (long i = 0; ; i++) {
+            var previsto = inicio + i * intervalo;
+            if (previsto >= fim) {
+                break;
+            }
+            esperarAte(previsto);
+            var operacao = configuracao.sortear(random);
+            var requisicao = operacao.criar(base, sortearId(random), random, TEMPO_LIMITE_REQUISICAO);
+            fila.chegar(new Chegada(operacao, requisicao, previsto, previsto >= inicioMedicao));
+        }
+        var limite = System.nanoTime() + TEMPO_LIMITE_REQUISICAO.toNanos();
+        while (!fila.vazia() && System.nanoTime() < limite) {
+            Thread.sleep(10);
+        }
+        fila.descartarRestantes();
+    }
+
+    private record Chegada(OperacaoCarga operacao, HttpRequest requisicao, long previsto, boolean medir) {
+    }
+
+    /**
+     * Chegadas do modelo aberto ainda não enviadas. Quem libera uma vaga (o fim de uma
+     * requisição) ou enfileira uma chegada tenta enviar a próxima, sem passar de
+     * {@code maximoPendentes} em voo.
+     */
+    private final class FilaAberta {
+        private final ConcurrentLinkedQueue<Chegada> aguardando = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger emVoo = new AtomicInteger();
+
+        void chegar(Chegada chegada) {
+            aguardando.offer(chegada);
+            despachar();
+        }
+
+        boolean vazia() {
+            return emVoo.get() == 0 && aguardando.isEmpty();
+        }
+
+        void descartarRestantes() {
+            var agora = System.nanoTime();
+            Chegada chegada;
+            while ((chegada = aguardando.poll()) != null) {
+                if (chegada.medir()) {
+                    relatorio.descartar(chegada.operacao(), agora - chegada.previsto());
+                }
+            }
+        }
+
+        private void despachar() {
+            while (!aguardando.isEmpty()) {
+                var atuais = emVoo.get();
+                if (atuais >= configuracao.maximoPendentes()) {
+                    return;
+                }
+                if (!emVoo.compareAndSet(atuais, atuais + 1)) {
+                    continue;
+                }
+                var chegada = aguardando.poll();
+                if (chegada == null) {
+                    emVoo.decrementAndGet();
+                    return;
+                }
+                enviar(chegada);
+            }
+        }
+
+        private void enviar(Chegada chegada) {
+            cliente.sendAsync(chegada.requisicao(), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((resposta, erro) -> {
+                        if (chegada.medir()) {
+                            var latencia = System.nanoTime() - chegada.previsto();
+                            if (erro != null) {
+                                relatorio.registrarFalha(chegada.operacao(), latencia);
+                            } else {
+                                relatorio.registrar(chegada.operacao(), latencia, resposta.statusCode());
+                            }
+                        }
+                        emVoo.decrementAndGet();
+                        despachar();
+                    });
+        }
+    }
+
+    private void executarFechado(long inicioMedicao, long fim) throws InterruptedException {
+        var clientes = new ArrayList<Thread>(configuracao.clientes());
+        var termino = new CountDownLatch(configuracao.clientes());
+        for (int c = 0; c < configuracao.clientes(); c++) {
+            var random = new SplittableRandom(configuracao.semente() + c);
+            var thread = new Thread(() -> {
+                try {
+                    executarCliente(random, inicioMedicao, fim);
+                } finally {
+                    termino.countDown();
+                }
+            }, "carga-cliente-" + c);
+            clientes.add(thread);
+            thread.start();
+        }
+        termino.await();
+    }
+
+    private void executarCliente(SplittableRandom random, long inicioMedicao, long fim) {
+        long agora;
+        while ((agora = System.nanoTime()) < fim) {
+            var operacao = configuracao.sortear(random);
+            var requisicao = operacao.criar(base, sortearId(random), random, TEMPO_LIMITE_REQUISICAO);
+            try {
+                var resposta = cliente.send(requisicao, HttpResponse.BodyHandlers.discarding());
+                if (agora >= inicioMedicao) {
+                    relatorio.registrar(operacao, System.nanoTime() - agora, resposta.statusCode());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                if (agora >= inicioMedicao) {
+                    relatorio.registrarFalha(operacao, System.nanoTime() - agora);
+                }
+            }
+        }
+    }
+
+    private UUID sortearId(SplittableRandom random) {
+        return ids[random.nextInt(ids.length)];
+    }
+
+    private static void esperarAte(long instante) {
+        long restante;
+        while ((restante = instante - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(restante);
+        }
+    }
+
+    private static ConfigurableApplicationContext iniciar(ConfiguracaoCarga configuracao) {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        var argumentos = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:carga;DB_CLOSE_DELAY=-1",
+                "--logging.level.root=WARN",
+                "--mensagem.busca.reconstruir-na-inicializacao=false"));
+        argumentos.addAll(configuracao.argumentosAplicacao());
+        return new SpringApplicationBuilder(AulaTestesApiApplication.class)
+                .run(argumentos.toArray(String[]::new));
+    }
+}
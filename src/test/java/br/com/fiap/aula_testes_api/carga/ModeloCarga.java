@@ -0,0 +1,17 @@
+package br.com.fiap.aula_testes_api.carga;
+
+/**
+ * Como as requisições são disparadas.
+ */
+enum ModeloCarga {
+    /**
+     * Taxa de chegada constante, independente das respostas. A latência é medida a partir do
+     * instante em que a requisição deveria ter saído, então atrasos do próprio gerador ou do
+     * servidor não somem das estatísticas (sem coordinated omission).
+     */
+    ABERTO,
+    /**
+     * Número fixo de clientes, cada um enviando a próxima requisição só depois da resposta.
+     */
+    FECHADO
+}
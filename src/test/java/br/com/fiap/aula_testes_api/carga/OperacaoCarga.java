@@ -0,0 +1,56 @@
+package br.com.fiap.aula_testes_api.carga;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Requisições que compõem a carga sobre {@code MensagemController}.
+ */
+enum OperacaoCarga {
+    REGISTRAR(201) {
+        @Override
+        HttpRequest.Builder requisicao(URI base, UUID id, SplittableRandom random) {
+            return HttpRequest.newBuilder(base.resolve("/mensagens"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                            "{\"usuario\":\"carga" + random.nextInt(1000) + "\",\"conteudo\":\"mensagem de carga\"}"));
+        }
+    },
+    BUSCAR(200) {
+        @Override
+        HttpRequest.Builder requisicao(URI base, UUID id, SplittableRandom random) {
+            return HttpRequest.newBuilder(base.resolve("/mensagens/" + id)).GET();
+        }
+    },
+    ALTERAR(202) {
+        @Override
+        HttpRequest.Builder requisicao(URI base, UUID id, SplittableRandom random) {
+            return HttpRequest.newBuilder(base.resolve("/mensagens/" + id))
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString("{\"id\":\"" + id
+                            + "\",\"usuario\":\"carga\",\"conteudo\":\"alterada " + random.nextInt(1000) + "\"}"));
+        }
+    };
+
+    private final int statusEsperado;
+
+    OperacaoCarga(int statusEsperado) {
+        this.statusEsperado = statusEsperado;
+    }
+
+    boolean sucesso(int status) {
+        return status == statusEsperado;
+    }
+
+    HttpRequest criar(URI base, UUID id, SplittableRandom random, Duration tempoLimite) {
+        return requisicao(base, id, random)
+                .header("Accept", "application/json")
+                .timeout(tempoLimite)
+                .build();
+    }
+
+    abstract HttpRequest.Builder requisicao(URI base, UUID id, SplittableRandom random);
+}
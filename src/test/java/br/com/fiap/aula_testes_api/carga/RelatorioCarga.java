@@ -0,0 +1,123 @@
+package br.com.fiap.aula_testes_api.carga;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latências (em microssegundos, 3 dígitos significativos) e códigos de status por operação.
+ * O relatório tem layout fixo, para ser comparado com {@code diff} entre builds; a distribuição
+ * completa de cada operação vai para um arquivo {@code .hgrm} ao lado.
+ */
+final class RelatorioCarga {
+
+    private static final long LATENCIA_MAXIMA_MICROS = TimeUnit.MINUTES.toMicros(2);
+    static final int STATUS_DESCARTADA = -1;
+
+    private final Map<OperacaoCarga, Medicoes> medicoes = new EnumMap<>(OperacaoCarga.class);
+    private final LongAdder descartadas = new LongAdder();
+
+    RelatorioCarga() {
+        for (var operacao : OperacaoCarga.values()) {
+            medicoes.put(operacao, new Medicoes());
+        }
+    }
+
+    void registrar(OperacaoCarga operacao, long latenciaNanos, int status) {
+        var medicao = medicoes.get(operacao);
+        medicao.latencias.recordValue(Math.min(LATENCIA_MAXIMA_MICROS, TimeUnit.NANOSECONDS.toMicros(latenciaNanos)));
+        medicao.status.computeIfAbsent(status, s -> new LongAdder()).increment();
+        if (!operacao.sucesso(status)) {
+            medicao.erros.increment();
+        }
+    }
+
+    /**
+     * Falha sem resposta HTTP (conexão recusada, tempo limite do cliente), registrada com status 0.
+     */
+    void registrarFalha(OperacaoCarga operacao, long latenciaNanos) {
+        registrar(operacao, latenciaNanos, 0);
+    }
+
+    /**
+     * Requisição do modelo aberto que ainda esperava uma vaga quando a carga terminou. Conta como
+     * erro, com status {@value #STATUS_DESCARTADA} e o tempo que passou na fila como latência.
+     */
+    void descartar(OperacaoCarga operacao, long esperaNanos) {
+        descartadas.increment();
+        registrar(operacao, esperaNanos, STATUS_DESCARTADA);
+    }
+
+    void escrever(ConfiguracaoCarga configuracao, double segundosMedidos) throws IOException {
+        var arquivo = configuracao.relatorio().toAbsolutePath();
+        Files.createDirectories(arquivo.getParent());
+        try (var saida = new PrintStream(Files.newOutputStream(arquivo), true, "UTF-8")) {
+            escrever(saida, configuracao, segundosMedidos);
+        }
+        escrever(System.out, configuracao, segundosMedidos);
+
+        var nomeBase = arquivo.getFileName().toString().replaceFirst("\\.txt$", "");
+        for (var entrada : medicoes.entrySet()) {
+            if (entrada.getValue().latencias.getTotalCount() == 0) {
+                continue;
+            }
+            var hgrm = arquivo.resolveSibling(nomeBase + "-" + entrada.getKey().name().toLowerCase(Locale.ROOT) + ".hgrm");
+            try (var saida = new PrintStream(Files.newOutputStream(hgrm), true, "UTF-8")) {
+                entrada.getValue().latencias.outputPercentileDistribution(saida, 1000.0);
+            }
+        }
+        System.out.println("Relatório gravado em " + arquivo);
+    }
+
+    private void escrever(PrintStream saida, ConfiguracaoCarga configuracao, double segundosMedidos) {
+        saida.println("# Teste de carga - MensagemController");
+        saida.println("# " + configuracao.descricao());
+        saida.println();
+        saida.printf(Locale.ROOT, "%-10s %11s %8s %11s %9s %9s %9s %9s %9s%n",
+                "operacao", "requisicoes", "erros", "req/s", "p50(ms)", "p90(ms)", "p99(ms)", "p99.9(ms)", "max(ms)");
+        var total = new Histogram(LATENCIA_MAXIMA_MICROS, 3);
+        long errosTotal = 0;
+        for (var entrada : medicoes.entrySet()) {
+            var medicao = entrada.getValue();
+            total.add(medicao.latencias);
+            errosTotal += medicao.erros.sum();
+            linha(saida, entrada.getKey().name(), medicao.latencias, medicao.erros.sum(), segundosMedidos);
+        }
+        linha(saida, "TOTAL", total, errosTotal, segundosMedidos);
+        saida.println();
+        for (var entrada : medicoes.entrySet()) {
+            var status = new TreeMap<Integer, Long>();
+            entrada.getValue().status.forEach((codigo, quantidade) -> status.put(codigo, quantidade.sum()));
+            saida.println("status " + entrada.getKey() + " " + status);
+        }
+        saida.println("descartadas " + descartadas.sum());
+    }
+
+    private static void linha(PrintStream saida, String nome, Histogram latencias, long erros, double segundos) {
+        saida.printf(Locale.ROOT, "%-10s %11d %8d %11.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                nome, latencias.getTotalCount(), erros, latencias.getTotalCount() / segundos,
+                milis(latencias.getValueAtPercentile(50)), milis(latencias.getValueAtPercentile(90)),
+                milis(latencias.getValueAtPercentile(99)), milis(latencias.getValueAtPercentile(99.9)),
+                milis(latencias.getMaxValue()));
+    }
+
+    private static double milis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static final class Medicoes {
+        private final ConcurrentHistogram latencias = new ConcurrentHistogram(LATENCIA_MAXIMA_MICROS, 3);
+        private final Map<Integer, LongAdder> status = new ConcurrentHashMap<>();
+        private final LongAdder erros = new LongAdder();
+    }
+}
@@ -0,0 +1,66 @@
+package br.com.fiap.aula_testes_api.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConsultaLentaListenerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ConsultaLentaListener listener;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        listener = new ConsultaLentaListener(Duration.ofMillis(100), meterRegistry);
+    }
+
+    @Test
+    void deveContarConsulta_QuandoPassaDoLimite() {
+        listener.afterQuery(execucao(150, false, 0), List.of(consulta("SELECT * FROM mensagem WHERE id = ?", 1)));
+
+        assertThat(meterRegistry.counter("mensagem.sql.lentas").count()).isEqualTo(1);
+    }
+
+    @Test
+    void deveContarConsultaEmLote_QuandoPassaDoLimite() {
+        listener.afterQuery(execucao(300, true, 3),
+                List.of(consulta("UPDATE mensagem SET gostei = gostei + ? WHERE id = ?", 2, 2, 2)));
+
+        assertThat(meterRegistry.counter("mensagem.sql.lentas").count()).isEqualTo(1);
+    }
+
+    @Test
+    void naoDeveContarConsulta_QuandoAbaixoDoLimite() {
+        listener.afterQuery(execucao(99, false, 0), List.of(consulta("SELECT 1")));
+
+        assertThat(meterRegistry.counter("mensagem.sql.lentas").count()).isZero();
+    }
+
+    private static ExecutionInfo execucao(long milis, boolean lote, int tamanhoLote) {
+        var execucao = new ExecutionInfo();
+        execucao.setElapsedTime(milis);
+        execucao.setBatch(lote);
+        execucao.setBatchSize(tamanhoLote);
+        return execucao;
+    }
+
+    private static QueryInfo consulta(String sql, int... parametrosPorExecucao) {
+        var consulta = new QueryInfo(sql);
+        for (int quantidade : parametrosPorExecucao) {
+            consulta.getParametersList().add(IntStream.range(0, quantidade)
+                    .mapToObj(i -> (ParameterSetOperation) null)
+                    .toList());
+        }
+        return consulta;
+    }
+}
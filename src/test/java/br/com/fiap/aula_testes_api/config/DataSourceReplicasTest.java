@@ -0,0 +1,113 @@
+package br.com.fiap.aula_testes_api.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DataSourceReplicasTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<HikariDataSource> pools = new ArrayList<>();
+    private final List<Connection> abertas = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        for (var conexao : abertas) {
+            conexao.close();
+        }
+        pools.forEach(HikariDataSource::close);
+        LeituraPropria.limpar();
+    }
+
+    private HikariDataSource pool(String nome) {
+        var pool = new HikariDataSource();
+        pool.setPoolName(nome);
+        pool.setJdbcUrl("jdbc:h2:mem:" + nome + ";DB_CLOSE_DELAY=-1");
+        pool.setMaximumPoolSize(4);
+        pools.add(pool);
+        return pool;
+    }
+
+    private DataSourceReplicas replicas(ReplicasLeitura.Balanceamento balanceamento, HikariDataSource... replicas) {
+        return new DataSourceReplicas(List.of(replicas), pool("primario"), balanceamento, meterRegistry);
+    }
+
+    private double leituras(String destino) {
+        return meterRegistry.counter("mensagem.datasource.leituras", "destino", destino).count();
+    }
+
+    private void abrir(DataSourceReplicas dataSource, int quantidade) throws SQLException {
+        for (int i = 0; i < quantidade; i++) {
+            abertas.add(dataSource.getConnection());
+        }
+    }
+
+    @Nested
+    class Balanceamento{
+
+        @Test
+        void deveAlternarReplicas_QuandoRoundRobin() throws SQLException {
+            var dataSource = replicas(ReplicasLeitura.Balanceamento.ROUND_ROBIN, pool("rr0"), pool("rr1"));
+
+            abrir(dataSource, 4);
+
+            assertThat(leituras("replica-0")).isEqualTo(2);
+            assertThat(leituras("replica-1")).isEqualTo(2);
+        }
+
+        @Test
+        void deveEscolherReplicaMenosOcupada_QuandoMenosConexoes() throws SQLException {
+            var ocupada = pool("mc0");
+            var livre = pool("mc1");
+            var dataSource = replicas(ReplicasLeitura.Balanceamento.MENOS_CONEXOES, ocupada, livre);
+            abertas.add(ocupada.getConnection());
+            abertas.add(ocupada.getConnection());
+
+            abrir(dataSource, 2);
+
+            assertThat(leituras("replica-1")).isEqualTo(2);
+            assertThat(leituras("replica-0")).isZero();
+        }
+    }
+
+    @Nested
+    class Primario{
+
+        @Test
+        void deveUsarPrimario_QuandoLeituraPropria() throws SQLException {
+            var dataSource = replicas(ReplicasLeitura.Balanceamento.ROUND_ROBIN, pool("lp0"));
+            LeituraPropria.exigirPrimario();
+
+            abrir(dataSource, 1);
+
+            assertThat(leituras("primario")).isEqualTo(1);
+            assertThat(leituras("replica-0")).isZero();
+        }
+
+        @Test
+        void deveUsarOutraReplicaEPrimario_QuandoReplicaIndisponivel() throws SQLException {
+            var indisponivel = pool("in0");
+            indisponivel.close();
+            var restante = pool("in1");
+            var dataSource = replicas(ReplicasLeitura.Balanceamento.ROUND_ROBIN, indisponivel, restante);
+
+            abrir(dataSource, 2);
+
+            assertThat(leituras("replica-1")).isEqualTo(2);
+
+            restante.close();
+            abrir(dataSource, 1);
+
+            assertThat(leituras("primario")).isEqualTo(1);
+        }
+    }
+}
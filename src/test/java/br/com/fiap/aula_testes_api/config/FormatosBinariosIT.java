@@ -0,0 +1,77 @@
+package br.com.fiap.aula_testes_api.config;
+
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.protobuf.MensagemProtobufHttpMessageConverter;
+import br.com.fiap.aula_testes_api.service.MensagemService;
+import br.com.fiap.aula_testes_api.utils.MensagemHelper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class FormatosBinariosIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MensagemService mensagemService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM mensagem");
+    }
+
+    private ResultActions executar(RequestBuilder requisicao) throws Exception {
+        return mockMvc.perform(asyncDispatch(mockMvc.perform(requisicao).andReturn()));
+    }
+
+    @Test
+    void deveManterJsonComoPadrao() throws Exception {
+        var mensagem = mensagemService.registrarMensagem(MensagemHelper.gerarMensagem());
+
+        executar(get("/mensagens/{id}", mensagem.getId()).accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+        executar(get("/mensagens/feed"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void deveNegociarFormatosBinarios_ComConfiguracaoDaAplicacao() throws Exception {
+        var mensagem = mensagemService.registrarMensagem(MensagemHelper.gerarMensagem());
+
+        var corpo = executar(get("/mensagens/{id}", mensagem.getId()).accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+        var lida = new ObjectMapper(new CBORFactory()).registerModule(new JavaTimeModule())
+                .readValue(corpo, Mensagem.class);
+        assertThat(lida.getId()).isEqualTo(mensagem.getId());
+
+        executar(get("/mensagens/{id}", mensagem.getId()).accept(MensagemProtobufHttpMessageConverter.APPLICATION_PROTOBUF))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MensagemProtobufHttpMessageConverter.APPLICATION_PROTOBUF));
+    }
+}
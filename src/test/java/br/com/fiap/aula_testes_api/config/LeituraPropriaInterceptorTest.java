@@ -0,0 +1,67 @@
+package br.com.fiap.aula_testes_api.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LeituraPropriaInterceptorTest {
+
+    private final LeituraPropriaInterceptor interceptor = new LeituraPropriaInterceptor(Duration.ofMinutes(1), 100);
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @AfterEach
+    void tearDown() {
+        LeituraPropria.limpar();
+    }
+
+    private static MockHttpServletRequest requisicao(String metodo, String ip) {
+        var requisicao = new MockHttpServletRequest(metodo, "/mensagens");
+        requisicao.setRemoteAddr(ip);
+        return requisicao;
+    }
+
+    private boolean leituraNoPrimario(String ip) {
+        var requisicao = requisicao("GET", ip);
+        interceptor.preHandle(requisicao, response, null);
+        try {
+            return LeituraPropria.primarioObrigatorio();
+        } finally {
+            interceptor.afterCompletion(requisicao, response, null, null);
+        }
+    }
+
+    @Test
+    void deveLerDoPrimario_DepoisDeEscreverNaJanela() {
+        assertThat(leituraNoPrimario("10.0.0.1")).isFalse();
+
+        var escrita = requisicao("POST", "10.0.0.1");
+        interceptor.preHandle(escrita, response, null);
+        interceptor.afterCompletion(escrita, response, null, null);
+
+        assertThat(leituraNoPrimario("10.0.0.1")).isTrue();
+        assertThat(leituraNoPrimario("10.0.0.2")).isFalse();
+        assertThat(LeituraPropria.primarioObrigatorio()).isFalse();
+    }
+
+    @Test
+    void deveLevarMarca_ParaOutraThread() throws Exception {
+        LeituraPropria.exigirPrimario();
+        var chamada = LeituraPropria.propagar(LeituraPropria::primarioObrigatorio);
+        LeituraPropria.limpar();
+
+        var executor = Executors.newSingleThreadExecutor();
+        try {
+            assertThat(CompletableFuture.supplyAsync(chamada, executor).get()).isTrue();
+            assertThat(CompletableFuture.supplyAsync(LeituraPropria::primarioObrigatorio, executor).get()).isFalse();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
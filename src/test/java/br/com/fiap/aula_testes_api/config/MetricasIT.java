@@ -0,0 +1,58 @@
+package br.com.fiap.aula_testes_api.config;
+
+import br.com.fiap.aula_testes_api.service.MensagemService;
+import br.com.fiap.aula_testes_api.utils.MensagemHelper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "mensagem.sql.limite-consulta-lenta=0ms")
+@Transactional
+class MetricasIT {
+
+    @Autowired
+    private MensagemService mensagemService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void deveRegistrarTimersDoServicoEDoRepositorio() {
+        var mensagem = mensagemService.registrarMensagem(MensagemHelper.gerarMensagem());
+        mensagemService.buscarMensagem(mensagem.getId());
+
+        assertThat(meterRegistry.find("mensagem.servico").tag("method", "registrarMensagem").timer())
+                .isNotNull()
+                .satisfies(timer -> assertThat(timer.count()).isEqualTo(1));
+        assertThat(meterRegistry.find("spring.data.repository.invocations").tag("method", "save").timer())
+                .isNotNull();
+    }
+
+    @Test
+    void deveExporEstatisticasDoHibernateEPool() {
+        mensagemService.registrarMensagem(MensagemHelper.gerarMensagem());
+
+        assertThat(meterRegistry.find("hibernate.entities.inserts").functionCounter()).isNotNull();
+        assertThat(meterRegistry.find("hibernate.flushes").functionCounter()).isNotNull();
+        assertThat(meterRegistry.find("hibernate.query.executions").functionCounter()).isNotNull();
+        assertThat(meterRegistry.find("hibernate.entities.loads").functionCounter()).isNotNull();
+        assertThat(meterRegistry.find("hikaricp.connections.acquire").timer()).isNotNull();
+    }
+
+    @Test
+    void deveContarConsultasLentas() {
+        var antes = meterRegistry.counter("mensagem.sql.lentas").count();
+
+        jdbcTemplate.queryForObject("SELECT COUNT(*) FROM mensagem", Long.class);
+
+        assertThat(meterRegistry.counter("mensagem.sql.lentas").count()).isGreaterThan(antes);
+    }
+}
@@ -0,0 +1,161 @@
+package br.com.fiap.aula_testes_api.config;
+
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.repository.MensagemRepository;
+import br.com.fiap.aula_testes_api.service.CacheMensagem;
+import br.com.fiap.aula_testes_api.service.CacheTimelineUsuario;
+import br.com.fiap.aula_testes_api.service.IdempotenciaMensagens;
+import br.com.fiap.aula_testes_api.service.MensagemService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * A réplica é um H2 separado que nunca recebe as escritas do principal: uma réplica atrasada
+ * indefinidamente. O teste "replica" linhas à mão quando precisa que ela tenha uma versão antiga.
+ * Cada requisição vem de um cliente diferente, para que a janela de leitura própria não mande
+ * as leituras para o principal.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:replica-atrasada-principal;DB_CLOSE_DELAY=-1",
+        "mensagem.datasource.replicas[0].url=" + ReplicaAtrasadaIT.URL_REPLICA,
+        "mensagem.datasource.replicas[0].username=root",
+        "mensagem.datasource.replicas[0].password=root",
+        "mensagem.idempotencia.persistente=true",
+        "mensagem.busca.reconstruir-na-inicializacao=false",
+        "mensagem.estatisticas.reconstruir-na-inicializacao=false"})
+@AutoConfigureMockMvc
+class ReplicaAtrasadaIT {
+
+    static final String URL_REPLICA = "jdbc:h2:mem:replica-atrasada-replica;DB_CLOSE_DELAY=-1";
+
+    private static final JdbcTemplate REPLICA =
+            new JdbcTemplate(new DriverManagerDataSource(URL_REPLICA, "root", "root"));
+
+    static {
+        REPLICA.execute("CREATE TABLE IF NOT EXISTS mensagem (id UUID PRIMARY KEY, usuario VARCHAR(255) NOT NULL, "
+                + "conteudo VARCHAR(255) NOT NULL, data_criacao_mensagem TIMESTAMP(6), gostei INTEGER, "
+                + "versao BIGINT NOT NULL)");
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MensagemService mensagemService;
+
+    @Autowired
+    private MensagemRepository mensagemRepository;
+
+    @Autowired
+    private CacheMensagem cacheMensagem;
+
+    @Autowired
+    private CacheTimelineUsuario cacheTimeline;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM mensagem");
+        jdbcTemplate.update("DELETE FROM chave_idempotencia");
+        REPLICA.update("DELETE FROM mensagem");
+    }
+
+    private ResultActions executar(MockHttpServletRequestBuilder requisicao, String cliente) throws Exception {
+        requisicao.with(r -> {
+            r.setRemoteAddr(cliente);
+            return r;
+        });
+        return mockMvc.perform(asyncDispatch(mockMvc.perform(requisicao).andReturn()));
+    }
+
+    private void replicar(Mensagem mensagem) {
+        REPLICA.update("INSERT INTO mensagem (id, usuario, conteudo, data_criacao_mensagem, gostei, versao) "
+                        + "VALUES (?, ?, ?, ?, ?, ?)", mensagem.getId(), mensagem.getUsuario(), mensagem.getConteudo(),
+                mensagem.getDataCriacaoMensagem(), mensagem.getGostei(), mensagem.getVersao());
+    }
+
+    @Test
+    void deveAlterarEGostar_LogoDepoisDeRegistrar() throws Exception {
+        var corpo = executar(post("/mensagens").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"usuario\":\"ana\",\"conteudo\":\"olá\"}"), "10.0.0.1")
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        var id = objectMapper.readTree(corpo).get("id").asText();
+
+        executar(put("/mensagens/{id}", id).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\":\"" + id + "\",\"usuario\":\"ana\",\"conteudo\":\"alterado\"}"), "10.0.0.2")
+                .andExpect(status().isAccepted());
+        executar(post("/mensagens/{id}/gostei", id), "10.0.0.3")
+                .andExpect(status().isAccepted());
+        executar(patch("/mensagens/{id}", id).header("If-Match", "\"0-0\"").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"conteudo\":\"parcial\"}"), "10.0.0.4")
+                .andExpect(status().isPreconditionFailed());
+
+        assertThat(mensagemRepository.findById(UUID.fromString(id))).isEmpty();
+        assertThat(jdbcTemplate.queryForObject("SELECT conteudo FROM mensagem WHERE id = ?", String.class,
+                UUID.fromString(id))).isEqualTo("alterado");
+    }
+
+    @Test
+    void naoDeveGuardarEmCache_LeituraDaReplicaLogoDepoisDaEscrita() {
+        var registrada = mensagemService.registrarMensagem(
+                Mensagem.builder().usuario("ana").conteudo("original").build());
+        replicar(registrada);
+
+        mensagemService.alterarMensagem(registrada.getId(),
+                registrada.toBuilder().conteudo("alterado").build());
+
+        // Leitura de outro cliente: vem da réplica, ainda com a versão anterior, e não fica no cache.
+        assertThat(mensagemService.buscarMensagem(registrada.getId()).getConteudo()).isEqualTo("original");
+        assertThat(cacheMensagem.contem(registrada.getId())).isFalse();
+        assertThat(mensagemService.listarPorUsuario("ana", null, 10)).hasSize(1);
+        assertThat(cacheTimeline.contem("ana")).isFalse();
+
+        REPLICA.update("UPDATE mensagem SET conteudo = 'alterado', versao = 1 WHERE id = ?", registrada.getId());
+        assertThat(mensagemService.buscarMensagem(registrada.getId()).getConteudo()).isEqualTo("alterado");
+    }
+
+    @Test
+    void deveRepetirChavePersistida_EmOutroNo() {
+        var mensagem = Mensagem.builder().usuario("ana").conteudo("olá").build();
+        var registrada = mensagemService.registrarMensagem(mensagem, "chave-replica").join();
+        var outroNo = new IdempotenciaMensagens(100, Duration.ofHours(1), Duration.ofSeconds(1), true,
+                jdbcTemplate, transactionManager, mensagemRepository, new SimpleMeterRegistry());
+
+        var repetida = outroNo.registrar("chave-replica", mensagem.toBuilder().build(), () -> {
+            throw new AssertionError("A repetição não deve registrar de novo");
+        }).join();
+
+        assertThat(repetida.getId()).isEqualTo(registrada.getId());
+    }
+}
@@ -0,0 +1,114 @@
+package br.com.fiap.aula_testes_api.config;
+
+import br.com.fiap.aula_testes_api.service.MensagemService;
+import br.com.fiap.aula_testes_api.utils.MensagemHelper;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * As "réplicas" são pools próprios apontando para o mesmo H2 em memória do principal: ficam em
+ * sincronia sem replicação, e o teste verifica o roteamento pelos contadores de destino.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:replicas-it;DB_CLOSE_DELAY=-1",
+        "mensagem.datasource.replicas[0].url=jdbc:h2:mem:replicas-it;DB_CLOSE_DELAY=-1",
+        "mensagem.datasource.replicas[0].username=root",
+        "mensagem.datasource.replicas[0].password=root",
+        "mensagem.datasource.replicas[1].url=jdbc:h2:mem:replicas-it;DB_CLOSE_DELAY=-1",
+        "mensagem.datasource.replicas[1].username=root",
+        "mensagem.datasource.replicas[1].password=root",
+        "mensagem.cache.tamanho-maximo=0"})
+@AutoConfigureMockMvc
+class ReplicasLeituraIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MensagemService mensagemService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM mensagem");
+    }
+
+    private ResultActions executar(RequestBuilder requisicao) throws Exception {
+        return mockMvc.perform(asyncDispatch(mockMvc.perform(requisicao).andReturn()));
+    }
+
+    private double leituras(String destino) {
+        return meterRegistry.counter("mensagem.datasource.leituras", "destino", destino).count();
+    }
+
+    @Test
+    void deveManterPoolHikariDoPrincipal_AcessivelPorUnwrap() throws Exception {
+        assertThat(dataSource.isWrapperFor(HikariDataSource.class)).isTrue();
+        assertThat(dataSource.unwrap(HikariDataSource.class).getPoolName()).isNotIn("replica-0", "replica-1");
+    }
+
+    @Test
+    void deveLerDasReplicas_EEscreverNoPrincipal() {
+        var registrada = mensagemService.registrarMensagem(MensagemHelper.gerarMensagem());
+        var replicasAntes = leituras("replica-0") + leituras("replica-1");
+        var primarioAntes = leituras("primario");
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(mensagemService.buscarMensagem(registrada.getId()).getId()).isEqualTo(registrada.getId());
+        }
+
+        assertThat(leituras("replica-0") + leituras("replica-1")).isEqualTo(replicasAntes + 4);
+        assertThat(leituras("primario")).isEqualTo(primarioAntes);
+    }
+
+    @Test
+    void deveLerDoPrincipal_LogoDepoisDeEscrever() throws Exception {
+        var corpo = "{\"usuario\":\"ana\",\"conteudo\":\"olá\"}";
+        var requisicao = post("/mensagens").contentType(MediaType.APPLICATION_JSON).content(corpo);
+        requisicao.with(r -> {
+            r.setRemoteAddr("10.0.0.7");
+            return r;
+        });
+        executar(requisicao).andExpect(status().isCreated());
+        var primarioAntes = leituras("primario");
+        var replicasAntes = leituras("replica-0") + leituras("replica-1");
+
+        executar(get("/mensagens/feed").with(r -> {
+            r.setRemoteAddr("10.0.0.7");
+            return r;
+        })).andExpect(status().isOk());
+        assertThat(leituras("primario")).isGreaterThan(primarioAntes);
+
+        executar(get("/mensagens/feed").with(r -> {
+            r.setRemoteAddr("10.0.0.8");
+            return r;
+        })).andExpect(status().isOk());
+        assertThat(leituras("replica-0") + leituras("replica-1")).isGreaterThan(replicasAntes);
+    }
+}
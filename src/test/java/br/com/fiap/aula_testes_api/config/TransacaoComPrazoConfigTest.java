@@ -0,0 +1,48 @@
+package br.com.fiap.aula_testes_api.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransacaoComPrazoConfigTest {
+
+    private final TransacaoComPrazoConfig.JpaTransactionManagerComPrazo transactionManager =
+            new TransacaoComPrazoConfig.JpaTransactionManagerComPrazo();
+
+    private int timeout(DefaultTransactionDefinition definicao, long restanteMilis) {
+        var limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(restanteMilis);
+        return PrazoTransacao.limitar(() -> transactionManager.determineTimeout(definicao), limite).get();
+    }
+
+    @Test
+    void deveManterTimeoutDeclarado_SemPrazo() {
+        var definicao = new DefaultTransactionDefinition();
+
+        assertThat(transactionManager.determineTimeout(definicao)).isEqualTo(TransactionDefinition.TIMEOUT_DEFAULT);
+        definicao.setTimeout(30);
+        assertThat(transactionManager.determineTimeout(definicao)).isEqualTo(30);
+    }
+
+    @Test
+    void deveUsarORestanteDoPrazo_ArredondadoParaCima() {
+        var definicao = new DefaultTransactionDefinition();
+
+        assertThat(timeout(definicao, 1500)).isEqualTo(2);
+        assertThat(timeout(definicao, -100)).isEqualTo(1);
+        definicao.setTimeout(1);
+        assertThat(timeout(definicao, 5000)).isEqualTo(1);
+    }
+
+    @Test
+    void deveRestaurarPrazoAnterior_AoTerminar() {
+        var definicao = new DefaultTransactionDefinition();
+
+        timeout(definicao, 1500);
+
+        assertThat(transactionManager.determineTimeout(definicao)).isEqualTo(TransactionDefinition.TIMEOUT_DEFAULT);
+    }
+}
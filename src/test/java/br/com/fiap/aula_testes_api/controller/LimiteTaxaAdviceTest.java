@@ -0,0 +1,105 @@
+package br.com.fiap.aula_testes_api.controller;
+
+import br.com.fiap.aula_testes_api.exception.LimiteTaxaExcedidoException;
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.service.MensagemServiceAsync;
+import br.com.fiap.aula_testes_api.service.limite.LimitadorTaxa;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class LimiteTaxaAdviceTest {
+
+    private static final String CORPO = "{\"usuario\":\"ana\",\"conteudo\":\"olá\"}";
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private MensagemServiceAsync mensagemService;
+
+    @Mock
+    private LimitadorTaxa limitadorTaxa;
+
+    AutoCloseable mock;
+
+    @BeforeEach
+    void setUp() {
+        mock = MockitoAnnotations.openMocks(this);
+        mockMvc = MockMvcBuilders.standaloneSetup(new MensagemController(mensagemService))
+                .setControllerAdvice(new LimiteTaxaAdvice(limitadorTaxa))
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        mock.close();
+    }
+
+    @Test
+    void deveVerificarIpEUsuario_AntesDeRegistrar() throws Exception {
+        when(mensagemService.registrarMensagem(any(Mensagem.class)))
+                .thenAnswer(i -> CompletableFuture.completedFuture(i.getArgument(0)));
+
+        mockMvc.perform(post("/mensagens")
+                        .with(requisicao -> {
+                            requisicao.setRemoteAddr("10.0.0.1");
+                            return requisicao;
+                        })
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(CORPO))
+                .andExpect(request().asyncStarted());
+
+        var ordem = inOrder(limitadorTaxa, mensagemService);
+        ordem.verify(limitadorTaxa).verificarIp("10.0.0.1");
+        ordem.verify(limitadorTaxa).verificarUsuario("ana");
+        ordem.verify(mensagemService).registrarMensagem(any(Mensagem.class));
+    }
+
+    @Test
+    void deveRetornarMuitasRequisicoes_QuandoUsuarioExcedeLimite() throws Exception {
+        doThrow(new LimiteTaxaExcedidoException("Limite de requisições do usuário excedido", Duration.ofMillis(1200)))
+                .when(limitadorTaxa).verificarUsuario("ana");
+
+        mockMvc.perform(put("/mensagens/{id}", UUID.randomUUID())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(CORPO))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "2"))
+                .andExpect(content().string("Limite de requisições do usuário excedido"));
+
+        verifyNoInteractions(mensagemService);
+    }
+
+    @Test
+    void deveRetornarMuitasRequisicoes_SemLerCorpo_QuandoIpExcedeLimite() throws Exception {
+        doThrow(new LimiteTaxaExcedidoException("Limite de requisições do IP excedido", Duration.ofMillis(10)))
+                .when(limitadorTaxa).verificarIp(any());
+
+        mockMvc.perform(post("/mensagens")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(CORPO))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "1"));
+
+        verify(limitadorTaxa, never()).verificarUsuario(any());
+        verifyNoInteractions(mensagemService);
+    }
+}
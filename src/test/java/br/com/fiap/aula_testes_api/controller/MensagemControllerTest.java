@@ -1,12 +1,33 @@
 package br.com.fiap.aula_testes_api.controller;
 
+import br.com.fiap.aula_testes_api.config.FormatosBinariosConfig;
+import br.com.fiap.aula_testes_api.exception.ChaveIdempotenciaReutilizadaException;
 import br.com.fiap.aula_testes_api.exception.MensagemNotFoundException;
+import br.com.fiap.aula_testes_api.exception.RequisicaoEmAndamentoException;
+import br.com.fiap.aula_testes_api.exception.ServicoSobrecarregadoException;
+import br.com.fiap.aula_testes_api.exception.TempoEsgotadoException;
+import br.com.fiap.aula_testes_api.exception.VersaoConflitanteException;
+import br.com.fiap.aula_testes_api.json.MensagemJsonModule;
+import br.com.fiap.aula_testes_api.model.CursorMensagem;
+import br.com.fiap.aula_testes_api.model.EstatisticasMensagens;
+import br.com.fiap.aula_testes_api.model.FeedMensagens;
+import br.com.fiap.aula_testes_api.model.Granularidade;
 import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.model.ResultadoBusca;
+import br.com.fiap.aula_testes_api.model.VersaoMensagem;
+import br.com.fiap.aula_testes_api.protobuf.MensagemProtobuf;
+import br.com.fiap.aula_testes_api.protobuf.MensagemProtobufHttpMessageConverter;
 import br.com.fiap.aula_testes_api.service.MensagemService;
+import br.com.fiap.aula_testes_api.service.MensagemServiceAsync;
+import br.com.fiap.aula_testes_api.service.MensagemServiceAsyncImpl;
 import br.com.fiap.aula_testes_api.utils.MensagemHelper;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
@@ -14,17 +35,38 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
 
-import static org.assertj.core.api.Fail.fail;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
-import static org.springframework.test.web.client.match.MockRestRequestMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 class MensagemControllerTest {
@@ -34,21 +76,36 @@ class MensagemControllerTest {
     @Mock
     private MensagemService mensagemService;
 
+    private MensagemServiceAsyncImpl mensagemServiceAsync;
+
     AutoCloseable mock;
 
     @BeforeEach
     void setUp() {
         mock = MockitoAnnotations.openMocks(this);
-        MensagemController mensagemController = new MensagemController(mensagemService);
+        mensagemServiceAsync = new MensagemServiceAsyncImpl(mensagemService, Executors.newFixedThreadPool(2),
+                Duration.ofSeconds(5), Duration.ofSeconds(5));
+        MensagemController mensagemController = new MensagemController(mensagemServiceAsync);
         mockMvc = MockMvcBuilders.standaloneSetup(mensagemController)
                 .build();
     }
 
     @AfterEach
     void tearDown() throws Exception {
+        mensagemServiceAsync.encerrar();
         mock.close();
     }
 
+    /**
+     * Os endpoints são assíncronos: executa a requisição e despacha o resultado do futuro.
+     */
+    private ResultActions executar(RequestBuilder requisicao) throws Exception {
+        var resultado = mockMvc.perform(requisicao)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(resultado));
+    }
+
     @Nested
     class RegistrarMensagem{
 
@@ -58,7 +115,7 @@ class MensagemControllerTest {
             when(mensagemService.registrarMensagem(any(Mensagem.class)))
                     .thenAnswer(i -> i.getArgument(0));
 
-            mockMvc.perform(post("/mensagens")
+            executar(post("/mensagens")
                             .contentType(MediaType.APPLICATION_JSON)
                             .content(asJsonString(mensagemRequest)))
 //                    .andDo(print())
@@ -78,6 +135,77 @@ class MensagemControllerTest {
 
             verify(mensagemService, never()).registrarMensagem(any(Mensagem.class));
         }
+
+        @Test
+        void devePermitirRegistrarMensagem_ComChaveIdempotencia() throws Exception {
+            var mensagemRequest = MensagemHelper.gerarMensagem();
+            when(mensagemService.registrarMensagem(any(Mensagem.class), eq("chave-1")))
+                    .thenAnswer(i -> CompletableFuture.completedFuture(i.getArgument(0)));
+
+            executar(post("/mensagens")
+                    .header("Idempotency-Key", "chave-1")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(asJsonString(mensagemRequest)))
+                    .andExpect(status().isCreated());
+            verify(mensagemService).registrarMensagem(any(Mensagem.class), eq("chave-1"));
+            verify(mensagemService, never()).registrarMensagem(any(Mensagem.class));
+        }
+
+        @Test
+        void deveGerarExcecao_QuandoChaveIdempotenciaInvalida() throws Exception {
+            var mensagemRequest = MensagemHelper.gerarMensagem();
+
+            executar(post("/mensagens")
+                    .header("Idempotency-Key", " ")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(asJsonString(mensagemRequest)))
+                    .andExpect(status().isBadRequest());
+            executar(post("/mensagens")
+                    .header("Idempotency-Key", "c".repeat(256))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(asJsonString(mensagemRequest)))
+                    .andExpect(status().isBadRequest());
+            verifyNoInteractions(mensagemService);
+        }
+
+        @Test
+        void deveGerarExcecao_QuandoChaveIdempotenciaReutilizada() throws Exception {
+            when(mensagemService.registrarMensagem(any(Mensagem.class), eq("chave-1")))
+                    .thenThrow(new ChaveIdempotenciaReutilizadaException("Chave de idempotência já usada com outra mensagem"));
+
+            executar(post("/mensagens")
+                    .header("Idempotency-Key", "chave-1")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(asJsonString(MensagemHelper.gerarMensagem())))
+                    .andExpect(status().isUnprocessableEntity())
+                    .andExpect(content().string("Chave de idempotência já usada com outra mensagem"));
+        }
+
+        @Test
+        void deveGerarExcecao_QuandoRequisicaoOriginalEmAndamento() throws Exception {
+            when(mensagemService.registrarMensagem(any(Mensagem.class), eq("chave-1")))
+                    .thenReturn(CompletableFuture.failedFuture(
+                            new RequisicaoEmAndamentoException("Requisição com a mesma chave de idempotência em andamento")));
+
+            executar(post("/mensagens")
+                    .header("Idempotency-Key", "chave-1")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(asJsonString(MensagemHelper.gerarMensagem())))
+                    .andExpect(status().isConflict())
+                    .andExpect(header().string("Retry-After", "1"));
+        }
+
+        @Test
+        void deveGerarExcecao_QuandoMensagemDaChaveRemovida() throws Exception {
+            when(mensagemService.registrarMensagem(any(Mensagem.class), eq("chave-1")))
+                    .thenThrow(new MensagemNotFoundException("Mensagem registrada com esta chave foi removida"));
+
+            executar(post("/mensagens")
+                    .header("Idempotency-Key", "chave-1")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(asJsonString(MensagemHelper.gerarMensagem())))
+                    .andExpect(status().isGone());
+        }
     }
 
     @Nested
@@ -87,10 +215,12 @@ class MensagemControllerTest {
         void devePermitirBuscarMensagem() throws Exception {
             var id = UUID.fromString("f5bf85a6-6a54-4fe0-952f-200069bfbdbf");
             var mensagem = MensagemHelper.gerarMensagem();
+            mensagem.setVersao(2L);
             when(mensagemService.buscarMensagem(any(UUID.class)))
                     .thenReturn(mensagem);
-            mockMvc.perform(get("/mensagens/{id}", id))
-                    .andExpect(status().isOk());
+            executar(get("/mensagens/{id}", id))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("ETag", "\"2-0\""));
             verify(mensagemService, times(1)).buscarMensagem(any(UUID.class));
         }
 
@@ -101,7 +231,7 @@ class MensagemControllerTest {
             when(mensagemService.buscarMensagem(id))
                     .thenThrow(MensagemNotFoundException.class);
 
-            mockMvc.perform(get("/mensagens/{id}", id))
+            executar(get("/mensagens/{id}", id))
                     .andExpect(status().isBadRequest());
 
             verify(mensagemService, times(1)).buscarMensagem(id);
@@ -117,15 +247,16 @@ class MensagemControllerTest {
             var mensagem = MensagemHelper.gerarMensagem();
             mensagem.setId(id);
 
-            when(mensagemService.alterarMensagem(id, mensagem))
-                    .thenReturn(mensagem);
+            when(mensagemService.alterarMensagem(id, mensagem, null))
+                    .thenReturn(mensagem.toBuilder().versao(1L).build());
 
-            mockMvc.perform(put("/mensagens/{id}", id)
+            executar(put("/mensagens/{id}", id)
                     .contentType(MediaType.APPLICATION_JSON)
                             .content(asJsonString(mensagem)))
-                            .andExpect(status().isAccepted());
+                            .andExpect(status().isAccepted())
+                            .andExpect(header().string("ETag", "\"1-0\""));
 
-            verify(mensagemService, times(1)).alterarMensagem(id, mensagem);
+            verify(mensagemService, times(1)).alterarMensagem(id, mensagem, null);
         }
 
         @Test
@@ -135,22 +266,36 @@ class MensagemControllerTest {
             mensagem.setId(id);
             var conteudoDaExcecao = "Mensagem atualizada não apresenta o ID correto";
 
-            when(mensagemService.alterarMensagem(id, mensagem))
+            when(mensagemService.alterarMensagem(id, mensagem, null))
                     .thenThrow(new MensagemNotFoundException(conteudoDaExcecao));
 
-            mockMvc.perform(put("/mensagens/{id}", id)
+            executar(put("/mensagens/{id}", id)
                     .contentType(MediaType.APPLICATION_JSON)
                     .content(asJsonString(mensagem)))
                     .andExpect(status().isBadRequest())
                     .andExpect(content().string(conteudoDaExcecao));
 
             verify(mensagemService, times(1))
-                    .alterarMensagem(any(UUID.class), any(Mensagem.class));
+                    .alterarMensagem(any(UUID.class), any(Mensagem.class), isNull());
         }
 
         @Test
-        void deveGerarExcecao_QuandoAlterarMensagem_IdDaMensagemNovaApresentaValorDiferente(){
-            fail("teste não implementado");
+        void deveGerarExcecao_QuandoAlterarMensagem_IdDaMensagemNovaApresentaValorDiferente() throws Exception {
+            var id = UUID.fromString("0de36af3-5c51-4b03-af6a-b577da04ba75");
+            var mensagem = MensagemHelper.gerarMensagem();
+            mensagem.setId(UUID.fromString("6f2f901b-9648-4030-9113-585741b7d489"));
+            var conteudoDaExcecao = "Mensagem atualizada não apresenta o ID correto";
+
+            when(mensagemService.alterarMensagem(id, mensagem, null))
+                    .thenThrow(new MensagemNotFoundException(conteudoDaExcecao));
+
+            executar(put("/mensagens/{id}", id)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(asJsonString(mensagem)))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(content().string(conteudoDaExcecao));
+
+            verify(mensagemService, times(1)).alterarMensagem(id, mensagem, null);
         }
 
         @Test
@@ -164,7 +309,69 @@ class MensagemControllerTest {
                             .contentType(xmlPayload))
                     .andExpect(status().isUnsupportedMediaType());
 
-            verify(mensagemService, never()).alterarMensagem(any(UUID.class),any(Mensagem.class));
+            verify(mensagemService, never()).alterarMensagem(any(UUID.class),any(Mensagem.class), any());
+        }
+    }
+
+    @Nested
+    class AlterarParcialmente{
+
+        private final UUID id = UUID.fromString("0de36af3-5c51-4b03-af6a-b577da04ba75");
+
+        @Test
+        void devePermitirAlterarParcialmente() throws Exception {
+            executar(patch("/mensagens/{id}", id)
+                    .header("If-Match", "\"3-10\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"conteudo\":\"Conteúdo novo\"}"))
+                    .andExpect(status().isNoContent());
+
+            verify(mensagemService, times(1)).alterarParcialmente(id,
+                    Mensagem.builder().conteudo("Conteúdo novo").build(), 3L);
+        }
+
+        @Test
+        void deveGerarExcecao_QuandoAlterarParcialmente_IdNaoExiste() throws Exception {
+            doThrow(new MensagemNotFoundException("Mensagem não encontrada"))
+                    .when(mensagemService).alterarParcialmente(eq(id), any(Mensagem.class), isNull());
+
+            executar(patch("/mensagens/{id}", id)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"usuario\":\"Ana\"}"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(content().string("Mensagem não encontrada"));
+        }
+
+        @Test
+        void deveGerarExcecao_QuandoAlterarParcialmente_IfMatchDesatualizado() throws Exception {
+            doThrow(new VersaoConflitanteException("Mensagem alterada por outra requisição"))
+                    .when(mensagemService).alterarParcialmente(eq(id), any(Mensagem.class), eq(3L));
+
+            executar(patch("/mensagens/{id}", id)
+                    .header("If-Match", "\"3-10\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"usuario\":\"Ana\"}"))
+                    .andExpect(status().isPreconditionFailed());
+        }
+
+        @Test
+        void deveGerarExcecao_QuandoAlterarParcialmente_SemCampos() throws Exception {
+            executar(patch("/mensagens/{id}", id)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"gostei\":5}"))
+                    .andExpect(status().isBadRequest());
+
+            verify(mensagemService, never()).alterarParcialmente(any(), any(), any());
+        }
+
+        @Test
+        void deveGerarExcecao_QuandoAlterarParcialmente_ConteudoVazio() throws Exception {
+            executar(patch("/mensagens/{id}", id)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"conteudo\":\"\"}"))
+                    .andExpect(status().isBadRequest());
+
+            verify(mensagemService, never()).alterarParcialmente(any(), any(), any());
         }
     }
 
@@ -172,13 +379,52 @@ class MensagemControllerTest {
     class RemoverMensagem{
 
         @Test
-        void devePermitirRemoverMensagem(){
-            fail("teste não implementado");
+        void devePermitirRemoverMensagem() throws Exception {
+            var id = UUID.fromString("03691449-39cc-41dc-bae1-5dc1a43c7991");
+            when(mensagemService.removerMensagem(id)).thenReturn(true);
+
+            executar(delete("/mensagens/{id}", id))
+                    .andExpect(status().isOk())
+                    .andExpect(content().string("mensagem removida"));
+
+            verify(mensagemService, times(1)).removerMensagem(id);
+        }
+
+        @Test
+        void deveGerarExcecao_QuandoRemoverMensagem_IdNaoExiste() throws Exception {
+            var id = UUID.fromString("03691449-39cc-41dc-bae1-5dc1a43c7991");
+            when(mensagemService.removerMensagem(id))
+                    .thenThrow(new MensagemNotFoundException("Mensagem não encontrada"));
+
+            executar(delete("/mensagens/{id}", id))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(content().string("ID Inválido"));
+
+            verify(mensagemService, times(1)).removerMensagem(id);
+        }
+    }
+
+    @Nested
+    class RegistrarGostei{
+
+        @Test
+        void devePermitirRegistrarGostei() throws Exception {
+            var id = UUID.fromString("f5bf85a6-6a54-4fe0-952f-200069bfbdbf");
+
+            executar(post("/mensagens/{id}/gostei", id))
+                    .andExpect(status().isAccepted());
+
+            verify(mensagemService, times(1)).registrarGostei(id);
         }
 
         @Test
-        void deveGerarExcecao_QuandoRemoverMensagem_IdNaoExiste(){
-            fail("teste não implementado");
+        void deveGerarExcecao_QuandoRegistrarGostei_IdNaoExiste() throws Exception {
+            var id = UUID.fromString("bb99ed66-28c8-4f7c-85b4-3c36c9f4726b");
+            doThrow(new MensagemNotFoundException("Mensagem não encontrada"))
+                    .when(mensagemService).registrarGostei(id);
+
+            executar(post("/mensagens/{id}/gostei", id))
+                    .andExpect(status().isBadRequest());
         }
     }
 
@@ -186,8 +432,408 @@ class MensagemControllerTest {
     class ListarMensagem{
 
         @Test
-        void  devePermitirListarMensagem(){
-            fail("teste não implementado");
+        void  devePermitirListarMensagem() throws Exception {
+            var mensagem = MensagemHelper.gerarMensagem();
+            mensagem.setId(UUID.fromString("2a1c0b7e-7f37-4e55-9a3c-0f6b8d1e4c21"));
+            mensagem.setDataCriacaoMensagem(LocalDateTime.of(2024, 5, 10, 12, 30));
+            var pagina = new SliceImpl<>(List.of(mensagem), PageRequest.ofSize(1), true);
+            when(mensagemService.listarFeed(null, 1)).thenReturn(pagina);
+
+            executar(get("/mensagens/feed").param("tamanho", "1"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.mensagens.length()").value(1))
+                    .andExpect(jsonPath("$.proximoCursor")
+                            .value(CursorMensagem.de(mensagem).codificar()));
+
+            verify(mensagemService, times(1)).listarFeed(null, 1);
+        }
+
+        @Test
+        void devePermitirListarMensagem_APartirDoCursor() throws Exception {
+            var cursor = new CursorMensagem(LocalDateTime.of(2024, 5, 10, 12, 30),
+                    UUID.fromString("2a1c0b7e-7f37-4e55-9a3c-0f6b8d1e4c21"));
+            when(mensagemService.listarFeed(cursor, 20))
+                    .thenReturn(new SliceImpl<>(List.of(), PageRequest.ofSize(20), false));
+
+            executar(get("/mensagens/feed").param("cursor", cursor.codificar()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.mensagens").isEmpty())
+                    .andExpect(jsonPath("$.proximoCursor").doesNotExist());
+
+            verify(mensagemService, times(1)).listarFeed(cursor, 20);
+        }
+
+        @Test
+        void deveGerarExcecao_QuandoListarMensagem_CursorInvalido() throws Exception {
+            executar(get("/mensagens/feed").param("cursor", "nao-e-um-cursor"))
+                    .andExpect(status().isBadRequest());
+
+            verify(mensagemService, never()).listarFeed(any(), anyInt());
+        }
+    }
+
+    @Nested
+    class ListarPorUsuario{
+
+        @Test
+        void devePermitirListarPorUsuario() throws Exception {
+            var mensagem = MensagemHelper.gerarMensagem();
+            mensagem.setId(UUID.fromString("2a1c0b7e-7f37-4e55-9a3c-0f6b8d1e4c21"));
+            mensagem.setDataCriacaoMensagem(LocalDateTime.of(2024, 5, 10, 12, 30));
+            when(mensagemService.listarPorUsuario("ana", null, 1))
+                    .thenReturn(new SliceImpl<>(List.of(mensagem), PageRequest.ofSize(1), true));
+
+            executar(get("/mensagens/usuario/{usuario}", "ana").param("tamanho", "1"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.mensagens.length()").value(1))
+                    .andExpect(jsonPath("$.proximoCursor")
+                            .value(CursorMensagem.de(mensagem).codificar()));
+
+            verify(mensagemService, times(1)).listarPorUsuario("ana", null, 1);
+        }
+
+        @Test
+        void deveGerarExcecao_QuandoListarPorUsuario_TamanhoInvalido() throws Exception {
+            executar(get("/mensagens/usuario/{usuario}", "ana").param("tamanho", "0"))
+                    .andExpect(status().isBadRequest());
+
+            verify(mensagemService, never()).listarPorUsuario(any(), any(), anyInt());
+        }
+    }
+
+    @Nested
+    class BuscarPorTexto{
+
+        @Test
+        void devePermitirBuscarPorTexto() throws Exception {
+            var mensagem = MensagemHelper.gerarMensagem();
+            mensagem.setId(UUID.fromString("2a1c0b7e-7f37-4e55-9a3c-0f6b8d1e4c21"));
+            when(mensagemService.buscarPorTexto("conteúdo", 1, 5))
+                    .thenReturn(new ResultadoBusca(List.of(mensagem), 6, 1, 5));
+
+            executar(get("/mensagens/busca")
+                            .param("q", "conteúdo")
+                            .param("pagina", "1")
+                            .param("tamanho", "5"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.mensagens.length()").value(1))
+                    .andExpect(jsonPath("$.mensagens[0].id").value(mensagem.getId().toString()))
+                    .andExpect(jsonPath("$.total").value(6));
+
+            verify(mensagemService, times(1)).buscarPorTexto("conteúdo", 1, 5);
+        }
+
+        @Test
+        void deveGerarExcecao_QuandoBuscarPorTexto_TextoVazio() throws Exception {
+            executar(get("/mensagens/busca").param("q", " "))
+                    .andExpect(status().isBadRequest());
+
+            verify(mensagemService, never()).buscarPorTexto(any(), anyInt(), anyInt());
+        }
+
+        @Test
+        void deveGerarExcecao_QuandoBuscarPorTexto_PaginaAlemDoLimite() throws Exception {
+            executar(get("/mensagens/busca").param("q", "conteúdo").param("pagina", "101").param("tamanho", "100"))
+                    .andExpect(status().isBadRequest());
+            executar(get("/mensagens/busca").param("q", "conteúdo")
+                            .param("pagina", String.valueOf(Integer.MAX_VALUE)).param("tamanho", "100"))
+                    .andExpect(status().isBadRequest());
+
+            verify(mensagemService, never()).buscarPorTexto(any(), anyInt(), anyInt());
+        }
+    }
+
+    @Nested
+    class ConsultarEstatisticas{
+
+        private final LocalDateTime de = LocalDateTime.of(2024, 3, 10, 0, 0);
+        private final LocalDateTime ate = LocalDateTime.of(2024, 3, 10, 6, 0);
+
+        @Test
+        void devePermitirConsultarEstatisticas() throws Exception {
+            when(mensagemService.consultarEstatisticas(Granularidade.HORA, "ana", de, ate))
+                    .thenReturn(new EstatisticasMensagens(Granularidade.HORA, "ana", de, ate,
+                            List.of(new EstatisticasMensagens.Balde(de.plusHours(2), 3, 7))));
+
+            executar(get("/mensagens/estatisticas")
+                            .param("granularidade", "HORA")
+                            .param("usuario", "ana")
+                            .param("de", "2024-03-10T00:00:00")
+                            .param("ate", "2024-03-10T06:00:00"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.granularidade").value("HORA"))
+                    .andExpect(jsonPath("$.baldes.length()").value(1))
+                    .andExpect(jsonPath("$.baldes[0].mensagens").value(3))
+                    .andExpect(jsonPath("$.baldes[0].gostei").value(7));
+
+            verify(mensagemService, times(1)).consultarEstatisticas(Granularidade.HORA, "ana", de, ate);
+        }
+
+        @Test
+        void deveConsultarUltimosTrintaDias_PorPadrao() throws Exception {
+            when(mensagemService.consultarEstatisticas(eq(Granularidade.DIA), isNull(), any(), any()))
+                    .thenReturn(new EstatisticasMensagens(Granularidade.DIA, null, de, ate, List.of()));
+
+            executar(get("/mensagens/estatisticas").param("ate", "2024-03-10T06:00:00"))
+                    .andExpect(status().isOk());
+
+            verify(mensagemService, times(1)).consultarEstatisticas(Granularidade.DIA, null, ate.minusDays(30), ate);
+        }
+
+        @Test
+        void deveGerarExcecao_QuandoGranularidadeInvalida() throws Exception {
+            executar(get("/mensagens/estatisticas").param("granularidade", "semana"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(content().string("Granularidade inválida"));
+
+            verify(mensagemService, never()).consultarEstatisticas(any(), any(), any(), any());
+        }
+
+        @Test
+        void deveGerarExcecao_QuandoIntervaloInvertido() throws Exception {
+            executar(get("/mensagens/estatisticas")
+                            .param("de", "2024-03-10T06:00:00")
+                            .param("ate", "2024-03-10T00:00:00"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(content().string("Intervalo inválido"));
+
+            verify(mensagemService, never()).consultarEstatisticas(any(), any(), any(), any());
+        }
+
+        @Test
+        void deveGerarExcecao_QuandoIntervaloExcedeMaximoDeBaldes() throws Exception {
+            executar(get("/mensagens/estatisticas")
+                            .param("granularidade", "hora")
+                            .param("de", "2020-01-01T00:00:00")
+                            .param("ate", "2024-03-10T00:00:00"))
+                    .andExpect(status().isBadRequest());
+
+            verify(mensagemService, never()).consultarEstatisticas(any(), any(), any(), any());
+        }
+    }
+
+    @Nested
+    class RequisicaoCondicional{
+
+        private final UUID id = UUID.fromString("0de36af3-5c51-4b03-af6a-b577da04ba75");
+
+        @Test
+        void deveRetornarNaoModificado_QuandoVersaoNaoMudou() throws Exception {
+            when(mensagemService.buscarVersao(id)).thenReturn(new VersaoMensagem(3, 10));
+
+            executar(get("/mensagens/{id}", id).header("If-None-Match", "\"2-10\", \"3-10\""))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string("ETag", "\"3-10\""))
+                    .andExpect(content().string(""));
+
+            verify(mensagemService, never()).buscarMensagem(any(UUID.class));
+        }
+
+        @Test
+        void devePermitirBuscarMensagem_QuandoVersaoMudou() throws Exception {
+            var mensagem = MensagemHelper.gerarMensagem();
+            mensagem.setId(id);
+            mensagem.setVersao(3L);
+            mensagem.setGostei(11);
+            when(mensagemService.buscarVersao(id)).thenReturn(new VersaoMensagem(3, 11));
+            when(mensagemService.buscarMensagem(id)).thenReturn(mensagem);
+
+            executar(get("/mensagens/{id}", id).header("If-None-Match", "\"3-10\""))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("ETag", "\"3-11\""))
+                    .andExpect(jsonPath("$.versao").value(3));
+        }
+
+        @Test
+        void deveGerarExcecao_QuandoBuscarVersao_IdNaoExiste() throws Exception {
+            when(mensagemService.buscarVersao(id)).thenThrow(new MensagemNotFoundException("Mensagem não encontrada"));
+
+            executar(get("/mensagens/{id}", id).header("If-None-Match", "\"3-10\""))
+                    .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        void devePermitirAlterarMensagem_NaVersaoDoIfMatch() throws Exception {
+            var mensagem = MensagemHelper.gerarMensagem();
+            mensagem.setId(id);
+            when(mensagemService.alterarMensagem(id, mensagem, 3L))
+                    .thenReturn(mensagem.toBuilder().versao(4L).build());
+
+            executar(put("/mensagens/{id}", id)
+                    .header("If-Match", "\"3-10\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(asJsonString(mensagem)))
+                    .andExpect(status().isAccepted())
+                    .andExpect(header().string("ETag", "\"4-0\""));
+        }
+
+        @Test
+        void deveGerarExcecao_QuandoAlterarMensagem_IfMatchDesatualizado() throws Exception {
+            var mensagem = MensagemHelper.gerarMensagem();
+            mensagem.setId(id);
+            when(mensagemService.alterarMensagem(id, mensagem, 3L))
+                    .thenThrow(new VersaoConflitanteException("Mensagem alterada por outra requisição"));
+
+            executar(put("/mensagens/{id}", id)
+                    .header("If-Match", "\"3-10\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(asJsonString(mensagem)))
+                    .andExpect(status().isPreconditionFailed());
+        }
+
+        @Test
+        void deveGerarExcecao_QuandoAlterarMensagem_IfMatchNaoGeradoPelaApi() throws Exception {
+            var mensagem = MensagemHelper.gerarMensagem();
+            mensagem.setId(id);
+            when(mensagemService.alterarMensagem(id, mensagem, -1L))
+                    .thenThrow(new VersaoConflitanteException("Mensagem alterada por outra requisição"));
+
+            executar(put("/mensagens/{id}", id)
+                    .header("If-Match", "W/\"3-10\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(asJsonString(mensagem)))
+                    .andExpect(status().isPreconditionFailed());
+
+            verify(mensagemService, times(1)).alterarMensagem(id, mensagem, -1L);
+        }
+
+        @Test
+        void deveGerarConflito_QuandoAlterarMensagem_SemIfMatchEAlteracaoConcorrente() throws Exception {
+            var mensagem = MensagemHelper.gerarMensagem();
+            mensagem.setId(id);
+            when(mensagemService.alterarMensagem(id, mensagem, null))
+                    .thenThrow(new VersaoConflitanteException("Mensagem alterada por outra requisição"));
+
+            executar(put("/mensagens/{id}", id)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(asJsonString(mensagem)))
+                    .andExpect(status().isConflict());
+        }
+    }
+
+    @Nested
+    class ExecucaoAssincrona{
+
+        @Test
+        void deveRetornarServicoIndisponivel_QuandoPoolSobrecarregado() throws Exception {
+            var servicoAsync = mock(MensagemServiceAsync.class);
+            when(servicoAsync.buscarMensagem(any(UUID.class))).thenReturn(CompletableFuture.failedFuture(
+                    new ServicoSobrecarregadoException("Serviço sobrecarregado, tente novamente")));
+            mockMvc = MockMvcBuilders.standaloneSetup(new MensagemController(servicoAsync)).build();
+
+            executar(get("/mensagens/{id}", UUID.randomUUID()))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string("Retry-After", "1"));
+        }
+
+        @Test
+        void deveRetornarTempoEsgotado_QuandoPrazoExcedido() throws Exception {
+            var servicoAsync = mock(MensagemServiceAsync.class);
+            when(servicoAsync.listarFeed(any(), anyInt())).thenReturn(CompletableFuture.failedFuture(
+                    new TempoEsgotadoException("Tempo esgotado em listarFeed após 2000 ms")));
+            mockMvc = MockMvcBuilders.standaloneSetup(new MensagemController(servicoAsync)).build();
+
+            executar(get("/mensagens/feed"))
+                    .andExpect(status().isGatewayTimeout());
+        }
+    }
+
+    @Nested
+    class FormatosBinarios{
+
+        private final ObjectMapper cbor = new ObjectMapper(new CBORFactory()).registerModule(new JavaTimeModule());
+        private final ObjectMapper smile = new ObjectMapper(new SmileFactory()).registerModule(new JavaTimeModule());
+
+        @BeforeEach
+        void setUp() {
+            var objectMapperBuilder = new Jackson2ObjectMapperBuilder().modulesToInstall(new MensagemJsonModule());
+            var conversores = new ArrayList<HttpMessageConverter<?>>(List.of(
+                    new StringHttpMessageConverter(StandardCharsets.UTF_8),
+                    new MappingJackson2HttpMessageConverter(objectMapperBuilder.build())));
+            conversores.addAll(FormatosBinariosConfig.conversores(objectMapperBuilder));
+            mockMvc = MockMvcBuilders.standaloneSetup(new MensagemController(mensagemServiceAsync))
+                    .setMessageConverters(conversores.toArray(HttpMessageConverter[]::new))
+                    .build();
+        }
+
+        @Test
+        void deveResponderJson_QuandoAcceptNaoInformado() throws Exception {
+            var mensagem = MensagemHelper.gerarMensagem(42, 1, 10);
+            mensagem.setVersao(0L);
+            when(mensagemService.buscarMensagem(mensagem.getId())).thenReturn(mensagem);
+
+            executar(get("/mensagens/{id}", mensagem.getId()))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(header().string("Vary", "Accept"))
+                    .andExpect(jsonPath("$.id").value(mensagem.getId().toString()));
+        }
+
+        @Test
+        void deveResponderCbor_QuandoAcceptCbor() throws Exception {
+            var mensagem = MensagemHelper.gerarMensagem(42, 1, 10);
+            mensagem.setVersao(0L);
+            when(mensagemService.buscarMensagem(mensagem.getId())).thenReturn(mensagem);
+
+            var corpo = executar(get("/mensagens/{id}", mensagem.getId()).accept(MediaType.APPLICATION_CBOR))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                    .andReturn().getResponse().getContentAsByteArray();
+
+            var lida = cbor.readValue(corpo, Mensagem.class);
+            assertThat(lida.getId()).isEqualTo(mensagem.getId());
+            assertThat(lida.getConteudo()).isEqualTo(mensagem.getConteudo());
+        }
+
+        @Test
+        void deveResponderSmile_QuandoListarFeed() throws Exception {
+            var mensagens = List.of(MensagemHelper.gerarMensagem(42, 2, 10), MensagemHelper.gerarMensagem(42, 1, 10));
+            when(mensagemService.listarFeed(null, 20))
+                    .thenReturn(new SliceImpl<>(mensagens, PageRequest.ofSize(20), false));
+
+            var corpo = executar(get("/mensagens/feed").accept(FormatosBinariosConfig.APPLICATION_SMILE_VALUE))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(FormatosBinariosConfig.APPLICATION_SMILE_VALUE))
+                    .andReturn().getResponse().getContentAsByteArray();
+
+            var feed = smile.readValue(corpo, FeedMensagens.class);
+            assertThat(feed.mensagens()).extracting(Mensagem::getId)
+                    .containsExactly(mensagens.get(0).getId(), mensagens.get(1).getId());
+        }
+
+        @Test
+        void devePermitirRegistrarMensagem_EmProtobuf() throws Exception {
+            var mensagem = MensagemHelper.gerarMensagem();
+            var bytes = new ByteArrayOutputStream();
+            var saida = CodedOutputStream.newInstance(bytes);
+            MensagemProtobuf.escrever(mensagem, saida);
+            saida.flush();
+            when(mensagemService.registrarMensagem(any(Mensagem.class)))
+                    .thenAnswer(i -> i.<Mensagem>getArgument(0).toBuilder().id(UUID.randomUUID()).versao(0L).build());
+
+            var corpo = executar(post("/mensagens")
+                    .contentType(MensagemProtobufHttpMessageConverter.APPLICATION_PROTOBUF)
+                    .accept(MensagemProtobufHttpMessageConverter.APPLICATION_PROTOBUF)
+                    .content(bytes.toByteArray()))
+                    .andExpect(status().isCreated())
+                    .andExpect(content().contentType(MensagemProtobufHttpMessageConverter.APPLICATION_PROTOBUF))
+                    .andReturn().getResponse().getContentAsByteArray();
+
+            verify(mensagemService).registrarMensagem(mensagem);
+            var registrada = MensagemProtobuf.lerMensagem(CodedInputStream.newInstance(corpo));
+            assertThat(registrada.getId()).isNotNull();
+            assertThat(registrada.getUsuario()).isEqualTo(mensagem.getUsuario());
+            assertThat(registrada.getVersao()).isZero();
+        }
+
+        @Test
+        void deveGerarExcecao_QuandoProtobufInvalido() throws Exception {
+            mockMvc.perform(post("/mensagens")
+                            .contentType(MensagemProtobufHttpMessageConverter.APPLICATION_PROTOBUF)
+                            .content(new byte[]{0x0a, 0x03, 0x01}))
+                    .andExpect(status().isBadRequest());
+
+            verify(mensagemService, never()).registrarMensagem(any(Mensagem.class));
         }
     }
 
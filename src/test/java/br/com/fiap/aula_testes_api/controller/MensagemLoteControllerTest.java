@@ -0,0 +1,70 @@
+package br.com.fiap.aula_testes_api.controller;
+
+import br.com.fiap.aula_testes_api.model.ResultadoOperacao;
+import br.com.fiap.aula_testes_api.model.TipoOperacao;
+import br.com.fiap.aula_testes_api.service.MensagemLoteService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class MensagemLoteControllerTest {
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private MensagemLoteService mensagemLoteService;
+
+    AutoCloseable mock;
+
+    @BeforeEach
+    void setUp() {
+        mock = MockitoAnnotations.openMocks(this);
+        mockMvc = MockMvcBuilders.standaloneSetup(new MensagemLoteController(mensagemLoteService))
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        mock.close();
+    }
+
+    @Test
+    void devePermitirProcessarLote() throws Exception {
+        var id = UUID.fromString("4e5d6c7b-8a9f-4e0d-9c1b-2a3f4e5d6c7b");
+        when(mensagemLoteService.processarLote(anyList()))
+                .thenReturn(List.of(ResultadoOperacao.sucesso(0, TipoOperacao.GOSTEI, id)));
+
+        mockMvc.perform(post("/mensagens/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"tipo\":\"GOSTEI\",\"id\":\"" + id + "\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("SUCESSO"))
+                .andExpect(jsonPath("$[0].erro").doesNotExist());
+
+        verify(mensagemLoteService, times(1)).processarLote(anyList());
+    }
+
+    @Test
+    void deveGerarExcecao_QuandoProcessarLote_Vazio() throws Exception {
+        mockMvc.perform(post("/mensagens/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest());
+
+        verify(mensagemLoteService, never()).processarLote(anyList());
+    }
+}
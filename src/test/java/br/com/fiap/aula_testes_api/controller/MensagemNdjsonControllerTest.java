@@ -0,0 +1,127 @@
+package br.com.fiap.aula_testes_api.controller;
+
+import br.com.fiap.aula_testes_api.exception.LinhaMuitoLongaException;
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.model.LinhaRejeitada;
+import br.com.fiap.aula_testes_api.model.ResultadoImportacao;
+import br.com.fiap.aula_testes_api.service.MensagemImportacaoService;
+import br.com.fiap.aula_testes_api.service.MensagemService;
+import br.com.fiap.aula_testes_api.utils.MensagemHelper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class MensagemNdjsonControllerTest {
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private MensagemService mensagemService;
+
+    @Mock
+    private MensagemImportacaoService mensagemImportacaoService;
+
+    AutoCloseable mock;
+
+    @BeforeEach
+    void setUp() {
+        mock = MockitoAnnotations.openMocks(this);
+        var objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        mockMvc = MockMvcBuilders.standaloneSetup(new MensagemNdjsonController(mensagemService, mensagemImportacaoService, objectMapper))
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        mock.close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void devePermitirExportarMensagens() throws Exception {
+        var mensagem1 = MensagemHelper.gerarMensagem();
+        mensagem1.setId(UUID.fromString("11111111-2222-4333-8444-555555555555"));
+        var mensagem2 = MensagemHelper.gerarMensagem();
+        mensagem2.setId(UUID.fromString("66666666-7777-4888-9999-aaaaaaaaaaaa"));
+        when(mensagemService.exportarMensagens(any(Consumer.class))).thenAnswer(i -> {
+            Consumer<Mensagem> consumidor = i.getArgument(0);
+            consumidor.accept(mensagem1);
+            consumidor.accept(mensagem2);
+            return 2L;
+        });
+
+        var resultado = mockMvc.perform(get("/mensagens/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        var resposta = mockMvc.perform(asyncDispatch(resultado))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        var linhas = resposta.split("\n");
+        assertThat(linhas).hasSize(2);
+        assertThat(linhas[0]).startsWith("{").contains(mensagem1.getId().toString());
+        assertThat(linhas[1]).startsWith("{").contains(mensagem2.getId().toString());
+    }
+
+    @Test
+    void devePermitirImportarMensagens() throws Exception {
+        when(mensagemImportacaoService.importarMensagens(any(InputStream.class)))
+                .thenReturn(new ResultadoImportacao(1, 1, List.of(new LinhaRejeitada(2, "JSON inválido"))));
+
+        mockMvc.perform(post("/mensagens/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"usuario\":\"Ana\",\"conteudo\":\"oi\"}\n{"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.aceitas").value(1))
+                .andExpect(jsonPath("$.rejeitadas").value(1))
+                .andExpect(jsonPath("$.erros[0].linha").value(2));
+
+        verify(mensagemImportacaoService, times(1)).importarMensagens(any(InputStream.class));
+    }
+
+    @Test
+    void deveGerarExcecao_QuandoImportarMensagens_LinhaMuitoLonga() throws Exception {
+        when(mensagemImportacaoService.importarMensagens(any(InputStream.class)))
+                .thenThrow(new LinhaMuitoLongaException("Linha 1 excede 65536 caracteres"));
+
+        mockMvc.perform(post("/mensagens/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"usuario\":\"Ana\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Linha 1 excede 65536 caracteres"));
+    }
+
+    @Test
+    void deveGerarExcecao_QuandoImportarMensagens_PayloadJson() throws Exception {
+        mockMvc.perform(post("/mensagens/import")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isUnsupportedMediaType());
+
+        verify(mensagemImportacaoService, never()).importarMensagens(any(InputStream.class));
+    }
+}
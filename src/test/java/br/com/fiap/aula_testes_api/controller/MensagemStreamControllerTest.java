@@ -0,0 +1,70 @@
+package br.com.fiap.aula_testes_api.controller;
+
+import br.com.fiap.aula_testes_api.exception.ServicoSobrecarregadoException;
+import br.com.fiap.aula_testes_api.service.stream.TransmissaoMensagens;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class MensagemStreamControllerTest {
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private TransmissaoMensagens transmissaoMensagens;
+
+    AutoCloseable mock;
+
+    @BeforeEach
+    void setUp() {
+        mock = MockitoAnnotations.openMocks(this);
+        mockMvc = MockMvcBuilders.standaloneSetup(new MensagemStreamController(transmissaoMensagens))
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        mock.close();
+    }
+
+    @Test
+    void devePermitirAssinarStream_RetomandoDoUltimoId() throws Exception {
+        var emitter = new SseEmitter();
+        emitter.send(SseEmitter.event().comment(""));
+        when(transmissaoMensagens.assinar("abc-41")).thenReturn(emitter);
+
+        mockMvc.perform(get("/mensagens/stream")
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .header("Last-Event-ID", "abc-41"))
+                .andExpect(request().asyncStarted())
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache"))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM));
+        emitter.complete();
+    }
+
+    @Test
+    void deveRetornarServicoIndisponivel_QuandoLimiteDeAssinantesAtingido() throws Exception {
+        when(transmissaoMensagens.assinar(any())).thenThrow(
+                new ServicoSobrecarregadoException("Limite de assinantes do stream atingido, tente novamente"));
+
+        mockMvc.perform(get("/mensagens/stream"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "5"))
+                .andExpect(content().string("Limite de assinantes do stream atingido, tente novamente"));
+    }
+}
@@ -0,0 +1,142 @@
+package br.com.fiap.aula_testes_api.json;
+
+import br.com.fiap.aula_testes_api.model.FeedMensagens;
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.model.ResultadoBusca;
+import br.com.fiap.aula_testes_api.utils.MensagemHelper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MensagemJsonModuleTest {
+
+    private final ObjectMapper padrao = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final ObjectMapper otimizado = new ObjectMapper().registerModule(new JavaTimeModule())
+            .registerModule(new MensagemJsonModule());
+
+    private void assertMesmosBytes(Object valor) throws Exception {
+        var esperado = padrao.writeValueAsBytes(valor);
+        var obtido = otimizado.writeValueAsBytes(valor);
+        assertThat(new String(obtido, "UTF-8")).isEqualTo(new String(esperado, "UTF-8"));
+        assertThat(obtido).isEqualTo(esperado);
+    }
+
+    private static Mensagem mensagem(LocalDateTime data) {
+        return Mensagem.builder()
+                .id(UUID.fromString("0190f3a2-7b4c-7d1e-8f00-0a1b2c3d4e5f"))
+                .usuario("Silva Sauro")
+                .conteudo("conteúdo da mensagem")
+                .dataCriacaoMensagem(data)
+                .gostei(3)
+                .versao(7L)
+                .build();
+    }
+
+    @Nested
+    class SerializarMensagem {
+
+        @Test
+        void deveGerarMesmoJson_QueSerializadorPadrao() throws Exception {
+            for (int i = 0; i < 500; i++) {
+                var mensagem = MensagemHelper.gerarMensagem(42, i * 7919, 50);
+                mensagem.setVersao((long) i);
+                assertMesmosBytes(mensagem);
+            }
+        }
+
+        @Test
+        void deveEscreverNulos_ComoSerializadorPadrao() throws Exception {
+            var mensagem = new Mensagem();
+            mensagem.setGostei(null);
+
+            assertMesmosBytes(mensagem);
+            assertThat(otimizado.writeValueAsString(mensagem)).contains("\"id\":null", "\"versao\":null");
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = {
+                "aspas \"duplas\" e \\barra\\",
+                "quebra\nde\tlinha\r\u0000\u001f\u007f",
+                "acentuação çãõé ñ ü",
+                "emoji 😀👍🏽 e 漢字",
+                "</script><script>alert(1)</script>",
+                "  ",
+                ""})
+        void deveEscaparTexto_ComoSerializadorPadrao(String texto) throws Exception {
+            var mensagem = mensagem(LocalDateTime.of(2024, 8, 20, 12, 0));
+            mensagem.setUsuario(texto);
+            mensagem.setConteudo(texto);
+
+            assertMesmosBytes(mensagem);
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = {
+                "2024-08-20T12:00:00",
+                "2024-08-20T23:59:59.999999999",
+                "2024-01-01T00:00:00.000009999",
+                "2024-01-01T00:00:00.000010000",
+                "0001-01-01T00:00:00.5",
+                "9999-12-31T23:59:59.123456789"})
+        void deveFormatarData_ComoSerializadorPadrao(String data) throws Exception {
+            assertMesmosBytes(mensagem(LocalDateTime.parse(data)));
+        }
+
+        @ParameterizedTest
+        @ValueSource(ints = {0, -1, 10000, 123456})
+        void deveFormatarAnoForaDoIntervalo_ComoSerializadorPadrao(int ano) throws Exception {
+            assertMesmosBytes(mensagem(LocalDateTime.of(ano, 3, 4, 5, 6, 7, 80_000)));
+        }
+
+        @Test
+        void deveFormatarUuidsExtremos_ComoSerializadorPadrao() throws Exception {
+            for (var id : List.of(new UUID(0, 0), new UUID(-1, -1), UUID.randomUUID())) {
+                var mensagem = mensagem(LocalDateTime.of(2024, 8, 20, 12, 0));
+                mensagem.setId(id);
+                assertMesmosBytes(mensagem);
+            }
+        }
+    }
+
+    @Nested
+    class SerializarPaginas {
+
+        private List<Mensagem> pagina(int tamanho) {
+            var mensagens = new ArrayList<Mensagem>();
+            for (int i = 0; i < tamanho; i++) {
+                mensagens.add(MensagemHelper.gerarMensagem(7, i, 5));
+            }
+            return mensagens;
+        }
+
+        @Test
+        void deveGerarMesmoJson_ParaFeed() throws Exception {
+            assertMesmosBytes(new FeedMensagens(pagina(20), "cursor-opaco"));
+            assertMesmosBytes(new FeedMensagens(pagina(3), null));
+            assertMesmosBytes(new FeedMensagens(List.of(), null));
+            assertMesmosBytes(new FeedMensagens(null, null));
+        }
+
+        @Test
+        void deveGerarMesmoJson_ParaResultadoBusca() throws Exception {
+            assertMesmosBytes(new ResultadoBusca(pagina(10), 1234, 2, 10));
+            assertMesmosBytes(new ResultadoBusca(Arrays.asList(pagina(1).get(0), null), 2, 0, 20));
+        }
+
+        @Test
+        void deveGerarMesmoJson_ParaListaDeMensagens() throws Exception {
+            assertMesmosBytes(pagina(20));
+        }
+    }
+}
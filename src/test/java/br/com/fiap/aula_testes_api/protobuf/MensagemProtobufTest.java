@@ -0,0 +1,250 @@
+package br.com.fiap.aula_testes_api.protobuf;
+
+import br.com.fiap.aula_testes_api.model.FeedMensagens;
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.model.ResultadoBusca;
+import br.com.fiap.aula_testes_api.utils.MensagemHelper;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.DescriptorProtos.DescriptorProto;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.DescriptorProtos.OneofDescriptorProto;
+import com.google.protobuf.Descriptors.Descriptor;
+import com.google.protobuf.Descriptors.FileDescriptor;
+import com.google.protobuf.DynamicMessage;
+import com.google.protobuf.Timestamp;
+import com.google.protobuf.TimestampProto;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MensagemProtobufTest {
+
+    /**
+     * Descritores equivalentes ao {@code proto/mensagem.proto}, para conferir o codificador
+     * contra a implementação de referência (o que um cliente com classes geradas enxerga).
+     */
+    private static final FileDescriptor ESQUEMA = esquema();
+    private static final Descriptor MENSAGEM = ESQUEMA.findMessageTypeByName("Mensagem");
+    private static final Descriptor FEED = ESQUEMA.findMessageTypeByName("FeedMensagens");
+    private static final Descriptor RESULTADO_BUSCA = ESQUEMA.findMessageTypeByName("ResultadoBusca");
+
+    private static byte[] codificar(Object valor) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        var saida = CodedOutputStream.newInstance(bytes);
+        if (valor instanceof Mensagem mensagem) {
+            MensagemProtobuf.escrever(mensagem, saida);
+        } else if (valor instanceof FeedMensagens feed) {
+            MensagemProtobuf.escrever(feed, saida);
+        } else {
+            MensagemProtobuf.escrever((ResultadoBusca) valor, saida);
+        }
+        saida.flush();
+        return bytes.toByteArray();
+    }
+
+    private static Mensagem mensagem() {
+        var mensagem = MensagemHelper.gerarMensagem(42, 7, 10);
+        mensagem.setConteudo("conteúdo com acentuação e emoji 😀");
+        mensagem.setDataCriacaoMensagem(LocalDateTime.of(2024, 8, 20, 12, 30, 15, 123_456_789));
+        mensagem.setVersao(3L);
+        return mensagem;
+    }
+
+    @Nested
+    class Mensagens{
+
+        @Test
+        void deveLerMensagemEscrita() throws IOException {
+            var mensagem = mensagem();
+
+            var bytes = codificar(mensagem);
+
+            assertThat(bytes).hasSize(MensagemProtobuf.tamanho(mensagem));
+            assertThat(MensagemProtobuf.lerMensagem(CodedInputStream.newInstance(bytes))).isEqualTo(mensagem);
+        }
+
+        @Test
+        void deveOmitirCamposNulos_ELerComoNoJson() throws IOException {
+            var mensagem = Mensagem.builder().conteudo("só o conteúdo").gostei(null).build();
+
+            var lida = MensagemProtobuf.lerMensagem(CodedInputStream.newInstance(codificar(mensagem)));
+
+            assertThat(lida.getId()).isNull();
+            assertThat(lida.getUsuario()).isNull();
+            assertThat(lida.getDataCriacaoMensagem()).isNull();
+            assertThat(lida.getGostei()).isZero();
+            assertThat(lida.getVersao()).isNull();
+            assertThat(lida.getConteudo()).isEqualTo("só o conteúdo");
+        }
+
+        @Test
+        void deveSerCompativelComEsquema_NaEscrita() throws IOException {
+            var mensagem = mensagem();
+
+            var lida = DynamicMessage.parseFrom(MENSAGEM, codificar(mensagem));
+
+            assertThat(lida.getField(MENSAGEM.findFieldByName("id")))
+                    .isEqualTo(ByteString.copyFrom(ByteBuffer.allocate(16)
+                            .putLong(mensagem.getId().getMostSignificantBits())
+                            .putLong(mensagem.getId().getLeastSignificantBits())
+                            .array()));
+            assertThat(lida.getField(MENSAGEM.findFieldByName("usuario"))).isEqualTo(mensagem.getUsuario());
+            assertThat(lida.getField(MENSAGEM.findFieldByName("conteudo"))).isEqualTo(mensagem.getConteudo());
+            var data = Timestamp.parseFrom(((DynamicMessage) lida.getField(
+                    MENSAGEM.findFieldByName("data_criacao_mensagem"))).toByteString());
+            assertThat(data.getSeconds()).isEqualTo(mensagem.getDataCriacaoMensagem().toEpochSecond(ZoneOffset.UTC));
+            assertThat(data.getNanos()).isEqualTo(123_456_789);
+            assertThat(lida.getField(MENSAGEM.findFieldByName("gostei"))).isEqualTo(mensagem.getGostei());
+            assertThat(lida.getField(MENSAGEM.findFieldByName("versao"))).isEqualTo(3L);
+            assertThat(lida.getUnknownFields().asMap()).isEmpty();
+        }
+
+        @Test
+        void deveSerCompativelComEsquema_NaLeitura() throws IOException {
+            var id = UUID.fromString("0190f3a2-7b4c-7d1e-8f00-0a1b2c3d4e5f");
+            var bytes = DynamicMessage.newBuilder(MENSAGEM)
+                    .setField(MENSAGEM.findFieldByName("id"), ByteString.copyFrom(ByteBuffer.allocate(16)
+                            .putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).array()))
+                    .setField(MENSAGEM.findFieldByName("usuario"), "Silva Sauro")
+                    .setField(MENSAGEM.findFieldByName("data_criacao_mensagem"), Timestamp.newBuilder()
+                            .setSeconds(LocalDateTime.of(2024, 1, 2, 3, 4, 5).toEpochSecond(ZoneOffset.UTC))
+                            .setNanos(500).build())
+                    .setField(MENSAGEM.findFieldByName("gostei"), 9)
+                    .build().toByteArray();
+
+            var lida = MensagemProtobuf.lerMensagem(CodedInputStream.newInstance(bytes));
+
+            assertThat(lida.getId()).isEqualTo(id);
+            assertThat(lida.getUsuario()).isEqualTo("Silva Sauro");
+            assertThat(lida.getConteudo()).isNull();
+            assertThat(lida.getDataCriacaoMensagem()).isEqualTo(LocalDateTime.of(2024, 1, 2, 3, 4, 5, 500));
+            assertThat(lida.getGostei()).isEqualTo(9);
+        }
+
+        @Test
+        void deveIgnorarCamposDesconhecidos() throws IOException {
+            var bytes = new ByteArrayOutputStream();
+            var saida = CodedOutputStream.newInstance(bytes);
+            saida.writeString(99, "campo de uma versão futura");
+            MensagemProtobuf.escrever(mensagem(), saida);
+            saida.flush();
+
+            assertThat(MensagemProtobuf.lerMensagem(CodedInputStream.newInstance(bytes.toByteArray())))
+                    .isEqualTo(mensagem());
+        }
+
+        @Test
+        void deveGerarExcecao_QuandoIdNaoTem16Bytes() {
+            var bytes = DynamicMessage.newBuilder(MENSAGEM)
+                    .setField(MENSAGEM.findFieldByName("id"), ByteString.copyFromUtf8("curto"))
+                    .build().toByteArray();
+
+            assertThatThrownBy(() -> MensagemProtobuf.lerMensagem(CodedInputStream.newInstance(bytes)))
+                    .isInstanceOf(IOException.class);
+        }
+    }
+
+    @Nested
+    class Paginas{
+
+        @Test
+        void deveLerFeedEscrito() throws IOException {
+            var feed = new FeedMensagens(List.of(mensagem(), MensagemHelper.gerarMensagem(42, 8, 10)), "cursor");
+
+            var lido = MensagemProtobuf.lerFeed(CodedInputStream.newInstance(codificar(feed)));
+
+            assertThat(lido).isEqualTo(feed);
+        }
+
+        @Test
+        void deveSerCompativelComEsquema_NoFeedENaBusca() throws IOException {
+            var mensagens = List.of(mensagem(), MensagemHelper.gerarMensagem(42, 8, 10));
+
+            var feed = DynamicMessage.parseFrom(FEED, codificar(new FeedMensagens(mensagens, null)));
+            var busca = DynamicMessage.parseFrom(RESULTADO_BUSCA, codificar(new ResultadoBusca(mensagens, 57, 2, 2)));
+
+            assertThat(feed.getRepeatedFieldCount(FEED.findFieldByName("mensagens"))).isEqualTo(2);
+            assertThat(feed.hasField(FEED.findFieldByName("proximo_cursor"))).isFalse();
+            assertThat(busca.getRepeatedFieldCount(RESULTADO_BUSCA.findFieldByName("mensagens"))).isEqualTo(2);
+            assertThat(busca.getField(RESULTADO_BUSCA.findFieldByName("total"))).isEqualTo(57L);
+            assertThat(busca.getField(RESULTADO_BUSCA.findFieldByName("pagina"))).isEqualTo(2);
+            assertThat(busca.getField(RESULTADO_BUSCA.findFieldByName("tamanho"))).isEqualTo(2);
+        }
+    }
+
+    private static FileDescriptor esquema() {
+        var mensagem = DescriptorProto.newBuilder().setName("Mensagem");
+        opcional(mensagem, "id", 1, FieldDescriptorProto.Type.TYPE_BYTES, null);
+        opcional(mensagem, "usuario", 2, FieldDescriptorProto.Type.TYPE_STRING, null);
+        opcional(mensagem, "conteudo", 3, FieldDescriptorProto.Type.TYPE_STRING, null);
+        opcional(mensagem, "data_criacao_mensagem", 4, FieldDescriptorProto.Type.TYPE_MESSAGE, ".google.protobuf.Timestamp");
+        opcional(mensagem, "gostei", 5, FieldDescriptorProto.Type.TYPE_INT32, null);
+        opcional(mensagem, "versao", 6, FieldDescriptorProto.Type.TYPE_INT64, null);
+
+        var feed = DescriptorProto.newBuilder().setName("FeedMensagens");
+        repetido(feed);
+        opcional(feed, "proximo_cursor", 2, FieldDescriptorProto.Type.TYPE_STRING, null);
+
+        var busca = DescriptorProto.newBuilder().setName("ResultadoBusca");
+        repetido(busca);
+        opcional(busca, "total", 2, FieldDescriptorProto.Type.TYPE_INT64, null);
+        opcional(busca, "pagina", 3, FieldDescriptorProto.Type.TYPE_INT32, null);
+        opcional(busca, "tamanho", 4, FieldDescriptorProto.Type.TYPE_INT32, null);
+
+        var arquivo = FileDescriptorProto.newBuilder()
+                .setName("mensagem.proto")
+                .setPackage("aula_testes_api")
+                .setSyntax("proto3")
+                .addDependency("google/protobuf/timestamp.proto")
+                .addMessageType(mensagem)
+                .addMessageType(feed)
+                .addMessageType(busca)
+                .build();
+        try {
+            return FileDescriptor.buildFrom(arquivo, new FileDescriptor[]{TimestampProto.getDescriptor()});
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Campo {@code optional} do proto3: um oneof sintético com um único campo.
+     */
+    private static void opcional(DescriptorProto.Builder mensagem, String nome, int numero,
+                                 FieldDescriptorProto.Type tipo, String nomeTipo) {
+        var campo = FieldDescriptorProto.newBuilder()
+                .setName(nome)
+                .setNumber(numero)
+                .setType(tipo)
+                .setLabel(FieldDescriptorProto.Label.LABEL_OPTIONAL)
+                .setProto3Optional(true)
+                .setOneofIndex(mensagem.getOneofDeclCount());
+        if (nomeTipo != null) {
+            campo.setTypeName(nomeTipo);
+        }
+        mensagem.addOneofDecl(OneofDescriptorProto.newBuilder().setName("_" + nome));
+        mensagem.addField(campo);
+    }
+
+    private static void repetido(DescriptorProto.Builder mensagem) {
+        mensagem.addField(FieldDescriptorProto.newBuilder()
+                .setName("mensagens")
+                .setNumber(1)
+                .setType(FieldDescriptorProto.Type.TYPE_MESSAGE)
+                .setTypeName(".aula_testes_api.Mensagem")
+                .setLabel(FieldDescriptorProto.Label.LABEL_REPEATED));
+    }
+}
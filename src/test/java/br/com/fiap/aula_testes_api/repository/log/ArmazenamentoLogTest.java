@@ -0,0 +1,220 @@
+package br.com.fiap.aula_testes_api.repository.log;
+
+import br.com.fiap.aula_testes_api.model.CursorMensagem;
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.utils.MensagemHelper;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ArmazenamentoLogTest {
+
+    private static final int TAMANHO_SEGMENTO = 4096;
+
+    @TempDir
+    Path diretorio;
+
+    private static Mensagem mensagem(int indice) {
+        var mensagem = MensagemHelper.gerarMensagem(42, indice, 3);
+        mensagem.setVersao(0L);
+        return mensagem;
+    }
+
+    private static List<UUID> ids(ArmazenamentoLog armazenamento, String usuario) {
+        return armazenamento.mensagens(armazenamento.chaves(usuario, null)).map(Mensagem::getId).toList();
+    }
+
+    @Nested
+    class Gravacao{
+
+        @Test
+        void devePermitirGravarEBuscar() {
+            try (var armazenamento = new ArmazenamentoLog(diretorio, TAMANHO_SEGMENTO)) {
+                var mensagem = mensagem(0);
+                armazenamento.gravar(mensagem);
+
+                assertThat(armazenamento.buscar(mensagem.getId())).contains(mensagem);
+                assertThat(armazenamento.buscar(UUID.randomUUID())).isEmpty();
+            }
+        }
+
+        @Test
+        void deveListarNaOrdemDoFeed_GeralEPorUsuario() {
+            try (var armazenamento = new ArmazenamentoLog(diretorio, TAMANHO_SEGMENTO)) {
+                var mensagens = new ArrayList<Mensagem>();
+                for (int i = 0; i < 30; i++) {
+                    mensagens.add(mensagem(i));
+                }
+                armazenamento.gravar(mensagens);
+
+                var esperados = mensagens.stream()
+                        .map(CursorMensagem::de)
+                        .sorted(CursorMensagem.ORDEM_FEED)
+                        .map(CursorMensagem::id)
+                        .toList();
+                assertThat(ids(armazenamento, null)).containsExactlyElementsOf(esperados);
+                var usuario = mensagens.get(0).getUsuario();
+                assertThat(ids(armazenamento, usuario)).containsExactlyElementsOf(mensagens.stream()
+                        .filter(mensagem -> mensagem.getUsuario().equals(usuario))
+                        .map(CursorMensagem::de)
+                        .sorted(CursorMensagem.ORDEM_FEED)
+                        .map(CursorMensagem::id)
+                        .toList());
+            }
+        }
+
+        @Test
+        void deveAtualizarIndices_QuandoUsuarioAlteradoERemovida() {
+            try (var armazenamento = new ArmazenamentoLog(diretorio, TAMANHO_SEGMENTO)) {
+                var mensagem = mensagem(0);
+                armazenamento.gravar(mensagem);
+
+                armazenamento.alterar(mensagem.getId(), atual -> atual.toBuilder().usuario("outro").build());
+
+                assertThat(ids(armazenamento, mensagem.getUsuario())).isEmpty();
+                assertThat(ids(armazenamento, "outro")).containsExactly(mensagem.getId());
+                assertThat(ids(armazenamento, null)).containsExactly(mensagem.getId());
+
+                assertThat(armazenamento.removerDevolvendo(mensagem.getId())).get()
+                        .extracting(Mensagem::getUsuario).isEqualTo("outro");
+                assertThat(armazenamento.remover(mensagem.getId())).isFalse();
+                assertThat(ids(armazenamento, "outro")).isEmpty();
+                assertThat(ids(armazenamento, null)).isEmpty();
+            }
+        }
+    }
+
+    @Nested
+    class Recuperacao{
+
+        @Test
+        void deveReconstruirIndices_AoReabrir() {
+            var mensagens = new ArrayList<Mensagem>();
+            try (var armazenamento = new ArmazenamentoLog(diretorio, TAMANHO_SEGMENTO)) {
+                // Mais de um segmento.
+                for (int i = 0; i < 100; i++) {
+                    mensagens.add(mensagem(i));
+                }
+                armazenamento.gravar(mensagens);
+                armazenamento.alterar(mensagens.get(1).getId(), atual -> atual.toBuilder().gostei(7).build());
+                armazenamento.remover(mensagens.get(2).getId());
+            }
+
+            try (var reaberto = new ArmazenamentoLog(diretorio, TAMANHO_SEGMENTO)) {
+                assertThat(reaberto.quantidade()).isEqualTo(99);
+                assertThat(reaberto.buscar(mensagens.get(0).getId())).contains(mensagens.get(0));
+                assertThat(reaberto.buscar(mensagens.get(1).getId())).get().extracting(Mensagem::getGostei).isEqualTo(7);
+                assertThat(reaberto.buscar(mensagens.get(2).getId())).isEmpty();
+            }
+        }
+
+        @Test
+        void deveDescartarRegistroIncompleto_NoFimDoLog() throws IOException {
+            var primeira = mensagem(0);
+            var segunda = mensagem(1);
+            try (var armazenamento = new ArmazenamentoLog(diretorio, TAMANHO_SEGMENTO)) {
+                armazenamento.gravar(primeira);
+                armazenamento.gravar(segunda);
+            }
+            // Simula uma queda no meio da segunda escrita: o corpo dela fica corrompido.
+            var tamanhoPrimeira = RegistroLog.gravacao(primeira).length;
+            try (var canal = FileChannel.open(diretorio.resolve("0000000001.log"), StandardOpenOption.WRITE)) {
+                canal.write(ByteBuffer.wrap(new byte[]{-1, -1, -1, -1}), tamanhoPrimeira + RegistroLog.CABECALHO + 20);
+            }
+
+            try (var reaberto = new ArmazenamentoLog(diretorio, TAMANHO_SEGMENTO)) {
+                assertThat(reaberto.buscar(primeira.getId())).contains(primeira);
+                assertThat(reaberto.buscar(segunda.getId())).isEmpty();
+
+                var terceira = mensagem(2);
+                reaberto.gravar(terceira);
+                assertThat(reaberto.buscar(terceira.getId())).contains(terceira);
+            }
+            try (var reaberto = new ArmazenamentoLog(diretorio, TAMANHO_SEGMENTO)) {
+                assertThat(reaberto.quantidade()).isEqualTo(2);
+            }
+        }
+    }
+
+    @Nested
+    class Compactacao{
+
+        @Test
+        void deveApagarSegmentos_MantendoMensagensVivasERemocoes() throws IOException {
+            var mensagens = new ArrayList<Mensagem>();
+            try (var armazenamento = new ArmazenamentoLog(diretorio, TAMANHO_SEGMENTO)) {
+                for (int i = 0; i < 100; i++) {
+                    mensagens.add(mensagem(i));
+                }
+                armazenamento.gravar(mensagens);
+                for (int i = 0; i < 100; i++) {
+                    if (i % 10 != 0) {
+                        armazenamento.remover(mensagens.get(i).getId());
+                    }
+                }
+                var segmentosAntes = quantidadeSegmentos();
+
+                assertThat(armazenamento.compactar(0.5)).isPositive();
+
+                assertThat(quantidadeSegmentos()).isLessThan(segmentosAntes);
+                assertThat(armazenamento.quantidade()).isEqualTo(10);
+            }
+
+            try (var reaberto = new ArmazenamentoLog(diretorio, TAMANHO_SEGMENTO)) {
+                assertThat(reaberto.quantidade()).isEqualTo(10);
+                for (int i = 0; i < 100; i++) {
+                    assertThat(reaberto.existe(mensagens.get(i).getId())).isEqualTo(i % 10 == 0);
+                }
+                assertThat(reaberto.buscar(mensagens.get(10).getId())).contains(mensagens.get(10));
+            }
+        }
+
+        @Test
+        void naoDevePerderMensagem_RegravadaDepoisDeRemovida() {
+            var regravada = mensagem(0);
+            var indice = 1;
+            try (var armazenamento = new ArmazenamentoLog(diretorio, TAMANHO_SEGMENTO)) {
+                for (; indice <= 40; indice++) {
+                    armazenamento.gravar(mensagem(indice));
+                }
+                armazenamento.gravar(regravada);
+                armazenamento.remover(regravada.getId());
+                for (; indice <= 80; indice++) {
+                    armazenamento.gravar(mensagem(indice));
+                    armazenamento.remover(mensagem(indice).getId());
+                }
+                armazenamento.gravar(regravada);
+                for (; indice <= 160; indice++) {
+                    armazenamento.gravar(mensagem(indice));
+                }
+
+                assertThat(armazenamento.compactar(0.5)).isPositive();
+
+                assertThat(armazenamento.buscar(regravada.getId())).contains(regravada);
+            }
+
+            try (var reaberto = new ArmazenamentoLog(diretorio, TAMANHO_SEGMENTO)) {
+                assertThat(reaberto.buscar(regravada.getId())).contains(regravada);
+                assertThat(reaberto.quantidade()).isEqualTo(121);
+            }
+        }
+
+        private long quantidadeSegmentos() throws IOException {
+            try (var arquivos = Files.list(diretorio)) {
+                return arquivos.count();
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package br.com.fiap.aula_testes_api.repository.log;
+
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.model.OperacaoLote;
+import br.com.fiap.aula_testes_api.model.StatusOperacao;
+import br.com.fiap.aula_testes_api.model.TipoOperacao;
+import br.com.fiap.aula_testes_api.repository.ArmazenamentoMensagens;
+import br.com.fiap.aula_testes_api.service.MensagemLoteService;
+import br.com.fiap.aula_testes_api.service.MensagemService;
+import br.com.fiap.aula_testes_api.utils.MensagemHelper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "mensagem.cache.tamanho-maximo=0")
+@AutoConfigureTestDatabase
+@ActiveProfiles("log")
+class MensagemRepositoryLogIT {
+
+    @TempDir
+    static Path diretorio;
+
+    @DynamicPropertySource
+    static void propriedades(DynamicPropertyRegistry registro) {
+        registro.add("mensagem.log.diretorio", diretorio::toString);
+        registro.add("mensagem.log.tamanho-segmento", () -> 1 << 16);
+    }
+
+    @Autowired
+    private ArmazenamentoMensagens armazenamentoMensagens;
+
+    @Autowired
+    private MensagemRepositoryLog mensagemRepository;
+
+    @Autowired
+    private MensagemService mensagemService;
+
+    @Autowired
+    private MensagemLoteService mensagemLoteService;
+
+    @AfterEach
+    void tearDown() {
+        mensagemRepository.deleteAll();
+    }
+
+    @Test
+    void deveUsarArmazenamentoEmLog_NoPerfilLog() {
+        assertThat(AopUtils.getTargetClass(armazenamentoMensagens)).isEqualTo(MensagemRepositoryLog.class);
+    }
+
+    @Test
+    void devePermitirCicloCompleto_PeloServico() {
+        var registrada = mensagemService.registrarMensagem(MensagemHelper.gerarMensagem());
+
+        var alteracao = MensagemHelper.gerarMensagem();
+        alteracao.setId(registrada.getId());
+        alteracao.setConteudo("conteúdo alterado");
+        mensagemService.alterarMensagem(registrada.getId(), alteracao, 0L);
+        mensagemService.registrarGostei(registrada.getId());
+
+        var buscada = mensagemService.buscarMensagem(registrada.getId());
+        assertThat(buscada.getConteudo()).isEqualTo("conteúdo alterado");
+        assertThat(buscada.getVersao()).isEqualTo(1L);
+        assertThat(mensagemService.listarFeed(null, 10).getContent())
+                .extracting(Mensagem::getId).containsExactly(registrada.getId());
+        assertThat(mensagemService.buscarPorTexto("alterado", 0, 10).mensagens())
+                .extracting(Mensagem::getId).containsExactly(registrada.getId());
+
+        assertThat(mensagemService.removerMensagem(registrada.getId())).isTrue();
+        assertThat(mensagemRepository.existsById(registrada.getId())).isFalse();
+    }
+
+    @Test
+    void devePermitirAlterarEmLote_GravandoAlteracao() {
+        var registrada = mensagemService.registrarMensagem(MensagemHelper.gerarMensagem());
+        var alteracao = MensagemHelper.gerarMensagem();
+        alteracao.setConteudo("alterado no lote");
+
+        var resultados = mensagemLoteService.processarLote(List.of(
+                new OperacaoLote(TipoOperacao.ALTERAR, registrada.getId(), alteracao)));
+
+        assertThat(resultados).extracting(r -> r.status()).containsExactly(StatusOperacao.SUCESSO);
+        var buscada = mensagemRepository.findById(registrada.getId()).orElseThrow();
+        assertThat(buscada.getConteudo()).isEqualTo("alterado no lote");
+        assertThat(buscada.getVersao()).isEqualTo(1L);
+    }
+}
@@ -0,0 +1,162 @@
+package br.com.fiap.aula_testes_api.repository.log;
+
+import br.com.fiap.aula_testes_api.model.CursorMensagem;
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.utils.MensagemHelper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MensagemRepositoryLogTest {
+
+    @TempDir
+    Path diretorio;
+
+    private MensagemRepositoryLog mensagemRepository;
+
+    @BeforeEach
+    void setUp() {
+        mensagemRepository = new MensagemRepositoryLog(new ArmazenamentoLog(diretorio, 1 << 16), 0.5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mensagemRepository.fechar();
+    }
+
+    private Mensagem registrar(String usuario, LocalDateTime data) {
+        var mensagem = MensagemHelper.gerarMensagem();
+        mensagem.setId(UUID.randomUUID());
+        mensagem.setUsuario(usuario);
+        mensagem.setDataCriacaoMensagem(data);
+        return mensagemRepository.save(mensagem);
+    }
+
+    @Nested
+    class Versao{
+
+        @Test
+        void deveIniciarEmZero_EIncrementarACadaSave() {
+            var mensagem = registrar("ana", LocalDateTime.now());
+            assertThat(mensagem.getVersao()).isZero();
+
+            var lida = mensagemRepository.findById(mensagem.getId()).orElseThrow();
+            lida.setConteudo("alterado");
+            mensagemRepository.save(lida);
+
+            assertThat(mensagemRepository.findById(mensagem.getId())).get()
+                    .extracting(Mensagem::getConteudo, Mensagem::getVersao)
+                    .containsExactly("alterado", 1L);
+        }
+
+        @Test
+        void deveGerarExcecao_QuandoSaveComVersaoDesatualizada() {
+            var mensagem = registrar("ana", LocalDateTime.now());
+            var primeira = mensagemRepository.findById(mensagem.getId()).orElseThrow();
+            var segunda = mensagemRepository.findById(mensagem.getId()).orElseThrow();
+            mensagemRepository.save(primeira);
+
+            assertThatThrownBy(() -> mensagemRepository.save(segunda))
+                    .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        }
+
+        @Test
+        void deveRecusarInsercao_DeIdExistente() {
+            var mensagem = registrar("ana", LocalDateTime.now());
+            var duplicada = MensagemHelper.gerarMensagem();
+            duplicada.setId(mensagem.getId());
+            duplicada.setConteudo("duplicada");
+
+            assertThatThrownBy(() -> mensagemRepository.inserir(duplicada))
+                    .isInstanceOf(DuplicateKeyException.class);
+            assertThat(mensagemRepository.findById(mensagem.getId())).get()
+                    .extracting(Mensagem::getConteudo)
+                    .isEqualTo(mensagem.getConteudo());
+        }
+
+        @Test
+        void deveAlterarParcialmente_SomenteNaVersaoEsperada() {
+            var mensagem = registrar("ana", LocalDateTime.now());
+
+            assertThat(mensagemRepository.alterarParcialmente(mensagem.getId(), null, "novo", 5L)).isEmpty();
+            assertThat(mensagemRepository.alterarParcialmente(mensagem.getId(), null, "novo", 0L)).get()
+                    .extracting(Mensagem::getConteudo, Mensagem::getVersao)
+                    .containsExactly(mensagem.getConteudo(), 0L);
+            assertThat(mensagemRepository.alterarParcialmente(UUID.randomUUID(), null, "novo", null)).isEmpty();
+
+            assertThat(mensagemRepository.findById(mensagem.getId())).get()
+                    .extracting(Mensagem::getUsuario, Mensagem::getConteudo, Mensagem::getVersao)
+                    .containsExactly("ana", "novo", 1L);
+        }
+
+        @Test
+        void deveSomarGostei_SemAlterarVersao() {
+            var mensagem = registrar("ana", LocalDateTime.now());
+
+            mensagemRepository.incrementarGostei(Map.of(mensagem.getId(), 3L));
+
+            assertThat(mensagemRepository.buscarVersao(mensagem.getId())).get()
+                    .extracting(versao -> versao.gostei(), versao -> versao.versao())
+                    .containsExactly(3L, 0L);
+        }
+    }
+
+    @Nested
+    class Consulta{
+
+        @Test
+        void deveListarFeed_APartirDoCursor() {
+            var agora = LocalDateTime.of(2024, 5, 1, 12, 0);
+            var antiga = registrar("ana", agora.minusMinutes(2));
+            var meio = registrar("bia", agora.minusMinutes(1));
+            var nova = registrar("ana", agora);
+
+            var primeira = mensagemRepository.listarFeed(PageRequest.ofSize(2));
+            assertThat(primeira.getContent()).extracting(Mensagem::getId).containsExactly(nova.getId(), meio.getId());
+            assertThat(primeira.hasNext()).isTrue();
+
+            var segunda = mensagemRepository.listarFeedApos(meio.getDataCriacaoMensagem(), meio.getId(), PageRequest.ofSize(2));
+            assertThat(segunda.getContent()).extracting(Mensagem::getId).containsExactly(antiga.getId());
+            assertThat(segunda.hasNext()).isFalse();
+
+            assertThat(mensagemRepository.listarPorUsuario("ana", PageRequest.ofSize(10)).getContent())
+                    .extracting(Mensagem::getId).containsExactly(nova.getId(), antiga.getId());
+        }
+
+        @Test
+        void deveListarERemoverExpiradas() {
+            var limite = LocalDateTime.of(2024, 5, 1, 12, 0);
+            var expiradaAna = registrar("ana", limite.minusDays(2));
+            var expiradaBia = registrar("bia", limite.minusDays(1));
+            registrar("ana", limite);
+            registrar("ana", limite.plusDays(1));
+
+            assertThat(mensagemRepository.listarExpiradas(limite, null, Set.of(), null, 10))
+                    .containsExactly(CursorMensagem.de(expiradaBia), CursorMensagem.de(expiradaAna));
+            assertThat(mensagemRepository.listarExpiradas(limite, null, Set.of("bia"), null, 10))
+                    .containsExactly(CursorMensagem.de(expiradaAna));
+            assertThat(mensagemRepository.listarExpiradas(limite, null, Set.of(), CursorMensagem.de(expiradaBia), 10))
+                    .containsExactly(CursorMensagem.de(expiradaAna));
+
+            assertThat(mensagemRepository.removerExpiradas(List.of(expiradaAna.getId(), expiradaBia.getId()), limite))
+                    .extracting(Mensagem::getUsuario)
+                    .containsExactlyInAnyOrder("ana", "bia");
+            assertThat(mensagemRepository.count()).isEqualTo(2);
+        }
+    }
+}
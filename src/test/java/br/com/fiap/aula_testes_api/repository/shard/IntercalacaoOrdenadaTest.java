@@ -0,0 +1,45 @@
+package br.com.fiap.aula_testes_api.repository.shard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IntercalacaoOrdenadaTest {
+
+    private static final List<List<Integer>> LISTAS = List.of(
+            List.of(9, 6, 3, 1),
+            List.of(),
+            List.of(8, 7, 2),
+            List.of(5, 4));
+
+    @Test
+    void deveIntercalarListasOrdenadas_NaMesmaOrdem() {
+        assertThat(IntercalacaoOrdenada.intercalar(LISTAS, Comparator.<Integer>reverseOrder(), 0, 100))
+                .containsExactly(9, 8, 7, 6, 5, 4, 3, 2, 1);
+    }
+
+    @Test
+    void deveDevolverSomenteAPaginaPedida() {
+        assertThat(IntercalacaoOrdenada.intercalar(LISTAS, Comparator.<Integer>reverseOrder(), 3, 4))
+                .containsExactly(6, 5, 4, 3);
+        assertThat(IntercalacaoOrdenada.intercalar(LISTAS, Comparator.<Integer>reverseOrder(), 8, 4))
+                .containsExactly(1);
+        assertThat(IntercalacaoOrdenada.intercalar(List.<List<Integer>>of(), Comparator.<Integer>reverseOrder(), 0, 4))
+                .isEmpty();
+    }
+
+    @Test
+    void deveLerSoUmElementoAdiante_DeCadaFonte() {
+        var primeira = List.of(3, 1).iterator();
+        var segunda = List.of(2, 0).iterator();
+        var intercalacao = new IntercalacaoOrdenada<>(List.of(primeira, segunda), Comparator.<Integer>reverseOrder());
+
+        assertThat(intercalacao.next()).isEqualTo(3);
+
+        assertThat(primeira.hasNext()).isFalse();
+        assertThat(segunda.next()).isZero();
+    }
+}
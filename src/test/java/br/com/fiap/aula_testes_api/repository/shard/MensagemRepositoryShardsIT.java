@@ -0,0 +1,107 @@
+package br.com.fiap.aula_testes_api.repository.shard;
+
+import br.com.fiap.aula_testes_api.model.CursorMensagem;
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.model.OperacaoLote;
+import br.com.fiap.aula_testes_api.model.StatusOperacao;
+import br.com.fiap.aula_testes_api.model.TipoOperacao;
+import br.com.fiap.aula_testes_api.repository.ArmazenamentoMensagens;
+import br.com.fiap.aula_testes_api.service.MensagemLoteService;
+import br.com.fiap.aula_testes_api.service.MensagemService;
+import br.com.fiap.aula_testes_api.utils.MensagemHelper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "mensagem.cache.tamanho-maximo=0",
+        "mensagem.shards.bancos[0].url=jdbc:h2:mem:shard-it-0;DB_CLOSE_DELAY=-1",
+        "mensagem.shards.bancos[1].url=jdbc:h2:mem:shard-it-1;DB_CLOSE_DELAY=-1",
+        "mensagem.shards.bancos[2].url=jdbc:h2:mem:shard-it-2;DB_CLOSE_DELAY=-1"})
+@AutoConfigureTestDatabase
+@ActiveProfiles("shards")
+class MensagemRepositoryShardsIT {
+
+    @Autowired
+    private ArmazenamentoMensagens armazenamentoMensagens;
+
+    @Autowired
+    private MensagemRepositoryShards mensagemRepository;
+
+    @Autowired
+    private MensagemService mensagemService;
+
+    @Autowired
+    private MensagemLoteService mensagemLoteService;
+
+    @AfterEach
+    void tearDown() {
+        mensagemRepository.deleteAll();
+    }
+
+    @Test
+    void deveUsarShards_NoPerfilShards() {
+        assertThat(AopUtils.getTargetClass(armazenamentoMensagens)).isEqualTo(MensagemRepositoryShards.class);
+    }
+
+    @Test
+    void devePermitirCicloCompleto_PeloServico() {
+        var registrada = mensagemService.registrarMensagem(MensagemHelper.gerarMensagem());
+
+        var alteracao = MensagemHelper.gerarMensagem();
+        alteracao.setId(registrada.getId());
+        alteracao.setConteudo("conteúdo alterado");
+        mensagemService.alterarMensagem(registrada.getId(), alteracao, 0L);
+        mensagemService.registrarGostei(registrada.getId());
+
+        var buscada = mensagemService.buscarMensagem(registrada.getId());
+        assertThat(buscada.getConteudo()).isEqualTo("conteúdo alterado");
+        assertThat(buscada.getVersao()).isEqualTo(1L);
+        assertThat(mensagemService.buscarPorTexto("alterado", 0, 10).mensagens())
+                .extracting(Mensagem::getId).containsExactly(registrada.getId());
+
+        assertThat(mensagemService.removerMensagem(registrada.getId())).isTrue();
+        assertThat(mensagemRepository.existsById(registrada.getId())).isFalse();
+    }
+
+    @Test
+    void deveListarMensagensDeTodosOsShards() {
+        var maisRecentes = IntStream.range(0, 12)
+                .mapToObj(i -> mensagemService.registrarMensagem(MensagemHelper.gerarMensagem()))
+                .map(CursorMensagem::de)
+                .sorted(CursorMensagem.ORDEM_FEED)
+                .map(CursorMensagem::id)
+                .limit(5)
+                .toList();
+
+        var pagina = mensagemService.listarMensagens(PageRequest.of(0, 5));
+
+        assertThat(pagina.getTotalElements()).isEqualTo(12);
+        assertThat(pagina.getContent()).extracting(Mensagem::getId).containsExactlyElementsOf(maisRecentes);
+    }
+
+    @Test
+    void devePermitirAlterarEmLote_GravandoAlteracao() {
+        var registrada = mensagemService.registrarMensagem(MensagemHelper.gerarMensagem());
+        var alteracao = MensagemHelper.gerarMensagem();
+        alteracao.setConteudo("alterado no lote");
+
+        var resultados = mensagemLoteService.processarLote(List.of(
+                new OperacaoLote(TipoOperacao.ALTERAR, registrada.getId(), alteracao)));
+
+        assertThat(resultados).extracting(r -> r.status()).containsExactly(StatusOperacao.SUCESSO);
+        var buscada = mensagemRepository.findById(registrada.getId()).orElseThrow();
+        assertThat(buscada.getConteudo()).isEqualTo("alterado no lote");
+        assertThat(buscada.getVersao()).isEqualTo(1L);
+    }
+}
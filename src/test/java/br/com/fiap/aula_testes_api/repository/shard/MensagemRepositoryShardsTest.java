@@ -0,0 +1,344 @@
+package br.com.fiap.aula_testes_api.repository.shard;
+
+import br.com.fiap.aula_testes_api.model.CursorMensagem;
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.model.TotalHora;
+import br.com.fiap.aula_testes_api.utils.MensagemHelper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MensagemRepositoryShardsTest {
+
+    private static final int SHARDS = 3;
+    private static final Comparator<Mensagem> ORDEM_FEED =
+            Comparator.comparing(CursorMensagem::de, CursorMensagem.ORDEM_FEED);
+
+    private List<JdbcTemplate> bancos;
+    private ExecutorService executor;
+    private MensagemRepositoryShards mensagemRepository;
+
+    @BeforeEach
+    void setUp() {
+        var prefixo = "shard-" + UUID.randomUUID() + "-";
+        var dataSources = IntStream.range(0, SHARDS)
+                .mapToObj(i -> new DriverManagerDataSource("jdbc:h2:mem:" + prefixo + i + ";DB_CLOSE_DELAY=-1"))
+                .toList();
+        bancos = dataSources.stream().map(JdbcTemplate::new).toList();
+        executor = Executors.newFixedThreadPool(SHARDS);
+        mensagemRepository = new MensagemRepositoryShards(dataSources, executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mensagemRepository.fechar();
+        bancos.forEach(banco -> banco.execute("SHUTDOWN"));
+    }
+
+    private Mensagem registrar(String usuario, LocalDateTime data) {
+        var mensagem = MensagemHelper.gerarMensagem();
+        mensagem.setId(UUID.randomUUID());
+        mensagem.setUsuario(usuario);
+        mensagem.setDataCriacaoMensagem(data);
+        return mensagemRepository.save(mensagem);
+    }
+
+    private List<Mensagem> registrarMassa(int quantidade) {
+        return IntStream.range(0, quantidade)
+                .mapToObj(i -> MensagemHelper.gerarMensagem(42, i, 3))
+                .peek(mensagemRepository::inserir)
+                .sorted(ORDEM_FEED)
+                .toList();
+    }
+
+    private long linhas(int shard, UUID id) {
+        return bancos.get(shard).queryForObject("SELECT COUNT(*) FROM mensagem WHERE id = ?", Long.class, id);
+    }
+
+    @Nested
+    class Roteamento{
+
+        @Test
+        void deveGravarCadaMensagem_SomenteNoSeuShard() {
+            var mensagens = registrarMassa(60);
+
+            for (var mensagem : mensagens) {
+                var shard = mensagemRepository.shard(mensagem.getId());
+                for (int i = 0; i < SHARDS; i++) {
+                    assertThat(linhas(i, mensagem.getId())).isEqualTo(i == shard ? 1 : 0);
+                }
+                assertThat(mensagemRepository.findById(mensagem.getId())).get()
+                        .extracting(Mensagem::getConteudo).isEqualTo(mensagem.getConteudo());
+            }
+            for (var banco : bancos) {
+                assertThat(banco.queryForObject("SELECT COUNT(*) FROM mensagem", Long.class)).isPositive();
+            }
+            assertThat(mensagemRepository.count()).isEqualTo(60);
+        }
+
+        @Test
+        void deveAlterarERemover_NoShardDaMensagem() {
+            var mensagem = registrar("ana", LocalDateTime.now());
+            var shard = mensagemRepository.shard(mensagem.getId());
+
+            assertThat(mensagemRepository.alterarParcialmente(mensagem.getId(), null, "novo", 0L)).get()
+                    .extracting(Mensagem::getConteudo)
+                    .isEqualTo(mensagem.getConteudo());
+            assertThat(bancos.get(shard).queryForObject("SELECT conteudo FROM mensagem WHERE id = ?",
+                    String.class, mensagem.getId())).isEqualTo("novo");
+
+            assertThat(mensagemRepository.removerDevolvendo(mensagem.getId())).isPresent();
+            assertThat(linhas(shard, mensagem.getId())).isZero();
+            assertThat(mensagemRepository.removerDevolvendo(mensagem.getId())).isEmpty();
+        }
+
+        @Test
+        void deveBuscarVariosIds_EmTodosOsShards() {
+            var mensagens = registrarMassa(20);
+            var ids = mensagens.stream().map(Mensagem::getId).toList();
+
+            assertThat(mensagemRepository.findAllById(ids)).extracting(Mensagem::getId)
+                    .containsExactlyInAnyOrderElementsOf(ids);
+        }
+    }
+
+    @Nested
+    class Versao{
+
+        @Test
+        void deveIniciarEmZero_EIncrementarACadaSave() {
+            var mensagem = registrar("ana", LocalDateTime.now());
+            assertThat(mensagem.getVersao()).isZero();
+
+            var lida = mensagemRepository.findById(mensagem.getId()).orElseThrow();
+            lida.setConteudo("alterado");
+            mensagemRepository.save(lida);
+
+            assertThat(mensagemRepository.findById(mensagem.getId())).get()
+                    .extracting(Mensagem::getConteudo, Mensagem::getVersao)
+                    .containsExactly("alterado", 1L);
+        }
+
+        @Test
+        void deveGerarExcecao_QuandoSaveComVersaoDesatualizada() {
+            var mensagem = registrar("ana", LocalDateTime.now());
+            var primeira = mensagemRepository.findById(mensagem.getId()).orElseThrow();
+            var segunda = mensagemRepository.findById(mensagem.getId()).orElseThrow();
+            mensagemRepository.save(primeira);
+
+            assertThatThrownBy(() -> mensagemRepository.save(segunda))
+                    .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        }
+
+        @Test
+        void deveGerarExcecao_QuandoInserirIdExistente() {
+            var mensagem = registrar("ana", LocalDateTime.now());
+
+            assertThatThrownBy(() -> mensagemRepository.inserir(mensagem.toBuilder().versao(null).build()))
+                    .isInstanceOf(DuplicateKeyException.class);
+        }
+
+        @Test
+        void deveInserirDireto_QuandoSaveSemVersao() {
+            var mensagem = registrar("ana", LocalDateTime.now());
+            var semVersao = mensagem.toBuilder().conteudo("sobrescrito").versao(null).build();
+
+            assertThatThrownBy(() -> mensagemRepository.save(semVersao))
+                    .isInstanceOf(DuplicateKeyException.class);
+            assertThat(mensagemRepository.findById(mensagem.getId())).get()
+                    .extracting(Mensagem::getConteudo, Mensagem::getVersao)
+                    .containsExactly(mensagem.getConteudo(), 0L);
+        }
+
+        @Test
+        void deveSomarGostei_SemAlterarVersao() {
+            var mensagens = IntStream.range(0, 10).mapToObj(i -> registrar("ana", LocalDateTime.now())).toList();
+
+            mensagemRepository.incrementarGostei(Map.of(mensagens.get(0).getId(), 3L, mensagens.get(1).getId(), 2L));
+
+            assertThat(mensagemRepository.buscarVersao(mensagens.get(0).getId())).get()
+                    .extracting(versao -> versao.gostei(), versao -> versao.versao())
+                    .containsExactly(3L, 0L);
+            assertThat(mensagemRepository.buscarVersao(mensagens.get(1).getId())).get()
+                    .extracting(versao -> versao.gostei()).isEqualTo(2L);
+        }
+    }
+
+    @Nested
+    class Transacao{
+
+        private TransactionTemplate transacao;
+
+        @BeforeEach
+        void setUp() {
+            transacao = new TransactionTemplate(new DataSourceTransactionManager(
+                    new DriverManagerDataSource("jdbc:h2:mem:principal-" + UUID.randomUUID())));
+        }
+
+        @Test
+        void deveDesfazerTodosOsShards_QuandoTransacaoDesfeita() {
+            var existente = registrar("ana", LocalDateTime.now());
+            var novas = new ArrayList<Mensagem>();
+
+            transacao.executeWithoutResult(status -> {
+                novas.addAll(registrarMassa(30));
+                mensagemRepository.removerDevolvendo(existente.getId());
+                // Dentro da transação as consultas enxergam o que ela já alterou.
+                assertThat(mensagemRepository.count()).isEqualTo(30);
+                status.setRollbackOnly();
+            });
+
+            assertThat(mensagemRepository.count()).isEqualTo(1);
+            assertThat(mensagemRepository.existsById(existente.getId())).isTrue();
+            assertThat(mensagemRepository.findAllById(novas.stream().map(Mensagem::getId).toList())).isEmpty();
+        }
+
+        @Test
+        void deveConfirmarTodosOsShards_NoCommit() {
+            var novas = transacao.execute(status -> registrarMassa(30));
+
+            assertThat(mensagemRepository.findAllById(novas.stream().map(Mensagem::getId).toList()))
+                    .hasSize(30);
+            for (var banco : bancos) {
+                assertThat(banco.queryForObject("SELECT COUNT(*) FROM mensagem", Long.class)).isPositive();
+            }
+        }
+    }
+
+    @Nested
+    class Listagem{
+
+        @Test
+        void deveIntercalarShards_NaOrdemDoFeed() {
+            var mensagens = registrarMassa(50);
+
+            var pagina = mensagemRepository.listarMensagens(PageRequest.of(2, 7));
+
+            assertThat(pagina.getContent()).extracting(Mensagem::getId)
+                    .containsExactlyElementsOf(mensagens.subList(14, 21).stream().map(Mensagem::getId).toList());
+            assertThat(pagina.getTotalElements()).isEqualTo(50);
+            assertThat(mensagemRepository.listarMensagens(PageRequest.of(7, 7)).getContent()).hasSize(1);
+        }
+
+        @Test
+        void devePercorrerFeed_PeloCursor() {
+            var mensagens = registrarMassa(25);
+
+            var lidas = new ArrayList<Mensagem>();
+            var fatia = mensagemRepository.listarFeed(PageRequest.ofSize(10));
+            lidas.addAll(fatia.getContent());
+            while (fatia.hasNext()) {
+                var ultima = lidas.get(lidas.size() - 1);
+                fatia = mensagemRepository.listarFeedApos(ultima.getDataCriacaoMensagem(), ultima.getId(),
+                        PageRequest.ofSize(10));
+                lidas.addAll(fatia.getContent());
+            }
+
+            assertThat(lidas).extracting(Mensagem::getId)
+                    .containsExactlyElementsOf(mensagens.stream().map(Mensagem::getId).toList());
+        }
+
+        @Test
+        void deveDesempatarPeloId_QuandoMesmaData() {
+            var agora = LocalDateTime.of(2024, 5, 1, 12, 0);
+            var mensagens = IntStream.range(0, 12).mapToObj(i -> registrar("ana", agora)).sorted(ORDEM_FEED).toList();
+
+            assertThat(mensagemRepository.listarPorUsuario("ana", PageRequest.ofSize(5)).getContent())
+                    .extracting(Mensagem::getId)
+                    .containsExactlyElementsOf(mensagens.subList(0, 5).stream().map(Mensagem::getId).toList());
+            var quinta = mensagens.get(4);
+            assertThat(mensagemRepository.listarPorUsuarioApos("ana", agora, quinta.getId(), PageRequest.ofSize(5))
+                    .getContent()).extracting(Mensagem::getId)
+                    .containsExactlyElementsOf(mensagens.subList(5, 10).stream().map(Mensagem::getId).toList());
+        }
+
+        @Test
+        void deveExportarTodosOsShards_NaOrdemDoFeed() {
+            var mensagens = registrarMassa(30);
+
+            try (var exportadas = mensagemRepository.exportarMensagens()) {
+                assertThat(exportadas.map(Mensagem::getId).toList())
+                        .containsExactlyElementsOf(mensagens.stream().map(Mensagem::getId).toList());
+            }
+            try (var conteudos = mensagemRepository.listarConteudos()) {
+                assertThat(conteudos.count()).isEqualTo(30);
+            }
+        }
+
+        @Test
+        void deveListarERemoverExpiradas() {
+            var limite = LocalDateTime.of(2024, 5, 1, 12, 0);
+            var expiradaAna = registrar("ana", limite.minusDays(2));
+            var expiradaBia = registrar("bia", limite.minusDays(1));
+            registrar("ana", limite);
+            registrar("ana", limite.plusDays(1));
+
+            assertThat(mensagemRepository.listarExpiradas(limite, null, Set.of(), null, 10))
+                    .containsExactly(CursorMensagem.de(expiradaBia), CursorMensagem.de(expiradaAna));
+            assertThat(mensagemRepository.listarExpiradas(limite, null, Set.of(), null, 1))
+                    .containsExactly(CursorMensagem.de(expiradaBia));
+            assertThat(mensagemRepository.listarExpiradas(limite, null, Set.of("bia"), null, 10))
+                    .containsExactly(CursorMensagem.de(expiradaAna));
+            assertThat(mensagemRepository.listarExpiradas(limite, null, Set.of(), CursorMensagem.de(expiradaBia), 10))
+                    .containsExactly(CursorMensagem.de(expiradaAna));
+
+            assertThat(mensagemRepository.removerExpiradas(List.of(expiradaAna.getId(), expiradaBia.getId()), limite))
+                    .extracting(Mensagem::getUsuario)
+                    .containsExactlyInAnyOrder("ana", "bia");
+            assertThat(mensagemRepository.count()).isEqualTo(2);
+        }
+    }
+
+    @Nested
+    class Estatisticas{
+
+        @Test
+        void deveRemoverDevolvendo_NoShardDaMensagem() {
+            var mensagem = registrar("ana", LocalDateTime.of(2024, 5, 1, 12, 0));
+
+            assertThat(mensagemRepository.removerDevolvendo(mensagem.getId())).get()
+                    .extracting(Mensagem::getUsuario, Mensagem::getDataCriacaoMensagem)
+                    .containsExactly("ana", mensagem.getDataCriacaoMensagem());
+            assertThat(linhas(mensagemRepository.shard(mensagem.getId()), mensagem.getId())).isZero();
+            assertThat(mensagemRepository.removerDevolvendo(mensagem.getId())).isEmpty();
+        }
+
+        @Test
+        void deveTotalizarPorHora_SomandoOsShards() {
+            var hora = LocalDateTime.of(2024, 5, 1, 12, 0);
+            var mensagens = new ArrayList<Mensagem>();
+            for (int i = 0; i < 30; i++) {
+                mensagens.add(registrar(i % 2 == 0 ? "ana" : "bia", hora.plusMinutes(i)));
+            }
+            registrar("ana", hora.minusMinutes(1));
+            mensagemRepository.incrementarGostei(Map.of(mensagens.get(0).getId(), 4L, mensagens.get(1).getId(), 1L));
+
+            assertThat(mensagemRepository.totalizarPorHora(hora)).containsExactlyInAnyOrder(
+                    new TotalHora("ana", hora, 15, 4),
+                    new TotalHora("bia", hora, 15, 1));
+            assertThat(mensagemRepository.totalizarPorHora(null)).hasSize(3);
+        }
+    }
+}
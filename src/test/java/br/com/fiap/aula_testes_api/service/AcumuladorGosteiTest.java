@@ -0,0 +1,121 @@
+package br.com.fiap.aula_testes_api.service;
+
+import br.com.fiap.aula_testes_api.repository.MensagemRepository;
+import br.com.fiap.aula_testes_api.service.estatisticas.AgregadosMensagens;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+class AcumuladorGosteiTest {
+
+    private AcumuladorGostei acumuladorGostei;
+
+    @Mock
+    private MensagemRepository mensagemRepository;
+
+    @Mock
+    private AgregadosMensagens agregadosMensagens;
+
+    AutoCloseable mock;
+
+    private final Map<UUID, Long> gravados = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        mock = MockitoAnnotations.openMocks(this);
+        acumuladorGostei = new AcumuladorGostei(mensagemRepository,
+                new CacheMensagem(100, Duration.ofMinutes(1), new SimpleMeterRegistry()), agregadosMensagens);
+        doAnswer(i -> {
+            Map<UUID, Long> incrementos = i.getArgument(0);
+            incrementos.forEach((id, quantidade) -> gravados.merge(id, quantidade, Long::sum));
+            return null;
+        }).when(mensagemRepository).incrementarGostei(anyMap());
+        when(agregadosMensagens.contabilizando(any())).thenAnswer(i -> i.<Supplier<?>>getArgument(0).get());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        mock.close();
+    }
+
+    @Test
+    void deveAcumularGostei_AteADescarga() {
+        var id = UUID.fromString("3f2e1d0c-9b8a-4765-8432-10fedcba9876");
+
+        acumuladorGostei.incrementar(id);
+        acumuladorGostei.incrementar(id);
+
+        assertThat(acumuladorGostei.pendentes(id)).isEqualTo(2);
+        verify(mensagemRepository, never()).incrementarGostei(anyMap());
+
+        acumuladorGostei.descarregar();
+
+        assertThat(acumuladorGostei.pendentes(id)).isZero();
+        assertThat(gravados).containsEntry(id, 2L);
+        verify(agregadosMensagens, times(1)).registrarGostei(Map.of(id, 2L));
+        verify(agregadosMensagens, times(1)).contabilizando(any());
+    }
+
+    @Test
+    void naoDeveGravar_QuandoNaoHaGosteiPendente() {
+        acumuladorGostei.descarregar();
+
+        verify(mensagemRepository, never()).incrementarGostei(anyMap());
+    }
+
+    @Test
+    void deveManterGostei_QuandoGravacaoFalhar() {
+        var id = UUID.fromString("7a6b5c4d-3e2f-4a1b-9c8d-7e6f5a4b3c2d");
+        acumuladorGostei.incrementar(id);
+        doThrow(new IllegalStateException("banco indisponível"))
+                .when(mensagemRepository).incrementarGostei(anyMap());
+
+        acumuladorGostei.descarregar();
+
+        assertThat(acumuladorGostei.pendentes(id)).isEqualTo(1);
+        verify(agregadosMensagens, never()).registrarGostei(anyMap());
+    }
+
+    @Test
+    void naoDevePerderGostei_ComDescargasConcorrentes() throws Exception {
+        var ids = new UUID[]{UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID()};
+        var threads = 8;
+        var gosteiPorThread = 20_000;
+        var executor = Executors.newFixedThreadPool(threads);
+        var fim = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < gosteiPorThread; i++) {
+                    acumuladorGostei.incrementar(ids[i % ids.length]);
+                }
+                fim.countDown();
+            });
+        }
+        while (!fim.await(1, TimeUnit.MILLISECONDS)) {
+            acumuladorGostei.descarregar();
+        }
+        executor.shutdown();
+        acumuladorGostei.encerrar();
+
+        assertThat(gravados.values().stream().mapToLong(Long::longValue).sum())
+                .isEqualTo((long) threads * gosteiPorThread);
+    }
+}
@@ -0,0 +1,186 @@
+package br.com.fiap.aula_testes_api.service;
+
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CacheTimelineUsuarioTest {
+
+    private static final int TAMANHO_BUFFER = 3;
+
+    private CacheTimelineUsuario cacheTimeline;
+
+    private final AtomicInteger cargas = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        cacheTimeline = new CacheTimelineUsuario(100, TAMANHO_BUFFER, Duration.ofMinutes(1), new SimpleMeterRegistry());
+    }
+
+    @Nested
+    class PrimeiraPagina {
+
+        @Test
+        void deveCarregarUmaVezECompletarPelaMemoria() {
+            var mensagens = mensagens(2, 1);
+
+            var primeira = cacheTimeline.primeiraPagina("ana", 3, carregar(mensagens));
+            var segunda = cacheTimeline.primeiraPagina("ana", 3, carregar(mensagens));
+
+            assertThat(primeira).get().satisfies(pagina -> assertThat(pagina.getContent()).isEqualTo(mensagens));
+            assertThat(segunda).get().satisfies(pagina -> assertThat(pagina.hasNext()).isFalse());
+            assertThat(cargas).hasValue(1);
+        }
+
+        @Test
+        void deveIndicarProximaPagina_QuandoUsuarioTemMaisMensagensQueOBuffer() {
+            var mensagens = mensagens(4, 3, 2, 1);
+
+            var pagina = cacheTimeline.primeiraPagina("ana", 3, carregar(mensagens));
+
+            assertThat(pagina).get().satisfies(slice -> {
+                assertThat(slice.getContent()).containsExactlyElementsOf(mensagens.subList(0, 3));
+                assertThat(slice.hasNext()).isTrue();
+            });
+        }
+
+        @Test
+        void naoDeveResponderPelaMemoria_QuandoPaginaMaiorQueOBuffer() {
+            assertThat(cacheTimeline.primeiraPagina("ana", TAMANHO_BUFFER + 1, carregar(mensagens(1))))
+                    .isEmpty();
+            assertThat(cargas).hasValue(0);
+        }
+
+        @Test
+        void deveDevolverCopias() {
+            var mensagens = mensagens(1);
+            cacheTimeline.primeiraPagina("ana", 1, carregar(mensagens))
+                    .orElseThrow().getContent().get(0).setConteudo("alterado fora do cache");
+
+            var pagina = cacheTimeline.primeiraPagina("ana", 1, carregar(mensagens)).orElseThrow();
+
+            assertThat(pagina.getContent().get(0).getConteudo()).isEqualTo("mensagem 1");
+        }
+    }
+
+    @Nested
+    class Escritas {
+
+        @Test
+        void deveIncluirMensagemNovaNoInicio_DescartandoAMaisAntiga() {
+            cacheTimeline.primeiraPagina("ana", 1, carregar(mensagens(3, 2, 1)));
+
+            var nova = mensagem(4);
+            cacheTimeline.adicionarAposCommit(List.of(nova));
+            var pagina = cacheTimeline.primeiraPagina("ana", 3, carregar(List.of())).orElseThrow();
+
+            assertThat(pagina.getContent()).extracting(Mensagem::getConteudo)
+                    .containsExactly("mensagem 4", "mensagem 3", "mensagem 2");
+            assertThat(pagina.hasNext()).isTrue();
+            assertThat(cargas).hasValue(1);
+        }
+
+        @Test
+        void deveManterOrdem_QuandoMensagemChegaForaDeOrdem() {
+            cacheTimeline.primeiraPagina("ana", 1, carregar(mensagens(5, 1)));
+
+            cacheTimeline.adicionarAposCommit(List.of(mensagem(3)));
+            cacheTimeline.adicionarAposCommit(List.of(mensagem(3)));
+            var pagina = cacheTimeline.primeiraPagina("ana", 3, carregar(List.of())).orElseThrow();
+
+            assertThat(pagina.getContent()).extracting(Mensagem::getConteudo)
+                    .containsExactly("mensagem 5", "mensagem 3", "mensagem 1");
+        }
+
+        @Test
+        void deveDesempatarComoOBanco_QuandoMesmaDataDeCriacao() {
+            var baixo = mensagem(5).toBuilder().id(new UUID(1, 0)).build();
+            var alto = mensagem(5).toBuilder().id(new UUID(Long.MIN_VALUE, 0)).conteudo("alto").build();
+            cacheTimeline.primeiraPagina("ana", 1, carregar(List.of(baixo, mensagem(1))));
+
+            cacheTimeline.adicionarAposCommit(List.of(alto));
+            var pagina = cacheTimeline.primeiraPagina("ana", 3, carregar(List.of())).orElseThrow();
+
+            // O id com o bit mais alto ligado é o maior sem sinal, como no ORDER BY id DESC do banco.
+            assertThat(pagina.getContent()).extracting(Mensagem::getConteudo)
+                    .containsExactly("alto", "mensagem 5", "mensagem 1");
+        }
+
+        @Test
+        void naoDeveCarregarBuffer_QuandoUsuarioInativo() {
+            cacheTimeline.adicionarAposCommit(List.of(mensagem(1)));
+
+            assertThat(cacheTimeline.contem("ana")).isFalse();
+        }
+
+        @Test
+        void deveRecarregar_QuandoInvalidado() {
+            cacheTimeline.primeiraPagina("ana", 1, carregar(mensagens(1)));
+
+            cacheTimeline.invalidarAposCommit(List.of("ana"));
+            cacheTimeline.primeiraPagina("ana", 1, carregar(mensagens(1)));
+
+            assertThat(cargas).hasValue(2);
+        }
+
+        @Test
+        void deveRecarregarSoOBufferComAMensagem_QuandoInvalidadoPeloId() {
+            cacheTimeline.primeiraPagina("ana", 1, carregar(mensagens(2, 1)));
+            cacheTimeline.primeiraPagina("bia", 1, carregar(List.of(mensagem(3).toBuilder().usuario("bia").build())));
+
+            cacheTimeline.invalidarMensagensAposCommit(List.of(new UUID(0, 1)));
+
+            assertThat(cacheTimeline.contem("ana")).isFalse();
+            assertThat(cacheTimeline.contem("bia")).isTrue();
+        }
+
+        @Test
+        void deveManterAsMaisRecentes_ComMuitasInsercoes() {
+            cacheTimeline.primeiraPagina("ana", 1, carregar(List.of()));
+
+            IntStream.rangeClosed(1, 50).forEach(minuto -> cacheTimeline.adicionarAposCommit(List.of(mensagem(minuto))));
+            var pagina = cacheTimeline.primeiraPagina("ana", 3, carregar(List.of())).orElseThrow();
+
+            assertThat(pagina.getContent()).extracting(Mensagem::getConteudo)
+                    .containsExactly("mensagem 50", "mensagem 49", "mensagem 48");
+        }
+    }
+
+    private Function<Integer, List<Mensagem>> carregar(List<Mensagem> mensagens) {
+        return quantidade -> {
+            cargas.incrementAndGet();
+            assertThat(quantidade).isEqualTo(TAMANHO_BUFFER + 1);
+            return mensagens.subList(0, Math.min(quantidade, mensagens.size()));
+        };
+    }
+
+    private static List<Mensagem> mensagens(int... minutos) {
+        var mensagens = new ArrayList<Mensagem>();
+        for (int minuto : minutos) {
+            mensagens.add(mensagem(minuto));
+        }
+        return mensagens;
+    }
+
+    private static Mensagem mensagem(int minuto) {
+        return Mensagem.builder()
+                .id(new UUID(0, minuto))
+                .usuario("ana")
+                .conteudo("mensagem " + minuto)
+                .dataCriacaoMensagem(LocalDateTime.of(2024, 1, 1, 10, minuto))
+                .build();
+    }
+}
@@ -0,0 +1,68 @@
+package br.com.fiap.aula_testes_api.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpMethod;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Exporta a tabela inteira por HTTP e confere que todas as linhas chegam. Para validar o uso
+ * constante de memória, rode com muitas linhas e heap pequeno, por exemplo:
+ * {@code ./mvnw test -Dtest=ExportacaoMensagensIT -Dexportacao.linhas=3000000 -DargLine=-Xmx96m}
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:file:./target/exportacao-it;MAX_MEMORY_ROWS=1000",
+        "mensagem.cache.tamanho-maximo=0"
+})
+class ExportacaoMensagensIT {
+
+    private static final int LINHAS = Integer.getInteger("exportacao.linhas", 50_000);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void devePermitirExportarTodasAsMensagens_EmNdjson() {
+        popular(LINHAS);
+
+        long linhasRecebidas = restTemplate.execute("/mensagens/export", HttpMethod.GET, null, resposta -> {
+            try (var leitor = new BufferedReader(
+                    new InputStreamReader(resposta.getBody(), StandardCharsets.UTF_8))) {
+                return leitor.lines()
+                        .filter(linha -> linha.startsWith("{") && linha.endsWith("}"))
+                        .count();
+            }
+        });
+
+        assertThat(linhasRecebidas).isEqualTo(LINHAS);
+    }
+
+    private void popular(int quantidade) {
+        var inicio = LocalDateTime.of(2024, 1, 1, 0, 0);
+        var lote = new ArrayList<Object[]>(5_000);
+        for (int i = 0; i < quantidade; i++) {
+            lote.add(new Object[]{UUID.randomUUID(), "usuario" + (i % 100), "conteúdo " + i,
+                    Timestamp.valueOf(inicio.plusNanos(i * 1_000L)), 0});
+            if (lote.size() == 5_000 || i == quantidade - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO mensagem (id, usuario, conteudo, data_criacao_mensagem, gostei, versao) "
+                        + "VALUES (?, ?, ?, ?, ?, 0)", lote);
+                lote.clear();
+            }
+        }
+    }
+}
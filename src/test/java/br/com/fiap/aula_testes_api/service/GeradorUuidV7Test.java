@@ -0,0 +1,64 @@
+package br.com.fiap.aula_testes_api.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GeradorUuidV7Test {
+
+    private static final Instant INSTANTE = Instant.parse("2024-08-20T12:00:00.123Z");
+
+    @Test
+    void deveGerarUuidVersao7_ComTimestampEmMilissegundos(){
+        var gerador = new GeradorUuidV7(Clock.fixed(INSTANTE, ZoneOffset.UTC));
+
+        var id = gerador.gerar();
+
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+        assertThat(id.getMostSignificantBits() >>> 16).isEqualTo(INSTANTE.toEpochMilli());
+    }
+
+    @Test
+    void deveGerarIdsCrescentes_NoMesmoMilissegundo(){
+        var gerador = new GeradorUuidV7(Clock.fixed(INSTANTE, ZoneOffset.UTC));
+
+        var ids = new ArrayList<UUID>();
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(gerador.gerar());
+        }
+
+        for (int i = 1; i < ids.size(); i++) {
+            assertThat(Long.compareUnsigned(ids.get(i).getMostSignificantBits(),
+                    ids.get(i - 1).getMostSignificantBits())).isPositive();
+        }
+    }
+
+    @Test
+    void deveGerarIdsUnicos_ComVariasThreads() throws Exception {
+        var gerador = new GeradorUuidV7();
+        var ids = ConcurrentHashMap.<UUID>newKeySet();
+        var executor = Executors.newFixedThreadPool(8);
+
+        for (int t = 0; t < 8; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    ids.add(gerador.gerar());
+                }
+            });
+        }
+        executor.shutdown();
+
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(ids).hasSize(80_000);
+    }
+}
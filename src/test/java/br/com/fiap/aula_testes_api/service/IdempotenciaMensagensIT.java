@@ -0,0 +1,117 @@
+package br.com.fiap.aula_testes_api.service;
+
+import br.com.fiap.aula_testes_api.exception.ChaveIdempotenciaReutilizadaException;
+import br.com.fiap.aula_testes_api.exception.MensagemNotFoundException;
+import br.com.fiap.aula_testes_api.repository.MensagemRepository;
+import br.com.fiap.aula_testes_api.utils.MensagemHelper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "mensagem.busca.reconstruir-na-inicializacao=false")
+@AutoConfigureTestDatabase
+class IdempotenciaMensagensIT {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MensagemRepository mensagemRepository;
+
+    @Autowired
+    private MensagemService mensagemService;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM chave_idempotencia");
+        jdbcTemplate.update("DELETE FROM mensagem");
+    }
+
+    private IdempotenciaMensagens no(Duration validade) {
+        return new IdempotenciaMensagens(100, validade, Duration.ofSeconds(5), true,
+                jdbcTemplate, transactionManager, mensagemRepository, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void deveRepetirEntreNos_SemRegistrarNovamente() {
+        var noA = no(Duration.ofMinutes(1));
+        var noB = no(Duration.ofMinutes(1));
+        var registros = new AtomicInteger();
+        var mensagem = MensagemHelper.gerarMensagem();
+
+        var original = noA.registrar("chave-1", mensagem, () -> {
+            registros.incrementAndGet();
+            return mensagemService.registrarMensagem(mensagem);
+        }).join();
+        var repetida = noB.registrar("chave-1", MensagemHelper.gerarMensagem(), () -> {
+            registros.incrementAndGet();
+            return mensagemService.registrarMensagem(MensagemHelper.gerarMensagem());
+        }).join();
+
+        assertThat(registros).hasValue(1);
+        assertThat(repetida.getId()).isEqualTo(original.getId());
+        assertThat(mensagemRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void deveDesfazerChave_QuandoRegistroFalha() {
+        var noA = no(Duration.ofMinutes(1));
+        var mensagem = MensagemHelper.gerarMensagem();
+
+        assertThatThrownBy(() -> noA.registrar("chave-1", mensagem, () -> {
+            throw new IllegalStateException("falha no registro");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM chave_idempotencia", Long.class)).isZero();
+    }
+
+    @Test
+    void deveGerarExcecao_QuandoChaveUsadaComOutraMensagemEmOutroNo() {
+        var mensagem = MensagemHelper.gerarMensagem();
+        no(Duration.ofMinutes(1)).registrar("chave-1", mensagem, () -> mensagemService.registrarMensagem(mensagem));
+        var outra = MensagemHelper.gerarMensagem();
+        outra.setConteudo("outro conteúdo");
+
+        assertThatThrownBy(() -> no(Duration.ofMinutes(1))
+                .registrar("chave-1", outra, () -> mensagemService.registrarMensagem(outra)))
+                .isInstanceOf(ChaveIdempotenciaReutilizadaException.class);
+    }
+
+    @Test
+    void deveGerarExcecao_QuandoMensagemDaChaveRemovida() {
+        var mensagem = MensagemHelper.gerarMensagem();
+        var registrada = no(Duration.ofMinutes(1))
+                .registrar("chave-1", mensagem, () -> mensagemService.registrarMensagem(mensagem)).join();
+        mensagemService.removerMensagem(registrada.getId());
+
+        assertThatThrownBy(() -> no(Duration.ofMinutes(1))
+                .registrar("chave-1", MensagemHelper.gerarMensagem(), MensagemHelper::gerarMensagem))
+                .isInstanceOf(MensagemNotFoundException.class);
+    }
+
+    @Test
+    void deveExpurgarChavesExpiradas() {
+        var noA = no(Duration.ofMinutes(1));
+        var mensagem = MensagemHelper.gerarMensagem();
+        noA.registrar("chave-1", mensagem, () -> mensagemService.registrarMensagem(mensagem));
+        jdbcTemplate.update("UPDATE chave_idempotencia SET expira_em = DATEADD('MINUTE', -1, CURRENT_TIMESTAMP)");
+
+        noA.expurgarExpiradas();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM chave_idempotencia", Long.class)).isZero();
+    }
+}
@@ -0,0 +1,216 @@
+package br.com.fiap.aula_testes_api.service;
+
+import br.com.fiap.aula_testes_api.exception.ChaveIdempotenciaReutilizadaException;
+import br.com.fiap.aula_testes_api.exception.RequisicaoEmAndamentoException;
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.repository.MensagemRepository;
+import br.com.fiap.aula_testes_api.utils.MensagemHelper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class IdempotenciaMensagensTest {
+
+    private IdempotenciaMensagens idempotencia;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private MensagemRepository mensagemRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    AutoCloseable mock;
+
+    @BeforeEach
+    void setUp() {
+        mock = MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        idempotencia = new IdempotenciaMensagens(100, Duration.ofMinutes(1), Duration.ofMillis(200), false,
+                jdbcTemplate, transactionManager, mensagemRepository, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        mock.close();
+    }
+
+    private static Mensagem registrada(Mensagem mensagem) {
+        var copia = mensagem.toBuilder().build();
+        copia.setId(UUID.randomUUID());
+        return copia;
+    }
+
+    @Nested
+    class Repeticao{
+
+        @Test
+        void deveDevolverMesmaMensagem_SemRegistrarNovamente() {
+            var mensagem = MensagemHelper.gerarMensagem();
+            var registros = new AtomicInteger();
+
+            var original = idempotencia.registrar("chave-1", mensagem, () -> {
+                registros.incrementAndGet();
+                return registrada(mensagem);
+            }).join();
+            var repetida = idempotencia.registrar("chave-1", MensagemHelper.gerarMensagem(), () -> {
+                registros.incrementAndGet();
+                return registrada(mensagem);
+            }).join();
+
+            assertThat(registros).hasValue(1);
+            assertThat(repetida.getId()).isEqualTo(original.getId());
+            assertThat(repetida).isNotSameAs(original);
+            assertThat(meterRegistry.counter("mensagem.idempotencia.repeticoes").count()).isEqualTo(1);
+            verifyNoInteractions(jdbcTemplate, mensagemRepository);
+        }
+
+        @Test
+        void deveRegistrarUmaVez_QuandoRepeticoesSimultaneas() throws Exception {
+            var mensagem = MensagemHelper.gerarMensagem();
+            var registros = new AtomicInteger();
+            var liberar = new CountDownLatch(1);
+            var executor = Executors.newFixedThreadPool(8);
+            try {
+                var futuros = new ArrayList<Future<Mensagem>>();
+                for (int i = 0; i < 8; i++) {
+                    futuros.add(executor.submit(() -> idempotencia.registrar("chave-1", mensagem, () -> {
+                        registros.incrementAndGet();
+                        try {
+                            liberar.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return registrada(mensagem);
+                    }).join()));
+                }
+                Thread.sleep(50);
+                liberar.countDown();
+
+                var ids = new ArrayList<UUID>();
+                for (var futuro : futuros) {
+                    ids.add(futuro.get(5, TimeUnit.SECONDS).getId());
+                }
+                assertThat(registros).hasValue(1);
+                assertThat(ids).containsOnly(ids.get(0));
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        @Test
+        void deveDevolverFuturoPendente_QuandoOriginalEmAndamento() throws Exception {
+            var mensagem = MensagemHelper.gerarMensagem();
+            var liberar = new CountDownLatch(1);
+            var executor = Executors.newSingleThreadExecutor();
+            try {
+                var registrando = new CountDownLatch(1);
+                var original = executor.submit(() -> idempotencia.registrar("chave-1", mensagem, () -> {
+                    registrando.countDown();
+                    try {
+                        liberar.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return registrada(mensagem);
+                }).join());
+                registrando.await(5, TimeUnit.SECONDS);
+
+                var repetida = idempotencia.registrar("chave-1", mensagem, () -> registrada(mensagem));
+
+                assertThat(repetida).isNotDone();
+                liberar.countDown();
+                assertThat(repetida.get(5, TimeUnit.SECONDS).getId())
+                        .isEqualTo(original.get(5, TimeUnit.SECONDS).getId());
+            } finally {
+                liberar.countDown();
+                executor.shutdownNow();
+            }
+        }
+
+        @Test
+        void deveFalharRepeticao_QuandoOriginalNaoTerminaNoPrazo() throws Exception {
+            var mensagem = MensagemHelper.gerarMensagem();
+            var liberar = new CountDownLatch(1);
+            var executor = Executors.newSingleThreadExecutor();
+            try {
+                var registrando = new CountDownLatch(1);
+                var original = executor.submit(() -> idempotencia.registrar("chave-1", mensagem, () -> {
+                    registrando.countDown();
+                    try {
+                        liberar.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return registrada(mensagem);
+                }).join());
+                registrando.await(5, TimeUnit.SECONDS);
+
+                assertThat(idempotencia.registrar("chave-1", mensagem, () -> registrada(mensagem)))
+                        .failsWithin(Duration.ofSeconds(5))
+                        .withThrowableOfType(ExecutionException.class)
+                        .withCauseInstanceOf(RequisicaoEmAndamentoException.class);
+
+                liberar.countDown();
+                var registrada = original.get(5, TimeUnit.SECONDS);
+                assertThat(idempotencia.registrar("chave-1", mensagem, () -> registrada(mensagem)).join().getId())
+                        .isEqualTo(registrada.getId());
+            } finally {
+                liberar.countDown();
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    @Nested
+    class Falha{
+
+        @Test
+        void deveGerarExcecao_QuandoChaveUsadaComOutraMensagem() {
+            var mensagem = MensagemHelper.gerarMensagem();
+            idempotencia.registrar("chave-1", mensagem, () -> registrada(mensagem)).join();
+            var outra = MensagemHelper.gerarMensagem();
+            outra.setConteudo("outro conteúdo");
+
+            assertThatThrownBy(() -> idempotencia.registrar("chave-1", outra, () -> registrada(outra)))
+                    .isInstanceOf(ChaveIdempotenciaReutilizadaException.class)
+                    .hasMessage("Chave de idempotência já usada com outra mensagem");
+        }
+
+        @Test
+        void deveLiberarChave_QuandoRegistroFalha() {
+            var mensagem = MensagemHelper.gerarMensagem();
+
+            assertThatThrownBy(() -> idempotencia.registrar("chave-1", mensagem, () -> {
+                throw new IllegalStateException("banco indisponível");
+            })).isInstanceOf(IllegalStateException.class);
+
+            var registradaNaSegunda = idempotencia.registrar("chave-1", mensagem, () -> registrada(mensagem)).join();
+            assertThat(registradaNaSegunda.getId()).isNotNull();
+        }
+    }
+}
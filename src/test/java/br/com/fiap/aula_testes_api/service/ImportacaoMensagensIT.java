@@ -0,0 +1,44 @@
+package br.com.fiap.aula_testes_api.service;
+
+import br.com.fiap.aula_testes_api.model.ResultadoImportacao;
+import br.com.fiap.aula_testes_api.repository.MensagemRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ImportacaoMensagensIT {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private MensagemRepository mensagemRepository;
+
+    @Test
+    void devePermitirImportarMensagens_EmVariosLotes() {
+        var totalAntes = mensagemRepository.count();
+        var ndjson = new StringBuilder();
+        for (int i = 0; i < 1_234; i++) {
+            ndjson.append("{\"usuario\":\"usuario").append(i % 10)
+                    .append("\",\"conteudo\":\"mensagem ").append(i).append("\"}\n");
+        }
+        ndjson.append("{\"usuario\":\"sem conteúdo\"}\n");
+        var cabecalhos = new HttpHeaders();
+        cabecalhos.setContentType(MediaType.APPLICATION_NDJSON);
+
+        var resultado = restTemplate.postForObject("/mensagens/import",
+                new HttpEntity<>(ndjson.toString(), cabecalhos), ResultadoImportacao.class);
+
+        assertThat(resultado.aceitas()).isEqualTo(1_234);
+        assertThat(resultado.rejeitadas()).isEqualTo(1);
+        assertThat(resultado.erros().get(0).linha()).isEqualTo(1_235);
+        assertThat(mensagemRepository.count()).isEqualTo(totalAntes + 1_234);
+    }
+}
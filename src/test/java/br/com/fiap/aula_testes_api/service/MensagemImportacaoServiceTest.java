@@ -0,0 +1,137 @@
+package br.com.fiap.aula_testes_api.service;
+
+import br.com.fiap.aula_testes_api.exception.LinhaMuitoLongaException;
+import br.com.fiap.aula_testes_api.model.LinhaRejeitada;
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.repository.MensagemRepository;
+import br.com.fiap.aula_testes_api.service.busca.IndiceMensagens;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class MensagemImportacaoServiceTest {
+
+    private MensagemImportacaoService mensagemImportacaoService;
+
+    @Mock
+    private MensagemRepository mensagemRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    AutoCloseable mock;
+
+    @BeforeEach
+    void setUp() {
+        mock = MockitoAnnotations.openMocks(this);
+        mensagemImportacaoService = new MensagemImportacaoServiceImpl(mensagemRepository, new GeradorUuidV7(),
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                new IndiceMensagens(mensagemRepository, transactionManager, false),
+                new CacheTimelineUsuario(100, 10, Duration.ofMinutes(1), new SimpleMeterRegistry()), transactionManager,
+                new ObjectMapper().registerModule(new JavaTimeModule()), 2, 64);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        mock.close();
+    }
+
+    @Test
+    void devePermitirImportarMensagens_EmLotes() throws Exception {
+        var ndjson = """
+                {"usuario":"Ana","conteudo":"primeira"}
+                {"usuario":"Bia","conteudo":"segunda"}
+
+                {"usuario":"Caio","conteudo":"terceira"}
+                """;
+
+        var resultado = mensagemImportacaoService.importarMensagens(corpo(ndjson));
+
+        assertThat(resultado.aceitas()).isEqualTo(3);
+        assertThat(resultado.rejeitadas()).isZero();
+        verify(mensagemRepository, times(3)).inserir(any(Mensagem.class));
+        verify(mensagemRepository, times(2)).limparContexto();
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void deveRejeitarLinhas_InvalidasComNumeroDaLinha() throws Exception {
+        var ndjson = """
+                {"usuario":"Ana","conteudo":"válida"}
+                {"usuario":"Bia",
+                {"usuario":"","conteudo":"sem usuário"}
+                {"usuario":"Caio","conteudo":"válida"}
+                """;
+
+        var resultado = mensagemImportacaoService.importarMensagens(corpo(ndjson));
+
+        assertThat(resultado.aceitas()).isEqualTo(2);
+        assertThat(resultado.rejeitadas()).isEqualTo(2);
+        assertThat(resultado.erros())
+                .extracting(LinhaRejeitada::linha)
+                .containsExactly(2L, 3L);
+        assertThat(resultado.erros().get(1).erro()).isEqualTo("Usuário não pode estar vazio");
+        verify(mensagemRepository, times(2)).inserir(any(Mensagem.class));
+    }
+
+    @Test
+    void deveRejeitarLote_QuandoGravacaoFalhar() throws Exception {
+        doThrow(new IllegalStateException("banco indisponível")).when(mensagemRepository).limparContexto();
+        var ndjson = """
+                {"usuario":"Ana","conteudo":"primeira"}
+                {"usuario":"Bia","conteudo":"segunda"}
+                """;
+
+        var resultado = mensagemImportacaoService.importarMensagens(corpo(ndjson));
+
+        assertThat(resultado.aceitas()).isZero();
+        assertThat(resultado.rejeitadas()).isEqualTo(2);
+        assertThat(resultado.erros()).extracting(LinhaRejeitada::linha).containsExactly(1L, 2L);
+        verify(transactionManager, times(1)).rollback(any());
+    }
+
+    @Test
+    void deveAceitarFinsDeLinhaWindows_ESemQuebraNoFim() throws Exception {
+        var ndjson = "{\"usuario\":\"Ana\",\"conteudo\":\"primeira\"}\r\n{\"usuario\":\"Bia\",\"conteudo\":\"segunda\"}";
+
+        var resultado = mensagemImportacaoService.importarMensagens(corpo(ndjson));
+
+        assertThat(resultado.aceitas()).isEqualTo(2);
+        assertThat(resultado.rejeitadas()).isZero();
+    }
+
+    @Test
+    void deveGerarExcecao_QuandoLinhaExcederOLimite() {
+        var ndjson = """
+                {"usuario":"Ana","conteudo":"primeira"}
+                {"usuario":"Bia","conteudo":"segunda"}
+                {"usuario":"Caio","conteudo":"%s"}
+                {"usuario":"Duda","conteudo":"quarta"}
+                """.formatted("x".repeat(100));
+
+        assertThatThrownBy(() -> mensagemImportacaoService.importarMensagens(corpo(ndjson)))
+                .isInstanceOf(LinhaMuitoLongaException.class)
+                .hasMessage("Linha 3 excede 64 caracteres; 2 mensagens anteriores já foram importadas");
+        verify(mensagemRepository, times(2)).inserir(any(Mensagem.class));
+    }
+
+    private static ByteArrayInputStream corpo(String ndjson) {
+        return new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8));
+    }
+}
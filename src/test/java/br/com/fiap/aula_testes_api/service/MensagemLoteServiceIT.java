@@ -0,0 +1,72 @@
+package br.com.fiap.aula_testes_api.service;
+
+import br.com.fiap.aula_testes_api.model.OperacaoLote;
+import br.com.fiap.aula_testes_api.model.StatusOperacao;
+import br.com.fiap.aula_testes_api.model.TipoOperacao;
+import br.com.fiap.aula_testes_api.repository.MensagemRepository;
+import br.com.fiap.aula_testes_api.utils.MensagemHelper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase
+class MensagemLoteServiceIT {
+
+    @Autowired
+    private MensagemLoteService mensagemLoteService;
+
+    @Autowired
+    private MensagemRepository mensagemRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void devePermitirProcessarLote_InserindoSemSelectPrevio() {
+        var estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        var operacoes = IntStream.range(0, 10)
+                .mapToObj(i -> new OperacaoLote(TipoOperacao.CRIAR, null, MensagemHelper.gerarMensagem()))
+                .toList();
+        estatisticas.clear();
+
+        var resultados = mensagemLoteService.processarLote(operacoes);
+
+        assertThat(resultados).extracting(r -> r.status()).containsOnly(StatusOperacao.SUCESSO);
+        assertThat(estatisticas.getEntityInsertCount()).isEqualTo(10);
+        assertThat(estatisticas.getEntityLoadCount()).isZero();
+        assertThat(estatisticas.getTransactionCount()).isEqualTo(1);
+        resultados.forEach(resultado -> assertThat(mensagemRepository.existsById(resultado.id())).isTrue());
+    }
+
+    @Test
+    void devePermitirProcessarLote_AlterandoRemovendoECurtindo() {
+        var criados = mensagemLoteService.processarLote(IntStream.range(0, 2)
+                .mapToObj(i -> new OperacaoLote(TipoOperacao.CRIAR, null, MensagemHelper.gerarMensagem()))
+                .toList());
+        var idAlterado = criados.get(0).id();
+        var idRemovido = criados.get(1).id();
+        var alteracao = MensagemHelper.gerarMensagem();
+        alteracao.setConteudo("conteúdo sincronizado");
+
+        var resultados = mensagemLoteService.processarLote(List.of(
+                new OperacaoLote(TipoOperacao.ALTERAR, idAlterado, alteracao),
+                new OperacaoLote(TipoOperacao.GOSTEI, idAlterado, null),
+                new OperacaoLote(TipoOperacao.GOSTEI, idAlterado, null),
+                new OperacaoLote(TipoOperacao.REMOVER, idRemovido, null)));
+
+        assertThat(resultados).extracting(r -> r.status()).containsOnly(StatusOperacao.SUCESSO);
+        var alterada = mensagemRepository.findById(idAlterado).orElseThrow();
+        assertThat(alterada.getConteudo()).isEqualTo("conteúdo sincronizado");
+        assertThat(alterada.getGostei()).isEqualTo(2);
+        assertThat(mensagemRepository.existsById(idRemovido)).isFalse();
+    }
+}
@@ -0,0 +1,150 @@
+package br.com.fiap.aula_testes_api.service;
+
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.model.OperacaoLote;
+import br.com.fiap.aula_testes_api.model.StatusOperacao;
+import br.com.fiap.aula_testes_api.model.TipoOperacao;
+import br.com.fiap.aula_testes_api.repository.MensagemRepository;
+import br.com.fiap.aula_testes_api.service.busca.IndiceMensagens;
+import br.com.fiap.aula_testes_api.service.estatisticas.AgregadosMensagens;
+import br.com.fiap.aula_testes_api.utils.MensagemHelper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class MensagemLoteServiceTest {
+
+    private MensagemLoteService mensagemLoteService;
+
+    @Mock
+    private MensagemRepository mensagemRepository;
+
+    @Mock
+    private AgregadosMensagens agregadosMensagens;
+
+    AutoCloseable mock;
+
+    @BeforeEach
+    void setUp() {
+        mock = MockitoAnnotations.openMocks(this);
+        var validator = Validation.buildDefaultValidatorFactory().getValidator();
+        mensagemLoteService = new MensagemLoteServiceImpl(mensagemRepository, new GeradorUuidV7(), validator,
+                new CacheMensagem(100, Duration.ofMinutes(1), new SimpleMeterRegistry()),
+                new IndiceMensagens(mensagemRepository, mock(PlatformTransactionManager.class), false),
+                new CacheTimelineUsuario(100, 10, Duration.ofMinutes(1), new SimpleMeterRegistry()),
+                agregadosMensagens);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        mock.close();
+    }
+
+    @Test
+    void devePermitirProcessarLote_ComOperacoesMistas() {
+        var id = UUID.fromString("0b6f5a2c-3d4e-4f60-8a1b-2c3d4e5f6a7b");
+        var existente = MensagemHelper.gerarMensagem();
+        existente.setId(id);
+        when(mensagemRepository.findAllById(any())).thenReturn(List.of(existente));
+        when(mensagemRepository.save(any(Mensagem.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        var alteracao = MensagemHelper.gerarMensagem();
+        alteracao.setConteudo("conteúdo alterado");
+
+        var resultados = mensagemLoteService.processarLote(List.of(
+                new OperacaoLote(TipoOperacao.CRIAR, null, MensagemHelper.gerarMensagem()),
+                new OperacaoLote(TipoOperacao.ALTERAR, id, alteracao),
+                new OperacaoLote(TipoOperacao.GOSTEI, id, null),
+                new OperacaoLote(TipoOperacao.GOSTEI, id, null)));
+
+        assertThat(resultados)
+                .extracting(resultado -> resultado.status())
+                .containsOnly(StatusOperacao.SUCESSO);
+        assertThat(resultados.get(0).id()).isNotNull();
+        assertThat(existente.getConteudo()).isEqualTo("conteúdo alterado");
+        verify(mensagemRepository, times(1)).findAllById(any());
+        verify(mensagemRepository, times(1)).inserir(any(Mensagem.class));
+        verify(mensagemRepository, times(1)).save(existente);
+        verify(mensagemRepository, times(1)).incrementarGostei(id, 2);
+    }
+
+    @Test
+    void deveReportarOperacoes_InvalidasOuInexistentes() {
+        var id = UUID.fromString("8c7d6e5f-4a3b-4c2d-9e1f-0a1b2c3d4e5f");
+        when(mensagemRepository.findAllById(any())).thenReturn(List.of());
+
+        var resultados = mensagemLoteService.processarLote(List.of(
+                new OperacaoLote(TipoOperacao.CRIAR, null, new Mensagem()),
+                new OperacaoLote(TipoOperacao.REMOVER, id, null),
+                new OperacaoLote(TipoOperacao.GOSTEI, null, null)));
+
+        assertThat(resultados)
+                .extracting(resultado -> resultado.status())
+                .containsExactly(StatusOperacao.INVALIDA, StatusOperacao.NAO_ENCONTRADA, StatusOperacao.INVALIDA);
+        verify(mensagemRepository, never()).inserir(any(Mensagem.class));
+        verify(mensagemRepository, never()).removerDevolvendo(any());
+    }
+
+    @Test
+    void deveIgnorarGostei_DeMensagemRemovidaNoMesmoLote() {
+        var id = UUID.fromString("1d2c3b4a-5f6e-4d7c-8b9a-0f1e2d3c4b5a");
+        var existente = MensagemHelper.gerarMensagem();
+        existente.setId(id);
+        when(mensagemRepository.findAllById(any())).thenReturn(List.of(existente));
+
+        var resultados = mensagemLoteService.processarLote(List.of(
+                new OperacaoLote(TipoOperacao.REMOVER, id, null),
+                new OperacaoLote(TipoOperacao.GOSTEI, id, null)));
+
+        assertThat(resultados)
+                .extracting(resultado -> resultado.status())
+                .containsExactly(StatusOperacao.SUCESSO, StatusOperacao.NAO_ENCONTRADA);
+        verify(mensagemRepository, times(1)).removerDevolvendo(id);
+        verify(mensagemRepository, never()).incrementarGostei(any(UUID.class), anyInt());
+    }
+
+    @Test
+    void deveAtualizarEstatisticas_ComAsOperacoesDoLote() {
+        var id = UUID.fromString("2e3d4c5b-6a7f-4e8d-9c0b-1a2f3e4d5c6b");
+        var idRemovida = UUID.fromString("3f4e5d6c-7b8a-4f9e-8d1c-2b3a4f5e6d7c");
+        var existente = MensagemHelper.gerarMensagem();
+        existente.setId(id);
+        existente.setUsuario("ana");
+        var removida = MensagemHelper.gerarMensagem();
+        removida.setId(idRemovida);
+        when(mensagemRepository.findAllById(any())).thenReturn(List.of(existente, removida));
+        when(mensagemRepository.save(any(Mensagem.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(mensagemRepository.removerDevolvendo(idRemovida)).thenReturn(Optional.of(removida));
+        var alteracao = MensagemHelper.gerarMensagem();
+        alteracao.setUsuario("bia");
+
+        mensagemLoteService.processarLote(List.of(
+                new OperacaoLote(TipoOperacao.CRIAR, null, MensagemHelper.gerarMensagem()),
+                new OperacaoLote(TipoOperacao.ALTERAR, id, alteracao),
+                new OperacaoLote(TipoOperacao.GOSTEI, id, null),
+                new OperacaoLote(TipoOperacao.GOSTEI, id, null),
+                new OperacaoLote(TipoOperacao.REMOVER, idRemovida, null)));
+
+        verify(agregadosMensagens, times(1)).contabilizandoTransacao();
+        verify(agregadosMensagens, times(1)).registrarAposCommit(any(Mensagem.class));
+        verify(agregadosMensagens, times(1)).alterarUsuarioAposCommit(
+                argThat(mensagem -> mensagem.getUsuario().equals("bia")), eq("ana"));
+        verify(agregadosMensagens, times(1)).registrarGosteiAposCommit(
+                argThat(mensagem -> mensagem.getId().equals(id) && mensagem.getUsuario().equals("bia")), eq(2L));
+        verify(agregadosMensagens, times(1)).removerAposCommit(removida);
+    }
+}
@@ -0,0 +1,135 @@
+package br.com.fiap.aula_testes_api.service;
+
+import br.com.fiap.aula_testes_api.exception.MensagemNotFoundException;
+import br.com.fiap.aula_testes_api.exception.ServicoSobrecarregadoException;
+import br.com.fiap.aula_testes_api.exception.TempoEsgotadoException;
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.utils.MensagemHelper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class MensagemServiceAsyncTest {
+
+    private MensagemServiceAsyncImpl mensagemServiceAsync;
+
+    @Mock
+    private MensagemService mensagemService;
+
+    private final CountDownLatch liberar = new CountDownLatch(1);
+
+    AutoCloseable mock;
+
+    @BeforeEach
+    void setUp() {
+        mock = MockitoAnnotations.openMocks(this);
+        // Uma thread e uma vaga na fila: a terceira chamada simultânea é rejeitada.
+        var executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+        mensagemServiceAsync = new MensagemServiceAsyncImpl(mensagemService, executor,
+                Duration.ofMillis(200), Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        liberar.countDown();
+        mensagemServiceAsync.encerrar();
+        mock.close();
+    }
+
+    @Test
+    void devePermitirBuscarMensagem() throws Exception {
+        var mensagem = MensagemHelper.gerarMensagem();
+        var id = UUID.randomUUID();
+        when(mensagemService.buscarMensagem(id)).thenReturn(mensagem);
+
+        assertThat(mensagemServiceAsync.buscarMensagem(id).get(1, TimeUnit.SECONDS)).isEqualTo(mensagem);
+    }
+
+    @Test
+    void devePropagarExcecaoDoServico() {
+        var id = UUID.randomUUID();
+        when(mensagemService.buscarMensagem(id)).thenThrow(new MensagemNotFoundException("Mensagem não encontrada"));
+
+        assertThatThrownBy(() -> mensagemServiceAsync.buscarMensagem(id).get(1, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(MensagemNotFoundException.class);
+    }
+
+    @Test
+    void deveRejeitarImediatamente_QuandoFilaCheia() throws Exception {
+        var iniciou = new CountDownLatch(1);
+        when(mensagemService.registrarMensagem(any(Mensagem.class))).thenAnswer(i -> {
+            iniciou.countDown();
+            liberar.await();
+            return i.getArgument(0);
+        });
+        mensagemServiceAsync.registrarMensagem(MensagemHelper.gerarMensagem());
+        assertThat(iniciou.await(1, TimeUnit.SECONDS)).isTrue();
+        mensagemServiceAsync.registrarMensagem(MensagemHelper.gerarMensagem());
+
+        var rejeitada = mensagemServiceAsync.registrarMensagem(MensagemHelper.gerarMensagem());
+
+        assertThat(rejeitada).isCompletedExceptionally();
+        assertThatThrownBy(rejeitada::get).hasCauseInstanceOf(ServicoSobrecarregadoException.class);
+    }
+
+    @Test
+    void deveFalharSemInterromper_QuandoPrazoEsgotado() throws Exception {
+        var interrompida = new AtomicBoolean();
+        var terminou = new CountDownLatch(1);
+        when(mensagemService.buscarMensagem(any(UUID.class))).thenAnswer(i -> {
+            try {
+                liberar.await();
+            } catch (InterruptedException e) {
+                interrompida.set(true);
+            }
+            terminou.countDown();
+            return null;
+        });
+
+        var resultado = mensagemServiceAsync.buscarMensagem(UUID.randomUUID());
+
+        assertThatThrownBy(() -> resultado.get(1, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(TempoEsgotadoException.class);
+        liberar.countDown();
+        assertThat(terminou.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(interrompida).isFalse();
+    }
+
+    @Test
+    void naoDeveExecutar_QuandoPrazoEsgotaNaFila() throws Exception {
+        var executouNaFila = new AtomicBoolean();
+        when(mensagemService.registrarMensagem(any(Mensagem.class))).thenAnswer(i -> {
+            liberar.await();
+            return i.getArgument(0);
+        });
+        when(mensagemService.buscarMensagem(any(UUID.class))).thenAnswer(i -> {
+            executouNaFila.set(true);
+            return null;
+        });
+        mensagemServiceAsync.registrarMensagem(MensagemHelper.gerarMensagem());
+
+        var naFila = mensagemServiceAsync.buscarMensagem(UUID.randomUUID());
+        assertThatThrownBy(() -> naFila.get(1, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(TempoEsgotadoException.class);
+        liberar.countDown();
+
+        mensagemServiceAsync.encerrar();
+        assertThat(executouNaFila).isFalse();
+    }
+}
@@ -1,10 +1,17 @@
 package br.com.fiap.aula_testes_api.service;
 
 import br.com.fiap.aula_testes_api.exception.MensagemNotFoundException;
+import br.com.fiap.aula_testes_api.exception.VersaoConflitanteException;
+import br.com.fiap.aula_testes_api.model.CursorMensagem;
 import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.model.VersaoMensagem;
 import br.com.fiap.aula_testes_api.repository.MensagemRepository;
 import br.com.fiap.aula_testes_api.utils.MensagemHelper;
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,7 +19,9 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.util.HashSet;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.*;
@@ -28,6 +37,12 @@ class MensagemServiceIT {
     @Autowired
     private MensagemService mensagemService;
 
+    @Autowired
+    private AcumuladorGostei acumuladorGostei;
+
+    @Autowired
+    private EntityManager entityManager;
+
     @Nested
     class RegistrarMensagem{
         @Test
@@ -150,6 +165,27 @@ class MensagemServiceIT {
         }
     }
 
+    @Nested
+    class RegistrarGostei{
+        @Test
+        void devePermitirRegistrarGostei_GravandoNaDescarga() {
+            var mensagem = mensagemService.registrarMensagem(MensagemHelper.gerarMensagem());
+            mensagemRepository.flush();
+
+            mensagemService.registrarGostei(mensagem.getId());
+            mensagemService.registrarGostei(mensagem.getId());
+
+            assertThat(mensagemService.buscarMensagem(mensagem.getId()).getGostei()).isEqualTo(2);
+
+            acumuladorGostei.descarregar();
+            entityManager.clear();
+
+            assertThat(mensagemRepository.findById(mensagem.getId()))
+                    .hasValueSatisfying(gravada -> assertThat(gravada.getGostei()).isEqualTo(2));
+            assertThat(mensagemService.buscarMensagem(mensagem.getId()).getGostei()).isEqualTo(2);
+        }
+    }
+
     @Nested
         class ListarMensagem{
         @Test
@@ -163,5 +199,133 @@ class MensagemServiceIT {
                         assertThat(mensagemObtida).isNotNull();
                     });
         }
+
+        @Test
+        void devePermitirListarFeed_SemRepetirMensagensEntrePaginas() {
+            for (int i = 0; i < 5; i++) {
+                mensagemService.registrarMensagem(MensagemHelper.gerarMensagem());
+            }
+            var total = mensagemRepository.count();
+
+            var idsObtidos = new HashSet<UUID>();
+            CursorMensagem cursor = null;
+            Slice<Mensagem> pagina;
+            do {
+                pagina = mensagemService.listarFeed(cursor, 2);
+                pagina.forEach(mensagem -> assertThat(idsObtidos.add(mensagem.getId())).isTrue());
+                if (pagina.hasContent()) {
+                    cursor = CursorMensagem.de(pagina.getContent().get(pagina.getNumberOfElements() - 1));
+                }
+            } while (pagina.hasNext());
+
+            assertThat(idsObtidos).hasSize((int) total);
+        }
+
+        @Test
+        void devePermitirListarPorUsuario_SemRepetirMensagensEntrePaginas() {
+            var usuario = "timeline-" + UUID.randomUUID();
+            var registradas = new HashSet<UUID>();
+            for (int i = 0; i < 60; i++) {
+                var mensagem = MensagemHelper.gerarMensagem();
+                mensagem.setUsuario(usuario);
+                registradas.add(mensagemService.registrarMensagem(mensagem).getId());
+            }
+            mensagemService.registrarMensagem(MensagemHelper.gerarMensagem());
+
+            var idsObtidos = new HashSet<UUID>();
+            CursorMensagem cursor = null;
+            Slice<Mensagem> pagina;
+            do {
+                pagina = mensagemService.listarPorUsuario(usuario, cursor, 20);
+                pagina.forEach(mensagem -> assertThat(idsObtidos.add(mensagem.getId())).isTrue());
+                if (pagina.hasContent()) {
+                    cursor = CursorMensagem.de(pagina.getContent().get(pagina.getNumberOfElements() - 1));
+                }
+            } while (pagina.hasNext());
+
+            assertThat(idsObtidos).isEqualTo(registradas);
+        }
+    }
+
+    @Nested
+    class ControleDeVersao{
+        @Test
+        void deveIncrementarVersao_QuandoAlterarMensagem() {
+            var mensagem = mensagemService.registrarMensagem(MensagemHelper.gerarMensagem());
+            entityManager.flush();
+            assertThat(mensagemService.buscarVersao(mensagem.getId())).isEqualTo(new VersaoMensagem(0, 0));
+
+            var mensagemAtualizada = mensagem.toBuilder().conteudo("conteúdo alterado").build();
+            mensagemService.alterarMensagem(mensagem.getId(), mensagemAtualizada, 0L);
+            entityManager.flush();
+
+            assertThat(mensagemService.buscarVersao(mensagem.getId())).isEqualTo(new VersaoMensagem(1, 0));
+        }
+
+        @Test
+        void deveGerarExcecao_QuandoAlterarMensagem_VersaoDesatualizada() {
+            var mensagem = mensagemService.registrarMensagem(MensagemHelper.gerarMensagem());
+            mensagemService.alterarMensagem(mensagem.getId(), mensagem.toBuilder().conteudo("primeira").build(), 0L);
+            entityManager.flush();
+
+            var segunda = mensagem.toBuilder().conteudo("segunda").build();
+            assertThatThrownBy(() -> mensagemService.alterarMensagem(mensagem.getId(), segunda, 0L))
+                    .isInstanceOf(VersaoConflitanteException.class);
+        }
+    }
+
+    /**
+     * Conta os comandos preparados pelo Hibernate (estatísticas ligadas em application.yaml).
+     */
+    @Nested
+    class QuantidadeDeComandosSql{
+
+        private Statistics estatisticas;
+        private UUID id;
+
+        @BeforeEach
+        void setUp() {
+            id = mensagemService.registrarMensagem(MensagemHelper.gerarMensagem()).getId();
+            entityManager.flush();
+            entityManager.clear();
+            estatisticas = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+            estatisticas.clear();
+        }
+
+        @Test
+        void deveAlterarParcialmente_ComUmUnicoComando() {
+            mensagemService.alterarParcialmente(id, Mensagem.builder().conteudo("conteúdo alterado").build(), 0L);
+
+            assertThat(estatisticas.getPrepareStatementCount()).isEqualTo(1);
+            assertThat(mensagemRepository.findById(id).orElseThrow())
+                    .extracting(Mensagem::getConteudo, Mensagem::getVersao)
+                    .containsExactly("conteúdo alterado", 1L);
+        }
+
+        @Test
+        void deveGerarExcecao_QuandoAlterarParcialmente_IdNaoExiste_ComUmUnicoComando() {
+            var alteracoes = Mensagem.builder().conteudo("conteúdo alterado").build();
+            assertThatThrownBy(() -> mensagemService.alterarParcialmente(UUID.randomUUID(), alteracoes, null))
+                    .isInstanceOf(MensagemNotFoundException.class);
+
+            assertThat(estatisticas.getPrepareStatementCount()).isEqualTo(1);
+        }
+
+        @Test
+        void deveRemoverMensagem_ComUmUnicoComando() {
+            mensagemService.removerMensagem(id);
+
+            assertThat(estatisticas.getPrepareStatementCount()).isEqualTo(1);
+            assertThat(mensagemRepository.existsById(id)).isFalse();
+        }
+
+        @Test
+        void deveGerarExcecao_QuandoRemoverMensagem_IdNaoExiste_ComUmUnicoComando() {
+            var inexistente = UUID.randomUUID();
+            assertThatThrownBy(() -> mensagemService.removerMensagem(inexistente))
+                    .isInstanceOf(MensagemNotFoundException.class);
+
+            assertThat(estatisticas.getPrepareStatementCount()).isEqualTo(1);
+        }
     }
 }
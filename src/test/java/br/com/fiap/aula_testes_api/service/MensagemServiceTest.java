@@ -1,24 +1,47 @@
 package br.com.fiap.aula_testes_api.service;
 
 import br.com.fiap.aula_testes_api.exception.MensagemNotFoundException;
+import br.com.fiap.aula_testes_api.exception.VersaoConflitanteException;
+import br.com.fiap.aula_testes_api.model.CursorMensagem;
 import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.model.VersaoMensagem;
 import br.com.fiap.aula_testes_api.repository.MensagemRepository;
+import br.com.fiap.aula_testes_api.service.busca.IndiceMensagens;
+import br.com.fiap.aula_testes_api.service.estatisticas.AgregadosMensagens;
+import br.com.fiap.aula_testes_api.service.stream.TransmissaoMensagens;
 import br.com.fiap.aula_testes_api.utils.MensagemHelper;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import org.springframework.transaction.support.TransactionTemplate;
 
 
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class MensagemServiceTest {
@@ -28,12 +51,40 @@ class MensagemServiceTest {
     @Mock
     private MensagemRepository mensagemRepository;
 
+    @Mock
+    private GeradorIdMensagem geradorId;
+
+    @Mock
+    private AcumuladorGostei acumuladorGostei;
+
+    @Mock
+    private TransmissaoMensagens transmissaoMensagens;
+
+    @Mock
+    private IdempotenciaMensagens idempotencia;
+
+    @Mock
+    private AgregadosMensagens agregadosMensagens;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private IndiceMensagens indiceMensagens;
+
+    private CacheMensagem cacheMensagem;
+
     AutoCloseable mock;
 
     @BeforeEach
     void setUp() {
         mock = MockitoAnnotations.openMocks(this);
-        mensagemService = new MensagemServiceImpl(mensagemRepository);
+        indiceMensagens = new IndiceMensagens(mensagemRepository, mock(PlatformTransactionManager.class), false);
+        cacheMensagem = new CacheMensagem(100, Duration.ofMinutes(1), new SimpleMeterRegistry());
+        mensagemService = new MensagemServiceImpl(mensagemRepository, geradorId, acumuladorGostei, cacheMensagem,
+                indiceMensagens,
+                new CacheTimelineUsuario(100, 3, Duration.ofMinutes(1), new SimpleMeterRegistry()),
+                transmissaoMensagens, idempotencia, agregadosMensagens, new TransactionTemplate(transactionManager));
+        when(geradorId.gerar()).thenAnswer(i -> UUID.randomUUID());
     }
 
     @AfterEach
@@ -53,6 +104,48 @@ class MensagemServiceTest {
         assertThat(mensagemRegistrada.getUsuario()).isEqualTo(mensagem.getUsuario());
         assertThat(mensagem.getId()).isNotNull();
         verify(mensagemRepository, times(1)).save(any(Mensagem.class));
+        verify(transmissaoMensagens, times(1)).publicarAposCommit(mensagemRegistrada);
+    }
+
+    @Test
+    void devePermitirRegistrarMensagem_ComIdDoGerador(){
+        var id = UUID.fromString("01912d68-783e-7a4b-8c3d-5e6f7a8b9c0d");
+        when(geradorId.gerar()).thenReturn(id);
+        when(mensagemRepository.save(any(Mensagem.class)))
+                .thenAnswer(i -> i.getArgument(0));
+
+        var mensagemRegistrada = mensagemService.registrarMensagem(MensagemHelper.gerarMensagem());
+
+        assertThat(mensagemRegistrada.getId()).isEqualTo(id);
+        verify(geradorId, times(1)).gerar();
+    }
+
+    @Test
+    void devePermitirRegistrarMensagem_ComChaveIdempotencia(){
+        var mensagem = MensagemHelper.gerarMensagem();
+        when(mensagemRepository.save(any(Mensagem.class)))
+                .thenAnswer(i -> i.getArgument(0));
+        when(idempotencia.registrar(eq("chave-1"), eq(mensagem), any()))
+                .thenAnswer(i -> CompletableFuture.completedFuture(i.<Supplier<Mensagem>>getArgument(2).get()));
+
+        var mensagemRegistrada = mensagemService.registrarMensagem(mensagem, "chave-1").join();
+
+        assertThat(mensagemRegistrada.getId()).isNotNull();
+        verify(idempotencia).registrar(eq("chave-1"), eq(mensagem), any());
+        verify(mensagemRepository, times(1)).save(mensagem);
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void devePermitirRegistrarMensagem_SemChaveIdempotencia(){
+        when(mensagemRepository.save(any(Mensagem.class)))
+                .thenAnswer(i -> i.getArgument(0));
+
+        mensagemService.registrarMensagem(MensagemHelper.gerarMensagem(), null);
+
+        verifyNoInteractions(idempotencia);
+        verify(mensagemRepository, times(1)).save(any(Mensagem.class));
+        verify(transactionManager).commit(any());
     }
 
     @Test
@@ -69,6 +162,77 @@ class MensagemServiceTest {
         verify(mensagemRepository, times(1)).findById(any(UUID.class));
     }
 
+    @Test
+    void devePermitirBuscarMensagem_DoCache() {
+        var id = UUID.fromString("5a4b3c2d-1e0f-4a9b-8c7d-6e5f4a3b2c1d");
+        var mensagem = MensagemHelper.gerarMensagem();
+        mensagem.setId(id);
+        when(mensagemRepository.findById(id)).thenReturn(Optional.of(mensagem));
+
+        var primeiraLeitura = mensagemService.buscarMensagem(id);
+        var segundaLeitura = mensagemService.buscarMensagem(id);
+
+        assertThat(segundaLeitura).isEqualTo(primeiraLeitura).isNotSameAs(primeiraLeitura);
+        verify(mensagemRepository, times(1)).findById(id);
+    }
+
+    @Test
+    void deveInvalidarCache_QuandoAlterarMensagem() {
+        var id = UUID.fromString("5a4b3c2d-1e0f-4a9b-8c7d-6e5f4a3b2c1d");
+        var mensagem = MensagemHelper.gerarMensagem();
+        mensagem.setId(id);
+        var mensagemNova = MensagemHelper.gerarMensagem();
+        mensagemNova.setId(id);
+        mensagemNova.setConteudo("conteúdo novo");
+        when(mensagemRepository.findById(id)).thenReturn(Optional.of(mensagem));
+        when(mensagemRepository.save(any(Mensagem.class))).thenAnswer(i -> i.getArgument(0));
+
+        mensagemService.buscarMensagem(id);
+        mensagemService.alterarMensagem(id, mensagemNova);
+        var mensagemObtida = mensagemService.buscarMensagem(id);
+
+        assertThat(mensagemObtida.getConteudo()).isEqualTo("conteúdo novo");
+        verify(mensagemRepository, times(3)).findById(id);
+    }
+
+    @Test
+    void deveInvalidarCache_SoDepoisDoCommit() {
+        var id = UUID.randomUUID();
+        var mensagem = MensagemHelper.gerarMensagem();
+        mensagem.setId(id);
+        when(mensagemRepository.findById(id)).thenReturn(Optional.of(mensagem));
+        when(mensagemRepository.removerDevolvendo(id)).thenReturn(Optional.of(mensagem));
+        mensagemService.buscarMensagem(id);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            mensagemService.removerMensagem(id);
+
+            // Antes do commit, uma leitura concorrente ainda recolocaria a linha antiga no cache.
+            assertThat(cacheMensagem.contem(id)).isTrue();
+            TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(cacheMensagem.contem(id)).isFalse();
+    }
+
+    @Test
+    void devePermitirBuscarMensagem_SomandoGosteiPendentes() {
+        var id = UUID.fromString("b1a2c3d4-e5f6-4a7b-8c9d-0e1f2a3b4c5d");
+        var mensagem = MensagemHelper.gerarMensagem();
+        mensagem.setId(id);
+        mensagem.setGostei(3);
+        when(mensagemRepository.findById(id)).thenReturn(Optional.of(mensagem));
+        when(acumuladorGostei.pendentes(id)).thenReturn(2L);
+
+        var mensagemObtida = mensagemService.buscarMensagem(id);
+
+        assertThat(mensagemObtida.getGostei()).isEqualTo(5);
+        assertThat(mensagem.getGostei()).isEqualTo(3);
+    }
+
     @Test
     void deveGerarExcecao_QuandoBuscarMensagem_IdNaoExiste(){
         var id = UUID.fromString("897b07c7-8385-4ea1-b9f0-17bffe109307");
@@ -152,38 +316,346 @@ class MensagemServiceTest {
         verify(mensagemRepository, never()).save(any(Mensagem.class));
     }
 
+    @Test
+    void devePermitirAlterarMensagem_NaVersaoEsperada(){
+        var id = UUID.fromString("5b0c2a1e-8d43-4f6a-9e21-7c3d5a6b8e90");
+        var mensagemAntiga = MensagemHelper.gerarMensagem();
+        mensagemAntiga.setId(id);
+        mensagemAntiga.setVersao(3L);
+        var mensagemNova = mensagemAntiga.toBuilder().conteudo("ABCD 123").build();
+        when(mensagemRepository.findById(id)).thenReturn(Optional.of(mensagemAntiga));
+        when(mensagemRepository.save(any(Mensagem.class))).thenAnswer(i -> i.getArgument(0));
+
+        var mensagemObtida = mensagemService.alterarMensagem(id, mensagemNova, 3L);
+
+        assertThat(mensagemObtida.getConteudo()).isEqualTo("ABCD 123");
+        verify(mensagemRepository, times(1)).save(any(Mensagem.class));
+    }
+
+    @Test
+    void deveGerarExcecao_QuandoAlterarMensagem_VersaoDiferenteDaEsperada(){
+        var id = UUID.fromString("5b0c2a1e-8d43-4f6a-9e21-7c3d5a6b8e90");
+        var mensagemAntiga = MensagemHelper.gerarMensagem();
+        mensagemAntiga.setId(id);
+        mensagemAntiga.setVersao(4L);
+        var mensagemNova = mensagemAntiga.toBuilder().conteudo("ABCD 123").build();
+        when(mensagemRepository.findById(id)).thenReturn(Optional.of(mensagemAntiga));
+
+        assertThatThrownBy(() -> mensagemService.alterarMensagem(id, mensagemNova, 3L))
+                .isInstanceOf(VersaoConflitanteException.class);
+        verify(mensagemRepository, never()).save(any(Mensagem.class));
+    }
+
+    @Test
+    void deveGerarExcecao_QuandoAlterarMensagem_AlteracaoConcorrenteGravadaAntes(){
+        var id = UUID.fromString("5b0c2a1e-8d43-4f6a-9e21-7c3d5a6b8e90");
+        var mensagemAntiga = MensagemHelper.gerarMensagem();
+        mensagemAntiga.setId(id);
+        mensagemAntiga.setVersao(3L);
+        var mensagemNova = mensagemAntiga.toBuilder().conteudo("ABCD 123").build();
+        when(mensagemRepository.findById(id)).thenReturn(Optional.of(mensagemAntiga));
+        when(mensagemRepository.save(any(Mensagem.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Mensagem.class, id));
+
+        assertThatThrownBy(() -> mensagemService.alterarMensagem(id, mensagemNova))
+                .isInstanceOf(VersaoConflitanteException.class);
+    }
+
+    @Test
+    void devePermitirBuscarVersao_SemCarregarMensagem(){
+        var id = UUID.fromString("5b0c2a1e-8d43-4f6a-9e21-7c3d5a6b8e90");
+        when(mensagemRepository.buscarVersao(id)).thenReturn(Optional.of(new VersaoMensagem(2, 7)));
+        when(acumuladorGostei.pendentes(id)).thenReturn(3L);
+
+        assertThat(mensagemService.buscarVersao(id)).isEqualTo(new VersaoMensagem(2, 10));
+        verify(mensagemRepository, never()).findById(any(UUID.class));
+    }
+
+    @Test
+    void devePermitirBuscarVersao_DoCache(){
+        var id = UUID.fromString("5b0c2a1e-8d43-4f6a-9e21-7c3d5a6b8e90");
+        var mensagem = MensagemHelper.gerarMensagem();
+        mensagem.setId(id);
+        mensagem.setVersao(5L);
+        mensagem.setGostei(1);
+        when(mensagemRepository.findById(id)).thenReturn(Optional.of(mensagem));
+        mensagemService.buscarMensagem(id);
+
+        var versao = mensagemService.buscarVersao(id);
+
+        assertThat(versao).isEqualTo(new VersaoMensagem(5, 1));
+        verify(mensagemRepository, never()).buscarVersao(any(UUID.class));
+    }
+
+    @Test
+    void deveGerarExcecao_QuandoBuscarVersao_IdNaoExiste(){
+        var id = UUID.fromString("5b0c2a1e-8d43-4f6a-9e21-7c3d5a6b8e90");
+        when(mensagemRepository.buscarVersao(id)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> mensagemService.buscarVersao(id))
+                .isInstanceOf(MensagemNotFoundException.class);
+    }
+
     @Test
     void devePermitirRemoverMensagem(){
         //Arrange
         var id = UUID.fromString("03691449-39cc-41dc-bae1-5dc1a43c7991");
         var mensagem = MensagemHelper.gerarMensagem();
         mensagem.setId(id);
-        when(mensagemRepository.findById(id)).thenReturn(Optional.of(mensagem));
-        doNothing().when(mensagemRepository).deleteById(id);
+        when(mensagemRepository.removerDevolvendo(id)).thenReturn(Optional.of(mensagem));
 
         //Act
         var mensagemFoiRemovida = mensagemService.removerMensagem(id);
 
         //Assert
         assertThat(mensagemFoiRemovida).isTrue();
-        verify(mensagemRepository, times(1)).findById(any(UUID.class));
-        verify(mensagemRepository, times(1)).deleteById(any(UUID.class));
-
+        verify(mensagemRepository, times(1)).removerDevolvendo(id);
+        verify(mensagemRepository, never()).findById(any(UUID.class));
+        verify(acumuladorGostei, times(1)).descartar(id);
+        verify(agregadosMensagens, times(1)).contabilizandoTransacao();
+        verify(agregadosMensagens, times(1)).removerAposCommit(mensagem);
     }
 
     @Test
     void deveGerarExcecao_QuandoRemoverMensagem_IdNaoExiste(){
          //Arrange
         var id = UUID.fromString("03691449-39cc-41dc-bae1-5dc1a43c7991");
-        when(mensagemRepository.findById(id)).thenReturn(Optional.empty());
+        when(mensagemRepository.removerDevolvendo(id)).thenReturn(Optional.empty());
 
         //Act & Assert
         assertThatThrownBy( () -> mensagemService.removerMensagem(id))
                 .isInstanceOf(MensagemNotFoundException.class)
                 .hasMessage("Mensagem não encontrada");
 
-        verify(mensagemRepository, times(1)).findById(any(UUID.class));
-        verify(mensagemRepository, never()).deleteById(any(UUID.class));
+        verify(mensagemRepository, never()).findById(any(UUID.class));
+        verify(acumuladorGostei, never()).descartar(any(UUID.class));
+        verify(agregadosMensagens, never()).removerAposCommit(any(Mensagem.class));
+    }
+
+    @Test
+    void devePermitirAlterarParcialmente(){
+        var id = UUID.fromString("7d1e4f2a-3b5c-4d6e-8f90-a1b2c3d4e5f6");
+        var alteracoes = Mensagem.builder().conteudo("Conteúdo novo").build();
+        when(mensagemRepository.alterarParcialmente(id, null, "Conteúdo novo", 2L))
+                .thenReturn(Optional.of(Mensagem.builder().id(id).usuario("ana").conteudo("conteúdo antigo").build()));
+        indiceMensagens.indexar(id, "conteúdo antigo");
+
+        mensagemService.alterarParcialmente(id, alteracoes, 2L);
+
+        verify(mensagemRepository, times(1)).alterarParcialmente(id, null, "Conteúdo novo", 2L);
+        verify(mensagemRepository, never()).findById(any(UUID.class));
+        verify(mensagemRepository, never()).existsById(any(UUID.class));
+        assertThat(indiceMensagens.buscar("novo", 0, 10).ids()).containsExactly(id);
+        verify(agregadosMensagens, never()).alterarUsuarioAposCommit(any(Mensagem.class), any());
+    }
+
+    @Test
+    void deveMoverEstatisticas_QuandoAlterarParcialmenteOUsuario(){
+        var id = UUID.fromString("7d1e4f2a-3b5c-4d6e-8f90-a1b2c3d4e5f6");
+        var anterior = Mensagem.builder().id(id).usuario("ana").conteudo("conteúdo").gostei(3)
+                .dataCriacaoMensagem(LocalDateTime.of(2024, 3, 10, 14, 5)).build();
+        when(mensagemRepository.alterarParcialmente(id, "bia", null, null)).thenReturn(Optional.of(anterior));
+
+        mensagemService.alterarParcialmente(id, Mensagem.builder().usuario("bia").build(), null);
+
+        verify(agregadosMensagens, times(1)).contabilizandoTransacao();
+        verify(agregadosMensagens, times(1))
+                .alterarUsuarioAposCommit(anterior.toBuilder().usuario("bia").build(), "ana");
+    }
+
+    @Test
+    void deveGerarExcecao_QuandoAlterarParcialmente_IdNaoExiste(){
+        var id = UUID.fromString("7d1e4f2a-3b5c-4d6e-8f90-a1b2c3d4e5f6");
+        var alteracoes = Mensagem.builder().usuario("ana").build();
+        when(mensagemRepository.alterarParcialmente(id, "ana", null, null)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> mensagemService.alterarParcialmente(id, alteracoes, null))
+                .isInstanceOf(MensagemNotFoundException.class)
+                .hasMessage("Mensagem não encontrada");
+        verify(mensagemRepository, never()).existsById(any(UUID.class));
+    }
+
+    @Test
+    void deveGerarExcecao_QuandoAlterarParcialmente_VersaoDiferenteDaEsperada(){
+        var id = UUID.fromString("7d1e4f2a-3b5c-4d6e-8f90-a1b2c3d4e5f6");
+        var alteracoes = Mensagem.builder().usuario("ana").build();
+        when(mensagemRepository.alterarParcialmente(id, "ana", null, 2L)).thenReturn(Optional.empty());
+        when(mensagemRepository.existsById(id)).thenReturn(true);
+
+        assertThatThrownBy(() -> mensagemService.alterarParcialmente(id, alteracoes, 2L))
+                .isInstanceOf(VersaoConflitanteException.class);
+    }
+
+    @Test
+    void deveGerarExcecao_QuandoAlterarParcialmente_IdDaMensagemNovaApresentaValorDiferente(){
+        var id = UUID.fromString("7d1e4f2a-3b5c-4d6e-8f90-a1b2c3d4e5f6");
+        var alteracoes = Mensagem.builder()
+                .id(UUID.fromString("6f2f901b-9648-4030-9113-585741b7d489"))
+                .conteudo("ABCD 123")
+                .build();
+
+        assertThatThrownBy(() -> mensagemService.alterarParcialmente(id, alteracoes, null))
+                .isInstanceOf(MensagemNotFoundException.class)
+                .hasMessage("Mensagem atualizada não apresenta o ID correto");
+        verify(mensagemRepository, never()).alterarParcialmente(any(), any(), any(), any());
+    }
+
+    @Test
+    void devePermitirListarFeed_PrimeiraPagina(){
+        var pagina = new SliceImpl<>(List.of(MensagemHelper.gerarMensagem()));
+        when(mensagemRepository.listarFeed(any(Pageable.class))).thenReturn(pagina);
+
+        var resultadoObtido = mensagemService.listarFeed(null, 10);
+
+        assertThat(resultadoObtido).hasSize(1);
+        verify(mensagemRepository, times(1)).listarFeed(PageRequest.ofSize(10));
+        verify(mensagemRepository, never())
+                .listarFeedApos(any(LocalDateTime.class), any(UUID.class), any(Pageable.class));
+    }
+
+    @Test
+    void devePermitirListarFeed_APartirDoCursor(){
+        var cursor = new CursorMensagem(LocalDateTime.of(2024, 1, 1, 10, 0),
+                UUID.fromString("c3f0e0d4-2b7a-4d8e-9f51-6a2d3c4b5e6f"));
+        when(mensagemRepository.listarFeedApos(any(LocalDateTime.class), any(UUID.class), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of()));
+
+        var resultadoObtido = mensagemService.listarFeed(cursor, 10);
+
+        assertThat(resultadoObtido).isEmpty();
+        verify(mensagemRepository, times(1))
+                .listarFeedApos(cursor.dataCriacaoMensagem(), cursor.id(), PageRequest.ofSize(10));
+        verify(mensagemRepository, never()).listarFeed(any(Pageable.class));
+    }
+
+    @Test
+    void devePermitirListarPorUsuario_PrimeiraPaginaDaMemoria(){
+        var mensagens = List.of(mensagemDe("ana", 3), mensagemDe("ana", 2));
+        when(mensagemRepository.listarPorUsuario(eq("ana"), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(mensagens));
+
+        mensagemService.listarPorUsuario("ana", null, 2);
+        var resultadoObtido = mensagemService.listarPorUsuario("ana", null, 2);
+
+        assertThat(resultadoObtido.getContent()).containsExactlyElementsOf(mensagens);
+        assertThat(resultadoObtido.hasNext()).isFalse();
+        verify(mensagemRepository, times(1)).listarPorUsuario("ana", PageRequest.ofSize(4));
+    }
+
+    @Test
+    void devePermitirListarPorUsuario_IncluindoMensagemRegistradaSemConsultarBanco(){
+        when(mensagemRepository.listarPorUsuario(eq("ana"), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(mensagemDe("ana", 1))));
+        when(mensagemRepository.save(any(Mensagem.class))).thenAnswer(i -> i.getArgument(0));
+        mensagemService.listarPorUsuario("ana", null, 3);
+
+        var nova = mensagemService.registrarMensagem(mensagemDe("ana", 5));
+        var resultadoObtido = mensagemService.listarPorUsuario("ana", null, 3);
+
+        assertThat(resultadoObtido.getContent()).hasSize(2).first().isEqualTo(nova);
+        verify(mensagemRepository, times(1)).listarPorUsuario(eq("ana"), any(Pageable.class));
+    }
+
+    @Test
+    void devePermitirListarPorUsuario_APartirDoCursorNoBanco(){
+        var cursor = new CursorMensagem(LocalDateTime.of(2024, 1, 1, 10, 0),
+                UUID.fromString("c3f0e0d4-2b7a-4d8e-9f51-6a2d3c4b5e6f"));
+        when(mensagemRepository.listarPorUsuarioApos(any(), any(), any(), any()))
+                .thenReturn(new SliceImpl<>(List.of()));
+
+        mensagemService.listarPorUsuario("ana", cursor, 10);
+
+        verify(mensagemRepository, times(1)).listarPorUsuarioApos("ana",
+                cursor.dataCriacaoMensagem(), cursor.id(), PageRequest.ofSize(10));
+        verify(mensagemRepository, never()).listarPorUsuario(any(), any());
+    }
+
+    @Test
+    void devePermitirRegistrarGostei(){
+        var id = UUID.fromString("c0ffee00-1234-4abc-9def-0123456789ab");
+        when(mensagemRepository.existsById(id)).thenReturn(true);
+
+        mensagemService.registrarGostei(id);
+
+        verify(acumuladorGostei, times(1)).incrementar(id);
+        verify(mensagemRepository, never()).save(any(Mensagem.class));
+    }
+
+    @Test
+    void devePermitirRegistrarGostei_SemConsultarBanco_QuandoJaAcumulado(){
+        var id = UUID.fromString("c0ffee00-1234-4abc-9def-0123456789ab");
+        when(acumuladorGostei.contem(id)).thenReturn(true);
+
+        mensagemService.registrarGostei(id);
+
+        verify(acumuladorGostei, times(1)).incrementar(id);
+        verify(mensagemRepository, never()).existsById(any(UUID.class));
+    }
+
+    @Test
+    void deveGerarExcecao_QuandoRegistrarGostei_IdNaoExiste(){
+        var id = UUID.fromString("deadbeef-0000-4000-8000-000000000000");
+        when(mensagemRepository.existsById(id)).thenReturn(false);
+
+        assertThatThrownBy(() -> mensagemService.registrarGostei(id))
+                .isInstanceOf(MensagemNotFoundException.class)
+                .hasMessage("Mensagem não encontrada");
+        verify(acumuladorGostei, never()).incrementar(any(UUID.class));
+    }
+
+    @Test
+    void devePermitirExportarMensagens_DesanexandoCadaMensagem(){
+        var mensagem1 = MensagemHelper.gerarMensagem();
+        mensagem1.setId(UUID.fromString("9e8d7c6b-5a4f-4e3d-8c2b-1a0f9e8d7c6b"));
+        var mensagem2 = MensagemHelper.gerarMensagem();
+        mensagem2.setId(UUID.fromString("0f1e2d3c-4b5a-4f6e-9d8c-7b6a5f4e3d2c"));
+        when(mensagemRepository.exportarMensagens()).thenReturn(Stream.of(mensagem1, mensagem2));
+        var exportadas = new ArrayList<Mensagem>();
+
+        var total = mensagemService.exportarMensagens(exportadas::add);
+
+        assertThat(total).isEqualTo(2);
+        assertThat(exportadas).containsExactly(mensagem1, mensagem2);
+        verify(mensagemRepository, times(1)).desanexar(mensagem1);
+        verify(mensagemRepository, times(1)).desanexar(mensagem2);
+    }
+
+    @Test
+    void devePermitirBuscarPorTexto_OrdenandoPorRelevancia(){
+        when(mensagemRepository.save(any(Mensagem.class))).thenAnswer(i -> i.getArgument(0));
+        var poucoRelevante = mensagemService.registrarMensagem(
+                Mensagem.builder().usuario("ana").conteudo("Reunião amanhã cedo no escritório").build());
+        var relevante = mensagemService.registrarMensagem(
+                Mensagem.builder().usuario("bia").conteudo("Reunião de testes").build());
+        mensagemService.registrarMensagem(
+                Mensagem.builder().usuario("caio").conteudo("Almoço no centro").build());
+        when(mensagemRepository.findAllById(any())).thenReturn(List.of(poucoRelevante, relevante));
+
+        var resultado = mensagemService.buscarPorTexto("reuniao TESTES", 0, 10);
+
+        assertThat(resultado.total()).isEqualTo(2);
+        assertThat(resultado.mensagens()).containsExactly(relevante, poucoRelevante);
+    }
+
+    @Test
+    void naoDeveEncontrarMensagem_QuandoRemovida(){
+        var mensagem = MensagemHelper.gerarMensagem();
+        mensagem.setId(UUID.randomUUID());
+        indiceMensagens.indexar(mensagem.getId(), mensagem.getConteudo());
+        when(mensagemRepository.removerDevolvendo(mensagem.getId())).thenReturn(Optional.of(mensagem));
+
+        mensagemService.removerMensagem(mensagem.getId());
+
+        assertThat(mensagemService.buscarPorTexto(mensagem.getConteudo(), 0, 10).total()).isZero();
+    }
+
+    private static Mensagem mensagemDe(String usuario, int minuto) {
+        return Mensagem.builder()
+                .id(UUID.randomUUID())
+                .usuario(usuario)
+                .conteudo("mensagem " + minuto)
+                .dataCriacaoMensagem(LocalDateTime.of(2024, 1, 1, 10, minuto))
+                .build();
     }
 
     /*@Test
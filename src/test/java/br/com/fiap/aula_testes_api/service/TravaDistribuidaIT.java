@@ -0,0 +1,52 @@
+package br.com.fiap.aula_testes_api.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "mensagem.busca.reconstruir-na-inicializacao=false")
+@AutoConfigureTestDatabase
+class TravaDistribuidaIT {
+
+    private static final String NOME = "tarefa-teste";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM trava_tarefa");
+    }
+
+    @Test
+    void devePermitirUmUnicoDono() {
+        var noA = new TravaDistribuida(jdbcTemplate);
+        var noB = new TravaDistribuida(jdbcTemplate);
+
+        assertThat(noA.adquirir(NOME, Duration.ofMinutes(1))).isTrue();
+        assertThat(noB.adquirir(NOME, Duration.ofMinutes(1))).isFalse();
+        assertThat(noA.adquirir(NOME, Duration.ofMinutes(1))).isTrue();
+        assertThat(noB.renovar(NOME, Duration.ofMinutes(1))).isFalse();
+
+        noA.liberar(NOME);
+
+        assertThat(noB.adquirir(NOME, Duration.ofMinutes(1))).isTrue();
+    }
+
+    @Test
+    void devePermitirAssumirTrava_QuandoExpirada() {
+        var noA = new TravaDistribuida(jdbcTemplate);
+        var noB = new TravaDistribuida(jdbcTemplate);
+        noA.adquirir(NOME, Duration.ofMillis(-1));
+
+        assertThat(noB.adquirir(NOME, Duration.ofMinutes(1))).isTrue();
+        assertThat(noA.renovar(NOME, Duration.ofMinutes(1))).isFalse();
+    }
+}
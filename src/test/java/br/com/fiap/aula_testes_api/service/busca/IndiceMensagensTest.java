@@ -0,0 +1,206 @@
+package br.com.fiap.aula_testes_api.service.busca;
+
+import br.com.fiap.aula_testes_api.model.ConteudoMensagem;
+import br.com.fiap.aula_testes_api.repository.MensagemRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+class IndiceMensagensTest {
+
+    private IndiceMensagens indiceMensagens;
+
+    @Mock
+    private MensagemRepository mensagemRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    AutoCloseable mock;
+
+    @BeforeEach
+    void setUp() {
+        mock = MockitoAnnotations.openMocks(this);
+        indiceMensagens = new IndiceMensagens(mensagemRepository, transactionManager, false);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        mock.close();
+    }
+
+    @Nested
+    class Buscar {
+
+        @Test
+        void deveEncontrarPorQualquerTermo_IgnorandoAcentos() {
+            var id1 = UUID.randomUUID();
+            var id2 = UUID.randomUUID();
+            indiceMensagens.indexar(id1, "Promoção de café");
+            indiceMensagens.indexar(id2, "Cafe com leite");
+            indiceMensagens.indexar(UUID.randomUUID(), "Chá gelado");
+
+            var resultado = indiceMensagens.buscar("CAFÉ", 0, 10);
+
+            assertThat(resultado.total()).isEqualTo(2);
+            assertThat(resultado.ids()).containsExactlyInAnyOrder(id1, id2);
+        }
+
+        @Test
+        void deveOrdenarPorRelevancia() {
+            var umTermo = UUID.randomUUID();
+            var doisTermos = UUID.randomUUID();
+            var termoRepetido = UUID.randomUUID();
+            indiceMensagens.indexar(umTermo, "java e spring no projeto antigo");
+            indiceMensagens.indexar(doisTermos, "java e spring");
+            indiceMensagens.indexar(termoRepetido, "java java java no projeto antigo legado");
+            indiceMensagens.indexar(UUID.randomUUID(), "kotlin");
+
+            var resultado = indiceMensagens.buscar("spring java", 0, 10);
+
+            assertThat(resultado.ids()).containsExactly(doisTermos, umTermo, termoRepetido);
+        }
+
+        @Test
+        void devePaginarResultados() {
+            var ids = IntStream.range(0, 25).mapToObj(i -> UUID.randomUUID()).toList();
+            ids.forEach(id -> indiceMensagens.indexar(id, "mensagem repetida"));
+
+            var primeira = indiceMensagens.buscar("mensagem", 0, 10);
+            var ultima = indiceMensagens.buscar("mensagem", 20, 10);
+
+            assertThat(primeira.total()).isEqualTo(25);
+            assertThat(primeira.ids()).hasSize(10);
+            assertThat(ultima.ids()).hasSize(5).doesNotContainAnyElementsOf(primeira.ids());
+            // Em empate, as indexadas por último vêm primeiro.
+            assertThat(primeira.ids().get(0)).isEqualTo(ids.get(24));
+        }
+
+        @Test
+        void deveDevolverPaginaVazia_QuandoDeslocamentoMaisLimiteExcedeInt() {
+            indiceMensagens.indexar(UUID.randomUUID(), "mensagem");
+
+            var resultado = indiceMensagens.buscar("mensagem", Integer.MAX_VALUE - 5, 10);
+
+            assertThat(resultado.total()).isEqualTo(1);
+            assertThat(resultado.ids()).isEmpty();
+        }
+
+        @Test
+        void deveRetornarVazio_QuandoTextoSoTemStopWords() {
+            indiceMensagens.indexar(UUID.randomUUID(), "de que para");
+
+            var resultado = indiceMensagens.buscar("de que", 0, 10);
+
+            assertThat(resultado.total()).isZero();
+            assertThat(resultado.ids()).isEmpty();
+        }
+    }
+
+    @Nested
+    class Atualizar {
+
+        @Test
+        void deveSubstituirConteudoAnterior_QuandoReindexar() {
+            var id = UUID.randomUUID();
+            indiceMensagens.indexar(id, "conteúdo original");
+
+            indiceMensagens.indexar(id, "conteúdo alterado");
+
+            assertThat(indiceMensagens.buscar("original", 0, 10).ids()).isEmpty();
+            assertThat(indiceMensagens.buscar("alterado", 0, 10).ids()).containsExactly(id);
+            assertThat(indiceMensagens.totalDocumentos()).isEqualTo(1);
+        }
+
+        @Test
+        void naoDeveEncontrarMensagem_QuandoRemovida() {
+            var id = UUID.randomUUID();
+            indiceMensagens.indexar(id, "mensagem removida");
+
+            indiceMensagens.remover(id);
+
+            assertThat(indiceMensagens.buscar("removida", 0, 10).total()).isZero();
+            assertThat(indiceMensagens.totalDocumentos()).isZero();
+        }
+    }
+
+    @Nested
+    class Reconstruir {
+
+        @Test
+        void deveIndexarTodasAsMensagensDoBanco() {
+            var conteudos = IntStream.range(0, 12_000)
+                    .mapToObj(i -> new ConteudoMensagem(UUID.randomUUID(), "mensagem número " + i))
+                    .toList();
+            when(mensagemRepository.listarConteudos()).thenReturn(conteudos.stream());
+
+            indiceMensagens.reconstruir();
+
+            assertThat(indiceMensagens.totalDocumentos()).isEqualTo(12_000);
+            assertThat(indiceMensagens.buscar("11999", 0, 10).ids()).containsExactly(conteudos.get(11_999).id());
+        }
+
+        @Test
+        void deveManterVersaoMaisNova_QuandoMensagemAlteradaDuranteReconstrucao() {
+            var id = UUID.randomUUID();
+            when(mensagemRepository.listarConteudos()).thenReturn(Stream.of(new ConteudoMensagem(id, "versão antiga"))
+                    .peek(conteudo -> indiceMensagens.indexar(id, "versão nova")));
+
+            indiceMensagens.reconstruir();
+
+            assertThat(indiceMensagens.buscar("antiga", 0, 10).ids()).isEmpty();
+            assertThat(indiceMensagens.buscar("nova", 0, 10).ids()).containsExactly(id);
+        }
+
+        @Test
+        void deveDescartarDocumentosQueNaoEstaoNoBanco() {
+            var removida = UUID.randomUUID();
+            var mantida = UUID.randomUUID();
+            indiceMensagens.indexar(removida, "mensagem removida por fora");
+            indiceMensagens.indexar(mantida, "mensagem mantida");
+            when(mensagemRepository.listarConteudos())
+                    .thenAnswer(i -> Stream.of(new ConteudoMensagem(mantida, "mensagem mantida")));
+
+            indiceMensagens.reconstruir();
+            indiceMensagens.reconstruir();
+
+            assertThat(indiceMensagens.totalDocumentos()).isEqualTo(1);
+            assertThat(indiceMensagens.buscar("mensagem", 0, 10).ids()).containsExactly(mantida);
+            assertThat(indiceMensagens.buscar("mensagem", 0, 10).total()).isEqualTo(1);
+        }
+
+        @Test
+        void deveBuscarNoIndiceAnterior_DuranteReconstrucao() {
+            var id = UUID.randomUUID();
+            var removida = UUID.randomUUID();
+            indiceMensagens.indexar(id, "mensagem existente");
+            indiceMensagens.indexar(removida, "outra existente");
+            var encontradasDurante = new AtomicLong();
+            when(mensagemRepository.listarConteudos()).thenReturn(Stream.of(
+                            new ConteudoMensagem(id, "mensagem existente"), new ConteudoMensagem(removida, "outra existente"))
+                    .peek(conteudo -> {
+                        if (conteudo.id().equals(id)) {
+                            encontradasDurante.set(indiceMensagens.buscar("existente", 0, 10).total());
+                            indiceMensagens.remover(removida);
+                        }
+                    }));
+
+            indiceMensagens.reconstruir();
+
+            assertThat(encontradasDurante).hasValue(2);
+            assertThat(indiceMensagens.buscar("existente", 0, 10).ids()).containsExactly(id);
+        }
+    }
+}
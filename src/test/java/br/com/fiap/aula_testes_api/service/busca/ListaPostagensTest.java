@@ -0,0 +1,36 @@
+package br.com.fiap.aula_testes_api.service.busca;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ListaPostagensTest {
+
+    @Test
+    void devePercorrerPostagensNaOrdemDeInsercao() {
+        var lista = new ListaPostagens();
+        lista.adicionar(0, 1);
+        lista.adicionar(5, 3);
+        lista.adicionar(1_000_000, 200);
+        var percorridas = new ArrayList<List<Integer>>();
+
+        lista.percorrer((documento, frequencia) -> percorridas.add(List.of(documento, frequencia)));
+
+        assertThat(lista.quantidade()).isEqualTo(3);
+        assertThat(percorridas).containsExactly(List.of(0, 1), List.of(5, 3), List.of(1_000_000, 200));
+    }
+
+    @Test
+    void deveCodificarDocumentosProximosComPoucosBytes() {
+        var lista = new ListaPostagens();
+        for (int documento = 0; documento < 10_000; documento++) {
+            lista.adicionar(documento, 1);
+        }
+
+        // Diferença 1 e frequência 1: um byte para cada.
+        assertThat(lista.bytesUsados()).isEqualTo(20_000);
+    }
+}
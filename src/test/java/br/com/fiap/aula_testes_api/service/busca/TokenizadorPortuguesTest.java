@@ -0,0 +1,26 @@
+package br.com.fiap.aula_testes_api.service.busca;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenizadorPortuguesTest {
+
+    @Test
+    void deveRemoverAcentosEConverterParaMinusculas() {
+        assertThat(TokenizadorPortugues.tokenizar("Ação RÁPIDA"))
+                .containsExactly("acao", "rapida");
+    }
+
+    @Test
+    void deveSepararPorPontuacaoEDescartarStopWords() {
+        assertThat(TokenizadorPortugues.tokenizar("O teste, de novo: não passou em 2024!"))
+                .containsExactly("teste", "novo", "passou", "2024");
+    }
+
+    @Test
+    void deveRetornarListaVazia_QuandoTextoNuloOuVazio() {
+        assertThat(TokenizadorPortugues.tokenizar(null)).isEmpty();
+        assertThat(TokenizadorPortugues.tokenizar("  ")).isEmpty();
+    }
+}
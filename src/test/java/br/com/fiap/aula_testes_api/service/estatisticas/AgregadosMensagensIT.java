@@ -0,0 +1,196 @@
+package br.com.fiap.aula_testes_api.service.estatisticas;
+
+import br.com.fiap.aula_testes_api.model.EstatisticasMensagens;
+import br.com.fiap.aula_testes_api.model.Granularidade;
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.model.OperacaoLote;
+import br.com.fiap.aula_testes_api.model.StatusOperacao;
+import br.com.fiap.aula_testes_api.model.TipoOperacao;
+import br.com.fiap.aula_testes_api.model.TotalHora;
+import br.com.fiap.aula_testes_api.repository.MensagemRepository;
+import br.com.fiap.aula_testes_api.service.AcumuladorGostei;
+import br.com.fiap.aula_testes_api.service.MensagemLoteService;
+import br.com.fiap.aula_testes_api.service.MensagemService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "mensagem.busca.reconstruir-na-inicializacao=false",
+        "mensagem.estatisticas.reconstruir-na-inicializacao=false"
+})
+@AutoConfigureTestDatabase
+class AgregadosMensagensIT {
+
+    @Autowired
+    private AgregadosMensagens agregadosMensagens;
+
+    @Autowired
+    private MensagemService mensagemService;
+
+    @Autowired
+    private MensagemRepository mensagemRepository;
+
+    @Autowired
+    private AcumuladorGostei acumuladorGostei;
+
+    @Autowired
+    private MensagemLoteService mensagemLoteService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM mensagem");
+        agregadosMensagens.reconciliar(null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM mensagem");
+    }
+
+    @Test
+    void deveTotalizarPorHora_NoBanco() {
+        var hora = LocalDateTime.of(2024, 3, 10, 14, 0);
+        inserir("ana", hora.plusMinutes(5), 2);
+        inserir("ana", hora.plusMinutes(59), 3);
+        inserir("ana", hora.plusHours(1), 0);
+        inserir("bia", hora.plusMinutes(30), 1);
+        inserir("bia", hora.minusDays(1), 4);
+
+        assertThat(mensagemRepository.totalizarPorHora(hora)).containsExactlyInAnyOrder(
+                new TotalHora("ana", hora, 2, 5),
+                new TotalHora("ana", hora.plusHours(1), 1, 0),
+                new TotalHora("bia", hora, 1, 1));
+        assertThat(mensagemRepository.totalizarPorHora(null)).hasSize(4);
+    }
+
+    @Test
+    void deveRemoverDevolvendoAMensagem() {
+        var id = inserir("ana", LocalDateTime.of(2024, 3, 10, 14, 5), 2);
+
+        var removida = mensagemRepository.removerDevolvendo(id);
+
+        assertThat(removida).hasValueSatisfying(mensagem -> {
+            assertThat(mensagem.getUsuario()).isEqualTo("ana");
+            assertThat(mensagem.getGostei()).isEqualTo(2);
+            assertThat(mensagem.getDataCriacaoMensagem()).isEqualTo(LocalDateTime.of(2024, 3, 10, 14, 5));
+        });
+        assertThat(mensagemRepository.existsById(id)).isFalse();
+        assertThat(mensagemRepository.removerDevolvendo(id)).isEmpty();
+    }
+
+    @Test
+    void deveManterEstatisticas_IguaisAsDoBanco() {
+        var ana = mensagemService.registrarMensagem(Mensagem.builder().usuario("ana").conteudo("primeira").build());
+        mensagemService.registrarMensagem(Mensagem.builder().usuario("ana").conteudo("segunda").build());
+        var bia = mensagemService.registrarMensagem(Mensagem.builder().usuario("bia").conteudo("terceira").build());
+        mensagemService.registrarGostei(ana.getId());
+        mensagemService.registrarGostei(ana.getId());
+        mensagemService.registrarGostei(bia.getId());
+        acumuladorGostei.descarregar();
+        mensagemService.removerMensagem(bia.getId());
+
+        var incrementadas = consultar("ana");
+        assertThat(incrementadas.baldes()).singleElement().satisfies(balde -> {
+            assertThat(balde.mensagens()).isEqualTo(2);
+            assertThat(balde.gostei()).isEqualTo(2);
+        });
+        assertThat(consultar("bia").baldes()).isEmpty();
+        var total = consultar(null);
+
+        agregadosMensagens.reconciliar(null);
+
+        assertThat(consultar("ana")).isEqualTo(incrementadas);
+        assertThat(consultar(null)).isEqualTo(total);
+    }
+
+    @Test
+    void deveMoverEstatisticas_QuandoAlterarParcialmenteOUsuario() {
+        var mensagem = mensagemService.registrarMensagem(Mensagem.builder().usuario("ana").conteudo("olá").build());
+        mensagemService.registrarGostei(mensagem.getId());
+        acumuladorGostei.descarregar();
+
+        mensagemService.alterarParcialmente(mensagem.getId(), Mensagem.builder().usuario("bia").build(), null);
+
+        assertThat(consultar("ana").baldes()).allSatisfy(balde -> {
+            assertThat(balde.mensagens()).isZero();
+            assertThat(balde.gostei()).isZero();
+        });
+        assertThat(consultar("bia").baldes()).singleElement().satisfies(balde -> {
+            assertThat(balde.mensagens()).isEqualTo(1);
+            assertThat(balde.gostei()).isEqualTo(1);
+        });
+    }
+
+    @Test
+    void deveManterEstatisticas_IguaisAsDoBanco_NoLote() {
+        var antiga = LocalDateTime.now().minusDays(10);
+        var alterada = inserir("ana", antiga, 1);
+        var removida = inserir("ana", antiga, 3);
+        agregadosMensagens.reconciliar(null);
+
+        var resultados = mensagemLoteService.processarLote(List.of(
+                new OperacaoLote(TipoOperacao.CRIAR, null, Mensagem.builder().usuario("ana").conteudo("nova").build()),
+                new OperacaoLote(TipoOperacao.ALTERAR, alterada, Mensagem.builder().usuario("bia").conteudo("movida").build()),
+                new OperacaoLote(TipoOperacao.GOSTEI, alterada, null),
+                new OperacaoLote(TipoOperacao.GOSTEI, alterada, null),
+                new OperacaoLote(TipoOperacao.REMOVER, removida, null)));
+
+        assertThat(resultados).extracting(r -> r.status()).containsOnly(StatusOperacao.SUCESSO);
+        var ana = consultarDesde("ana", antiga);
+        var bia = consultarDesde("bia", antiga);
+        assertThat(bia.baldes()).singleElement().satisfies(balde -> {
+            assertThat(balde.mensagens()).isEqualTo(1);
+            assertThat(balde.gostei()).isEqualTo(3);
+        });
+
+        agregadosMensagens.reconciliar(null);
+
+        assertThat(consultarDesde("ana", antiga)).isEqualTo(ana);
+        assertThat(consultarDesde("bia", antiga)).isEqualTo(bia);
+    }
+
+    @Test
+    void deveCorrigir_EscritasForaDoServico() {
+        var agora = LocalDateTime.now();
+        inserir("ana", agora.minusHours(1), 5);
+
+        assertThat(consultar("ana").baldes()).isEmpty();
+
+        agregadosMensagens.reconciliarRecentes();
+
+        assertThat(consultar("ana").baldes()).singleElement().satisfies(balde -> {
+            assertThat(balde.mensagens()).isEqualTo(1);
+            assertThat(balde.gostei()).isEqualTo(5);
+        });
+    }
+
+    private EstatisticasMensagens consultar(String usuario) {
+        return consultarDesde(usuario, LocalDateTime.now().minusDays(1));
+    }
+
+    private EstatisticasMensagens consultarDesde(String usuario, LocalDateTime de) {
+        return agregadosMensagens.consultar(Granularidade.DIA, usuario, de, LocalDateTime.now().plusDays(1));
+    }
+
+    private UUID inserir(String usuario, LocalDateTime dataCriacao, int gostei) {
+        var id = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO mensagem (id, usuario, conteudo, data_criacao_mensagem, gostei, versao) "
+                + "VALUES (?, ?, ?, ?, ?, 0)", id, usuario, "conteúdo", Timestamp.valueOf(dataCriacao), gostei);
+        return id;
+    }
+}
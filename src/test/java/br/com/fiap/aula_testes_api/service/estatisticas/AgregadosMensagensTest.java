@@ -0,0 +1,370 @@
+package br.com.fiap.aula_testes_api.service.estatisticas;
+
+import br.com.fiap.aula_testes_api.model.EstatisticasMensagens.Balde;
+import br.com.fiap.aula_testes_api.model.Granularidade;
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.model.TotalHora;
+import br.com.fiap.aula_testes_api.repository.MensagemRepository;
+import br.com.fiap.aula_testes_api.service.CacheMensagem;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class AgregadosMensagensTest {
+
+    private static final LocalDateTime AGORA = LocalDateTime.of(2024, 3, 10, 15, 30);
+
+    private AgregadosMensagens agregadosMensagens;
+
+    private CacheMensagem cacheMensagem;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @Mock
+    private MensagemRepository mensagemRepository;
+
+    AutoCloseable mock;
+
+    @BeforeEach
+    void setUp() {
+        mock = MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        cacheMensagem = new CacheMensagem(100, Duration.ofMinutes(1), meterRegistry);
+        agregadosMensagens = new AgregadosMensagens(mensagemRepository, cacheMensagem,
+                Duration.ofDays(2), Duration.ofDays(1), false,
+                Clock.fixed(AGORA.toInstant(ZoneOffset.UTC), ZoneOffset.UTC), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        mock.close();
+    }
+
+    private static Mensagem mensagem(String usuario, LocalDateTime dataCriacao, int gostei) {
+        return Mensagem.builder()
+                .id(UUID.randomUUID())
+                .usuario(usuario)
+                .conteudo("conteúdo")
+                .dataCriacaoMensagem(dataCriacao)
+                .gostei(gostei)
+                .build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private List<Balde> baldes(Granularidade granularidade, String usuario) {
+        return agregadosMensagens.consultar(granularidade, usuario, AGORA.minusDays(3), AGORA).baldes();
+    }
+
+    @Nested
+    class Incrementar {
+
+        @Test
+        void deveSomarMensagens_NosBaldesDaDataDeCriacao() {
+            agregadosMensagens.registrarAposCommit(mensagem("ana", AGORA.minusMinutes(10), 0));
+            agregadosMensagens.registrarAposCommit(mensagem("ana", AGORA.minusMinutes(20), 2));
+            agregadosMensagens.registrarAposCommit(mensagem("bia", AGORA.minusHours(2), 0));
+
+            assertThat(baldes(Granularidade.HORA, null)).containsExactly(
+                    new Balde(AGORA.withMinute(0).minusHours(2), 1, 0),
+                    new Balde(AGORA.withMinute(0), 2, 2));
+            assertThat(baldes(Granularidade.HORA, "ana")).containsExactly(
+                    new Balde(AGORA.withMinute(0), 2, 2));
+            assertThat(baldes(Granularidade.DIA, null)).containsExactly(
+                    new Balde(AGORA.toLocalDate().atStartOfDay(), 3, 2));
+        }
+
+        @Test
+        void deveSubtrair_AoRemoverMensagem() {
+            var mensagem = mensagem("ana", AGORA.minusMinutes(10), 3);
+            agregadosMensagens.registrarAposCommit(mensagem);
+            agregadosMensagens.registrarAposCommit(mensagem("ana", AGORA.minusMinutes(5), 0));
+
+            agregadosMensagens.removerAposCommit(mensagem);
+
+            assertThat(baldes(Granularidade.HORA, "ana")).containsExactly(
+                    new Balde(AGORA.withMinute(0), 1, 0));
+        }
+
+        @Test
+        void deveOmitirBaldes_QueFicaramVazios() {
+            var mensagem = mensagem("ana", AGORA.minusMinutes(10), 0);
+            agregadosMensagens.registrarAposCommit(mensagem);
+
+            agregadosMensagens.removerAposCommit(mensagem);
+
+            assertThat(baldes(Granularidade.HORA, null)).isEmpty();
+            assertThat(baldes(Granularidade.DIA, "ana")).isEmpty();
+        }
+
+        @Test
+        void deveMoverMensagem_AoAlterarUsuario() {
+            var mensagem = mensagem("ana", AGORA.minusMinutes(10), 4);
+            agregadosMensagens.registrarAposCommit(mensagem);
+
+            mensagem.setUsuario("bia");
+            agregadosMensagens.alterarUsuarioAposCommit(mensagem, "ana");
+
+            assertThat(baldes(Granularidade.HORA, "ana")).isEmpty();
+            assertThat(baldes(Granularidade.HORA, "bia")).containsExactly(
+                    new Balde(AGORA.withMinute(0), 1, 4));
+            assertThat(baldes(Granularidade.HORA, null)).containsExactly(
+                    new Balde(AGORA.withMinute(0), 1, 4));
+        }
+    }
+
+    @Nested
+    class RegistrarGostei {
+
+        @Test
+        void deveUsarMensagemEmCache_SemConsultarBanco() {
+            var mensagem = mensagem("ana", AGORA.minusMinutes(10), 0);
+            agregadosMensagens.registrarAposCommit(mensagem);
+            cacheMensagem.buscar(mensagem.getId(), id -> mensagem);
+
+            agregadosMensagens.registrarGostei(Map.of(mensagem.getId(), 5L));
+
+            assertThat(baldes(Granularidade.HORA, "ana")).containsExactly(
+                    new Balde(AGORA.withMinute(0), 1, 5));
+            verify(mensagemRepository, never()).findAllById(any());
+        }
+
+        @Test
+        void deveConsultarBanco_SoUmaVez_ParaMensagensForaDoCache() {
+            var ana = mensagem("ana", AGORA.minusMinutes(10), 0);
+            var bia = mensagem("bia", AGORA.minusDays(1), 0);
+            var removida = UUID.randomUUID();
+            when(mensagemRepository.findAllById(anyList())).thenReturn(List.of(ana, bia));
+
+            agregadosMensagens.registrarGostei(Map.of(ana.getId(), 1L, bia.getId(), 2L, removida, 7L));
+
+            assertThat(baldes(Granularidade.DIA, null)).containsExactly(
+                    new Balde(AGORA.toLocalDate().minusDays(1).atStartOfDay(), 0, 2),
+                    new Balde(AGORA.toLocalDate().atStartOfDay(), 0, 1));
+            verify(mensagemRepository, times(1)).findAllById(anyList());
+        }
+
+        @Test
+        void naoDevePropagarFalha_DoBanco() {
+            when(mensagemRepository.findAllById(anyList())).thenThrow(new IllegalStateException("banco indisponível"));
+
+            agregadosMensagens.registrarGostei(Map.of(UUID.randomUUID(), 1L));
+
+            assertThat(baldes(Granularidade.HORA, null)).isEmpty();
+        }
+    }
+
+    @Nested
+    class Consultar {
+
+        @Test
+        void deveEstenderLimites_AteOsBaldesQueOsContem() {
+            var estatisticas = agregadosMensagens.consultar(Granularidade.HORA, null,
+                    AGORA.minusMinutes(45), AGORA);
+
+            assertThat(estatisticas.de()).isEqualTo(LocalDateTime.of(2024, 3, 10, 14, 0));
+            assertThat(estatisticas.ate()).isEqualTo(LocalDateTime.of(2024, 3, 10, 16, 0));
+        }
+
+        @Test
+        void deveRetornarSoBaldesDoIntervalo() {
+            agregadosMensagens.registrarAposCommit(mensagem("ana", AGORA.minusHours(5), 0));
+            agregadosMensagens.registrarAposCommit(mensagem("ana", AGORA.minusHours(1), 0));
+            agregadosMensagens.registrarAposCommit(mensagem("ana", AGORA, 0));
+
+            var estatisticas = agregadosMensagens.consultar(Granularidade.HORA, "ana",
+                    AGORA.minusHours(2), AGORA.withMinute(0));
+
+            assertThat(estatisticas.baldes()).containsExactly(
+                    new Balde(AGORA.withMinute(0).minusHours(1), 1, 0));
+        }
+
+        @Test
+        void deveRetornarVazio_ParaUsuarioSemMensagens() {
+            var estatisticas = agregadosMensagens.consultar(Granularidade.DIA, "ninguem",
+                    AGORA.minusDays(30), AGORA);
+
+            assertThat(estatisticas.usuario()).isEqualTo("ninguem");
+            assertThat(estatisticas.baldes()).isEmpty();
+        }
+    }
+
+    @Nested
+    class Reconciliar {
+
+        @Test
+        void deveCorrigirBaldes_PeloBanco() {
+            var hora = AGORA.withMinute(0);
+            agregadosMensagens.registrarAposCommit(mensagem("ana", AGORA.minusMinutes(10), 0));
+            agregadosMensagens.registrarAposCommit(mensagem("ana", AGORA.minusMinutes(20), 0));
+            when(mensagemRepository.totalizarPorHora(any())).thenReturn(List.of(
+                    new TotalHora("ana", hora, 1, 3),
+                    new TotalHora("bia", hora.minusHours(1), 2, 0)));
+
+            agregadosMensagens.reconciliarRecentes();
+
+            assertThat(baldes(Granularidade.HORA, "ana")).containsExactly(new Balde(hora, 1, 3));
+            assertThat(baldes(Granularidade.HORA, "bia")).containsExactly(new Balde(hora.minusHours(1), 2, 0));
+            assertThat(baldes(Granularidade.DIA, null)).containsExactly(
+                    new Balde(AGORA.toLocalDate().atStartOfDay(), 3, 3));
+            assertThat(meterRegistry.counter("mensagem.estatisticas.correcoes").count()).isEqualTo(7);
+        }
+
+        @Test
+        void deveConsultarBanco_DesdeOInicioDoDia_DaJanela() {
+            when(mensagemRepository.totalizarPorHora(any())).thenReturn(List.of());
+
+            agregadosMensagens.reconciliarRecentes();
+
+            verify(mensagemRepository).totalizarPorHora(LocalDateTime.of(2024, 3, 8, 0, 0));
+        }
+
+        @Test
+        void naoDeveContarDuasVezes_EscritaConcorrenteComAReconciliacao() throws Exception {
+            var antiga = mensagem("ana", AGORA.minusDays(10), 0);
+            agregadosMensagens.registrarAposCommit(antiga);
+            var hora = antiga.getDataCriacaoMensagem().withMinute(0);
+            var gravado = new AtomicBoolean();
+            when(mensagemRepository.totalizarPorHora(any())).thenAnswer(i ->
+                    List.of(new TotalHora("ana", hora, 1, gravado.get() ? 2 : 0)));
+            cacheMensagem.buscar(antiga.getId(), id -> antiga);
+            var gravando = new CountDownLatch(1);
+            var liberar = new CountDownLatch(1);
+            var escrita = Executors.newSingleThreadExecutor();
+            try {
+                var gostei = escrita.submit(() -> agregadosMensagens.contabilizando(() -> {
+                    gravado.set(true);
+                    gravando.countDown();
+                    await(liberar);
+                    agregadosMensagens.registrarGostei(Map.of(antiga.getId(), 2L));
+                    return null;
+                }));
+                gravando.await();
+                var reconciliacao = CompletableFuture.runAsync(() -> agregadosMensagens.reconciliar(null));
+
+                Thread.sleep(100);
+                assertThat(reconciliacao).isNotDone();
+                liberar.countDown();
+                gostei.get(5, TimeUnit.SECONDS);
+                reconciliacao.get(5, TimeUnit.SECONDS);
+            } finally {
+                escrita.shutdownNow();
+            }
+
+            assertThat(agregadosMensagens.consultar(Granularidade.DIA, "ana", AGORA.minusDays(30), AGORA)
+                    .baldes()).containsExactly(new Balde(hora.toLocalDate().atStartOfDay(), 1, 2));
+        }
+
+        @Test
+        void deveEsperarCommit_DaTransacaoContabilizada() throws Exception {
+            var antiga = mensagem("ana", AGORA.minusDays(10), 0);
+            agregadosMensagens.registrarAposCommit(antiga);
+            var removida = new AtomicBoolean();
+            when(mensagemRepository.totalizarPorHora(any())).thenAnswer(i -> removida.get() ? List.of()
+                    : List.of(new TotalHora("ana", antiga.getDataCriacaoMensagem().withMinute(0), 1, 0)));
+            var gravando = new CountDownLatch(1);
+            var liberar = new CountDownLatch(1);
+            var escrita = Executors.newSingleThreadExecutor();
+            try {
+                var remocao = escrita.submit(() -> {
+                    TransactionSynchronizationManager.initSynchronization();
+                    try {
+                        agregadosMensagens.contabilizandoTransacao();
+                        removida.set(true);
+                        agregadosMensagens.removerAposCommit(antiga);
+                        gravando.countDown();
+                        await(liberar);
+                        var sincronizacoes = TransactionSynchronizationManager.getSynchronizations();
+                        TransactionSynchronizationUtils.invokeAfterCommit(sincronizacoes);
+                        TransactionSynchronizationUtils.invokeAfterCompletion(sincronizacoes,
+                                TransactionSynchronization.STATUS_COMMITTED);
+                    } finally {
+                        TransactionSynchronizationManager.clearSynchronization();
+                    }
+                });
+                gravando.await();
+                var reconciliacao = CompletableFuture.runAsync(() -> agregadosMensagens.reconciliar(null));
+
+                Thread.sleep(100);
+                assertThat(reconciliacao).isNotDone();
+                liberar.countDown();
+                remocao.get(5, TimeUnit.SECONDS);
+                reconciliacao.get(5, TimeUnit.SECONDS);
+            } finally {
+                escrita.shutdownNow();
+            }
+
+            assertThat(agregadosMensagens.consultar(Granularidade.DIA, "ana", AGORA.minusDays(30), AGORA).baldes())
+                    .allSatisfy(balde -> assertThat(balde.mensagens()).isZero());
+        }
+
+        @Test
+        void naoDeveAlterarBaldes_AnterioresAJanela() {
+            var antiga = mensagem("ana", AGORA.minusDays(10), 0);
+            agregadosMensagens.registrarAposCommit(antiga);
+            when(mensagemRepository.totalizarPorHora(any())).thenReturn(List.of());
+
+            agregadosMensagens.reconciliar(AGORA.minusDays(2));
+
+            assertThat(agregadosMensagens.consultar(Granularidade.DIA, "ana", AGORA.minusDays(30), AGORA)
+                    .baldes()).containsExactly(new Balde(AGORA.toLocalDate().minusDays(10).atStartOfDay(), 1, 0));
+        }
+
+        @Test
+        void deveReconstruirTudo_QuandoSemInicio() {
+            var antiga = AGORA.minusDays(10).withMinute(0);
+            when(mensagemRepository.totalizarPorHora(null)).thenReturn(List.of(new TotalHora("ana", antiga, 4, 1)));
+
+            agregadosMensagens.reconciliar(null);
+
+            assertThat(agregadosMensagens.consultar(Granularidade.DIA, null, AGORA.minusDays(30), AGORA)
+                    .baldes()).containsExactly(new Balde(antiga.toLocalDate().atStartOfDay(), 4, 1));
+        }
+
+        @Test
+        void deveDescartarBaldesPorHora_ForaDaRetencao() {
+            agregadosMensagens.registrarAposCommit(mensagem("ana", AGORA.minusHours(30), 0));
+            agregadosMensagens.registrarAposCommit(mensagem("ana", AGORA.minusHours(3), 0));
+            when(mensagemRepository.totalizarPorHora(any())).thenReturn(List.of(
+                    new TotalHora("ana", AGORA.minusHours(30).withMinute(0), 1, 0),
+                    new TotalHora("ana", AGORA.minusHours(3).withMinute(0), 1, 0)));
+
+            agregadosMensagens.reconciliarRecentes();
+
+            assertThat(baldes(Granularidade.HORA, "ana")).containsExactly(
+                    new Balde(AGORA.minusHours(3).withMinute(0), 1, 0));
+            assertThat(baldes(Granularidade.DIA, "ana")).hasSize(2);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package br.com.fiap.aula_testes_api.service.limite;
+
+import br.com.fiap.aula_testes_api.exception.LimiteTaxaExcedidoException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LimitadorTaxaTest {
+
+    private final AtomicLong agora = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private LimitadorTaxa limitador;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        limitador = new LimitadorTaxa(10, 3, 100, 5, 1000, Duration.ofMinutes(10), meterRegistry, agora::get);
+    }
+
+    @Nested
+    class Usuario{
+
+        @Test
+        void devePermitirRajada_ERecusarExcedente() {
+            for (int i = 0; i < 3; i++) {
+                limitador.verificarUsuario("ana");
+            }
+
+            assertThatThrownBy(() -> limitador.verificarUsuario("ana"))
+                    .isInstanceOf(LimiteTaxaExcedidoException.class)
+                    .hasMessage("Limite de requisições do usuário excedido")
+                    .extracting(erro -> ((LimiteTaxaExcedidoException) erro).getEspera())
+                    .isEqualTo(Duration.ofMillis(100));
+            assertThat(meterRegistry.counter("mensagem.limite.recusadas", "tipo", "usuario").count()).isEqualTo(1);
+        }
+
+        @Test
+        void deveReabastecer_ConformeATaxa() {
+            for (int i = 0; i < 3; i++) {
+                limitador.verificarUsuario("ana");
+            }
+            agora.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+
+            assertThatCode(() -> limitador.verificarUsuario("ana")).doesNotThrowAnyException();
+            assertThatThrownBy(() -> limitador.verificarUsuario("ana")).isInstanceOf(LimiteTaxaExcedidoException.class);
+
+            agora.addAndGet(TimeUnit.SECONDS.toNanos(10));
+            for (int i = 0; i < 3; i++) {
+                limitador.verificarUsuario("ana");
+            }
+            assertThatThrownBy(() -> limitador.verificarUsuario("ana")).isInstanceOf(LimiteTaxaExcedidoException.class);
+        }
+
+        @Test
+        void deveManterBaldesSeparados_PorUsuario() {
+            for (int i = 0; i < 3; i++) {
+                limitador.verificarUsuario("ana");
+            }
+
+            assertThatCode(() -> limitador.verificarUsuario("bia")).doesNotThrowAnyException();
+            assertThatCode(() -> limitador.verificarIp("ana")).doesNotThrowAnyException();
+        }
+
+        @Test
+        void naoDeveLimitar_QuandoTaxaZero() {
+            var semLimite = new LimitadorTaxa(0, 1, 0, 1, 1000, Duration.ofMinutes(10), meterRegistry, agora::get);
+
+            for (int i = 0; i < 1000; i++) {
+                semLimite.verificarUsuario("ana");
+                semLimite.verificarIp("10.0.0.1");
+            }
+        }
+    }
+
+    @Nested
+    class Concorrencia{
+
+        @Test
+        void deveAceitarExatamenteARajada_QuandoRequisicoesSimultaneas() throws Exception {
+            var largada = new CountDownLatch(1);
+            var executor = Executors.newFixedThreadPool(16);
+            try {
+                var futuros = new ArrayList<Future<Integer>>();
+                for (int t = 0; t < 16; t++) {
+                    futuros.add(executor.submit(() -> {
+                        largada.await();
+                        var aceitas = 0;
+                        for (int i = 0; i < 100; i++) {
+                            try {
+                                limitador.verificarIp("10.0.0.1");
+                                aceitas++;
+                            } catch (LimiteTaxaExcedidoException e) {
+                                // esperado depois da rajada
+                            }
+                        }
+                        return aceitas;
+                    }));
+                }
+                largada.countDown();
+
+                var aceitas = 0;
+                for (var futuro : futuros) {
+                    aceitas += futuro.get(5, TimeUnit.SECONDS);
+                }
+                assertThat(aceitas).isEqualTo(5);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package br.com.fiap.aula_testes_api.service.retencao;
+
+import br.com.fiap.aula_testes_api.model.EstatisticasMensagens.Balde;
+import br.com.fiap.aula_testes_api.model.Granularidade;
+import br.com.fiap.aula_testes_api.service.TravaDistribuida;
+import br.com.fiap.aula_testes_api.service.busca.IndiceMensagens;
+import br.com.fiap.aula_testes_api.service.estatisticas.AgregadosMensagens;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "mensagem.busca.reconstruir-na-inicializacao=false",
+        "mensagem.retencao.idade-maxima=30d",
+        "mensagem.retencao.por-usuario.vip=3650d",
+        "mensagem.retencao.por-usuario.temporario=1d",
+        "mensagem.retencao.tamanho-lote=7",
+        "mensagem.retencao.linhas-por-segundo=100000",
+        "mensagem.retencao.pausa-minima=0ms"
+})
+@AutoConfigureTestDatabase
+class ExpurgoMensagensIT {
+
+    @Autowired
+    private ExpurgoMensagens expurgoMensagens;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private IndiceMensagens indiceMensagens;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private AgregadosMensagens agregadosMensagens;
+
+    private final List<UUID> expiradas = new ArrayList<>();
+    private final List<UUID> mantidas = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        var agora = LocalDateTime.now();
+        for (int i = 0; i < 20; i++) {
+            expiradas.add(inserir("ana", agora.minusDays(31 + i)));
+            mantidas.add(inserir("ana", agora.minusDays(29).plusMinutes(i)));
+        }
+        for (int i = 0; i < 5; i++) {
+            mantidas.add(inserir("vip", agora.minusDays(400 + i)));
+            expiradas.add(inserir("temporario", agora.minusDays(2).minusMinutes(i)));
+            mantidas.add(inserir("temporario", agora.minusHours(1).minusMinutes(i)));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM mensagem");
+        jdbcTemplate.update("DELETE FROM trava_tarefa");
+    }
+
+    @Test
+    void deveRemoverExpiradas_RespeitandoPoliticaPorUsuario() {
+        var removidasAntes = meterRegistry.counter("mensagem.retencao.removidas").count();
+        indiceMensagens.indexar(expiradas.get(0), "mensagem expirada");
+
+        var removidas = expurgoMensagens.executar();
+
+        assertThat(removidas).isEqualTo(expiradas.size());
+        assertThat(idsRestantes()).containsExactlyInAnyOrderElementsOf(mantidas);
+        assertThat(indiceMensagens.buscar("expirada", 0, 10).total()).isZero();
+        assertThat(meterRegistry.counter("mensagem.retencao.removidas").count() - removidasAntes)
+                .isEqualTo(expiradas.size());
+        // 20 expiradas de "ana" em lotes de 7, mais 1 lote de "temporario".
+        assertThat(meterRegistry.timer("mensagem.retencao.lote").count()).isGreaterThanOrEqualTo(4);
+        assertThat(meterRegistry.get("mensagem.retencao.ultima.conclusao").gauge().value()).isPositive();
+    }
+
+    @Test
+    void deveSubtrairRemovidas_DasEstatisticas() {
+        agregadosMensagens.reconciliar(null);
+
+        expurgoMensagens.executar();
+
+        assertThat(mensagens(null)).isEqualTo(mantidas.size());
+        assertThat(mensagens("temporario")).isEqualTo(5);
+        assertThat(mensagens("vip")).isEqualTo(5);
+    }
+
+    @Test
+    void naoDeveRemover_QuandoOutroNoDetemATrava() {
+        var outroNo = new TravaDistribuida(jdbcTemplate);
+        outroNo.adquirir(ExpurgoMensagens.NOME_TRAVA, Duration.ofMinutes(1));
+
+        assertThat(expurgoMensagens.executar()).isZero();
+        assertThat(idsRestantes()).hasSize(expiradas.size() + mantidas.size());
+
+        outroNo.liberar(ExpurgoMensagens.NOME_TRAVA);
+        assertThat(expurgoMensagens.executar()).isEqualTo(expiradas.size());
+    }
+
+    private UUID inserir(String usuario, LocalDateTime dataCriacao) {
+        var id = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO mensagem (id, usuario, conteudo, data_criacao_mensagem, gostei, versao) "
+                + "VALUES (?, ?, ?, ?, 0, 0)", id, usuario, "conteúdo", Timestamp.valueOf(dataCriacao));
+        return id;
+    }
+
+    private long mensagens(String usuario) {
+        var agora = LocalDateTime.now();
+        return agregadosMensagens.consultar(Granularidade.DIA, usuario, agora.minusDays(500), agora.plusDays(1))
+                .baldes().stream().mapToLong(Balde::mensagens).sum();
+    }
+
+    private List<UUID> idsRestantes() {
+        return jdbcTemplate.queryForList("SELECT id FROM mensagem", UUID.class);
+    }
+}
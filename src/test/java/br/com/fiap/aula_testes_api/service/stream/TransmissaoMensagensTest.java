@@ -0,0 +1,294 @@
+package br.com.fiap.aula_testes_api.service.stream;
+
+import br.com.fiap.aula_testes_api.exception.ServicoSobrecarregadoException;
+import br.com.fiap.aula_testes_api.model.Mensagem;
+import br.com.fiap.aula_testes_api.utils.MensagemHelper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TransmissaoMensagensTest {
+
+    private static final int CAPACIDADE = 8;
+
+    private TransmissaoMensagens transmissao;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        transmissao = new TransmissaoMensagens(new ObjectMapper().registerModule(new JavaTimeModule()),
+                CAPACIDADE, 3, 2, 8, Duration.ofMinutes(1), Duration.ofMinutes(1), Duration.ofMinutes(1), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        transmissao.encerrar();
+    }
+
+    /**
+     * Registra os eventos enviados no formato do protocolo, sem precisar de uma resposta HTTP.
+     */
+    static class EmitterGravador extends SseEmitter {
+
+        final List<String> eventos = new CopyOnWriteArrayList<>();
+        volatile boolean concluido;
+
+        @Override
+        public void send(SseEventBuilder evento) throws IOException {
+            eventos.add(evento.build().stream()
+                    .map(dado -> dado.getData().toString())
+                    .collect(Collectors.joining()));
+        }
+
+        @Override
+        public synchronized void complete() {
+            concluido = true;
+        }
+
+        List<String> mensagens() {
+            return eventos.stream().filter(evento -> evento.contains("event:mensagem")).toList();
+        }
+
+        String ultimoId() {
+            var ultimo = mensagens().get(mensagens().size() - 1);
+            return ultimo.substring(ultimo.indexOf("id:") + 3, ultimo.indexOf('\n', ultimo.indexOf("id:")));
+        }
+    }
+
+    private static void aguardar(BooleanSupplier condicao) throws InterruptedException {
+        var limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condicao.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("tempo esgotado aguardando a condição").isLessThan(limite);
+            Thread.sleep(5);
+        }
+    }
+
+    private static Mensagem mensagem(int indice) {
+        var mensagem = MensagemHelper.gerarMensagem(42, indice, 5);
+        mensagem.setVersao(0L);
+        return mensagem;
+    }
+
+    @Nested
+    class Entrega{
+
+        @Test
+        void deveEntregarMensagensNaOrdem_ATodosOsAssinantes() throws Exception {
+            var primeiro = new EmitterGravador();
+            var segundo = new EmitterGravador();
+            transmissao.assinar(null, primeiro);
+            transmissao.assinar(null, segundo);
+
+            for (int i = 0; i < 5; i++) {
+                transmissao.publicarAposCommit(mensagem(i));
+            }
+
+            aguardar(() -> primeiro.mensagens().size() == 5 && segundo.mensagens().size() == 5);
+            for (int i = 0; i < 5; i++) {
+                assertThat(primeiro.mensagens().get(i)).contains(mensagem(i).getId().toString());
+            }
+            assertThat(segundo.mensagens()).isEqualTo(primeiro.mensagens());
+            assertThat(meterRegistry.counter("mensagem.stream.enviados").count()).isEqualTo(10);
+        }
+
+        @Test
+        void naoDeveEntregarMensagensAnteriores_AAssinaturaNova() throws Exception {
+            transmissao.publicarAposCommit(mensagem(0));
+            var assinante = new EmitterGravador();
+            transmissao.assinar(null, assinante);
+
+            transmissao.publicarAposCommit(mensagem(1));
+
+            aguardar(() -> assinante.mensagens().size() == 1);
+            assertThat(assinante.mensagens().get(0)).contains(mensagem(1).getId().toString());
+        }
+
+        @Test
+        void naoDeveBloquearPublicacaoNemOutrosAssinantes_QuandoAssinanteLento() throws Exception {
+            var liberar = new CountDownLatch(1);
+            var lento = new EmitterGravador() {
+                @Override
+                public void send(SseEventBuilder evento) throws IOException {
+                    super.send(evento);
+                    // Só as mensagens ficam presas, como num cliente que parou de ler o socket.
+                    if (eventos.get(eventos.size() - 1).contains("event:mensagem")) {
+                        try {
+                            liberar.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                }
+            };
+            var rapido = new EmitterGravador();
+            transmissao.assinar(null, lento);
+            transmissao.assinar(null, rapido);
+
+            var quantidade = CAPACIDADE * 3;
+            for (int i = 0; i < quantidade; i++) {
+                transmissao.publicarAposCommit(mensagem(i));
+                var esperadas = i + 1;
+                aguardar(() -> rapido.mensagens().size() == esperadas);
+            }
+            // Desconectado pelo despachante sem esperar o envio preso.
+            aguardar(() -> transmissao.assinantes() == 1);
+            liberar.countDown();
+
+            aguardar(() -> lento.concluido);
+            assertThat(lento.mensagens()).hasSizeLessThan(quantidade);
+            assertThat(transmissao.assinantes()).isEqualTo(1);
+            assertThat(meterRegistry.counter("mensagem.stream.descartados").count()).isEqualTo(1);
+        }
+
+        @Test
+        void deveDesconectarAssinantesTravados_QuandoEnvioExcedeTimeout() throws Exception {
+            transmissao.encerrar();
+            transmissao = new TransmissaoMensagens(new ObjectMapper().registerModule(new JavaTimeModule()),
+                    CAPACIDADE, 5, 2, 8, Duration.ofMinutes(1), Duration.ofMinutes(1), Duration.ofMillis(200),
+                    meterRegistry);
+            var liberar = new CountDownLatch(1);
+            var travados = new ArrayList<EmitterGravador>();
+            for (int i = 0; i < 3; i++) {
+                var travado = new EmitterGravador() {
+                    @Override
+                    public void send(SseEventBuilder evento) throws IOException {
+                        super.send(evento);
+                        if (eventos.get(eventos.size() - 1).contains("event:mensagem")) {
+                            try {
+                                liberar.await();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        }
+                    }
+                };
+                transmissao.assinar(null, travado);
+                travados.add(travado);
+            }
+            var rapido = new EmitterGravador();
+            transmissao.assinar(null, rapido);
+
+            transmissao.publicarAposCommit(mensagem(0));
+            transmissao.publicarAposCommit(mensagem(1));
+
+            // Mais travados que threads no pool: o rápido só recebe se os travados forem substituídos.
+            aguardar(() -> rapido.mensagens().size() == 2);
+            aguardar(() -> transmissao.assinantes() == 1);
+            assertThat(meterRegistry.counter("mensagem.stream.escritas-expiradas").count()).isEqualTo(3);
+            assertThat(travados).noneMatch(travado -> travado.concluido);
+
+            liberar.countDown();
+
+            aguardar(() -> travados.stream().allMatch(travado -> travado.concluido));
+            transmissao.publicarAposCommit(mensagem(2));
+            aguardar(() -> rapido.mensagens().size() == 3);
+            assertThat(travados).allMatch(travado -> travado.mensagens().size() == 1);
+        }
+
+        @Test
+        void naoDeveCrescerPool_AlemDoMaximo_QuandoAssinantesTravados() throws Exception {
+            transmissao.encerrar();
+            transmissao = new TransmissaoMensagens(new ObjectMapper().registerModule(new JavaTimeModule()),
+                    CAPACIDADE, 5, 2, 2, Duration.ofMinutes(1), Duration.ofMinutes(1), Duration.ofMillis(200),
+                    meterRegistry);
+            var liberar = new CountDownLatch(1);
+            var travados = new ArrayList<EmitterGravador>();
+            for (int i = 0; i < 3; i++) {
+                var travado = new EmitterGravador() {
+                    @Override
+                    public void send(SseEventBuilder evento) throws IOException {
+                        super.send(evento);
+                        if (eventos.get(eventos.size() - 1).contains("event:mensagem")) {
+                            try {
+                                liberar.await();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        }
+                    }
+                };
+                transmissao.assinar(null, travado);
+                travados.add(travado);
+            }
+            var rapido = new EmitterGravador();
+            transmissao.assinar(null, rapido);
+
+            transmissao.publicarAposCommit(mensagem(0));
+
+            // As duas threads ficam presas: os travados são desconectados, mas sem threads novas.
+            aguardar(() -> meterRegistry.counter("mensagem.stream.escritas-expiradas").count() >= 2);
+            assertThat(transmissao.threadsEntrega()).isEqualTo(2);
+
+            liberar.countDown();
+
+            aguardar(() -> rapido.mensagens().size() == 1);
+            aguardar(() -> transmissao.assinantes() <= 2);
+            transmissao.publicarAposCommit(mensagem(1));
+            aguardar(() -> rapido.mensagens().size() == 2);
+            assertThat(transmissao.threadsEntrega()).isEqualTo(2);
+        }
+
+        @Test
+        void deveGerarExcecao_QuandoLimiteDeAssinantesAtingido() {
+            for (int i = 0; i < 3; i++) {
+                transmissao.assinar(null, new EmitterGravador());
+            }
+
+            assertThatThrownBy(() -> transmissao.assinar(null, new EmitterGravador()))
+                    .isInstanceOf(ServicoSobrecarregadoException.class);
+        }
+    }
+
+    @Nested
+    class Retomada{
+
+        @Test
+        void deveReenviarMensagensPerdidas_QuandoUltimoIdAindaNoAnel() throws Exception {
+            var anterior = new EmitterGravador();
+            transmissao.assinar(null, anterior);
+            transmissao.publicarAposCommit(mensagem(0));
+            aguardar(() -> anterior.mensagens().size() == 1);
+            var ultimoId = anterior.ultimoId();
+            transmissao.publicarAposCommit(mensagem(1));
+            transmissao.publicarAposCommit(mensagem(2));
+
+            var reconectado = new EmitterGravador();
+            transmissao.assinar(ultimoId, reconectado);
+
+            aguardar(() -> reconectado.mensagens().size() == 2);
+            assertThat(reconectado.eventos).noneMatch(evento -> evento.contains("event:resync"));
+            assertThat(reconectado.mensagens().get(0)).contains(mensagem(1).getId().toString());
+            assertThat(reconectado.mensagens().get(1)).contains(mensagem(2).getId().toString());
+        }
+
+        @Test
+        void deveEnviarResync_QuandoUltimoIdForaDoAnel() throws Exception {
+            var reconectado = new EmitterGravador();
+            transmissao.assinar("outro-no-15", reconectado);
+            transmissao.publicarAposCommit(mensagem(0));
+
+            aguardar(() -> reconectado.mensagens().size() == 1);
+            assertThat(reconectado.eventos.get(0)).contains("event:resync", "retry:");
+            assertThat(reconectado.eventos.get(1)).contains(mensagem(0).getId().toString());
+        }
+    }
+}
@@ -1,13 +1,94 @@
 package br.com.fiap.aula_testes_api.utils;
 
 import br.com.fiap.aula_testes_api.model.Mensagem;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.stream.IntStream;
 
 public abstract class MensagemHelper {
 
+    private static final LocalDateTime INICIO_MASSA = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final long INICIO_MASSA_MILIS = Timestamp.valueOf(INICIO_MASSA).getTime();
+    private static final int TAMANHO_LOTE_INSERCAO = 10_000;
+
+    private static final String[] PALAVRAS = {
+            "reunião", "projeto", "entrega", "cliente", "teste", "deploy", "banco", "servidor",
+            "café", "almoço", "amanhã", "hoje", "sprint", "revisão", "código", "erro", "ajuste",
+            "relatório", "equipe", "prazo", "versão", "release", "build", "documentação", "pedido"};
+
     public static Mensagem gerarMensagem() {
         return Mensagem.builder()
                 .usuario("Silva Sauro")
                 .conteudo("conteúdo da mensagem")
                 .build();
     }
+
+    /**
+     * Gera a {@code indice}-ésima mensagem de uma massa de dados determinística: a mesma
+     * semente e o mesmo índice produzem sempre a mesma mensagem. Os ids seguem o formato
+     * UUIDv7 e a data de criação avança 1 ms por índice, como numa carga real.
+     *
+     * @param usuarios quantidade de usuários distintos na massa
+     */
+    public static Mensagem gerarMensagem(long semente, int indice, int usuarios) {
+        var random = new SplittableRandom(semente * 31 + indice);
+        var conteudo = new StringBuilder();
+        int palavras = 3 + random.nextInt(12);
+        for (int i = 0; i < palavras; i++) {
+            if (i > 0) {
+                conteudo.append(' ');
+            }
+            conteudo.append(PALAVRAS[random.nextInt(PALAVRAS.length)]);
+        }
+        long milis = INICIO_MASSA_MILIS + indice;
+        var id = new UUID((milis << 16) | 0x7000L | (indice & 0xFFF),
+                0x8000_0000_0000_0000L | (random.nextLong() >>> 2));
+        return Mensagem.builder()
+                .id(id)
+                .usuario("usuario" + random.nextInt(usuarios))
+                .conteudo(conteudo.toString())
+                .dataCriacaoMensagem(INICIO_MASSA.plusNanos(indice * 1_000_000L))
+                .gostei(random.nextInt(100))
+                .build();
+    }
+
+    /**
+     * Insere as mensagens {@code [inicio, fim)} da massa determinística direto por JDBC,
+     * em lotes, sem passar pelo serviço.
+     *
+     * @return ids inseridos, na ordem dos índices
+     */
+    public static UUID[] popular(JdbcTemplate jdbcTemplate, long semente, int inicio, int fim, int usuarios) {
+        return popular(jdbcTemplate, semente, IntStream.range(inicio, fim).toArray(), usuarios);
+    }
+
+    /**
+     * Insere as mensagens da massa determinística com os índices informados, por exemplo para
+     * repor mensagens removidas durante um benchmark.
+     */
+    public static UUID[] popular(JdbcTemplate jdbcTemplate, long semente, int[] indices, int usuarios) {
+        var ids = new UUID[indices.length];
+        var lote = new ArrayList<Object[]>(TAMANHO_LOTE_INSERCAO);
+        for (int i = 0; i < indices.length; i++) {
+            var mensagem = gerarMensagem(semente, indices[i], usuarios);
+            ids[i] = mensagem.getId();
+            lote.add(new Object[]{mensagem.getId(), mensagem.getUsuario(), mensagem.getConteudo(),
+                    Timestamp.valueOf(mensagem.getDataCriacaoMensagem()), mensagem.getGostei()});
+            if (lote.size() == TAMANHO_LOTE_INSERCAO || i == indices.length - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO mensagem (id, usuario, conteudo, data_criacao_mensagem, gostei, versao) "
+                        + "VALUES (?, ?, ?, ?, ?, 0)", lote);
+                lote.clear();
+            }
+        }
+        return ids;
+    }
+
+    public static UUID[] popular(JdbcTemplate jdbcTemplate, long semente, int quantidade) {
+        return popular(jdbcTemplate, semente, 0, quantidade, Math.max(1, quantidade / 100));
+    }
 }